@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.input;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+
+/**
+ * Iterator over the entries of an {@link ArchiveInputStream}, each paired with a stream of its content, so that an
+ * archive may be read in memory without being decompressed to disk. For example:
+ * 
+ * <pre>
+ * try (ArchiveEntryIterator entries = Decompress.archive(source).withZip().stream()) {
+ * 	for (ArchiveEntryIterator.Entry entry : entries) {
+ * 		if (entry.getArchiveEntry().getName().endsWith(".json")) {
+ * 			parse(entry.getInputStream());
+ * 		}
+ * 	}
+ * }
+ * </pre>
+ * 
+ * <p>
+ * Entries are read in order from the underlying stream, so an entry's content may only be read until the iterator
+ * advances past it; its stream then reports the end of its content. Entries whose content is not read are skipped
+ * without being buffered. Since {@link Iterator} does not allow checked exceptions, IO exceptions raised while
+ * advancing are wrapped in {@link RuntimeException}s.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveEntryIterator implements Iterator<ArchiveEntryIterator.Entry>, Iterable<ArchiveEntryIterator.Entry>, Closeable {
+
+	private static final int MAX_EMPTY_READS = 1024;
+
+	private final ArchiveInputStream archiveInputStream;
+	private Entry current;
+	private Entry next;
+	private boolean finished;
+
+	/**
+	 * @param archiveInputStream
+	 *            Non-null archive input stream, which is closed by {@link #close()}
+	 */
+	public ArchiveEntryIterator(ArchiveInputStream archiveInputStream) {
+		verifyNonNull(archiveInputStream, "Archive input stream must be non-null");
+		this.archiveInputStream = archiveInputStream;
+		this.current = null;
+		this.next = null;
+		this.finished = false;
+	}
+
+	/**
+	 * Returns this iterator, so that the entries may be read in a for-each loop. The entries may only be iterated once.
+	 */
+	@Override
+	public Iterator<Entry> iterator() {
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			if (current != null) {
+				current.inputStream.ended = true;
+			}
+			try {
+				ArchiveEntry archiveEntry = archiveInputStream.getNextEntry();
+				if (archiveEntry != null) {
+					next = new Entry(archiveEntry, new EntryInputStream());
+				}
+				else {
+					finished = true;
+				}
+			}
+			catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return next != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Entry next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		current = next;
+		next = null;
+		return current;
+	}
+
+	/**
+	 * Unsupported, since archives are read-only.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Archive entries cannot be removed");
+	}
+
+	/**
+	 * Closes the underlying archive input stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		archiveInputStream.close();
+	}
+
+	/**
+	 * An archive entry paired with a stream of its content.
+	 */
+	public static class Entry {
+
+		private final ArchiveEntry archiveEntry;
+		private final EntryInputStream inputStream;
+
+		private Entry(ArchiveEntry archiveEntry, EntryInputStream inputStream) {
+			this.archiveEntry = archiveEntry;
+			this.inputStream = inputStream;
+		}
+
+		/**
+		 * Returns the archive entry, whose type is specific to the archive.
+		 */
+		public ArchiveEntry getArchiveEntry() {
+			return archiveEntry;
+		}
+
+		/**
+		 * Returns the stream of the entry's content, which ends with the entry and is valid until the iterator
+		 * advances. Closing it does not close the archive.
+		 */
+		public InputStream getInputStream() {
+			return inputStream;
+		}
+	}
+
+	/**
+	 * Stream of the content of the current entry, read directly from the {@link #archiveInputStream}.
+	 */
+	private class EntryInputStream extends InputStream {
+
+		private boolean ended;
+		private final byte[] single;
+		private byte[] scratch;
+		private int scratchPosition;
+		private int scratchLimit;
+
+		private EntryInputStream() {
+			this.ended = false;
+			this.single = new byte[1];
+			this.scratch = new byte[0];
+			this.scratchPosition = 0;
+			this.scratchLimit = 0;
+		}
+
+		/**
+		 * {@inheritDoc} Fails if the archive stream keeps returning no bytes, rather than blocking forever.
+		 */
+		@Override
+		public int read() throws IOException {
+			for (int emptyReads = 0; emptyReads < MAX_EMPTY_READS; emptyReads++) {
+				int length = read(single, 0, 1);
+				if (length != 0) {
+					return length < 0 ? -1 : single[0] & 0xFF;
+				}
+			}
+			throw new IOException("Archive stream returned no content after " + MAX_EMPTY_READS + " reads");
+		}
+
+		/**
+		 * {@inheritDoc} Reads into a part of the array go through a scratch array sized to the largest such read; bytes
+		 * read beyond the requested length are returned by the following reads.
+		 */
+		@Override
+		public int read(byte[] content, int offset, int length) throws IOException {
+			if (ended) {
+				return -1;
+			}
+			if (length == 0) {
+				return 0;
+			}
+			if (scratchPosition < scratchLimit) {
+				int read = Math.min(length, scratchLimit - scratchPosition);
+				System.arraycopy(scratch, scratchPosition, content, offset, read);
+				scratchPosition += read;
+				return read;
+			}
+
+			int read = 0;
+			if (offset == 0 && length == content.length) {
+				read = archiveInputStream.read(content);
+			}
+			else {
+				if (scratch.length < length) {
+					scratch = new byte[length];
+				}
+				int filled = archiveInputStream.read(scratch);
+				read = Math.min(filled, length);
+				if (read > 0) {
+					System.arraycopy(scratch, 0, content, offset, read);
+					scratchPosition = read;
+					scratchLimit = filled;
+				}
+			}
+			if (read < 0) {
+				ended = true;
+			}
+			return read;
+		}
+
+		@Override
+		public void close() {
+			ended = true;
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.output;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+
+/**
+ * Uncompressed content waiting to be compressed, e.g. on a worker thread or once its size is known, held in memory
+ * until it exceeds a given size and in a temporary file thereafter.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveEntryBuffer implements InputStreamSupplier {
+
+	private final int maxBufferedSize;
+	private ByteArrayOutputStream memory;
+	private File file;
+	private OutputStream fileOutputStream;
+	private long size;
+
+	/**
+	 * @param maxBufferedSize
+	 *            Largest content, in bytes, which is held in memory
+	 */
+	public ArchiveEntryBuffer(int maxBufferedSize) {
+		this.maxBufferedSize = maxBufferedSize;
+		this.memory = new ByteArrayOutputStream();
+		this.file = null;
+		this.fileOutputStream = null;
+		this.size = 0;
+	}
+
+	/**
+	 * Appends content to the buffer, moving it to a temporary file once it exceeds the largest size held in memory.
+	 */
+	public void write(byte[] content, int offset, int length) throws IOException {
+		if (file == null && memory.size() + length > maxBufferedSize) {
+			file = File.createTempFile("parallelentry", ".tmp");
+			file.deleteOnExit();
+			fileOutputStream = new BufferedOutputStream(new FileOutputStream(file));
+			memory.writeTo(fileOutputStream);
+			memory = null;
+		}
+		if (file != null) {
+			fileOutputStream.write(content, offset, length);
+		}
+		else {
+			memory.write(content, offset, length);
+		}
+		size += length;
+	}
+
+	/**
+	 * Returns the number of bytes written to the buffer.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Finishes writing to the buffer, after which its content may be read by {@link #get()}.
+	 */
+	public void close() throws IOException {
+		if (fileOutputStream != null) {
+			fileOutputStream.close();
+		}
+	}
+
+	/**
+	 * Deletes the temporary file, if any, which holds the buffer's content.
+	 */
+	public void delete() {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	@Override
+	public InputStream get() {
+		if (file == null) {
+			return new ByteArrayInputStream(memory.toByteArray());
+		}
+		try {
+			return new FileInputStream(file);
+		}
+		catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
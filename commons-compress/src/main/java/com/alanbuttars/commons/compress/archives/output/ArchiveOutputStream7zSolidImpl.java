@@ -0,0 +1,729 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.output;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethodConfiguration;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+
+/**
+ * Implementation of {@link ArchiveOutputStream} which writes solid 7z archives, compressing each solid block (folder)
+ * concurrently. Entries are grouped into folders of at most a given number of bytes or files; a file is never split
+ * across folders. Each folder is compressed on a worker thread by its own {@link SevenZOutputFile} into a temporary
+ * single-entry archive, whose packed stream and coder description are then spliced, in order, into the target archive.
+ * The target archive's header is written on {@link #close()} and lists every folder and the files within it.
+ *
+ * <p>
+ * At most two folders per worker are held at any time; beyond that, {@link #closeArchiveEntry()} blocks until the
+ * oldest folder has been compressed and written. Folders larger than {@link #MAX_BUFFERED_FOLDER_SIZE} are buffered in
+ * a temporary file rather than in memory.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveOutputStream7zSolidImpl implements ArchiveOutputStream {
+
+	/**
+	 * Default number of uncompressed bytes per folder.
+	 */
+	public static final long DEFAULT_SOLID_BLOCK_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * Largest folder, in bytes, which is buffered in memory while it waits to be compressed.
+	 */
+	public static final int MAX_BUFFERED_FOLDER_SIZE = 8 * 1024 * 1024;
+
+	private static final byte[] SIGNATURE = new byte[] { '7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C, 0, 2 };
+	private static final int SIGNATURE_HEADER_SIZE = 32;
+
+	private static final int K_END = 0x00;
+	private static final int K_HEADER = 0x01;
+	private static final int K_MAIN_STREAMS_INFO = 0x04;
+	private static final int K_FILES_INFO = 0x05;
+	private static final int K_PACK_INFO = 0x06;
+	private static final int K_UNPACK_INFO = 0x07;
+	private static final int K_SUBSTREAMS_INFO = 0x08;
+	private static final int K_SIZE = 0x09;
+	private static final int K_CRC = 0x0A;
+	private static final int K_FOLDER = 0x0B;
+	private static final int K_CODERS_UNPACK_SIZE = 0x0C;
+	private static final int K_NUM_UNPACK_STREAM = 0x0D;
+	private static final int K_EMPTY_STREAM = 0x0E;
+	private static final int K_EMPTY_FILE = 0x0F;
+	private static final int K_ANTI = 0x10;
+	private static final int K_NAME = 0x11;
+	private static final int K_C_TIME = 0x12;
+	private static final int K_A_TIME = 0x13;
+	private static final int K_M_TIME = 0x14;
+	private static final int K_WIN_ATTRIBUTES = 0x15;
+
+	private final FileChannel channel;
+	private final Iterable<? extends SevenZMethodConfiguration> contentMethods;
+	private final long solidBlockSize;
+	private final int solidBlockFiles;
+	private final ExecutorService executor;
+	private final Deque<Future<SevenZFolder>> pending;
+	private final int maxPending;
+	private final List<SevenZArchiveEntry> entries;
+	private final List<SevenZFolder> folders;
+
+	private SevenZArchiveEntry entry;
+	private CRC32 entryCrc;
+	private long entrySize;
+	private ArchiveEntryBuffer folderBuffer;
+	private List<SevenZArchiveEntry> folderEntries;
+	private long folderSize;
+	private boolean closed;
+
+	/**
+	 * @param file
+	 *            Non-null file to which the archive is written
+	 * @param contentMethods
+	 *            Non-null content methods with which each folder is compressed. See
+	 *            {@link SevenZOutputFile#setContentMethods(Iterable)}
+	 * @param solidBlockSize
+	 *            Positive number of uncompressed bytes after which a folder is closed
+	 * @param solidBlockFiles
+	 *            Positive number of files after which a folder is closed
+	 * @param threads
+	 *            Positive number of threads which compress folders
+	 * @throws IOException
+	 *             If the file cannot be opened
+	 */
+	public ArchiveOutputStream7zSolidImpl(File file, Iterable<? extends SevenZMethodConfiguration> contentMethods, long solidBlockSize, int solidBlockFiles, int threads)
+			throws IOException {
+		verifyNonNull(file, "File must be non-null");
+		verifyNonNull(contentMethods, "Content methods must be non-null");
+		verifyPositive(solidBlockSize, "Solid block size must be positive");
+		verifyPositive(solidBlockFiles, "Solid block files must be positive");
+		verifyPositive(threads, "Threads must be positive");
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.channel.position(SIGNATURE_HEADER_SIZE);
+		this.contentMethods = contentMethods;
+		this.solidBlockSize = solidBlockSize;
+		this.solidBlockFiles = solidBlockFiles;
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.pending = new ArrayDeque<>();
+		this.maxPending = threads * 2;
+		this.entries = new ArrayList<>();
+		this.folders = new ArrayList<>();
+		this.entryCrc = new CRC32();
+		this.folderEntries = new ArrayList<>();
+		this.folderSize = 0;
+		this.closed = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void putArchiveEntry(ArchiveEntry entry) throws IOException {
+		verify(entry instanceof SevenZArchiveEntry, "Entry must be a 7z archive entry");
+		if (this.entry != null) {
+			closeArchiveEntry();
+		}
+		this.entry = (SevenZArchiveEntry) entry;
+		this.entries.add(this.entry);
+		this.entryCrc.reset();
+		this.entrySize = 0;
+	}
+
+	/**
+	 * {@inheritDoc} Hands the current folder to a worker thread once it is full.
+	 */
+	@Override
+	public void closeArchiveEntry() throws IOException {
+		if (entry == null) {
+			throw new IOException("No current entry to close");
+		}
+		if (entrySize > 0) {
+			entry.setHasStream(true);
+			entry.setSize(entrySize);
+			entry.setCrcValue(entryCrc.getValue());
+			entry.setHasCrc(true);
+			folderEntries.add(entry);
+			folderSize += entrySize;
+			if (folderSize >= solidBlockSize || folderEntries.size() >= solidBlockFiles) {
+				submitFolder();
+			}
+		}
+		else {
+			entry.setHasStream(false);
+			entry.setSize(0);
+			entry.setHasCrc(false);
+		}
+		entry = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] content, int offset, int length) throws IOException {
+		if (entry == null) {
+			throw new IOException("No current entry");
+		}
+		if (folderBuffer == null) {
+			folderBuffer = new ArchiveEntryBuffer(MAX_BUFFERED_FOLDER_SIZE);
+		}
+		folderBuffer.write(content, offset, length);
+		entryCrc.update(content, offset, length);
+		entrySize += length;
+	}
+
+	/**
+	 * {@inheritDoc} This implementation does nothing, since folders are written as they are compressed.
+	 */
+	@Override
+	public void flush() throws IOException {
+	}
+
+	/**
+	 * {@inheritDoc} Compresses the final folder, waits for every folder to be written and writes the archive header.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (entry != null) {
+				closeArchiveEntry();
+			}
+			if (!folderEntries.isEmpty()) {
+				submitFolder();
+			}
+			while (!pending.isEmpty()) {
+				writeFolder(waitFor(pending.poll()));
+			}
+			writeHeader();
+		}
+		finally {
+			executor.shutdownNow();
+			channel.close();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Closeable getStream() {
+		return channel;
+	}
+
+	private void submitFolder() throws IOException {
+		folderBuffer.close();
+		while (pending.size() >= maxPending) {
+			writeFolder(waitFor(pending.poll()));
+		}
+		pending.add(executor.submit(compressFolder(folderBuffer, folderEntries)));
+		folderBuffer = null;
+		folderEntries = new ArrayList<>();
+		folderSize = 0;
+	}
+
+	private Callable<SevenZFolder> compressFolder(final ArchiveEntryBuffer buffer, final List<SevenZArchiveEntry> entries) {
+		return new Callable<SevenZFolder>() {
+
+			@Override
+			public SevenZFolder call() throws Exception {
+				File file = File.createTempFile("sevenzfolder", ".tmp");
+				file.deleteOnExit();
+				try {
+					try (SevenZOutputFile sevenZFile = new SevenZOutputFile(file); InputStream inputStream = buffer.get()) {
+						sevenZFile.setContentMethods(contentMethods);
+						SevenZArchiveEntry folderEntry = new SevenZArchiveEntry();
+						folderEntry.setName(file.getName());
+						sevenZFile.putArchiveEntry(folderEntry);
+						byte[] bytes = new byte[64 * 1024];
+						int read;
+						while ((read = inputStream.read(bytes)) != -1) {
+							sevenZFile.write(bytes, 0, read);
+						}
+						sevenZFile.closeArchiveEntry();
+					}
+					return readFolder(file, entries);
+				}
+				catch (IOException | RuntimeException e) {
+					file.delete();
+					throw e;
+				}
+				finally {
+					buffer.delete();
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Reads the packed stream's size, the folder record and the coders' unpack sizes from the header of a single-entry
+	 * archive written by {@link SevenZOutputFile}.
+	 */
+	private static SevenZFolder readFolder(File file, List<SevenZArchiveEntry> entries) throws IOException {
+		byte[] header;
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			byte[] signatureHeader = new byte[SIGNATURE_HEADER_SIZE];
+			randomAccessFile.readFully(signatureHeader);
+			ByteBuffer signatureBuffer = ByteBuffer.wrap(signatureHeader).order(ByteOrder.LITTLE_ENDIAN);
+			long nextHeaderOffset = signatureBuffer.getLong(12);
+			long nextHeaderSize = signatureBuffer.getLong(20);
+			header = new byte[(int) nextHeaderSize];
+			randomAccessFile.seek(SIGNATURE_HEADER_SIZE + nextHeaderOffset);
+			randomAccessFile.readFully(header);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+		expect(buffer, K_HEADER);
+		expect(buffer, K_MAIN_STREAMS_INFO);
+		expect(buffer, K_PACK_INFO);
+		readUint64(buffer);
+		if (readUint64(buffer) != 1) {
+			throw new IOException("Expected a single packed stream");
+		}
+		expect(buffer, K_SIZE);
+		long packSize = readUint64(buffer);
+		int nid = buffer.get();
+		if (nid == K_CRC) {
+			buffer.get();
+			buffer.getInt();
+			nid = buffer.get();
+		}
+		if (nid != K_END) {
+			throw new IOException("Unexpected property " + nid + " in pack info");
+		}
+
+		expect(buffer, K_UNPACK_INFO);
+		expect(buffer, K_FOLDER);
+		if (readUint64(buffer) != 1 || buffer.get() != 0) {
+			throw new IOException("Expected a single folder");
+		}
+		int folderStart = buffer.position();
+		long numCoders = readUint64(buffer);
+		long totalInStreams = 0;
+		long totalOutStreams = 0;
+		for (long i = 0; i < numCoders; i++) {
+			int flags = buffer.get() & 0xFF;
+			buffer.position(buffer.position() + (flags & 0x0F));
+			if ((flags & 0x10) != 0) {
+				totalInStreams += readUint64(buffer);
+				totalOutStreams += readUint64(buffer);
+			}
+			else {
+				totalInStreams++;
+				totalOutStreams++;
+			}
+			if ((flags & 0x20) != 0) {
+				long propertiesSize = readUint64(buffer);
+				buffer.position(buffer.position() + (int) propertiesSize);
+			}
+		}
+		long numBindPairs = totalOutStreams - 1;
+		for (long i = 0; i < numBindPairs * 2; i++) {
+			readUint64(buffer);
+		}
+		long numPackedStreams = totalInStreams - numBindPairs;
+		if (numPackedStreams > 1) {
+			for (long i = 0; i < numPackedStreams; i++) {
+				readUint64(buffer);
+			}
+		}
+		byte[] folderRecord = new byte[buffer.position() - folderStart];
+		System.arraycopy(header, folderStart, folderRecord, 0, folderRecord.length);
+
+		expect(buffer, K_CODERS_UNPACK_SIZE);
+		int unpackSizesStart = buffer.position();
+		for (long i = 0; i < totalOutStreams; i++) {
+			readUint64(buffer);
+		}
+		byte[] unpackSizes = new byte[buffer.position() - unpackSizesStart];
+		System.arraycopy(header, unpackSizesStart, unpackSizes, 0, unpackSizes.length);
+
+		return new SevenZFolder(file, packSize, folderRecord, unpackSizes, entries);
+	}
+
+	private void writeFolder(SevenZFolder folder) throws IOException {
+		try (FileChannel source = FileChannel.open(folder.file.toPath(), StandardOpenOption.READ)) {
+			long position = SIGNATURE_HEADER_SIZE;
+			long remaining = folder.packSize;
+			while (remaining > 0) {
+				long transferred = source.transferTo(position, remaining, channel);
+				if (transferred <= 0) {
+					throw new IOException("Unexpected end of compressed folder");
+				}
+				position += transferred;
+				remaining -= transferred;
+			}
+		}
+		finally {
+			folder.file.delete();
+		}
+		folders.add(folder);
+	}
+
+	private void writeHeader() throws IOException {
+		long headerPosition = channel.position();
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(headerBytes);
+		header.write(K_HEADER);
+		header.write(K_MAIN_STREAMS_INFO);
+		if (!folders.isEmpty()) {
+			writePackInfo(header);
+			writeUnpackInfo(header);
+		}
+		writeSubStreamsInfo(header);
+		header.write(K_END);
+		writeFilesInfo(header);
+		header.write(K_END);
+		header.flush();
+		byte[] headerArray = headerBytes.toByteArray();
+		writeFully(ByteBuffer.wrap(headerArray));
+
+		ByteBuffer startHeader = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+		startHeader.putLong(headerPosition - SIGNATURE_HEADER_SIZE);
+		startHeader.putLong(headerArray.length);
+		startHeader.putInt(crc(headerArray));
+		ByteBuffer signatureHeader = ByteBuffer.allocate(SIGNATURE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		signatureHeader.put(SIGNATURE);
+		signatureHeader.putInt(crc(startHeader.array()));
+		signatureHeader.put(startHeader.array());
+		signatureHeader.flip();
+		channel.position(0);
+		writeFully(signatureHeader);
+	}
+
+	private void writePackInfo(DataOutputStream header) throws IOException {
+		header.write(K_PACK_INFO);
+		writeUint64(header, 0);
+		writeUint64(header, folders.size());
+		header.write(K_SIZE);
+		for (SevenZFolder folder : folders) {
+			writeUint64(header, folder.packSize);
+		}
+		header.write(K_END);
+	}
+
+	private void writeUnpackInfo(DataOutputStream header) throws IOException {
+		header.write(K_UNPACK_INFO);
+		header.write(K_FOLDER);
+		writeUint64(header, folders.size());
+		header.write(0);
+		for (SevenZFolder folder : folders) {
+			header.write(folder.folderRecord);
+		}
+		header.write(K_CODERS_UNPACK_SIZE);
+		for (SevenZFolder folder : folders) {
+			header.write(folder.unpackSizes);
+		}
+		header.write(K_END);
+	}
+
+	private void writeSubStreamsInfo(DataOutputStream header) throws IOException {
+		header.write(K_SUBSTREAMS_INFO);
+		boolean solid = false;
+		for (SevenZFolder folder : folders) {
+			solid |= folder.entries.size() > 1;
+		}
+		if (solid) {
+			header.write(K_NUM_UNPACK_STREAM);
+			for (SevenZFolder folder : folders) {
+				writeUint64(header, folder.entries.size());
+			}
+			header.write(K_SIZE);
+			for (SevenZFolder folder : folders) {
+				for (int i = 0; i < folder.entries.size() - 1; i++) {
+					writeUint64(header, folder.entries.get(i).getSize());
+				}
+			}
+		}
+		if (!folders.isEmpty()) {
+			header.write(K_CRC);
+			header.write(1);
+			for (SevenZFolder folder : folders) {
+				for (SevenZArchiveEntry folderEntry : folder.entries) {
+					header.writeInt(Integer.reverseBytes((int) folderEntry.getCrcValue()));
+				}
+			}
+		}
+		header.write(K_END);
+	}
+
+	private void writeFilesInfo(DataOutputStream header) throws IOException {
+		header.write(K_FILES_INFO);
+		writeUint64(header, entries.size());
+
+		List<SevenZArchiveEntry> emptyStreamEntries = new ArrayList<>();
+		boolean[] emptyStreams = new boolean[entries.size()];
+		for (int i = 0; i < entries.size(); i++) {
+			if (!entries.get(i).hasStream()) {
+				emptyStreams[i] = true;
+				emptyStreamEntries.add(entries.get(i));
+			}
+		}
+		boolean[] emptyFiles = new boolean[emptyStreamEntries.size()];
+		boolean[] antiItems = new boolean[emptyStreamEntries.size()];
+		for (int i = 0; i < emptyStreamEntries.size(); i++) {
+			emptyFiles[i] = !emptyStreamEntries.get(i).isDirectory();
+			antiItems[i] = emptyStreamEntries.get(i).isAntiItem();
+		}
+		writeBitProperty(header, K_EMPTY_STREAM, emptyStreams);
+		writeBitProperty(header, K_EMPTY_FILE, emptyFiles);
+		writeBitProperty(header, K_ANTI, antiItems);
+
+		ByteArrayOutputStream names = new ByteArrayOutputStream();
+		names.write(0);
+		for (SevenZArchiveEntry archiveEntry : entries) {
+			names.write(archiveEntry.getName().getBytes("UTF-16LE"));
+			names.write(0);
+			names.write(0);
+		}
+		header.write(K_NAME);
+		writeUint64(header, names.size());
+		names.writeTo(header);
+
+		boolean[] hasCreationDates = new boolean[entries.size()];
+		boolean[] hasAccessDates = new boolean[entries.size()];
+		boolean[] hasLastModifiedDates = new boolean[entries.size()];
+		boolean[] hasWindowsAttributes = new boolean[entries.size()];
+		long[] creationDates = new long[entries.size()];
+		long[] accessDates = new long[entries.size()];
+		long[] lastModifiedDates = new long[entries.size()];
+		long[] windowsAttributes = new long[entries.size()];
+		for (int i = 0; i < entries.size(); i++) {
+			SevenZArchiveEntry archiveEntry = entries.get(i);
+			if (archiveEntry.getHasCreationDate()) {
+				hasCreationDates[i] = true;
+				creationDates[i] = ntfsTime(archiveEntry.getCreationDate());
+			}
+			if (archiveEntry.getHasAccessDate()) {
+				hasAccessDates[i] = true;
+				accessDates[i] = ntfsTime(archiveEntry.getAccessDate());
+			}
+			if (archiveEntry.getHasLastModifiedDate()) {
+				hasLastModifiedDates[i] = true;
+				lastModifiedDates[i] = ntfsTime(archiveEntry.getLastModifiedDate());
+			}
+			if (archiveEntry.getHasWindowsAttributes()) {
+				hasWindowsAttributes[i] = true;
+				windowsAttributes[i] = archiveEntry.getWindowsAttributes();
+			}
+		}
+		writeValueProperty(header, K_C_TIME, hasCreationDates, creationDates, 8);
+		writeValueProperty(header, K_A_TIME, hasAccessDates, accessDates, 8);
+		writeValueProperty(header, K_M_TIME, hasLastModifiedDates, lastModifiedDates, 8);
+		writeValueProperty(header, K_WIN_ATTRIBUTES, hasWindowsAttributes, windowsAttributes, 4);
+		header.write(K_END);
+	}
+
+	/**
+	 * Writes a property consisting of a bit vector, if any bit is set.
+	 */
+	private static void writeBitProperty(DataOutputStream header, int nid, boolean[] bits) throws IOException {
+		if (!anySet(bits)) {
+			return;
+		}
+		ByteArrayOutputStream property = new ByteArrayOutputStream();
+		writeBits(property, bits);
+		header.write(nid);
+		writeUint64(header, property.size());
+		property.writeTo(header);
+	}
+
+	/**
+	 * Writes a property consisting of a little-endian value for each entry which defines one, if any entry does.
+	 */
+	private static void writeValueProperty(DataOutputStream header, int nid, boolean[] defined, long[] values, int valueSize) throws IOException {
+		if (!anySet(defined)) {
+			return;
+		}
+		ByteArrayOutputStream property = new ByteArrayOutputStream();
+		boolean allDefined = true;
+		for (boolean bit : defined) {
+			allDefined &= bit;
+		}
+		if (allDefined) {
+			property.write(1);
+		}
+		else {
+			property.write(0);
+			writeBits(property, defined);
+		}
+		property.write(0);
+		for (int i = 0; i < values.length; i++) {
+			if (defined[i]) {
+				for (int b = 0; b < valueSize; b++) {
+					property.write((int) (values[i] >>> (8 * b)));
+				}
+			}
+		}
+		header.write(nid);
+		writeUint64(header, property.size());
+		property.writeTo(header);
+	}
+
+	private static boolean anySet(boolean[] bits) {
+		for (boolean bit : bits) {
+			if (bit) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void writeBits(ByteArrayOutputStream outputStream, boolean[] bits) {
+		int cache = 0;
+		int shift = 7;
+		for (boolean bit : bits) {
+			cache |= (bit ? 1 : 0) << shift;
+			if (--shift < 0) {
+				outputStream.write(cache);
+				cache = 0;
+				shift = 7;
+			}
+		}
+		if (shift != 7) {
+			outputStream.write(cache);
+		}
+	}
+
+	private static long ntfsTime(Date date) {
+		return SevenZArchiveEntry.javaTimeToNtfsTime(date);
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static int crc(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return (int) crc.getValue();
+	}
+
+	private static void expect(ByteBuffer buffer, int nid) throws IOException {
+		int actual = buffer.get() & 0xFF;
+		if (actual != nid) {
+			throw new IOException("Expected property " + nid + " but found " + actual);
+		}
+	}
+
+	/**
+	 * Writes a 7z variable-length number, whose first byte's leading one bits count the bytes which follow.
+	 */
+	private static void writeUint64(DataOutputStream header, long value) throws IOException {
+		int first = 0;
+		int mask = 0x80;
+		int i;
+		for (i = 0; i < 8; i++) {
+			if (value < (1L << (7 * (i + 1)))) {
+				first |= (int) (value >>> (8 * i));
+				break;
+			}
+			first |= mask;
+			mask >>>= 1;
+		}
+		header.write(first);
+		for (; i > 0; i--) {
+			header.write((int) (0xFF & value));
+			value >>>= 8;
+		}
+	}
+
+	private static long readUint64(ByteBuffer buffer) {
+		long first = buffer.get() & 0xFF;
+		int mask = 0x80;
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			if ((first & mask) == 0) {
+				return value | ((first & (mask - 1)) << (8 * i));
+			}
+			long next = buffer.get() & 0xFF;
+			value |= next << (8 * i);
+			mask >>>= 1;
+		}
+		return value;
+	}
+
+	private static SevenZFolder waitFor(Future<SevenZFolder> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * A compressed folder, held as a temporary single-entry archive along with the parts of its header which describe
+	 * the folder.
+	 */
+	private static class SevenZFolder {
+
+		private final File file;
+		private final long packSize;
+		private final byte[] folderRecord;
+		private final byte[] unpackSizes;
+		private final List<SevenZArchiveEntry> entries;
+
+		SevenZFolder(File file, long packSize, byte[] folderRecord, byte[] unpackSizes, List<SevenZArchiveEntry> entries) {
+			this.file = file;
+			this.packSize = packSize;
+			this.folderRecord = folderRecord;
+			this.unpackSizes = unpackSizes;
+			this.entries = entries;
+		}
+	}
+
+}
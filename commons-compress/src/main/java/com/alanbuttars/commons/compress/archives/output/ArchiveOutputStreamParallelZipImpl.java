@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.output;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.jar.JarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.JarMarker;
+import org.apache.commons.compress.archivers.zip.ScatterZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryRequest;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+/**
+ * Implementation of {@link ArchiveOutputStream} which compresses zip entries concurrently, in the manner of
+ * {@link org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator}. The content of each entry is buffered
+ * until {@link #closeArchiveEntry()}, after which a worker thread deflates it into that thread's own
+ * {@link ScatterZipOutputStream}. On {@link #close()}, the scatter streams are copied into the target
+ * {@link ZipArchiveOutputStream} without being recompressed.
+ *
+ * <p>
+ * Entries appear in the archive grouped by the thread which compressed them, so their order may differ from the order
+ * in which they were written. At most two entries per thread wait to be compressed at any time; beyond that, the
+ * calling thread compresses entries itself. Entries larger than {@link #MAX_BUFFERED_ENTRY_SIZE} are buffered in a
+ * temporary file rather than in memory. Raw entries bypass {@link JarArchiveOutputStream#putArchiveEntry}, so when the
+ * target is a jar stream, the {@link JarMarker} is added to the first entry of the archive here.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveOutputStreamParallelZipImpl implements ArchiveOutputStream {
+
+	/**
+	 * Largest entry, in bytes, which is buffered in memory while it waits to be compressed.
+	 */
+	public static final int MAX_BUFFERED_ENTRY_SIZE = 8 * 1024 * 1024;
+
+	private final ZipArchiveOutputStream archiveOutputStream;
+	private final int method;
+	private final int level;
+	private final ExecutorService executor;
+	private final List<Future<Object>> futures;
+	private final List<ScatterZipOutputStream> scatterStreams;
+	private final Map<ScatterZipOutputStream, ZipArchiveEntry> firstEntries;
+	private final ThreadLocal<ScatterZipOutputStream> threadScatterStream;
+
+	private ZipArchiveEntry entry;
+	private ArchiveEntryBuffer entryBuffer;
+	private boolean closed;
+
+	/**
+	 * @param archiveOutputStream
+	 *            Non-null zip stream to which the compressed entries are finally written
+	 * @param method
+	 *            Compression method for entries which do not specify their own
+	 * @param level
+	 *            Deflate compression level
+	 * @param parallelism
+	 *            Positive number of threads which compress entries
+	 */
+	public ArchiveOutputStreamParallelZipImpl(ZipArchiveOutputStream archiveOutputStream, int method, int level, int parallelism) {
+		verifyNonNull(archiveOutputStream, "Archive output stream must be non-null");
+		verifyPositive(parallelism, "Parallelism must be positive");
+		this.archiveOutputStream = archiveOutputStream;
+		this.method = method;
+		this.level = level;
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(parallelism * 2),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		this.futures = new ArrayList<>();
+		this.scatterStreams = Collections.synchronizedList(new ArrayList<ScatterZipOutputStream>());
+		this.firstEntries = new ConcurrentHashMap<>();
+		this.threadScatterStream = new ThreadLocal<>();
+		this.closed = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void putArchiveEntry(ArchiveEntry entry) throws IOException {
+		verify(entry instanceof ZipArchiveEntry, "Entry must be a zip archive entry");
+		if (this.entry != null) {
+			closeArchiveEntry();
+		}
+		this.entry = (ZipArchiveEntry) entry;
+		if (this.entry.getMethod() == -1) {
+			this.entry.setMethod(method);
+		}
+		this.entryBuffer = new ArchiveEntryBuffer(MAX_BUFFERED_ENTRY_SIZE);
+	}
+
+	/**
+	 * {@inheritDoc} Hands the entry to a worker thread to be compressed.
+	 */
+	@Override
+	public void closeArchiveEntry() throws IOException {
+		if (entry == null) {
+			throw new IOException("No current entry to close");
+		}
+		entryBuffer.close();
+		futures.add(executor.submit(compressEntry(entry, entryBuffer)));
+		entry = null;
+		entryBuffer = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] content, int offset, int length) throws IOException {
+		if (entry == null) {
+			throw new IOException("No current entry");
+		}
+		entryBuffer.write(content, offset, length);
+	}
+
+	/**
+	 * {@inheritDoc} This implementation does nothing, since entries are written on {@link #close()}.
+	 */
+	@Override
+	public void flush() throws IOException {
+	}
+
+	/**
+	 * {@inheritDoc} Waits for every entry to be compressed, copies the compressed entries into the target stream and
+	 * closes it.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (entry != null) {
+				closeArchiveEntry();
+			}
+			for (Future<Object> future : futures) {
+				waitFor(future);
+			}
+			if (archiveOutputStream instanceof JarArchiveOutputStream && !scatterStreams.isEmpty()) {
+				firstEntries.get(scatterStreams.get(0)).addAsFirstExtraField(JarMarker.getInstance());
+			}
+			for (ScatterZipOutputStream scatterStream : scatterStreams) {
+				scatterStream.writeTo(archiveOutputStream);
+			}
+			archiveOutputStream.close();
+		}
+		finally {
+			executor.shutdownNow();
+			for (ScatterZipOutputStream scatterStream : scatterStreams) {
+				scatterStream.close();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Closeable getStream() {
+		return archiveOutputStream;
+	}
+
+	private Callable<Object> compressEntry(final ZipArchiveEntry entry, final ArchiveEntryBuffer entryBuffer) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				try {
+					ScatterZipOutputStream scatterStream = getScatterStream();
+					firstEntries.putIfAbsent(scatterStream, entry);
+					scatterStream.addArchiveEntry(ZipArchiveEntryRequest.createZipArchiveEntryRequest(entry, entryBuffer));
+				}
+				finally {
+					entryBuffer.delete();
+				}
+				return null;
+			}
+
+		};
+	}
+
+	private ScatterZipOutputStream getScatterStream() throws IOException {
+		ScatterZipOutputStream scatterStream = threadScatterStream.get();
+		if (scatterStream == null) {
+			File scatterFile = File.createTempFile("parallelscatter", ".tmp");
+			scatterFile.deleteOnExit();
+			scatterStream = ScatterZipOutputStream.fileBased(scatterFile, level);
+			scatterStreams.add(scatterStream);
+			threadScatterStream.set(scatterStream);
+		}
+		return scatterStream;
+	}
+
+	private void waitFor(Future<Object> future) throws IOException {
+		try {
+			future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing", e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException && cause.getCause() instanceof IOException) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+}
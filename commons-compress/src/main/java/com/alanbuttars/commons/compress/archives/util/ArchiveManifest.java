@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.util;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alanbuttars.commons.compress.util.BufferPool;
+
+/**
+ * Record of the files within a directory, as it was when archived, from which a later archive of the directory may be
+ * made incremental in the manner of GNU tar's <code>--listed-incremental</code>. For every file, the manifest holds its
+ * entry name, size, last modified time and, optionally, a SHA-256 hash of its content. It is kept in a compact sidecar
+ * file; see {@link #write(File)} and {@link #read(File)}.
+ * 
+ * <p>
+ * An incremental archive holds only the files which are new or changed since the previous manifest, followed by an
+ * entry named {@link #DELETIONS_ENTRY_NAME} listing, one per line, the files which have since been deleted. See
+ * {@link Archives#compressIncremental} and {@link Archives#applyDeletions(File)}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveManifest {
+
+	/**
+	 * Name of the entry of an incremental archive which lists the files deleted since the previous archive.
+	 */
+	public static final String DELETIONS_ENTRY_NAME = ".incremental/deleted";
+
+	private static final int MAGIC = 0x414D414E;
+	private static final int VERSION = 1;
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private final Map<String, Entry> entries;
+
+	private ArchiveManifest(Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * Returns an empty manifest, against which every file is new.
+	 */
+	public static ArchiveManifest empty() {
+		return new ArchiveManifest(new LinkedHashMap<String, Entry>());
+	}
+
+	/**
+	 * Records the files within a directory. Only the files are stat'ed, except when <code>hashContents</code> is
+	 * <code>true</code>: then the content of every file whose size or last modified time differs from the
+	 * <code>previous</code> manifest is hashed, so that a file which was merely touched is not considered changed.
+	 * 
+	 * @param source
+	 *            non-null directory
+	 * @param previous
+	 *            non-null manifest of the previous archive, from which unchanged hashes are carried over
+	 * @param hashContents
+	 *            whether to record the hash of every file's content
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static ArchiveManifest create(File source, ArchiveManifest previous, boolean hashContents) throws IOException {
+		verifyNonNull(source, "Source must be non-null");
+		verifyNonNull(previous, "Previous manifest must be non-null");
+
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		for (File file : Archives.listFiles(source, new ArrayList<File>())) {
+			String name = Archives.getEntryName(source, file);
+			long size = file.length();
+			long lastModified = file.lastModified();
+
+			byte[] hash = null;
+			if (hashContents) {
+				Entry previousEntry = previous.getEntry(name);
+				if (previousEntry != null && previousEntry.getHash() != null && previousEntry.getSize() == size
+						&& previousEntry.getLastModified() == lastModified) {
+					hash = previousEntry.getHash();
+				}
+				else {
+					hash = hash(file);
+				}
+			}
+			entries.put(name, new Entry(name, size, lastModified, hash));
+		}
+		return new ArchiveManifest(entries);
+	}
+
+	/**
+	 * Reads a manifest from a sidecar file written by {@link #write(File)}.
+	 * 
+	 * @param manifest
+	 *            non-null sidecar file
+	 * @throws IOException
+	 *             on any IO exception, including a file which is not a manifest
+	 */
+	public static ArchiveManifest read(File manifest) throws IOException {
+		verifyNonNull(manifest, "Manifest must be non-null");
+		try (DataInputStream inputStream = new DataInputStream(BufferPool.shared().bufferedInputStream(new FileInputStream(manifest),
+				BufferPool.DEFAULT_BUFFER_SIZE))) {
+			if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+				throw new IOException("File " + manifest.getAbsolutePath() + " is not an archive manifest");
+			}
+			int entryCount = inputStream.readInt();
+			Map<String, Entry> entries = new LinkedHashMap<>();
+			for (int i = 0; i < entryCount; i++) {
+				String name = inputStream.readUTF();
+				long size = inputStream.readLong();
+				long lastModified = inputStream.readLong();
+				byte[] hash = null;
+				int hashLength = inputStream.readUnsignedByte();
+				if (hashLength > 0) {
+					hash = new byte[hashLength];
+					inputStream.readFully(hash);
+				}
+				entries.put(name, new Entry(name, size, lastModified, hash));
+			}
+			return new ArchiveManifest(entries);
+		}
+		catch (EOFException e) {
+			throw new IOException("File " + manifest.getAbsolutePath() + " is not an archive manifest", e);
+		}
+	}
+
+	/**
+	 * Writes this manifest to a sidecar file, which holds the name, size, last modified time and hash of every file.
+	 * 
+	 * @param manifest
+	 *            non-null sidecar file
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public void write(File manifest) throws IOException {
+		verifyNonNull(manifest, "Manifest must be non-null");
+		try (DataOutputStream outputStream = new DataOutputStream(BufferPool.shared().bufferedOutputStream(new FileOutputStream(manifest),
+				BufferPool.DEFAULT_BUFFER_SIZE))) {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+			outputStream.writeInt(entries.size());
+			for (Entry entry : entries.values()) {
+				outputStream.writeUTF(entry.getName());
+				outputStream.writeLong(entry.getSize());
+				outputStream.writeLong(entry.getLastModified());
+				if (entry.getHash() != null) {
+					outputStream.writeByte(entry.getHash().length);
+					outputStream.write(entry.getHash());
+				}
+				else {
+					outputStream.writeByte(0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the recorded files in the order in which they are archived.
+	 */
+	public Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	/**
+	 * Returns the recorded file of the given entry name, or <code>null</code> if there is none.
+	 */
+	public Entry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * Returns the entry names of the files which are new or changed since the <code>previous</code> manifest. A file is
+	 * changed if its size differs or, when both manifests hold its hash, if its hash differs, and otherwise if its last
+	 * modified time differs.
+	 * 
+	 * @param previous
+	 *            non-null manifest of the previous archive
+	 */
+	public Set<String> getChangedEntryNames(ArchiveManifest previous) {
+		Set<String> changed = new LinkedHashSet<>();
+		for (Entry entry : entries.values()) {
+			Entry previousEntry = previous.getEntry(entry.getName());
+			if (previousEntry == null || previousEntry.getSize() != entry.getSize()) {
+				changed.add(entry.getName());
+			}
+			else if (previousEntry.getHash() != null && entry.getHash() != null) {
+				if (!Arrays.equals(previousEntry.getHash(), entry.getHash())) {
+					changed.add(entry.getName());
+				}
+			}
+			else if (previousEntry.getLastModified() != entry.getLastModified()) {
+				changed.add(entry.getName());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns the entry names of the files which are recorded by the <code>previous</code> manifest but not by this one.
+	 * 
+	 * @param previous
+	 *            non-null manifest of the previous archive
+	 */
+	public List<String> getDeletedEntryNames(ArchiveManifest previous) {
+		List<String> deleted = new ArrayList<>();
+		for (Entry previousEntry : previous.getEntries()) {
+			if (!entries.containsKey(previousEntry.getName())) {
+				deleted.add(previousEntry.getName());
+			}
+		}
+		return deleted;
+	}
+
+	private static byte[] hash(File file) throws IOException {
+		MessageDigest digest = null;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(BufferPool.DEFAULT_BUFFER_SIZE);
+		try (InputStream inputStream = new FileInputStream(file)) {
+			int length = 0;
+			while ((length = inputStream.read(content)) > 0) {
+				digest.update(content, 0, length);
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * A file recorded by a manifest.
+	 */
+	public static class Entry {
+
+		private final String name;
+		private final long size;
+		private final long lastModified;
+		private final byte[] hash;
+
+		Entry(String name, long size, long lastModified, byte[] hash) {
+			this.name = name;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+
+		/**
+		 * Returns the name of the file's entry within an archive.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the size of the file, in bytes.
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the last modified time of the file, in milliseconds since the epoch.
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Returns the SHA-256 hash of the file's content, or <code>null</code> if it was not hashed.
+		 */
+		public byte[] getHash() {
+			return hash;
+		}
+	}
+
+}
@@ -15,21 +15,74 @@
  */
 package com.alanbuttars.commons.compress.archives.util;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ar.ArArchiveInputStream;
+import org.apache.commons.compress.archivers.arj.ArjArchiveInputStream;
+import org.apache.commons.compress.archivers.cpio.CpioArchiveEntry;
+import org.apache.commons.compress.archivers.cpio.CpioArchiveInputStream;
+import org.apache.commons.compress.archivers.dump.DumpArchiveInputStream;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethodConfiguration;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.tar.TarUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.tukaani.xz.LZMA2Options;
 
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
+import com.alanbuttars.commons.compress.archives.output.ArchiveEntryBuffer;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 import com.alanbuttars.commons.compress.stub.compress.Compress;
 import com.alanbuttars.commons.compress.stub.decompress.Decompress;
+import com.alanbuttars.commons.compress.util.BufferPool;
+import com.alanbuttars.commons.compress.util.CloseShieldInputStream;
+import com.alanbuttars.commons.compress.util.CloseShieldOutputStream;
 import com.alanbuttars.commons.util.functions.BiFunction;
 import com.alanbuttars.commons.util.functions.Function;
 
@@ -52,82 +105,1346 @@ public class Archives {
 	public static String TAR = "tar";
 	public static String ZIP = "zip";
 
+	/**
+	 * Largest file, in bytes, which the parallel archive writer reads into memory on a worker thread. Larger files are
+	 * streamed into the archive by the writer thread.
+	 */
+	public static final int MAX_BUFFERED_FILE_SIZE = 1024 * 1024;
+
+	/**
+	 * Number of leading bytes needed by {@link #detect(byte[], int)} to identify every archive type.
+	 */
+	public static final int SIGNATURE_SIZE = 1024;
+
+	/**
+	 * Identifies the type of an archive by its leading bytes. {@link #JAR} archives are identified as {@link #ZIP},
+	 * which they extend, and tar archives without a <code>ustar</code> magic are identified by their header checksum.
+	 * 
+	 * @param signature
+	 *            non-null leading bytes of the archive, ideally {@link #SIGNATURE_SIZE} of them
+	 * @param length
+	 *            number of valid bytes in <code>signature</code>
+	 * @return The archive type, or <code>null</code> if the bytes do not begin a known archive
+	 */
+	public static String detect(byte[] signature, int length) {
+		if (ZipArchiveInputStream.matches(signature, length)) {
+			return ZIP;
+		}
+		else if (ArArchiveInputStream.matches(signature, length)) {
+			return AR;
+		}
+		else if (CpioArchiveInputStream.matches(signature, length)) {
+			return CPIO;
+		}
+		else if (ArjArchiveInputStream.matches(signature, length)) {
+			return ARJ;
+		}
+		else if (SevenZFile.matches(signature, length)) {
+			return SEVENZ;
+		}
+		else if (DumpArchiveInputStream.matches(signature, length)) {
+			return DUMP;
+		}
+		else if (TarArchiveInputStream.matches(signature, length)
+				|| (length >= TarConstants.DEFAULT_RCDSIZE && TarUtils.verifyCheckSum(Arrays.copyOf(signature, TarConstants.DEFAULT_RCDSIZE)))) {
+			return TAR;
+		}
+		return null;
+	}
+
 	/**
 	 * Decompresses an archive to a directory destination.
 	 * 
-	 * @param fileType
-	 *            non-null file type
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code>'s input stream to an archive input stream
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveInputStream> decompressionFunction) throws IOException {
+		decompress(fileType, source, destination, decompressionFunction, 1);
+	}
+
+	/**
+	 * Decompresses an archive to a directory destination. When <code>threads</code> is greater than <code>1</code>,
+	 * extraction is pipelined: the calling thread reads entries out of the archive in chunks of at most
+	 * {@link #MAX_BUFFERED_FILE_SIZE} bytes and hands them to a pool of writer threads, which create directories and
+	 * write files while the next entries are being decompressed. At most four entries per thread, and four chunks per
+	 * entry, are buffered at a time.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code>'s input stream to an archive input stream
+	 * @param threads
+	 *            positive number of threads used to write the entries within the <code>source</code>
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveInputStream> decompressionFunction, //
+			int threads) throws IOException {
+		decompress(fileType, source, destination, decompressionFunction, threads, BufferPool.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Decompresses an archive to a directory destination as in
+	 * {@link #decompress(String, File, File, Function, int)}, reading entries through a buffer of
+	 * <code>bufferSize</code> bytes acquired from {@link BufferPool#shared()}.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code>'s input stream to an archive input stream
+	 * @param threads
+	 *            positive number of threads used to write the entries within the <code>source</code>
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveInputStream> decompressionFunction, //
+			int threads, //
+			int bufferSize) throws IOException {
+		try (ArchiveInputStream archiveInputStream = decompressionFunction.apply(source)) {
+			readFromArchive(archiveInputStream, destination, threads, bufferSize);
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Decompresses an archive stream to a directory destination as in
+	 * {@link #decompress(String, File, File, Function, int, int)}. The <code>source</code> is not closed.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null stream archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code> to an archive input stream
+	 * @param threads
+	 *            positive number of threads used to write the entries within the <code>source</code>
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			InputStream source, //
+			File destination, //
+			Function<InputStream, ArchiveInputStream> decompressionFunction, //
+			int threads, //
+			int bufferSize) throws IOException {
+		try (ArchiveInputStream archiveInputStream = decompressionFunction.apply(new CloseShieldInputStream(source))) {
+			readFromArchive(archiveInputStream, destination, threads, bufferSize);
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Decompresses a {@link #ZIP} or {@link #JAR} archive to a directory destination by reading its central directory
+	 * and inflating entries concurrently. Unlike {@link #decompress(String, File, File, Function)}, entries are read
+	 * through random access rather than by streaming the archive from start to end.
+	 * 
+	 * @param source
+	 *            non-null zip archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param encoding
+	 *            encoding of the entry names, or <code>null</code> for the platform default
+	 * @param useUnicodeExtraFields
+	 *            whether to use InfoZIP unicode extra fields, if present, to set the entry names
+	 * @param threads
+	 *            positive number of threads which inflate entries
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompressZip(//
+			File source, //
+			File destination, //
+			String encoding, //
+			boolean useUnicodeExtraFields, //
+			int threads) throws IOException {
+		decompressZip(source, destination, encoding, useUnicodeExtraFields, threads, false);
+	}
+
+	/**
+	 * Decompresses a {@link #ZIP} or {@link #JAR} archive to a directory destination as in
+	 * {@link #decompressZip(File, File, String, boolean, int)}. When <code>useChannels</code> is <code>true</code>,
+	 * entries which are stored rather than compressed are copied straight from the archive into their files with
+	 * {@link FileChannel#transferFrom(java.nio.channels.ReadableByteChannel, long, long)}.
+	 * 
+	 * @param source
+	 *            non-null zip archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param encoding
+	 *            encoding of the entry names, or <code>null</code> for the platform default
+	 * @param useUnicodeExtraFields
+	 *            whether to use InfoZIP unicode extra fields, if present, to set the entry names
+	 * @param threads
+	 *            positive number of threads which inflate entries
+	 * @param useChannels
+	 *            whether to copy stored entries through file channels
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompressZip(//
+			File source, //
+			File destination, //
+			String encoding, //
+			boolean useUnicodeExtraFields, //
+			int threads, //
+			boolean useChannels) throws IOException {
+		try (ZipFile zipFile = new ZipFile(source, encoding, useUnicodeExtraFields)) {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Object>> futures = new ArrayList<>();
+				Set<File> directories = new HashSet<>();
+				Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+				while (entries.hasMoreElements()) {
+					ZipArchiveEntry entry = entries.nextElement();
+					File outputFile = new File(destination, entry.getName());
+					if (entry.isDirectory()) {
+						outputFile.mkdirs();
+					}
+					else {
+						if (directories.add(outputFile.getParentFile())) {
+							outputFile.getParentFile().mkdirs();
+						}
+						futures.add(executor.submit(extractZipEntry(zipFile, entry, outputFile, useChannels)));
+					}
+				}
+				for (Future<Object> future : futures) {
+					waitFor(future);
+				}
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private static Callable<Object> extractZipEntry(final ZipFile zipFile, final ZipArchiveEntry entry, final File outputFile, final boolean useChannels) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				if (useChannels && entry.getMethod() == ZipEntry.STORED && zipFile.canReadEntryData(entry)) {
+					try (InputStream inputStream = zipFile.getRawInputStream(entry);
+							FileChannel output = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+									StandardOpenOption.TRUNCATE_EXISTING)) {
+						transferFrom(Channels.newChannel(inputStream), output, entry.getSize());
+					}
+					return null;
+				}
+				try (InputStream inputStream = zipFile.getInputStream(entry);
+						OutputStream outputStream = new FileOutputStream(outputFile)) {
+					copy(inputStream, outputStream);
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Decompresses a single entry of a {@link #ZIP} or {@link #JAR} archive to a stream destination, which is not
+	 * closed. The entry is located through the archive's central directory, so no other entry is read.
+	 * 
+	 * @param source
+	 *            non-null zip archive
+	 * @param entryName
+	 *            non-null name of the entry which is to be decompressed
+	 * @param destination
+	 *            non-null stream destination
+	 * @param encoding
+	 *            encoding of the entry names, or <code>null</code> for the platform default
+	 * @param useUnicodeExtraFields
+	 *            whether to use InfoZIP unicode extra fields, if present, to set the entry names
+	 * @throws FileNotFoundException
+	 *             if the archive has no file entry with the given name
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompressZipEntry(//
+			File source, //
+			String entryName, //
+			OutputStream destination, //
+			String encoding, //
+			boolean useUnicodeExtraFields) throws IOException {
+		try (ZipFile zipFile = new ZipFile(source, encoding, useUnicodeExtraFields)) {
+			ZipArchiveEntry entry = zipFile.getEntry(entryName);
+			if (entry == null || entry.isDirectory()) {
+				throw new FileNotFoundException("Entry " + entryName + " does not exist in " + source.getAbsolutePath());
+			}
+			try (InputStream inputStream = zipFile.getInputStream(entry)) {
+				copy(inputStream, destination);
+			}
+		}
+	}
+
+	/**
+	 * Decompresses the named entries of a {@link #ZIP} or {@link #JAR} archive to a directory destination, keeping
+	 * their paths within the archive. Entries are located through the archive's central directory, so no other entry
+	 * is read.
+	 * 
+	 * @param source
+	 *            non-null zip archive
+	 * @param entryNames
+	 *            non-null names of the entries which are to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param encoding
+	 *            encoding of the entry names, or <code>null</code> for the platform default
+	 * @param useUnicodeExtraFields
+	 *            whether to use InfoZIP unicode extra fields, if present, to set the entry names
+	 * @throws FileNotFoundException
+	 *             if the archive has no file entry with one of the given names
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompressZipEntries(//
+			File source, //
+			Collection<String> entryNames, //
+			File destination, //
+			String encoding, //
+			boolean useUnicodeExtraFields) throws IOException {
+		try (ZipFile zipFile = new ZipFile(source, encoding, useUnicodeExtraFields)) {
+			List<ZipArchiveEntry> entries = new ArrayList<>();
+			for (String entryName : entryNames) {
+				ZipArchiveEntry entry = zipFile.getEntry(entryName);
+				if (entry == null || entry.isDirectory()) {
+					throw new FileNotFoundException("Entry " + entryName + " does not exist in " + source.getAbsolutePath());
+				}
+				entries.add(entry);
+			}
+			for (ZipArchiveEntry entry : entries) {
+				File outputFile = new File(destination, entry.getName());
+				outputFile.getParentFile().mkdirs();
+				try (InputStream inputStream = zipFile.getInputStream(entry);
+						OutputStream outputStream = new FileOutputStream(outputFile)) {
+					copy(inputStream, outputStream);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decompresses an uncompressed {@link #TAR} archive to a directory destination. Since the content of each entry is
+	 * stored verbatim in the archive, it is copied straight from the archive into its file with
+	 * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}; only the headers are read
+	 * through a {@link TarArchiveInputStream}, which skips over the content. Sparse entries are read through the stream.
+	 * 
+	 * @param source
+	 *            non-null tar archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param blockSize
+	 *            block size of the archive
+	 * @param encoding
+	 *            encoding of the entry names, or <code>null</code> for the platform default
+	 * @param recordSize
+	 *            record size of the archive
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompressTar(//
+			File source, //
+			File destination, //
+			int blockSize, //
+			String encoding, //
+			int recordSize) throws IOException {
+		Set<File> directories = new HashSet<>();
+		try (FileInputStream inputStream = new FileInputStream(source);
+				TarArchiveInputStream archiveInputStream = new TarArchiveInputStream(inputStream, blockSize, recordSize, encoding)) {
+			FileChannel input = inputStream.getChannel();
+			TarArchiveEntry entry = null;
+			while ((entry = archiveInputStream.getNextTarEntry()) != null) {
+				File outputFile = new File(destination, entry.getName());
+				if (entry.isDirectory()) {
+					createDirectory(outputFile, directories);
+					continue;
+				}
+
+				createDirectory(outputFile.getParentFile(), directories);
+				long position = archiveInputStream.getBytesRead();
+				try (FileChannel output = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					if (entry.isGNUSparse() || position + entry.getSize() > input.size()) {
+						copy(archiveInputStream, Channels.newOutputStream(output));
+					}
+					else {
+						transferTo(input, position, entry.getSize(), output);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decompresses a single entry of a {@link #TAR} archive to a stream destination, which is not closed. The entry is
+	 * located through the archive's {@link TarIndex}, so that only the entry and, for a compressed archive, the data
+	 * between the preceding checkpoint and the entry are read.
+	 * 
+	 * @param source
+	 *            non-null tar archive
+	 * @param index
+	 *            non-null index of the archive
+	 * @param entryName
+	 *            non-null name of the entry which is to be decompressed
+	 * @param destination
+	 *            non-null stream destination
+	 * @throws FileNotFoundException
+	 *             if the index has no file entry with the given name
+	 * @throws IOException
+	 *             on any IO exception, including an archive which has changed since it was indexed
+	 */
+	public static void decompressTarEntry(//
+			File source, //
+			TarIndex index, //
+			String entryName, //
+			OutputStream destination) throws IOException {
+		TarIndex.Entry entry = index.getEntry(entryName);
+		if (entry == null) {
+			throw new FileNotFoundException("Entry " + entryName + " does not exist in " + source.getAbsolutePath());
+		}
+		try (InputStream inputStream = index.open(source, entry)) {
+			copy(inputStream, destination);
+		}
+	}
+
+	/**
+	 * Decompresses the named entries of a {@link #TAR} archive to a directory destination, keeping their paths within
+	 * the archive. Each entry is located through the archive's {@link TarIndex}, as in
+	 * {@link #decompressTarEntry(File, TarIndex, String, OutputStream)}.
+	 * 
+	 * @param source
+	 *            non-null tar archive
+	 * @param index
+	 *            non-null index of the archive
+	 * @param entryNames
+	 *            non-null names of the entries which are to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @throws FileNotFoundException
+	 *             if the index has no file entry with one of the given names
+	 * @throws IOException
+	 *             on any IO exception, including an archive which has changed since it was indexed
+	 */
+	public static void decompressTarEntries(//
+			File source, //
+			TarIndex index, //
+			Collection<String> entryNames, //
+			File destination) throws IOException {
+		List<TarIndex.Entry> entries = new ArrayList<>();
+		for (String entryName : entryNames) {
+			TarIndex.Entry entry = index.getEntry(entryName);
+			if (entry == null) {
+				throw new FileNotFoundException("Entry " + entryName + " does not exist in " + source.getAbsolutePath());
+			}
+			entries.add(entry);
+		}
+		for (TarIndex.Entry entry : entries) {
+			File outputFile = new File(destination, entry.getName());
+			outputFile.getParentFile().mkdirs();
+			try (InputStream inputStream = index.open(source, entry);
+					OutputStream outputStream = new FileOutputStream(outputFile)) {
+				copy(inputStream, outputStream);
+			}
+		}
+	}
+
+	/**
+	 * Decompresses a {@link #SEVENZ} archive to a directory destination by decoding its folders concurrently. Each
+	 * worker opens its own {@link SevenZFile} and extracts a contiguous run of folders, so archives with a single solid
+	 * folder gain nothing. The number of workers is reduced so that their combined dictionary sizes stay within
+	 * <code>memoryLimit</code>, though at least one worker is always used.
+	 * 
+	 * @param source
+	 *            non-null 7z archive which is to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param password
+	 *            password used to decrypt the archive, or <code>null</code> if it is unencrypted
+	 * @param threads
+	 *            positive number of threads which decode folders
+	 * @param memoryLimit
+	 *            positive number of bytes which the decoders' dictionaries may occupy in total
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress7z(//
+			File source, //
+			File destination, //
+			byte[] password, //
+			int threads, //
+			long memoryLimit) throws IOException {
+		List<SevenZFolder> folders = plan7zFolders(source, destination, password);
+		long largestDictionary = 1;
+		long totalSize = 0;
+		for (SevenZFolder folder : folders) {
+			largestDictionary = Math.max(largestDictionary, folder.dictionarySize);
+			totalSize += folder.size;
+		}
+
+		int workers = (int) Math.max(1, Math.min(Math.min(threads, folders.size()), memoryLimit / largestDictionary));
+		List<int[]> ranges = new ArrayList<>();
+		long rangeSize = 0;
+		for (SevenZFolder folder : folders) {
+			if (ranges.isEmpty() || (ranges.size() < workers && rangeSize >= totalSize / workers * ranges.size())) {
+				ranges.add(new int[] { folder.firstEntry, folder.lastEntry });
+			}
+			ranges.get(ranges.size() - 1)[1] = folder.lastEntry;
+			rangeSize += folder.size;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int[] range : ranges) {
+				futures.add(executor.submit(extract7zEntries(source, destination, password, range[0], range[1])));
+			}
+			for (Future<Object> future : futures) {
+				waitFor(future);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Walks the entries of a {@link #SEVENZ} archive without reading any data, creating its directories and empty files
+	 * and grouping the entries which have streams into the folders they are decoded from. {@link SevenZFile} copies an
+	 * entry's content methods from the entry before it within a folder, so an entry following one without a stream has
+	 * none; it is kept in the current folder, which is compared by the last methods seen.
+	 */
+	static List<SevenZFolder> plan7zFolders(File source, File destination, byte[] password) throws IOException {
+		List<SevenZFolder> folders = new ArrayList<>();
+		try (SevenZFile sevenZFile = new SevenZFile(source, password)) {
+			Iterable<? extends SevenZMethodConfiguration> folderMethods = null;
+			SevenZArchiveEntry entry = null;
+			for (int index = 0; (entry = sevenZFile.getNextEntry()) != null; index++) {
+				File outputFile = new File(destination, entry.getName());
+				if (entry.isDirectory()) {
+					outputFile.mkdirs();
+				}
+				else if (!entry.hasStream()) {
+					outputFile.getParentFile().mkdirs();
+					new FileOutputStream(outputFile).close();
+				}
+				else {
+					Iterable<? extends SevenZMethodConfiguration> methods = entry.getContentMethods();
+					if (folders.isEmpty() || (methods != null && !isSameFolder(methods, folderMethods))) {
+						folderMethods = methods;
+						folders.add(new SevenZFolder(index, getDictionarySize(folderMethods)));
+					}
+					SevenZFolder folder = folders.get(folders.size() - 1);
+					folder.lastEntry = index;
+					folder.size += entry.getSize();
+				}
+			}
+		}
+		return folders;
+	}
+
+	private static Callable<Object> extract7zEntries(final File source, final File destination, final byte[] password, final int firstEntry, final int lastEntry) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				try (SevenZFile sevenZFile = new SevenZFile(source, password)) {
+					SevenZArchiveEntry entry = null;
+					for (int index = 0; index <= lastEntry && (entry = sevenZFile.getNextEntry()) != null; index++) {
+						if (index < firstEntry || entry.isDirectory() || !entry.hasStream()) {
+							continue;
+						}
+						File outputFile = new File(destination, entry.getName());
+						outputFile.getParentFile().mkdirs();
+						try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+							read7zEntry(sevenZFile, outputStream);
+						}
+					}
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Decompresses a single entry of a {@link #SEVENZ} archive to a stream destination, which is not closed. Entries
+	 * are located through the archive's header; only the folder holding the entry is decoded, and only up to the entry.
+	 * 
+	 * @param source
+	 *            non-null 7z archive
+	 * @param entryName
+	 *            non-null name of the entry which is to be decompressed
+	 * @param destination
+	 *            non-null stream destination
+	 * @param password
+	 *            password used to decrypt the archive, or <code>null</code> if it is unencrypted
+	 * @throws FileNotFoundException
+	 *             if the archive has no file entry with the given name
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress7zEntry(//
+			File source, //
+			String entryName, //
+			OutputStream destination, //
+			byte[] password) throws IOException {
+		try (SevenZFile sevenZFile = new SevenZFile(source, password)) {
+			SevenZArchiveEntry entry = null;
+			while ((entry = sevenZFile.getNextEntry()) != null) {
+				if (!entry.isDirectory() && entryName.equals(entry.getName())) {
+					read7zEntry(sevenZFile, destination);
+					return;
+				}
+			}
+		}
+		throw new FileNotFoundException("Entry " + entryName + " does not exist in " + source.getAbsolutePath());
+	}
+
+	/**
+	 * Decompresses the named entries of a {@link #SEVENZ} archive to a directory destination, keeping their paths
+	 * within the archive. Entries are located through the archive's header and the archive is read no further than the
+	 * last of them.
+	 * 
+	 * @param source
+	 *            non-null 7z archive
+	 * @param entryNames
+	 *            non-null names of the entries which are to be decompressed
+	 * @param destination
+	 *            non-null directory destination
+	 * @param password
+	 *            password used to decrypt the archive, or <code>null</code> if it is unencrypted
+	 * @throws FileNotFoundException
+	 *             if the archive has no file entry with one of the given names
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress7zEntries(//
+			File source, //
+			Collection<String> entryNames, //
+			File destination, //
+			byte[] password) throws IOException {
+		Set<String> remaining = new HashSet<>(entryNames);
+		try (SevenZFile sevenZFile = new SevenZFile(source, password)) {
+			SevenZArchiveEntry entry = null;
+			while (!remaining.isEmpty() && (entry = sevenZFile.getNextEntry()) != null) {
+				if (!entry.isDirectory() && remaining.remove(entry.getName())) {
+					File outputFile = new File(destination, entry.getName());
+					outputFile.getParentFile().mkdirs();
+					try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+						read7zEntry(sevenZFile, outputStream);
+					}
+				}
+			}
+		}
+		if (!remaining.isEmpty()) {
+			throw new FileNotFoundException("Entry " + remaining.iterator().next() + " does not exist in " + source.getAbsolutePath());
+		}
+	}
+
+	private static void read7zEntry(SevenZFile sevenZFile, OutputStream outputStream) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(BufferPool.DEFAULT_BUFFER_SIZE);
+		try {
+			int length = 0;
+			while ((length = sevenZFile.read(content)) > 0) {
+				outputStream.write(content, 0, length);
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	/**
+	 * Returns whether two entries' content methods belong to the same folder. {@link SevenZFile} gives each entry its
+	 * own copy of the method list, so the lists are compared by their method configurations, which it only creates
+	 * when it starts decoding a new folder.
+	 */
+	private static boolean isSameFolder(Iterable<? extends SevenZMethodConfiguration> methods, Iterable<? extends SevenZMethodConfiguration> folderMethods) {
+		if (methods == null || folderMethods == null) {
+			return methods == folderMethods;
+		}
+		Iterator<? extends SevenZMethodConfiguration> iterator = methods.iterator();
+		Iterator<? extends SevenZMethodConfiguration> folderIterator = folderMethods.iterator();
+		while (iterator.hasNext() && folderIterator.hasNext()) {
+			if (iterator.next() != folderIterator.next()) {
+				return false;
+			}
+		}
+		return !iterator.hasNext() && !folderIterator.hasNext();
+	}
+
+	private static long getDictionarySize(Iterable<? extends SevenZMethodConfiguration> methods) {
+		long dictionarySize = 0;
+		if (methods != null) {
+			for (SevenZMethodConfiguration method : methods) {
+				Object options = method.getOptions();
+				if (options instanceof Number) {
+					dictionarySize += ((Number) options).longValue();
+				}
+				else if (options instanceof LZMA2Options) {
+					dictionarySize += ((LZMA2Options) options).getDictSize();
+				}
+			}
+		}
+		return dictionarySize;
+	}
+
+	private static void readFromArchive(ArchiveInputStream archiveInputStream, File destination, int threads, int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try {
+			if (threads > 1) {
+				readFromArchive(archiveInputStream, destination, threads, content);
+			}
+			else {
+				readFromArchive(archiveInputStream, destination, content);
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	private static void readFromArchive(ArchiveInputStream archiveInputStream, File destination, byte[] content) throws IOException {
+		Set<File> directories = new HashSet<>();
+		ArchiveEntry archiveEntry = null;
+		while ((archiveEntry = archiveInputStream.getNextEntry()) != null) {
+			File outputFile = new File(destination, archiveEntry.getName());
+			if (archiveEntry.isDirectory()) {
+				createDirectory(outputFile, directories);
+			}
+			else {
+				createDirectory(outputFile.getParentFile(), directories);
+				try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+					int length = 0;
+					while ((length = archiveInputStream.read(content)) > 0) {
+						outputStream.write(content, 0, length);
+					}
+				}
+			}
+		}
+	}
+
+	private static void readFromArchive(ArchiveInputStream archiveInputStream, File destination, int threads, byte[] content) throws IOException {
+		Set<File> directories = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+		Deque<Future<Object>> pending = new ArrayDeque<>();
+		Map<File, Future<Object>> writers = new HashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			ArchiveEntry archiveEntry = null;
+			while ((archiveEntry = archiveInputStream.getNextEntry()) != null) {
+				while (pending.size() >= threads * 4) {
+					waitFor(pending.poll());
+				}
+				File outputFile = new File(destination, archiveEntry.getName());
+				if (archiveEntry.isDirectory()) {
+					createDirectory(outputFile, directories);
+					continue;
+				}
+
+				BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(4);
+				Future<Object> future = executor.submit(writeEntry(outputFile, chunks, directories, writers.get(outputFile)));
+				writers.put(outputFile, future);
+				pending.add(future);
+				byte[] chunk;
+				do {
+					chunk = readChunk(archiveInputStream, content);
+					while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+						if (future.isDone()) {
+							waitFor(future);
+						}
+					}
+				}
+				while (chunk.length > 0);
+			}
+			while (!pending.isEmpty()) {
+				waitFor(pending.poll());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for worker threads", e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads up to {@link #MAX_BUFFERED_FILE_SIZE} bytes of the current entry through the given buffer, returning an
+	 * empty chunk at its end.
+	 */
+	private static byte[] readChunk(ArchiveInputStream archiveInputStream, byte[] content) throws IOException {
+		ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+		int length = 0;
+		while (chunk.size() < MAX_BUFFERED_FILE_SIZE && (length = archiveInputStream.read(content)) > 0) {
+			chunk.write(content, 0, length);
+		}
+		return chunk.toByteArray();
+	}
+
+	/**
+	 * Returns the task which creates the file's parent directory and writes chunks to the file until an empty chunk.
+	 * Archives such as tar may repeat an entry name, in which case the task first waits for the previous writer of the
+	 * same file, so that the last entry wins as it does when extracting sequentially.
+	 */
+	private static Callable<Object> writeEntry(final File outputFile, final BlockingQueue<byte[]> chunks, final Set<File> directories,
+			final Future<Object> previousWriter) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				if (previousWriter != null) {
+					waitFor(previousWriter);
+				}
+				createDirectory(outputFile.getParentFile(), directories);
+				try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+					byte[] chunk;
+					while ((chunk = chunks.take()).length > 0) {
+						outputStream.write(chunk);
+					}
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Creates the directory unless it is among those already created.
+	 */
+	private static void createDirectory(File directory, Set<File> directories) {
+		if (!directories.contains(directory)) {
+			directory.mkdirs();
+			directories.add(directory);
+		}
+	}
+
+	/**
+	 * Compresses a directory to a file destination.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null directory to be compressed
+	 * @param destination
+	 *            non-null file destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s file to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction) throws IOException {
+		compress(fileType, source, destination, compressionFunction, entryFunction, 1);
+	}
+
+	/**
+	 * Compresses a directory to a file destination. When <code>threads</code> is greater than <code>1</code>, files
+	 * are opened, sized and read on a pool of worker threads while a single writer adds them to the archive in the
+	 * same order as the single-threaded path, so the resulting archive is identical. Files larger than
+	 * {@link #MAX_BUFFERED_FILE_SIZE} are streamed by the writer, and at most four files per thread are buffered at a
+	 * time.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null directory to be compressed
+	 * @param destination
+	 *            non-null file destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s file to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int threads) throws IOException {
+		compress(fileType, source, destination, compressionFunction, entryFunction, threads, false);
+	}
+
+	/**
+	 * Compresses a directory to a file destination as in
+	 * {@link #compress(String, File, File, Function, BiFunction, int)}. When <code>useChannels</code> is
+	 * <code>true</code>, files which are streamed into the archive are read through a {@link FileChannel}, memory-mapped
+	 * in regions of {@link CompressedFiles#MAPPED_REGION_SIZE} bytes if they are at least
+	 * {@link CompressedFiles#MIN_MAPPED_SIZE} bytes.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null directory to be compressed
+	 * @param destination
+	 *            non-null file destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s file to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @param useChannels
+	 *            whether to read files through file channels
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int threads, //
+			boolean useChannels) throws IOException {
+		compress(fileType, source, destination, compressionFunction, entryFunction, threads, useChannels, BufferPool.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Compresses a directory to a file destination as in
+	 * {@link #compress(String, File, File, Function, BiFunction, int, boolean)}, reading the files which are streamed
+	 * into the archive through a single buffer of <code>bufferSize</code> bytes acquired from {@link BufferPool#shared()}.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null directory to be compressed
+	 * @param destination
+	 *            non-null file destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s file to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @param useChannels
+	 *            whether to read files through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int threads, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		try (ArchiveOutputStream archiveOutputStream = compressionFunction.apply(destination)) {
+			writeToArchive(fileType, source, archiveOutputStream, entryFunction, null, threads, useChannels, bufferSize);
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Compresses a directory to a stream destination as in
+	 * {@link #compress(String, File, File, Function, BiFunction, int, boolean, int)}. The archive is finished and the
+	 * <code>destination</code> flushed, but it is not closed.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null directory to be compressed
+	 * @param destination
+	 *            non-null stream destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code> to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @param useChannels
+	 *            whether to read files through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(//
+			String fileType, //
+			File source, //
+			OutputStream destination, //
+			Function<OutputStream, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int threads, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		try (ArchiveOutputStream archiveOutputStream = compressionFunction.apply(new CloseShieldOutputStream(destination))) {
+			writeToArchive(fileType, source, archiveOutputStream, entryFunction, null, threads, useChannels, bufferSize);
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Compresses the files within a directory which are new or changed since the previous archive to a file
+	 * destination, as in {@link #compress(String, File, File, Function, BiFunction, int, boolean, int)}. The previous
+	 * archive is described by the {@link ArchiveManifest} held in <code>manifest</code>; if that file does not exist,
+	 * every file is archived. Files deleted since the previous archive are listed in a final entry named
+	 * {@link ArchiveManifest#DELETIONS_ENTRY_NAME}. Once the archive has been written, <code>manifest</code> is replaced
+	 * by a manifest of the directory as it was archived, ready for the next increment.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null directory to be compressed
+	 * @param destination
+	 *            non-null file destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s file to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param manifest
+	 *            non-null manifest sidecar file, which need not exist
+	 * @param hashContents
+	 *            whether to hash the content of files whose size or last modified time has changed, so that files which
+	 *            were merely touched are not archived again
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @param useChannels
+	 *            whether to read files through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compressIncremental(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<File, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			File manifest, //
+			boolean hashContents, //
+			int threads, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		ArchiveManifest previous = manifest.exists() ? ArchiveManifest.read(manifest) : ArchiveManifest.empty();
+		ArchiveManifest current = ArchiveManifest.create(source, previous, hashContents);
+		List<String> deletedEntryNames = current.getDeletedEntryNames(previous);
+		try (ArchiveOutputStream archiveOutputStream = compressionFunction.apply(destination)) {
+			writeToArchive(fileType, source, archiveOutputStream, entryFunction, current.getChangedEntryNames(previous), threads, useChannels, bufferSize);
+			if (!deletedEntryNames.isEmpty()) {
+				StringBuilder deletions = new StringBuilder();
+				for (String deletedEntryName : deletedEntryNames) {
+					deletions.append(deletedEntryName).append('\n');
+				}
+				byte[] content = deletions.toString().getBytes(StandardCharsets.UTF_8);
+				archiveOutputStream.putArchiveEntry(entryFunction.apply(ArchiveManifest.DELETIONS_ENTRY_NAME, (long) content.length));
+				archiveOutputStream.write(content, 0, content.length);
+				archiveOutputStream.closeArchiveEntry();
+			}
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		current.write(manifest);
+	}
+
+	/**
+	 * Appends the files within a directory to an existing, uncompressed {@link #TAR} archive without rewriting its
+	 * entries. The archive is truncated at the end of its last entry, dropping the zero-filled end-of-archive records,
+	 * and the new entries, followed by new end-of-archive records, are written in their place. If the archive does not
+	 * exist or is empty, it is written as by {@link #compress(String, File, File, Function, BiFunction, int, boolean, int)}.
+	 * A non-empty destination which is not a tar archive is left untouched.
+	 * 
 	 * @param source
-	 *            non-null file archive which is to be decompressed
+	 *            non-null directory to be compressed
 	 * @param destination
-	 *            non-null directory destination
-	 * @param decompressionFunction
-	 *            non-null function which maps the <code>source</code>'s input stream to an archive input stream
+	 *            non-null uncompressed tar archive
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s stream to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @param useChannels
+	 *            whether to read files through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
 	 * @throws IOException
-	 *             on any IO exception
+	 *             if the <code>destination</code> is not a tar archive, or on any other IO exception
 	 */
-	public static void decompress(//
-			String fileType, //
+	public static void appendTar(//
 			File source, //
 			File destination, //
-			Function<File, ArchiveInputStream> decompressionFunction) throws IOException {
-		try (ArchiveInputStream archiveInputStream = decompressionFunction.apply(source)) {
-			readFromArchive(archiveInputStream, destination);
+			Function<OutputStream, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int threads, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		if (destination.length() > 0) {
+			long end = getTarEnd(destination);
+			try (FileChannel channel = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(end);
+			}
 		}
-		catch (RuntimeException e) {
-			if (e.getCause() != null && e.getCause() instanceof IOException) {
-				throw (IOException) e.getCause();
+		try (OutputStream outputStream = new FileOutputStream(destination, true)) {
+			compress(TAR, source, outputStream, compressionFunction, entryFunction, threads, useChannels, bufferSize);
+		}
+	}
+
+	/**
+	 * Returns the offset at which the last entry of an uncompressed tar archive ends, which is where its end-of-archive
+	 * records begin. An archive with no entries must consist only of end-of-archive records.
+	 */
+	private static long getTarEnd(File archive) throws IOException {
+		long end = -1;
+		try (TarArchiveInputStream archiveInputStream = new TarArchiveInputStream(
+				BufferPool.shared().bufferedInputStream(new FileInputStream(archive), BufferPool.DEFAULT_BUFFER_SIZE))) {
+			TarArchiveEntry entry = null;
+			while ((entry = archiveInputStream.getNextTarEntry()) != null) {
+				long dataOffset = archiveInputStream.getBytesRead();
+				end = (dataOffset + entry.getSize() + TarConstants.DEFAULT_RCDSIZE - 1) / TarConstants.DEFAULT_RCDSIZE * TarConstants.DEFAULT_RCDSIZE;
+			}
+		}
+		catch (IOException e) {
+			if (end < 0) {
+				throw new IOException("Destination " + archive.getAbsolutePath() + " is not a tar archive", e);
 			}
 			throw e;
 		}
+		if (end < 0) {
+			if (!isEndOfArchive(archive)) {
+				throw new IOException("Destination " + archive.getAbsolutePath() + " is not a tar archive");
+			}
+			return 0;
+		}
+		return end;
 	}
 
-	private static void readFromArchive(ArchiveInputStream archiveInputStream, File destination) throws IOException {
-		ArchiveEntry archiveEntry = null;
-		while ((archiveEntry = archiveInputStream.getNextEntry()) != null) {
-			File outputFile = new File(destination, archiveEntry.getName());
-			if (archiveEntry.isDirectory()) {
-				outputFile.mkdirs();
+	/**
+	 * Returns whether the archive consists only of zero-filled end-of-archive records.
+	 */
+	private static boolean isEndOfArchive(File archive) throws IOException {
+		if (archive.length() % TarConstants.DEFAULT_RCDSIZE != 0) {
+			return false;
+		}
+		try (InputStream inputStream = BufferPool.shared().bufferedInputStream(new FileInputStream(archive), BufferPool.DEFAULT_BUFFER_SIZE)) {
+			int value = 0;
+			while ((value = inputStream.read()) != -1) {
+				if (value != 0) {
+					return false;
+				}
 			}
-			else {
-				outputFile.getParentFile().mkdirs();
-				try (OutputStream outputStream = new FileOutputStream(outputFile);
-						BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream)) {
-					byte[] content = new byte[1024];
-					int length = 0;
-					while ((length = archiveInputStream.read(content)) > 0) {
-						bufferedOutputStream.write(content, 0, length);
-						bufferedOutputStream.flush();
+		}
+		return true;
+	}
+
+	/**
+	 * Merges {@link #ZIP} archives and the files within a directory into a new zip archive. The entries of the
+	 * <code>archives</code> are copied in order with their compressed bytes intact, so that they are neither inflated
+	 * nor deflated again; see {@link ZipArchiveOutputStream#addRawArchiveEntry(ZipArchiveEntry, InputStream)}. An entry
+	 * is left out if a later archive holds an entry of the same name, or if the directory holds a file of that name.
+	 * The directory's files are then compressed as in
+	 * {@link #compress(String, File, File, Function, BiFunction, int, boolean, int)}, so only new or replaced entries
+	 * are deflated.
+	 * 
+	 * @param source
+	 *            non-null directory of new and replacing files
+	 * @param archives
+	 *            non-null zip archives whose entries are to be copied
+	 * @param destination
+	 *            non-null file destination, which must not be one of the <code>archives</code>
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code>'s file to a zip archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 * @param threads
+	 *            positive number of threads used to read the files within the <code>source</code>
+	 * @param useChannels
+	 *            whether to read files through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void mergeZip(//
+			File source, //
+			List<File> archives, //
+			File destination, //
+			Function<File, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int threads, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		Set<String> replacedEntryNames = new HashSet<>();
+		for (File file : listFiles(source, new ArrayList<File>())) {
+			replacedEntryNames.add(getEntryName(source, file));
+		}
+
+		Map<String, File> lastArchives = new HashMap<>();
+		for (File archive : archives) {
+			try (ZipFile zipFile = new ZipFile(archive)) {
+				Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+				while (entries.hasMoreElements()) {
+					lastArchives.put(entries.nextElement().getName(), archive);
+				}
+			}
+		}
+
+		try (ArchiveOutputStream archiveOutputStream = compressionFunction.apply(destination)) {
+			ZipArchiveOutputStream zipOutputStream = (ZipArchiveOutputStream) archiveOutputStream.getStream();
+			for (File archive : archives) {
+				try (ZipFile zipFile = new ZipFile(archive)) {
+					for (ZipArchiveEntry entry : Collections.list(zipFile.getEntriesInPhysicalOrder())) {
+						if (lastArchives.get(entry.getName()) == archive && !replacedEntryNames.contains(entry.getName())) {
+							zipOutputStream.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+						}
 					}
 				}
 			}
+			writeToArchive(ZIP, source, archiveOutputStream, entryFunction, null, threads, useChannels, bufferSize);
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
 		}
 	}
 
 	/**
-	 * Compresses a directory to a file destination.
+	 * Transcodes an archive into an archive of another type, without extracting its entries to disk. Every regular file
+	 * entry read from the <code>source</code> is written to the <code>destination</code> as it is read, keeping its
+	 * name, size and, where the destination's entries support it, last modified time. Directory entries are not
+	 * copied, as directories are not archived by
+	 * {@link #compress(String, File, File, Function, BiFunction, int, boolean, int)} either. Entries which are not
+	 * regular files, such as tar hard links, symbolic links and devices, zip symbolic links and non-regular cpio
+	 * entries, are skipped, since the destination's entries could only hold them as empty files. Entries whose size is not known until they are read, such as those of a streamed zip archive, are first
+	 * buffered in memory, or in a temporary file if they are larger than {@link #MAX_BUFFERED_FILE_SIZE} bytes. The
+	 * <code>source</code> is read to its end but not closed.
 	 * 
-	 * @param fileType
-	 *            non-null file type
 	 * @param source
-	 *            non-null directory to be compressed
+	 *            non-null archive input stream
 	 * @param destination
 	 *            non-null file destination
 	 * @param compressionFunction
 	 *            non-null function which maps the <code>destination</code>'s file to an archive output stream
 	 * @param entryFunction
-	 *            non-null function which maps the files within the <code>source</code> to archive entries
+	 *            non-null function which maps the names and sizes of the <code>source</code>'s entries to archive
+	 *            entries
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
 	 * @throws IOException
 	 *             on any IO exception
 	 */
-	public static void compress(//
-			String fileType, //
-			File source, //
+	public static void transcode(//
+			ArchiveInputStream source, //
 			File destination, //
 			Function<File, ArchiveOutputStream> compressionFunction, //
-			BiFunction<String, Long, ArchiveEntry> entryFunction) throws IOException {
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int bufferSize) throws IOException {
 		try (ArchiveOutputStream archiveOutputStream = compressionFunction.apply(destination)) {
-			writeToArchive(fileType, source, source, archiveOutputStream, entryFunction);
+			transcode(source, archiveOutputStream, entryFunction, bufferSize);
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Transcodes an archive into an archive of another type written to a stream destination, as in
+	 * {@link #transcode(ArchiveInputStream, File, Function, BiFunction, int)}. The archive is finished and the
+	 * <code>destination</code> flushed, but it is not closed.
+	 * 
+	 * @param source
+	 *            non-null archive input stream
+	 * @param destination
+	 *            non-null stream destination
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code> to an archive output stream
+	 * @param entryFunction
+	 *            non-null function which maps the names and sizes of the <code>source</code>'s entries to archive
+	 *            entries
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read buffer
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void transcode(//
+			ArchiveInputStream source, //
+			OutputStream destination, //
+			Function<OutputStream, ArchiveOutputStream> compressionFunction, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int bufferSize) throws IOException {
+		try (ArchiveOutputStream archiveOutputStream = compressionFunction.apply(new CloseShieldOutputStream(destination))) {
+			transcode(source, archiveOutputStream, entryFunction, bufferSize);
 		}
 		catch (RuntimeException e) {
 			if (e.getCause() != null && e.getCause() instanceof IOException) {
@@ -137,36 +1454,418 @@ public class Archives {
 		}
 	}
 
+	private static void transcode(ArchiveInputStream source, //
+			ArchiveOutputStream destination, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try {
+			ArchiveEntry entry = null;
+			while ((entry = source.getNextEntry()) != null) {
+				if (!isRegularFile(entry)) {
+					continue;
+				}
+				if (entry.getSize() >= 0) {
+					destination.putArchiveEntry(createTranscodedEntry(entry, entry.getSize(), entryFunction));
+					int length = 0;
+					while ((length = source.read(content)) > 0) {
+						destination.write(content, 0, length);
+					}
+					destination.closeArchiveEntry();
+					continue;
+				}
+
+				ArchiveEntryBuffer entryBuffer = new ArchiveEntryBuffer(MAX_BUFFERED_FILE_SIZE);
+				try {
+					int length = 0;
+					while ((length = source.read(content)) > 0) {
+						entryBuffer.write(content, 0, length);
+					}
+					entryBuffer.close();
+					destination.putArchiveEntry(createTranscodedEntry(entry, entryBuffer.size(), entryFunction));
+					try (InputStream inputStream = entryBuffer.get()) {
+						while ((length = inputStream.read(content)) > 0) {
+							destination.write(content, 0, length);
+						}
+					}
+					destination.closeArchiveEntry();
+				}
+				finally {
+					entryBuffer.delete();
+				}
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	/**
+	 * Returns whether an entry holds a regular file, rather than a directory, link or device.
+	 */
+	private static boolean isRegularFile(ArchiveEntry entry) {
+		if (entry.isDirectory()) {
+			return false;
+		}
+		if (entry instanceof TarArchiveEntry) {
+			TarArchiveEntry tarEntry = (TarArchiveEntry) entry;
+			return !(tarEntry.isLink() || tarEntry.isSymbolicLink() || tarEntry.isCharacterDevice() || tarEntry.isBlockDevice() || tarEntry.isFIFO());
+		}
+		if (entry instanceof ZipArchiveEntry) {
+			return !((ZipArchiveEntry) entry).isUnixSymlink();
+		}
+		if (entry instanceof CpioArchiveEntry) {
+			return ((CpioArchiveEntry) entry).isRegularFile();
+		}
+		return true;
+	}
+
+	/**
+	 * Maps an entry read from one archive to an entry of another, carrying over its last modified time where the new
+	 * entry's type supports it.
+	 */
+	private static ArchiveEntry createTranscodedEntry(ArchiveEntry entry, long size, BiFunction<String, Long, ArchiveEntry> entryFunction) {
+		ArchiveEntry transcodedEntry = entryFunction.apply(entry.getName(), size);
+		Date lastModifiedDate = null;
+		if (!(entry instanceof SevenZArchiveEntry) || ((SevenZArchiveEntry) entry).getHasLastModifiedDate()) {
+			lastModifiedDate = entry.getLastModifiedDate();
+		}
+		if (lastModifiedDate == null) {
+			return transcodedEntry;
+		}
+
+		if (transcodedEntry instanceof TarArchiveEntry) {
+			((TarArchiveEntry) transcodedEntry).setModTime(lastModifiedDate);
+		}
+		else if (transcodedEntry instanceof ZipArchiveEntry) {
+			((ZipArchiveEntry) transcodedEntry).setTime(lastModifiedDate.getTime());
+		}
+		else if (transcodedEntry instanceof SevenZArchiveEntry) {
+			((SevenZArchiveEntry) transcodedEntry).setLastModifiedDate(lastModifiedDate);
+		}
+		else if (transcodedEntry instanceof CpioArchiveEntry) {
+			((CpioArchiveEntry) transcodedEntry).setTime(lastModifiedDate.getTime() / 1000);
+		}
+		return transcodedEntry;
+	}
+
+	/**
+	 * Applies the deletions recorded by an incremental archive which has been decompressed to a directory: every file
+	 * listed in its {@link ArchiveManifest#DELETIONS_ENTRY_NAME} entry is deleted, along with any directories left
+	 * empty, and the entry itself is removed. Does nothing if the archive recorded no deletions.
+	 * 
+	 * @param destination
+	 *            non-null directory to which the archive was decompressed
+	 * @throws IOException
+	 *             on any IO exception, including a listed file outside of the <code>destination</code>
+	 */
+	public static void applyDeletions(File destination) throws IOException {
+		File deletions = new File(destination, ArchiveManifest.DELETIONS_ENTRY_NAME);
+		if (!deletions.isFile()) {
+			return;
+		}
+
+		File canonicalDestination = destination.getCanonicalFile();
+		for (String entryName : Files.readAllLines(deletions.toPath(), StandardCharsets.UTF_8)) {
+			if (entryName.isEmpty()) {
+				continue;
+			}
+			File file = new File(canonicalDestination, entryName).getCanonicalFile();
+			if (!file.getPath().startsWith(canonicalDestination.getPath() + File.separator)) {
+				throw new IOException("Entry " + entryName + " is outside of " + destination.getAbsolutePath());
+			}
+			Files.deleteIfExists(file.toPath());
+			deleteEmptyDirectories(file.getParentFile(), canonicalDestination);
+		}
+		Files.delete(deletions.toPath());
+		deleteEmptyDirectories(deletions.getCanonicalFile().getParentFile(), canonicalDestination);
+	}
+
+	/**
+	 * Deletes the directory, and then its parents, for as long as they are empty and within the root directory.
+	 */
+	private static void deleteEmptyDirectories(File directory, File root) {
+		while (directory != null && !directory.equals(root) && directory.delete()) {
+			directory = directory.getParentFile();
+		}
+	}
+
+	/**
+	 * Writes the files within the directory to the archive, or only those whose entry names are among
+	 * <code>entryNames</code> if it is non-null.
+	 */
+	private static void writeToArchive(//
+			String archiveType, //
+			File source, //
+			ArchiveOutputStream archiveOutputStream, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			Set<String> entryNames, //
+			int threads, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try {
+			if (threads > 1) {
+				writeToArchive(source, archiveOutputStream, entryFunction, entryNames, threads, useChannels, content);
+			}
+			else {
+				writeToArchive(archiveType, source, source, archiveOutputStream, entryFunction, entryNames, useChannels, content);
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
 	private static void writeToArchive(//
 			String archiveType, //
 			File source, //
 			File currentFile, //
 			ArchiveOutputStream archiveOutputStream, //
-			BiFunction<String, Long, ArchiveEntry> entryFunction) throws IOException {
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			Set<String> entryNames, //
+			boolean useChannels, //
+			byte[] content) throws IOException {
 		if (currentFile.isFile()) {
-			int index = source.getAbsolutePath().length() + 1;
-			String currentFilePath = currentFile.getCanonicalPath();
-			String entryName = currentFilePath.substring(index);
+			String entryName = getEntryName(source, currentFile);
+			if (entryNames != null && !entryNames.contains(entryName)) {
+				return;
+			}
 
 			ArchiveEntry entry = entryFunction.apply(entryName, currentFile.length());
 
 			archiveOutputStream.putArchiveEntry(entry);
-			try (InputStream inputStream = new FileInputStream(currentFile);
-					BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream)) {
-				byte[] content = new byte[1024];
+			if (useChannels) {
+				writeWithChannels(currentFile, archiveOutputStream, content);
+			}
+			else {
+				writeWithStreams(currentFile, archiveOutputStream, content);
+			}
+			archiveOutputStream.closeArchiveEntry();
+		}
+		else {
+			for (File child : currentFile.listFiles()) {
+				writeToArchive(archiveType, source, child, archiveOutputStream, entryFunction, entryNames, useChannels, content);
+			}
+		}
+	}
+
+	private static void writeToArchive(//
+			File source, //
+			ArchiveOutputStream archiveOutputStream, //
+			BiFunction<String, Long, ArchiveEntry> entryFunction, //
+			Set<String> entryNames, //
+			int threads, //
+			boolean useChannels, //
+			byte[] content) throws IOException {
+		List<File> fileList = listFiles(source, new ArrayList<File>());
+		if (entryNames != null) {
+			for (Iterator<File> iterator = fileList.iterator(); iterator.hasNext();) {
+				if (!entryNames.contains(getEntryName(source, iterator.next()))) {
+					iterator.remove();
+				}
+			}
+		}
+		Iterator<File> files = fileList.iterator();
+		Deque<Future<BufferedFile>> pending = new ArrayDeque<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			while (files.hasNext() || !pending.isEmpty()) {
+				while (files.hasNext() && pending.size() < threads * 4) {
+					pending.add(executor.submit(bufferFile(source, files.next())));
+				}
+				BufferedFile bufferedFile = waitFor(pending.poll());
+
+				archiveOutputStream.putArchiveEntry(entryFunction.apply(bufferedFile.entryName, bufferedFile.length));
+				if (bufferedFile.content != null) {
+					archiveOutputStream.write(bufferedFile.content, 0, bufferedFile.content.length);
+				}
+				else if (useChannels) {
+					writeWithChannels(bufferedFile.file, archiveOutputStream, content);
+				}
+				else {
+					writeWithStreams(bufferedFile.file, archiveOutputStream, content);
+				}
+				archiveOutputStream.closeArchiveEntry();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Writes the content of the file to the current entry, reading it into the given buffer.
+	 */
+	private static void writeWithStreams(File file, ArchiveOutputStream archiveOutputStream, byte[] content) throws IOException {
+		try (InputStream inputStream = new FileInputStream(file)) {
+			int length = 0;
+			while ((length = inputStream.read(content)) > 0) {
+				archiveOutputStream.write(content, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Writes the content of the file to the current entry, reading it into the given buffer through a file channel
+	 * which is memory-mapped if the file is large enough.
+	 */
+	private static void writeWithChannels(File file, ArchiveOutputStream archiveOutputStream, byte[] content) throws IOException {
+		try (FileChannel input = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = input.size();
+			if (size >= CompressedFiles.MIN_MAPPED_SIZE) {
+				for (long position = 0; position < size; position += CompressedFiles.MAPPED_REGION_SIZE) {
+					ByteBuffer region = input.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CompressedFiles.MAPPED_REGION_SIZE, size - position));
+					while (region.hasRemaining()) {
+						int length = Math.min(content.length, region.remaining());
+						region.get(content, 0, length);
+						archiveOutputStream.write(content, 0, length);
+					}
+				}
+			}
+			else {
+				ByteBuffer buffer = ByteBuffer.wrap(content);
 				int length = 0;
-				while ((length = bufferedInputStream.read(content)) > 0) {
+				while ((length = input.read(buffer)) >= 0) {
 					archiveOutputStream.write(content, 0, length);
-					archiveOutputStream.flush();
+					buffer.clear();
 				}
 			}
-			archiveOutputStream.closeArchiveEntry();
+		}
+	}
+
+	private static Callable<BufferedFile> bufferFile(final File source, final File file) {
+		return new Callable<BufferedFile>() {
+
+			@Override
+			public BufferedFile call() throws Exception {
+				String entryName = getEntryName(source, file);
+				long length = file.length();
+				if (length > MAX_BUFFERED_FILE_SIZE) {
+					return new BufferedFile(file, entryName, length, null);
+				}
+				byte[] content = Files.readAllBytes(file.toPath());
+				return new BufferedFile(file, entryName, content.length, content);
+			}
+
+		};
+	}
+
+	/**
+	 * Copies the input stream to the output stream through a buffer of {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes
+	 * acquired from {@link BufferPool#shared()}.
+	 */
+	private static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(BufferPool.DEFAULT_BUFFER_SIZE);
+		try {
+			int length = 0;
+			while ((length = inputStream.read(content)) > 0) {
+				outputStream.write(content, 0, length);
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	private static void transferTo(FileChannel input, long position, long count, FileChannel output) throws IOException {
+		long transferred = 0;
+		while (transferred < count) {
+			long length = input.transferTo(position + transferred, count - transferred, output);
+			if (length <= 0) {
+				throw new IOException("Truncated archive entry");
+			}
+			transferred += length;
+		}
+	}
+
+	private static void transferFrom(ReadableByteChannel input, FileChannel output, long count) throws IOException {
+		long transferred = 0;
+		while (transferred < count) {
+			long length = output.transferFrom(input, transferred, count - transferred);
+			if (length <= 0) {
+				throw new IOException("Truncated archive entry");
+			}
+			transferred += length;
+		}
+	}
+
+	private static <T> T waitFor(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for worker threads", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Lists the files within a directory in the order in which they are added to an archive.
+	 */
+	static List<File> listFiles(File currentFile, List<File> filesSoFar) {
+		if (currentFile.isFile()) {
+			filesSoFar.add(currentFile);
 		}
 		else {
 			for (File child : currentFile.listFiles()) {
-				writeToArchive(archiveType, source, child, archiveOutputStream, entryFunction);
+				listFiles(child, filesSoFar);
 			}
 		}
+		return filesSoFar;
+	}
+
+	/**
+	 * Returns the name of the entry under which a file within the directory is archived.
+	 */
+	static String getEntryName(File source, File file) throws IOException {
+		int index = source.getAbsolutePath().length() + 1;
+		return file.getCanonicalPath().substring(index);
+	}
+
+	/**
+	 * A file to be added to an archive, along with its contents if it is small enough to have been read up front.
+	 */
+	private static class BufferedFile {
+
+		private final File file;
+		private final String entryName;
+		private final long length;
+		private final byte[] content;
+
+		BufferedFile(File file, String entryName, long length, byte[] content) {
+			this.file = file;
+			this.entryName = entryName;
+			this.length = length;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * A run of consecutive 7z entries which are decoded from the same folder.
+	 */
+	static class SevenZFolder {
+
+		final int firstEntry;
+		final long dictionarySize;
+		int lastEntry;
+		long size;
+
+		SevenZFolder(int firstEntry, long dictionarySize) {
+			this.firstEntry = firstEntry;
+			this.dictionarySize = dictionarySize;
+			this.lastEntry = firstEntry;
+			this.size = 0;
+		}
 	}
 
 }
@@ -0,0 +1,572 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.util;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.utils.BoundedInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
+
+/**
+ * Seekable index of a {@link Archives#TAR} archive, which is either uncompressed or compressed as
+ * {@link CompressedFiles#GZIP} or {@link CompressedFiles#BGZF}. Since tar has no central directory, reaching an entry
+ * otherwise means reading, and inflating, every entry before it. The index records the name, header offset, data offset
+ * and size of every file in the archive, along with checkpoints from which a compressed archive may be inflated, and is
+ * kept in a compact sidecar file. See {@link #write(File)} and {@link #read(File)}.
+ * 
+ * <p>
+ * A checkpoint is taken at the start of a gzip member once at least <code>span</code> uncompressed bytes have passed
+ * since the previous checkpoint. An archive of many members, such as a {@link CompressedFiles#BGZF} archive, may
+ * therefore be entered close to any entry. An archive of a single gzip member, as written by <code>gzip</code> itself,
+ * has only the checkpoint at its start, since {@link Inflater} cannot resume from within a member; extracting an entry
+ * from it inflates, but does not parse, the data before the entry.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class TarIndex {
+
+	/**
+	 * Default number of uncompressed bytes between checkpoints.
+	 */
+	public static final long DEFAULT_SPAN = 1024 * 1024;
+
+	private static final int MAGIC = 0x54494458;
+	private static final int VERSION = 1;
+
+	private final String compression;
+	private final long sourceSize;
+	private final List<Checkpoint> checkpoints;
+	private final Map<String, Entry> entries;
+
+	private TarIndex(String compression, long sourceSize, List<Checkpoint> checkpoints, Map<String, Entry> entries) {
+		this.compression = compression;
+		this.sourceSize = sourceSize;
+		this.checkpoints = checkpoints;
+		this.entries = entries;
+	}
+
+	/**
+	 * Indexes a tar archive with checkpoints every {@link #DEFAULT_SPAN} bytes. See
+	 * {@link #create(File, String, long)}.
+	 */
+	public static TarIndex create(File source, String compression) throws IOException {
+		return create(source, compression, DEFAULT_SPAN);
+	}
+
+	/**
+	 * Indexes a tar archive by reading it once from start to end. Directories, links and sparse files are not indexed,
+	 * and of several entries with the same name, the last is indexed, as it is the one left by extracting the archive.
+	 * 
+	 * @param source
+	 *            non-null tar archive which is to be indexed
+	 * @param compression
+	 *            {@link CompressedFiles#GZIP} or {@link CompressedFiles#BGZF} if the archive is compressed, or
+	 *            <code>null</code> otherwise
+	 * @param span
+	 *            positive number of uncompressed bytes between checkpoints
+	 * @throws IOException
+	 *             on any IO exception, including a corrupt gzip member
+	 */
+	public static TarIndex create(File source, String compression, long span) throws IOException {
+		verifyNonNull(source, "Source must be non-null");
+		verify(isIndexable(compression), "Compression " + compression + " cannot be indexed");
+		verifyPositive(span, "Span must be positive");
+
+		List<Checkpoint> checkpoints = new ArrayList<>();
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		try (InputStream inputStream = new FileInputStream(source);
+				InputStream compressorInputStream = compression != null ? new CheckpointingGzipInputStream(inputStream, span, checkpoints) : inputStream;
+				TarArchiveInputStream archiveInputStream = new TarArchiveInputStream(compressorInputStream)) {
+			long headerOffset = 0;
+			TarArchiveEntry entry = null;
+			while ((entry = archiveInputStream.getNextTarEntry()) != null) {
+				long dataOffset = archiveInputStream.getBytesRead();
+				if (entry.isFile() && !entry.isLink() && !entry.isSymbolicLink() && !entry.isSparse()) {
+					entries.remove(entry.getName());
+					entries.put(entry.getName(), new Entry(entry.getName(), headerOffset, dataOffset, entry.getSize()));
+				}
+				headerOffset = roundUp(dataOffset + entry.getSize(), TarConstants.DEFAULT_RCDSIZE);
+			}
+		}
+		return new TarIndex(compression, source.length(), checkpoints, entries);
+	}
+
+	/**
+	 * Returns whether archives of the given compression may be indexed: uncompressed archives, for which
+	 * <code>compression</code> is <code>null</code>, and {@link CompressedFiles#GZIP} and {@link CompressedFiles#BGZF}
+	 * archives.
+	 */
+	public static boolean isIndexable(String compression) {
+		return compression == null || CompressedFiles.GZIP.equals(compression) || CompressedFiles.BGZF.equals(compression);
+	}
+
+	/**
+	 * Reads an index from a sidecar file written by {@link #write(File)}.
+	 * 
+	 * @param index
+	 *            non-null sidecar file
+	 * @throws IOException
+	 *             on any IO exception, including a file which is not an index
+	 */
+	public static TarIndex read(File index) throws IOException {
+		verifyNonNull(index, "Index must be non-null");
+		try (DataInputStream inputStream = new DataInputStream(BufferPool.shared().bufferedInputStream(new FileInputStream(index),
+				BufferPool.DEFAULT_BUFFER_SIZE))) {
+			if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+				throw new IOException("File " + index.getAbsolutePath() + " is not a tar index");
+			}
+			String compression = inputStream.readBoolean() ? inputStream.readUTF() : null;
+			long sourceSize = inputStream.readLong();
+
+			int checkpointCount = inputStream.readInt();
+			List<Checkpoint> checkpoints = new ArrayList<>(checkpointCount);
+			for (int i = 0; i < checkpointCount; i++) {
+				checkpoints.add(new Checkpoint(inputStream.readLong(), inputStream.readLong()));
+			}
+
+			int entryCount = inputStream.readInt();
+			Map<String, Entry> entries = new LinkedHashMap<>();
+			for (int i = 0; i < entryCount; i++) {
+				Entry entry = new Entry(inputStream.readUTF(), inputStream.readLong(), inputStream.readLong(), inputStream.readLong());
+				entries.put(entry.getName(), entry);
+			}
+			return new TarIndex(compression, sourceSize, checkpoints, entries);
+		}
+		catch (EOFException e) {
+			throw new IOException("File " + index.getAbsolutePath() + " is not a tar index", e);
+		}
+	}
+
+	/**
+	 * Writes this index to a sidecar file, which holds the compression and size of the archive, followed by the
+	 * compressed and uncompressed offset of every checkpoint and the name, header offset, data offset and size of every
+	 * entry.
+	 * 
+	 * @param index
+	 *            non-null sidecar file
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public void write(File index) throws IOException {
+		verifyNonNull(index, "Index must be non-null");
+		try (DataOutputStream outputStream = new DataOutputStream(BufferPool.shared().bufferedOutputStream(new FileOutputStream(index),
+				BufferPool.DEFAULT_BUFFER_SIZE))) {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+			outputStream.writeBoolean(compression != null);
+			if (compression != null) {
+				outputStream.writeUTF(compression);
+			}
+			outputStream.writeLong(sourceSize);
+
+			outputStream.writeInt(checkpoints.size());
+			for (Checkpoint checkpoint : checkpoints) {
+				outputStream.writeLong(checkpoint.getCompressedOffset());
+				outputStream.writeLong(checkpoint.getUncompressedOffset());
+			}
+
+			outputStream.writeInt(entries.size());
+			for (Entry entry : entries.values()) {
+				outputStream.writeUTF(entry.getName());
+				outputStream.writeLong(entry.getHeaderOffset());
+				outputStream.writeLong(entry.getDataOffset());
+				outputStream.writeLong(entry.getSize());
+			}
+		}
+	}
+
+	/**
+	 * Returns the compression of the indexed archive, or <code>null</code> if it is uncompressed.
+	 */
+	public String getCompression() {
+		return compression;
+	}
+
+	/**
+	 * Returns the size of the indexed archive, in bytes, as it was when indexed.
+	 */
+	public long getSourceSize() {
+		return sourceSize;
+	}
+
+	/**
+	 * Returns the checkpoints of the indexed archive in order of offset, which is empty if it is uncompressed.
+	 */
+	public List<Checkpoint> getCheckpoints() {
+		return Collections.unmodifiableList(checkpoints);
+	}
+
+	/**
+	 * Returns the entries of the indexed archive in order of offset.
+	 */
+	public Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	/**
+	 * Returns the entry of the given name, or <code>null</code> if the indexed archive has no such file.
+	 */
+	public Entry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * Opens a stream over the content of an entry, positioned by seeking to the entry or, for a compressed archive, to
+	 * the last checkpoint before it. Closing the stream closes the archive.
+	 * 
+	 * @throws IOException
+	 *             if the archive has changed size since it was indexed, or on any other IO exception
+	 */
+	InputStream open(File source, Entry entry) throws IOException {
+		if (source.length() != sourceSize) {
+			throw new IOException("Index does not match " + source.getAbsolutePath() + ", which has changed since it was indexed");
+		}
+
+		FileInputStream fileInputStream = new FileInputStream(source);
+		try {
+			final InputStream inputStream;
+			if (compression == null) {
+				fileInputStream.getChannel().position(entry.getDataOffset());
+				inputStream = fileInputStream;
+			}
+			else {
+				Checkpoint checkpoint = getCheckpoint(entry.getDataOffset());
+				fileInputStream.getChannel().position(checkpoint.getCompressedOffset());
+				inputStream = new GzipCompressorInputStream(BufferPool.shared().bufferedInputStream(fileInputStream, BufferPool.DEFAULT_BUFFER_SIZE), true);
+				long skip = entry.getDataOffset() - checkpoint.getUncompressedOffset();
+				if (IOUtils.skip(inputStream, skip) != skip) {
+					throw new EOFException("Truncated archive entry");
+				}
+			}
+			return new FilterInputStream(new BoundedInputStream(inputStream, entry.getSize())) {
+
+				@Override
+				public void close() throws IOException {
+					inputStream.close();
+				}
+
+			};
+		}
+		catch (IOException | RuntimeException e) {
+			fileInputStream.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the last checkpoint at or before the given uncompressed offset.
+	 */
+	private Checkpoint getCheckpoint(long uncompressedOffset) throws IOException {
+		Checkpoint result = null;
+		for (Checkpoint checkpoint : checkpoints) {
+			if (checkpoint.getUncompressedOffset() > uncompressedOffset) {
+				break;
+			}
+			result = checkpoint;
+		}
+		if (result == null) {
+			throw new IOException("Index has no checkpoint before offset " + uncompressedOffset);
+		}
+		return result;
+	}
+
+	private static long roundUp(long offset, int recordSize) {
+		return (offset + recordSize - 1) / recordSize * recordSize;
+	}
+
+	/**
+	 * A file within an indexed archive.
+	 */
+	public static class Entry {
+
+		private final String name;
+		private final long headerOffset;
+		private final long dataOffset;
+		private final long size;
+
+		Entry(String name, long headerOffset, long dataOffset, long size) {
+			this.name = name;
+			this.headerOffset = headerOffset;
+			this.dataOffset = dataOffset;
+			this.size = size;
+		}
+
+		/**
+		 * Returns the name of the entry within the archive.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the uncompressed offset of the first header of the entry, including any long name or PAX header.
+		 */
+		public long getHeaderOffset() {
+			return headerOffset;
+		}
+
+		/**
+		 * Returns the uncompressed offset of the content of the entry.
+		 */
+		public long getDataOffset() {
+			return dataOffset;
+		}
+
+		/**
+		 * Returns the size of the content of the entry, in bytes.
+		 */
+		public long getSize() {
+			return size;
+		}
+	}
+
+	/**
+	 * A position in a compressed archive at which a gzip member begins, and from which it may therefore be inflated.
+	 */
+	public static class Checkpoint {
+
+		private final long compressedOffset;
+		private final long uncompressedOffset;
+
+		Checkpoint(long compressedOffset, long uncompressedOffset) {
+			this.compressedOffset = compressedOffset;
+			this.uncompressedOffset = uncompressedOffset;
+		}
+
+		/**
+		 * Returns the offset of the gzip member within the archive.
+		 */
+		public long getCompressedOffset() {
+			return compressedOffset;
+		}
+
+		/**
+		 * Returns the offset within the uncompressed archive at which the gzip member's content begins.
+		 */
+		public long getUncompressedOffset() {
+			return uncompressedOffset;
+		}
+	}
+
+	/**
+	 * Stream which inflates concatenated gzip members and records a checkpoint at the start of a member whenever
+	 * <code>span</code> uncompressed bytes have passed since the previous one. Members are parsed here rather than by
+	 * {@link GzipCompressorInputStream} so that their compressed offsets are known exactly.
+	 */
+	private static class CheckpointingGzipInputStream extends InputStream {
+
+		private static final int FHCRC = 1 << 1;
+		private static final int FEXTRA = 1 << 2;
+		private static final int FNAME = 1 << 3;
+		private static final int FCOMMENT = 1 << 4;
+
+		private final InputStream inputStream;
+		private final long span;
+		private final List<Checkpoint> checkpoints;
+		private final byte[] buffer;
+		private final Inflater inflater;
+		private final CRC32 crc;
+
+		private long bufferOffset;
+		private int bufferPosition;
+		private int bufferLength;
+		private long uncompressedOffset;
+		private long memberSize;
+		private boolean finished;
+		private boolean closed;
+
+		CheckpointingGzipInputStream(InputStream inputStream, long span, List<Checkpoint> checkpoints) throws IOException {
+			this.inputStream = inputStream;
+			this.span = span;
+			this.checkpoints = checkpoints;
+			this.buffer = BufferPool.shared().acquire(BufferPool.DEFAULT_BUFFER_SIZE);
+			this.inflater = new Inflater(true);
+			this.crc = new CRC32();
+			this.bufferOffset = 0;
+			this.bufferPosition = 0;
+			this.bufferLength = 0;
+			this.uncompressedOffset = 0;
+			this.memberSize = 0;
+			this.closed = false;
+			this.finished = !readHeader();
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] content = new byte[1];
+			return read(content, 0, 1) == 1 ? content[0] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] content, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			while (!finished) {
+				if (inflater.needsInput()) {
+					if (!fill()) {
+						throw new EOFException("Truncated gzip member");
+					}
+					inflater.setInput(buffer, bufferPosition, bufferLength - bufferPosition);
+					bufferPosition = bufferLength;
+				}
+
+				int inflated = 0;
+				try {
+					inflated = inflater.inflate(content, offset, length);
+				}
+				catch (DataFormatException e) {
+					throw new IOException(e);
+				}
+				crc.update(content, offset, inflated);
+				uncompressedOffset += inflated;
+				memberSize += inflated;
+
+				if (inflater.finished()) {
+					bufferPosition = bufferLength - inflater.getRemaining();
+					readTrailer();
+					finished = !readHeader();
+				}
+				else if (inflater.needsDictionary()) {
+					throw new IOException("Corrupt gzip member before offset " + (bufferOffset + bufferPosition));
+				}
+				if (inflated > 0) {
+					return inflated;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			inflater.end();
+			BufferPool.shared().release(buffer);
+			inputStream.close();
+		}
+
+		/**
+		 * Reads the header of the next member, recording a checkpoint if one is due, or returns <code>false</code> at
+		 * the end of the stream.
+		 */
+		private boolean readHeader() throws IOException {
+			if (!fill()) {
+				return false;
+			}
+			long memberOffset = bufferOffset + bufferPosition;
+			if (readByte() != 0x1F || readByte() != 0x8B || readByte() != Deflater.DEFLATED) {
+				throw new IOException("Expected a gzip member at offset " + memberOffset);
+			}
+			int flags = readByte();
+			skip(6);
+			if ((flags & FEXTRA) != 0) {
+				skip(readByte() | readByte() << 8);
+			}
+			if ((flags & FNAME) != 0) {
+				while (readByte() != 0) {
+				}
+			}
+			if ((flags & FCOMMENT) != 0) {
+				while (readByte() != 0) {
+				}
+			}
+			if ((flags & FHCRC) != 0) {
+				skip(2);
+			}
+
+			if (checkpoints.isEmpty() || uncompressedOffset - checkpoints.get(checkpoints.size() - 1).getUncompressedOffset() >= span) {
+				checkpoints.add(new Checkpoint(memberOffset, uncompressedOffset));
+			}
+			inflater.reset();
+			crc.reset();
+			memberSize = 0;
+			return true;
+		}
+
+		private void readTrailer() throws IOException {
+			long expectedCrc = readByte() | readByte() << 8 | readByte() << 16 | (long) readByte() << 24;
+			long expectedSize = readByte() | readByte() << 8 | readByte() << 16 | (long) readByte() << 24;
+			if (expectedCrc != crc.getValue() || expectedSize != (memberSize & 0xFFFFFFFFL)) {
+				throw new IOException("Corrupt gzip member before offset " + (bufferOffset + bufferPosition));
+			}
+		}
+
+		private int readByte() throws IOException {
+			if (!fill()) {
+				throw new EOFException("Truncated gzip member");
+			}
+			return buffer[bufferPosition++] & 0xFF;
+		}
+
+		private void skip(int length) throws IOException {
+			for (int i = 0; i < length; i++) {
+				readByte();
+			}
+		}
+
+		/**
+		 * Ensures that the buffer holds at least one unread byte, or returns <code>false</code> at the end of the
+		 * stream.
+		 */
+		private boolean fill() throws IOException {
+			if (bufferPosition < bufferLength) {
+				return true;
+			}
+			int length = inputStream.read(buffer);
+			if (length <= 0) {
+				return false;
+			}
+			bufferOffset += bufferLength;
+			bufferPosition = 0;
+			bufferLength = length;
+			return true;
+		}
+	}
+
+}
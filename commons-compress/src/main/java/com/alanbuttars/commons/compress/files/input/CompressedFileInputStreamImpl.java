@@ -29,13 +29,26 @@ import org.apache.commons.compress.compressors.CompressorInputStream;
 public class CompressedFileInputStreamImpl implements CompressedFileInputStream {
 
 	private final CompressorInputStream compressorInputStream;
+	private final int maxReadSize;
 
 	/**
 	 * @param compressorInputStream
 	 *            Non-null Apache compressor input stream
 	 */
 	public CompressedFileInputStreamImpl(CompressorInputStream compressorInputStream) {
+		this(compressorInputStream, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param compressorInputStream
+	 *            Non-null Apache compressor input stream
+	 * @param maxReadSize
+	 *            Positive number of bytes which are read from the <code>compressorInputStream</code> at a time, for
+	 *            streams which fail on reads larger than their window
+	 */
+	public CompressedFileInputStreamImpl(CompressorInputStream compressorInputStream, int maxReadSize) {
 		this.compressorInputStream = compressorInputStream;
+		this.maxReadSize = maxReadSize;
 	}
 
 	/**
@@ -51,6 +64,9 @@ public class CompressedFileInputStreamImpl implements CompressedFileInputStream
 	 */
 	@Override
 	public int read(byte[] content) throws IOException {
+		if (content.length > maxReadSize) {
+			return compressorInputStream.read(content, 0, maxReadSize);
+		}
 		return compressorInputStream.read(content);
 	}
 
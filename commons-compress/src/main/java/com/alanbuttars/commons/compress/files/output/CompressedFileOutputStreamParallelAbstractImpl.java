@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Abstraction of a {@link CompressedFileOutputStream} which splits its input into fixed-size blocks, compresses the
+ * blocks concurrently on a worker pool and writes the compressed blocks to the underlying stream in their original
+ * order. Extensions of this class define the container format by writing a header, a trailer and the compressed form of
+ * each block.
+ *
+ * <p>
+ * At most two blocks per worker are held in memory at any time; once that limit is reached, {@link #write(byte[], int,
+ * int)} blocks until the oldest block has been compressed and written.
+ *
+ * @param <T>
+ *            The type of a compressed block, as produced by a worker and consumed by the writer
+ * @author Alan Buttars
+ *
+ */
+public abstract class CompressedFileOutputStreamParallelAbstractImpl<T> implements CompressedFileOutputStream {
+
+	private final OutputStream outputStream;
+	private final ExecutorService executor;
+	private final Deque<Future<T>> pending;
+	private final int maxPending;
+	private final int blockSize;
+
+	private byte[] block;
+	private int blockLength;
+	private byte[] previousBlock;
+	private boolean headerWritten;
+	private boolean closed;
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the compressed blocks are written
+	 * @param threads
+	 *            Positive number of worker threads
+	 * @param blockSize
+	 *            Positive number of uncompressed bytes per block
+	 */
+	protected CompressedFileOutputStreamParallelAbstractImpl(OutputStream outputStream, int threads, int blockSize) {
+		verifyNonNull(outputStream, "Output stream must be non-null");
+		verifyPositive(threads, "Threads must be positive");
+		verifyPositive(blockSize, "Block size must be positive");
+		this.outputStream = outputStream;
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.pending = new ArrayDeque<>();
+		this.maxPending = threads * 2;
+		this.blockSize = blockSize;
+		this.block = new byte[blockSize];
+		this.blockLength = 0;
+		this.previousBlock = null;
+		this.headerWritten = false;
+		this.closed = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] content, int offset, int length) throws IOException {
+		if (closed) {
+			throw new IOException("Stream is closed");
+		}
+		while (length > 0) {
+			int copied = Math.min(length, blockSize - blockLength);
+			System.arraycopy(content, offset, block, blockLength, copied);
+			blockLength += copied;
+			offset += copied;
+			length -= copied;
+			if (blockLength == blockSize) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc} Compresses the final block, waits for every outstanding block to be written, writes the trailer and
+	 * closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			submitBlock(true);
+			while (!pending.isEmpty()) {
+				writeNextPending();
+			}
+			writeTrailer(outputStream);
+		}
+		finally {
+			executor.shutdownNow();
+			outputStream.close();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Closeable getStream() {
+		return outputStream;
+	}
+
+	private void submitBlock(boolean last) throws IOException {
+		if (!headerWritten) {
+			writeHeader(outputStream);
+			headerWritten = true;
+		}
+		while (pending.size() >= maxPending) {
+			writeNextPending();
+		}
+		byte[] currentBlock = block;
+		int currentLength = blockLength;
+		updateBlock(currentBlock, currentLength);
+		pending.add(executor.submit(compressBlock(currentBlock, currentLength, previousBlock, last)));
+		previousBlock = currentBlock;
+		block = new byte[blockSize];
+		blockLength = 0;
+	}
+
+	private void writeNextPending() throws IOException {
+		Future<T> future = pending.poll();
+		try {
+			writeBlock(outputStream, future.get());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Writes the container header. Invoked once, before any block is written.
+	 *
+	 * @param outputStream
+	 *            Non-null underlying stream
+	 * @throws IOException
+	 */
+	protected abstract void writeHeader(OutputStream outputStream) throws IOException;
+
+	/**
+	 * Invoked on the calling thread for every block, in order, before the block is handed to a worker. Useful for
+	 * maintaining whole-stream checksums.
+	 *
+	 * @param block
+	 *            Non-null uncompressed block
+	 * @param length
+	 *            Number of valid bytes in <code>block</code>
+	 */
+	protected abstract void updateBlock(byte[] block, int length);
+
+	/**
+	 * Returns the task which compresses a single block. The task is run on a worker thread and must not touch state
+	 * shared with other blocks.
+	 *
+	 * @param block
+	 *            Non-null uncompressed block
+	 * @param length
+	 *            Number of valid bytes in <code>block</code>, which may be zero for the final block
+	 * @param previousBlock
+	 *            The full preceding block, or <code>null</code> for the first block
+	 * @param last
+	 *            Whether this is the final block of the stream
+	 */
+	protected abstract Callable<T> compressBlock(byte[] block, int length, byte[] previousBlock, boolean last);
+
+	/**
+	 * Writes a compressed block. Invoked on the calling thread for every block, in order.
+	 *
+	 * @param outputStream
+	 *            Non-null underlying stream
+	 * @param compressedBlock
+	 *            Result of the task returned by {@link #compressBlock(byte[], int, byte[], boolean)}
+	 * @throws IOException
+	 */
+	protected abstract void writeBlock(OutputStream outputStream, T compressedBlock) throws IOException;
+
+	/**
+	 * Writes the container trailer. Invoked once, after every block has been written.
+	 *
+	 * @param outputStream
+	 *            Non-null underlying stream
+	 * @throws IOException
+	 */
+	protected abstract void writeTrailer(OutputStream outputStream) throws IOException;
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Extension of {@link CompressedFileOutputStreamParallelAbstractImpl} which writes blocked gzip files in the manner of
+ * <a href="https://samtools.github.io/hts-specs/SAMv1.pdf">BGZF</a>. Each block of at most {@link #BLOCK_SIZE} bytes is
+ * deflated on a worker thread into its own gzip member, whose <code>BC</code> extra field records the member's
+ * compressed size. The file ends with an empty member marking the end of the file.
+ *
+ * <p>
+ * The result is a valid multi-member gzip file, readable by any gzip decoder which supports concatenated members, whose
+ * members can be located without inflating them and so decompressed in parallel. See
+ * {@link com.alanbuttars.commons.compress.files.util.CompressedFiles#decompressBgzf(java.io.File, java.io.File, int)}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelBgzfImpl extends CompressedFileOutputStreamParallelAbstractImpl<byte[]> {
+
+	/**
+	 * Number of uncompressed bytes per block, chosen as in BGZF so that every member fits within 64 KiB.
+	 */
+	public static final int BLOCK_SIZE = 0xFF00;
+
+	/**
+	 * Largest size of a single member, in bytes.
+	 */
+	public static final int MAX_MEMBER_SIZE = 0x10000;
+
+	/**
+	 * Number of bytes preceding the deflate data in each member.
+	 */
+	public static final int HEADER_SIZE = 18;
+
+	/**
+	 * Number of bytes following the deflate data in each member.
+	 */
+	public static final int TRAILER_SIZE = 8;
+
+	/**
+	 * The empty member which ends every BGZF file.
+	 */
+	public static final byte[] END_OF_FILE = new byte[] { 0x1F, (byte) 0x8B, 0x08, 0x04, 0, 0, 0, 0, 0, (byte) 0xFF, 0x06, 0, 0x42, 0x43, 0x02, 0, 0x1B, 0,
+			0x03, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static final int FEXTRA = 1 << 2;
+	private static final int OS_UNKNOWN = 0xFF;
+
+	private final int level;
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the BGZF file is written
+	 * @param level
+	 *            Deflate compression level
+	 * @param threads
+	 *            Positive number of worker threads
+	 */
+	public CompressedFileOutputStreamParallelBgzfImpl(OutputStream outputStream, int level, int threads) {
+		super(outputStream, threads, BLOCK_SIZE);
+		this.level = level;
+	}
+
+	/**
+	 * {@inheritDoc} This implementation does nothing; every member carries its own header.
+	 */
+	@Override
+	protected void writeHeader(OutputStream outputStream) throws IOException {
+	}
+
+	/**
+	 * {@inheritDoc} This implementation does nothing; every member carries its own CRC32.
+	 */
+	@Override
+	protected void updateBlock(byte[] block, int length) {
+	}
+
+	/**
+	 * {@inheritDoc} Produces a complete gzip member. Should the deflated block not fit in a member, which can only
+	 * happen for incompressible data, the block is stored instead.
+	 */
+	@Override
+	protected Callable<byte[]> compressBlock(final byte[] block, final int length, final byte[] previousBlock, final boolean last) {
+		return new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() throws Exception {
+				if (length == 0) {
+					return new byte[0];
+				}
+				byte[] member = new byte[MAX_MEMBER_SIZE];
+				int deflatedLength = deflate(block, length, level, member);
+				if (deflatedLength < 0) {
+					deflatedLength = deflate(block, length, Deflater.NO_COMPRESSION, member);
+				}
+				int memberLength = HEADER_SIZE + deflatedLength + TRAILER_SIZE;
+
+				CRC32 crc = new CRC32();
+				crc.update(block, 0, length);
+				ByteBuffer buffer = ByteBuffer.wrap(member).order(ByteOrder.LITTLE_ENDIAN);
+				buffer.putShort((short) GZIPInputStream.GZIP_MAGIC);
+				buffer.put((byte) Deflater.DEFLATED);
+				buffer.put((byte) FEXTRA);
+				buffer.putInt(0);
+				buffer.put((byte) 0);
+				buffer.put((byte) OS_UNKNOWN);
+				buffer.putShort((short) 6);
+				buffer.put((byte) 'B');
+				buffer.put((byte) 'C');
+				buffer.putShort((short) 2);
+				buffer.putShort((short) (memberLength - 1));
+				buffer.position(HEADER_SIZE + deflatedLength);
+				buffer.putInt((int) crc.getValue());
+				buffer.putInt(length);
+
+				byte[] result = new byte[memberLength];
+				System.arraycopy(member, 0, result, 0, memberLength);
+				return result;
+			}
+
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void writeBlock(OutputStream outputStream, byte[] compressedBlock) throws IOException {
+		outputStream.write(compressedBlock);
+	}
+
+	/**
+	 * {@inheritDoc} Writes the empty end-of-file member.
+	 */
+	@Override
+	protected void writeTrailer(OutputStream outputStream) throws IOException {
+		outputStream.write(END_OF_FILE);
+	}
+
+	/**
+	 * Deflates the block into the member, after its header, returning the deflated length or <code>-1</code> if it
+	 * does not fit.
+	 */
+	private static int deflate(byte[] block, int length, int level, byte[] member) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(block, 0, length);
+			deflater.finish();
+			int capacity = MAX_MEMBER_SIZE - HEADER_SIZE - TRAILER_SIZE;
+			int deflatedLength = 0;
+			while (!deflater.finished() && deflatedLength < capacity) {
+				deflatedLength += deflater.deflate(member, HEADER_SIZE + deflatedLength, capacity - deflatedLength);
+			}
+			return deflater.finished() ? deflatedLength : -1;
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+
+/**
+ * Extension of {@link CompressedFileOutputStreamParallelAbstractImpl} which writes a single-stream bzip2 file in the
+ * manner of <a href="http://compression.ca/pbzip2/">pbzip2</a>. Each block is compressed by its own
+ * {@link BZip2CompressorOutputStream} on a worker thread; the writer then strips the per-worker stream header and
+ * end-of-stream marker and splices the bit-aligned blocks into one stream with a combined CRC, so the result is
+ * readable by any bzip2 decoder without enabling concatenated-stream support.
+ *
+ * <p>
+ * Blocks are sized at 80% of the bzip2 block size so that even worst-case run-length expansion never makes a worker
+ * spill into a second bzip2 block.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelBzip2Impl extends CompressedFileOutputStreamParallelAbstractImpl<CompressedFileOutputStreamParallelBzip2Impl.Bzip2Block> {
+
+	private static final long BLOCK_MAGIC = 0x314159265359L;
+	private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+	private static final int HEADER_BITS = 32;
+	private static final int[] CRC_TABLE = createCrcTable();
+
+	private final int blockSize100k;
+	private int combinedCrc;
+	private long bitBuffer;
+	private int bitCount;
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the bzip2 stream is written
+	 * @param blockSize100k
+	 *            Block size in units of 100k, between {@link BZip2CompressorOutputStream#MIN_BLOCKSIZE} and
+	 *            {@link BZip2CompressorOutputStream#MAX_BLOCKSIZE}
+	 * @param threads
+	 *            Positive number of worker threads
+	 */
+	public CompressedFileOutputStreamParallelBzip2Impl(OutputStream outputStream, int blockSize100k, int threads) {
+		super(outputStream, threads, inputBlockSize(blockSize100k));
+		this.blockSize100k = blockSize100k;
+		this.combinedCrc = 0;
+		this.bitBuffer = 0;
+		this.bitCount = 0;
+	}
+
+	private static int inputBlockSize(int blockSize100k) {
+		verify(blockSize100k >= BZip2CompressorOutputStream.MIN_BLOCKSIZE && blockSize100k <= BZip2CompressorOutputStream.MAX_BLOCKSIZE, //
+				"Block size must be between " + BZip2CompressorOutputStream.MIN_BLOCKSIZE + " and " + BZip2CompressorOutputStream.MAX_BLOCKSIZE);
+		return blockSize100k * 80000 - 20;
+	}
+
+	/**
+	 * {@inheritDoc} Writes the <code>BZh</code> signature followed by the block size.
+	 */
+	@Override
+	protected void writeHeader(OutputStream outputStream) throws IOException {
+		outputStream.write(new byte[] { 'B', 'Z', 'h', (byte) ('0' + blockSize100k) });
+	}
+
+	/**
+	 * {@inheritDoc} This implementation does nothing; the block CRCs are computed by the workers.
+	 */
+	@Override
+	protected void updateBlock(byte[] block, int length) {
+	}
+
+	/**
+	 * {@inheritDoc} Compresses the block into a standalone bzip2 stream and locates the compressed block's bits within
+	 * it.
+	 */
+	@Override
+	protected Callable<Bzip2Block> compressBlock(final byte[] block, final int length, final byte[] previousBlock, final boolean last) {
+		return new Callable<Bzip2Block>() {
+
+			@Override
+			public Bzip2Block call() throws Exception {
+				if (length == 0) {
+					return new Bzip2Block(new byte[0], 0, 0);
+				}
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 3 + 64);
+				try (BZip2CompressorOutputStream outputStream = new BZip2CompressorOutputStream(compressed, blockSize100k)) {
+					outputStream.write(block, 0, length);
+				}
+				byte[] stream = compressed.toByteArray();
+				int crc = crc(block, length);
+
+				long totalBits = stream.length * 8L;
+				for (int padding = 0; padding < 8; padding++) {
+					long endOfStream = totalBits - padding - 80;
+					if (endOfStream > HEADER_BITS //
+							&& readBits(stream, endOfStream, 48) == END_OF_STREAM_MAGIC //
+							&& (int) readBits(stream, endOfStream + 48, 32) == crc //
+							&& readBits(stream, HEADER_BITS, 48) == BLOCK_MAGIC) {
+						return new Bzip2Block(stream, endOfStream - HEADER_BITS, crc);
+					}
+				}
+				throw new IOException("Unable to locate bzip2 block boundaries");
+			}
+
+		};
+	}
+
+	/**
+	 * {@inheritDoc} Appends the block's bits to the stream and folds its CRC into the combined CRC.
+	 */
+	@Override
+	protected void writeBlock(OutputStream outputStream, Bzip2Block compressedBlock) throws IOException {
+		if (compressedBlock.bitLength == 0) {
+			return;
+		}
+		combinedCrc = ((combinedCrc << 1) | (combinedCrc >>> 31)) ^ compressedBlock.crc;
+
+		byte[] stream = compressedBlock.stream;
+		int fullBytes = (int) (compressedBlock.bitLength / 8);
+		int remainingBits = (int) (compressedBlock.bitLength % 8);
+		int start = HEADER_BITS / 8;
+
+		byte[] shifted = new byte[fullBytes];
+		for (int i = 0; i < fullBytes; i++) {
+			bitBuffer = (bitBuffer << 8) | (stream[start + i] & 0xFF);
+			shifted[i] = (byte) (bitBuffer >>> bitCount);
+		}
+		bitBuffer &= (1L << bitCount) - 1;
+		outputStream.write(shifted);
+		if (remainingBits > 0) {
+			writeBits(outputStream, (stream[start + fullBytes] & 0xFF) >>> (8 - remainingBits), remainingBits);
+		}
+	}
+
+	/**
+	 * {@inheritDoc} Writes the end-of-stream marker and the combined CRC, padded to a byte boundary.
+	 */
+	@Override
+	protected void writeTrailer(OutputStream outputStream) throws IOException {
+		writeBits(outputStream, END_OF_STREAM_MAGIC >>> 24, 24);
+		writeBits(outputStream, END_OF_STREAM_MAGIC, 24);
+		writeBits(outputStream, combinedCrc >>> 16, 16);
+		writeBits(outputStream, combinedCrc, 16);
+		if (bitCount > 0) {
+			writeBits(outputStream, 0, 8 - bitCount);
+		}
+	}
+
+	private void writeBits(OutputStream outputStream, long value, int count) throws IOException {
+		bitBuffer = (bitBuffer << count) | (value & ((1L << count) - 1));
+		bitCount += count;
+		while (bitCount >= 8) {
+			outputStream.write((int) (bitBuffer >>> (bitCount - 8)));
+			bitCount -= 8;
+		}
+		bitBuffer &= (1L << bitCount) - 1;
+	}
+
+	private static long readBits(byte[] stream, long position, int count) {
+		long value = 0;
+		for (int i = 0; i < count; i++) {
+			long bit = position + i;
+			value = (value << 1) | ((stream[(int) (bit >>> 3)] >>> (7 - (bit & 7))) & 1);
+		}
+		return value;
+	}
+
+	private static int crc(byte[] block, int length) {
+		int crc = 0xFFFFFFFF;
+		for (int i = 0; i < length; i++) {
+			crc = (crc << 8) ^ CRC_TABLE[((crc >>> 24) ^ block[i]) & 0xFF];
+		}
+		return ~crc;
+	}
+
+	private static int[] createCrcTable() {
+		int[] table = new int[256];
+		for (int i = 0; i < 256; i++) {
+			int crc = i << 24;
+			for (int j = 0; j < 8; j++) {
+				crc = (crc & 0x80000000) != 0 ? (crc << 1) ^ 0x04C11DB7 : crc << 1;
+			}
+			table[i] = crc;
+		}
+		return table;
+	}
+
+	/**
+	 * A compressed bzip2 block, held as a standalone bzip2 stream along with the position of the block's bits.
+	 */
+	static class Bzip2Block {
+
+		private final byte[] stream;
+		private final long bitLength;
+		private final int crc;
+
+		Bzip2Block(byte[] stream, long bitLength, int crc) {
+			this.stream = stream;
+			this.bitLength = bitLength;
+			this.crc = crc;
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+
+/**
+ * Extension of {@link CompressedFileOutputStreamParallelAbstractImpl} which writes a single-member gzip stream in the
+ * manner of <a href="https://zlib.net/pigz/">pigz</a>. Each block is deflated independently using the last 32 KiB of
+ * the preceding block as its preset dictionary and is terminated with a sync flush, so that the concatenated blocks form
+ * one valid deflate stream readable by any gzip decoder.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelGzipImpl extends CompressedFileOutputStreamParallelAbstractImpl<byte[]> {
+
+	/**
+	 * Default number of uncompressed bytes per block, matching pigz.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final int FNAME = 1 << 3;
+	private static final int FCOMMENT = 1 << 4;
+
+	private final GzipParameters parameters;
+	private final CRC32 crc;
+	private long totalIn;
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the gzip stream is written
+	 * @param parameters
+	 *            Non-null gzip parameters
+	 * @param threads
+	 *            Positive number of worker threads
+	 */
+	public CompressedFileOutputStreamParallelGzipImpl(OutputStream outputStream, GzipParameters parameters, int threads) {
+		this(outputStream, parameters, threads, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the gzip stream is written
+	 * @param parameters
+	 *            Non-null gzip parameters
+	 * @param threads
+	 *            Positive number of worker threads
+	 * @param blockSize
+	 *            Positive number of uncompressed bytes per block
+	 */
+	public CompressedFileOutputStreamParallelGzipImpl(OutputStream outputStream, GzipParameters parameters, int threads, int blockSize) {
+		super(outputStream, threads, blockSize);
+		this.parameters = parameters;
+		this.crc = new CRC32();
+		this.totalIn = 0;
+	}
+
+	/**
+	 * {@inheritDoc} Writes the gzip member header described by the {@link GzipParameters}.
+	 */
+	@Override
+	protected void writeHeader(OutputStream outputStream) throws IOException {
+		String filename = parameters.getFilename();
+		String comment = parameters.getComment();
+
+		ByteBuffer buffer = ByteBuffer.allocate(10);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putShort((short) GZIPInputStream.GZIP_MAGIC);
+		buffer.put((byte) Deflater.DEFLATED);
+		buffer.put((byte) ((filename != null ? FNAME : 0) | (comment != null ? FCOMMENT : 0)));
+		buffer.putInt((int) (parameters.getModificationTime() / 1000));
+		int compressionLevel = parameters.getCompressionLevel();
+		if (compressionLevel == Deflater.BEST_COMPRESSION) {
+			buffer.put((byte) 2);
+		}
+		else if (compressionLevel == Deflater.BEST_SPEED) {
+			buffer.put((byte) 4);
+		}
+		else {
+			buffer.put((byte) 0);
+		}
+		buffer.put((byte) parameters.getOperatingSystem());
+		outputStream.write(buffer.array());
+
+		if (filename != null) {
+			outputStream.write(filename.getBytes("ISO-8859-1"));
+			outputStream.write(0);
+		}
+		if (comment != null) {
+			outputStream.write(comment.getBytes("ISO-8859-1"));
+			outputStream.write(0);
+		}
+	}
+
+	/**
+	 * {@inheritDoc} Maintains the CRC32 and size of the uncompressed stream.
+	 */
+	@Override
+	protected void updateBlock(byte[] block, int length) {
+		crc.update(block, 0, length);
+		totalIn += length;
+	}
+
+	/**
+	 * {@inheritDoc} Produces a raw deflate segment which ends on a byte boundary.
+	 */
+	@Override
+	protected Callable<byte[]> compressBlock(final byte[] block, final int length, final byte[] previousBlock, final boolean last) {
+		return new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() throws Exception {
+				Deflater deflater = new Deflater(parameters.getCompressionLevel(), true);
+				try {
+					if (previousBlock != null) {
+						int dictionaryLength = Math.min(DICTIONARY_SIZE, previousBlock.length);
+						deflater.setDictionary(previousBlock, previousBlock.length - dictionaryLength, dictionaryLength);
+					}
+					deflater.setInput(block, 0, length);
+
+					ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+					byte[] buffer = new byte[64 * 1024];
+					if (last) {
+						deflater.finish();
+						while (!deflater.finished()) {
+							int deflated = deflater.deflate(buffer);
+							compressed.write(buffer, 0, deflated);
+						}
+					}
+					else {
+						int deflated;
+						do {
+							deflated = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+							compressed.write(buffer, 0, deflated);
+						}
+						while (deflated == buffer.length);
+					}
+					return compressed.toByteArray();
+				}
+				finally {
+					deflater.end();
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void writeBlock(OutputStream outputStream, byte[] compressedBlock) throws IOException {
+		outputStream.write(compressedBlock);
+	}
+
+	/**
+	 * {@inheritDoc} Writes the CRC32 and the uncompressed size modulo 2<sup>32</sup>.
+	 */
+	@Override
+	protected void writeTrailer(OutputStream outputStream) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt((int) crc.getValue());
+		buffer.putInt((int) totalIn);
+		outputStream.write(buffer.array());
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.UnsupportedOptionsException;
+import org.tukaani.xz.XZ;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * Extension of {@link CompressedFileOutputStreamParallelAbstractImpl} which writes a single multi-block xz stream in
+ * the manner of <code>xz -T</code>. Each block is compressed independently by its own {@link XZOutputStream} on a
+ * worker thread; the writer copies the compressed block out of each worker's stream and finishes with an index
+ * describing every block, so the result can later be decompressed block by block or in parallel.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelXzImpl extends CompressedFileOutputStreamParallelAbstractImpl<CompressedFileOutputStreamParallelXzImpl.XzBlock> {
+
+	private static final int CHECK_TYPE = XZ.CHECK_CRC64;
+	private static final int STREAM_HEADER_SIZE = 12;
+	private static final int STREAM_FOOTER_SIZE = 12;
+
+	private final LZMA2Options options;
+	private final List<long[]> records;
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the xz stream is written
+	 * @param preset
+	 *            LZMA2 preset level, between {@link LZMA2Options#PRESET_MIN} and {@link LZMA2Options#PRESET_MAX}
+	 * @param threads
+	 *            Positive number of worker threads
+	 * @throws UnsupportedOptionsException
+	 *             If the preset is unsupported
+	 */
+	public CompressedFileOutputStreamParallelXzImpl(OutputStream outputStream, int preset, int threads) throws UnsupportedOptionsException {
+		this(outputStream, preset, threads, defaultBlockSize(preset));
+	}
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream to which the xz stream is written
+	 * @param preset
+	 *            LZMA2 preset level, between {@link LZMA2Options#PRESET_MIN} and {@link LZMA2Options#PRESET_MAX}
+	 * @param threads
+	 *            Positive number of worker threads
+	 * @param blockSize
+	 *            Positive number of uncompressed bytes per block
+	 * @throws UnsupportedOptionsException
+	 *             If the preset is unsupported
+	 */
+	public CompressedFileOutputStreamParallelXzImpl(OutputStream outputStream, int preset, int threads, int blockSize) throws UnsupportedOptionsException {
+		super(outputStream, threads, blockSize);
+		this.options = new LZMA2Options(preset);
+		this.records = new ArrayList<>();
+	}
+
+	/**
+	 * Returns the default block size for the given preset, which is three times its dictionary size as in
+	 * <code>xz -T</code>.
+	 *
+	 * @param preset
+	 *            LZMA2 preset level
+	 * @throws UnsupportedOptionsException
+	 *             If the preset is unsupported
+	 */
+	public static int defaultBlockSize(int preset) throws UnsupportedOptionsException {
+		return 3 * new LZMA2Options(preset).getDictSize();
+	}
+
+	/**
+	 * {@inheritDoc} Writes the stream header magic and flags.
+	 */
+	@Override
+	protected void writeHeader(OutputStream outputStream) throws IOException {
+		byte[] flags = new byte[] { 0, CHECK_TYPE };
+		outputStream.write(XZ.HEADER_MAGIC);
+		outputStream.write(flags);
+		writeCrc32(outputStream, flags);
+	}
+
+	/**
+	 * {@inheritDoc} This implementation does nothing; each block carries its own check.
+	 */
+	@Override
+	protected void updateBlock(byte[] block, int length) {
+	}
+
+	/**
+	 * {@inheritDoc} Compresses the block into a standalone xz stream and reads the block's sizes back out of that
+	 * stream's index. The dictionary is shrunk to the block size, since a larger one could never be used.
+	 */
+	@Override
+	protected Callable<XzBlock> compressBlock(final byte[] block, final int length, final byte[] previousBlock, final boolean last) {
+		return new Callable<XzBlock>() {
+
+			@Override
+			public XzBlock call() throws Exception {
+				if (length == 0) {
+					return new XzBlock(new byte[0], 0, 0, 0);
+				}
+				LZMA2Options blockOptions = (LZMA2Options) options.clone();
+				if (length < blockOptions.getDictSize()) {
+					blockOptions.setDictSize(Math.max(LZMA2Options.DICT_SIZE_MIN, length));
+				}
+
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 3 + 64);
+				try (XZOutputStream outputStream = new XZOutputStream(compressed, blockOptions, CHECK_TYPE)) {
+					outputStream.write(block, 0, length);
+				}
+				byte[] stream = compressed.toByteArray();
+
+				ByteBuffer buffer = ByteBuffer.wrap(stream).order(ByteOrder.LITTLE_ENDIAN);
+				int indexStart = stream.length - STREAM_FOOTER_SIZE - (buffer.getInt(stream.length - STREAM_FOOTER_SIZE + 4) + 1) * 4;
+				buffer.position(indexStart);
+				if (buffer.get() != 0 || readVarint(buffer) != 1) {
+					throw new IOException("Unable to locate xz block boundaries");
+				}
+				long unpaddedSize = readVarint(buffer);
+				long uncompressedSize = readVarint(buffer);
+				return new XzBlock(stream, indexStart, unpaddedSize, uncompressedSize);
+			}
+
+		};
+	}
+
+	/**
+	 * {@inheritDoc} Copies the block, including its padding, and records its sizes for the index.
+	 */
+	@Override
+	protected void writeBlock(OutputStream outputStream, XzBlock compressedBlock) throws IOException {
+		if (compressedBlock.uncompressedSize == 0) {
+			return;
+		}
+		outputStream.write(compressedBlock.stream, STREAM_HEADER_SIZE, compressedBlock.blockEnd - STREAM_HEADER_SIZE);
+		records.add(new long[] { compressedBlock.unpaddedSize, compressedBlock.uncompressedSize });
+	}
+
+	/**
+	 * {@inheritDoc} Writes the index of every block followed by the stream footer.
+	 */
+	@Override
+	protected void writeTrailer(OutputStream outputStream) throws IOException {
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		index.write(0);
+		writeVarint(index, records.size());
+		for (long[] record : records) {
+			writeVarint(index, record[0]);
+			writeVarint(index, record[1]);
+		}
+		while (index.size() % 4 != 0) {
+			index.write(0);
+		}
+		byte[] indexBytes = index.toByteArray();
+		outputStream.write(indexBytes);
+		writeCrc32(outputStream, indexBytes);
+
+		byte[] footer = ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN) //
+				.putInt((indexBytes.length + 4) / 4 - 1) //
+				.put((byte) 0) //
+				.put((byte) CHECK_TYPE) //
+				.array();
+		writeCrc32(outputStream, footer);
+		outputStream.write(footer);
+		outputStream.write(XZ.FOOTER_MAGIC);
+	}
+
+	private static void writeCrc32(OutputStream outputStream, byte[] bytes) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		outputStream.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt((int) crc.getValue()).array());
+	}
+
+	private static void writeVarint(OutputStream outputStream, long value) throws IOException {
+		while (value >= 0x80) {
+			outputStream.write((int) (value | 0x80));
+			value >>>= 7;
+		}
+		outputStream.write((int) value);
+	}
+
+	private static long readVarint(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		int next;
+		do {
+			next = buffer.get() & 0xFF;
+			value |= (long) (next & 0x7F) << shift;
+			shift += 7;
+		}
+		while ((next & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * A compressed xz block, held as a standalone xz stream along with the end of the block and its index record.
+	 */
+	static class XzBlock {
+
+		private final byte[] stream;
+		private final int blockEnd;
+		private final long unpaddedSize;
+		private final long uncompressedSize;
+
+		XzBlock(byte[] stream, int blockEnd, long unpaddedSize, long uncompressedSize) {
+			this.stream = stream;
+			this.blockEnd = blockEnd;
+			this.unpaddedSize = unpaddedSize;
+			this.uncompressedSize = uncompressedSize;
+		}
+	}
+
+}
@@ -15,19 +15,63 @@
  */
 package com.alanbuttars.commons.compress.files.util;
 
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.deflate.DeflateCompressorInputStream;
+import org.apache.commons.compress.compressors.deflate.DeflateCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.lzma.LZMACompressorInputStream;
+import org.apache.commons.compress.compressors.lzma.LZMACompressorOutputStream;
+import org.apache.commons.compress.compressors.pack200.Pack200CompressorInputStream;
+import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.compress.compressors.z.ZCompressorInputStream;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
 
 import com.alanbuttars.commons.compress.files.input.CompressedFileInputStream;
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelBgzfImpl;
 import com.alanbuttars.commons.compress.stub.compress.Compress;
 import com.alanbuttars.commons.compress.stub.decompress.Decompress;
+import com.alanbuttars.commons.compress.util.BufferPool;
+import com.alanbuttars.commons.compress.util.CloseShieldInputStream;
+import com.alanbuttars.commons.compress.util.CloseShieldOutputStream;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -40,6 +84,7 @@ import com.alanbuttars.commons.util.functions.Function;
  */
 public class CompressedFiles {
 
+	public static String BGZF = "bgzf";
 	public static String BZIP2 = "bzip2";
 	public static String DEFLATE = "deflate";
 	public static String FRAMEDSNAPPY = "framedsnappy";
@@ -50,6 +95,32 @@ public class CompressedFiles {
 	public static String XZ = "xz";
 	public static String Z = "z";
 
+	/**
+	 * Number of compressed bytes of {@link #BGZF} members which are inflated together by a single task.
+	 */
+	public static final int BGZF_BATCH_SIZE = 1024 * 1024;
+
+	/**
+	 * Smallest source file, in bytes, which is memory-mapped rather than read when compressing through channels.
+	 */
+	public static final long MIN_MAPPED_SIZE = 1024 * 1024;
+
+	/**
+	 * Largest region of a source file, in bytes, which is memory-mapped at a time when compressing through channels.
+	 */
+	public static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Largest number of bytes read at a time from {@link #SNAPPY} and {@link #FRAMEDSNAPPY} streams. Reads approaching
+	 * the stream's window size fail with a premature end of stream, so larger buffers are only partially filled.
+	 */
+	public static final int SNAPPY_MAX_READ_SIZE = 16 * 1024;
+
+	private static final long BZIP2_BLOCK_MAGIC = 0x314159265359L;
+	private static final long BZIP2_END_OF_STREAM_MAGIC = 0x177245385090L;
+	private static final int BZIP2_MAGIC_BITS = 48;
+	private static final int BZIP2_MAX_MERGES = 3;
+
 	/**
 	 * Decompresses a file to a file destination.
 	 * 
@@ -69,11 +140,72 @@ public class CompressedFiles {
 			File source, //
 			File destination, //
 			Function<InputStream, CompressedFileInputStream> decompressionFunction) throws IOException {
+		decompress(fileType, source, destination, decompressionFunction, false);
+	}
+
+	/**
+	 * Decompresses a file to a file destination. When <code>useChannels</code> is <code>true</code>, the source is read
+	 * and the destination written through {@link FileChannel}s, the latter with no intermediate stream buffering.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file which is to be decompressed
+	 * @param destination
+	 *            non-null file
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code>'s input stream to a compressed input stream
+	 * @param useChannels
+	 *            whether to read and write through file channels
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<InputStream, CompressedFileInputStream> decompressionFunction, //
+			boolean useChannels) throws IOException {
+		decompress(fileType, source, destination, decompressionFunction, useChannels, BufferPool.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Decompresses a file to a file destination, reading and copying through buffers of <code>bufferSize</code> bytes
+	 * acquired from {@link BufferPool#shared()}. When <code>useChannels</code> is <code>true</code>, the source is read
+	 * and the destination written through {@link FileChannel}s, the latter with no intermediate stream buffering.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file which is to be decompressed
+	 * @param destination
+	 *            non-null file
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code>'s input stream to a compressed input stream
+	 * @param useChannels
+	 *            whether to read and write through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read and copy buffers
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			File source, //
+			File destination, //
+			Function<InputStream, CompressedFileInputStream> decompressionFunction, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		if (useChannels) {
+			decompressWithChannels(source, destination, decompressionFunction, bufferSize);
+			return;
+		}
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
 		try (InputStream inputStream = new FileInputStream(source);
-				BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+				BufferedInputStream bufferedInputStream = pool.bufferedInputStream(inputStream, bufferSize);
 				FileOutputStream outputStream = new FileOutputStream(destination);
 				CompressedFileInputStream compressorInputStream = decompressionFunction.apply(bufferedInputStream)) {
-			byte[] content = new byte[1024];
 			int length = 0;
 			while ((length = compressorInputStream.read(content)) > 0) {
 				outputStream.write(content, 0, length);
@@ -85,6 +217,9 @@ public class CompressedFiles {
 			}
 			throw e;
 		}
+		finally {
+			pool.release(content);
+		}
 	}
 
 	/**
@@ -105,11 +240,72 @@ public class CompressedFiles {
 			File source, //
 			File destination, //
 			Function<OutputStream, CompressedFileOutputStream> compressionFunction) throws IOException {
+		compress(fileType, source, destination, compressionFunction, false);
+	}
+
+	/**
+	 * Compresses a file to a file destination. When <code>useChannels</code> is <code>true</code>, the source is read
+	 * through a {@link FileChannel}, memory-mapped in regions of {@link #MAPPED_REGION_SIZE} bytes if it is at least
+	 * {@link #MIN_MAPPED_SIZE} bytes, and the destination is written through a {@link FileChannel}.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file which is to be compressed
+	 * @param destination
+	 *            non-null file
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>source</code>'s output stream to a compressed output stream
+	 * @param useChannels
+	 *            whether to read and write through file channels
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(String fileType, //
+			File source, //
+			File destination, //
+			Function<OutputStream, CompressedFileOutputStream> compressionFunction, //
+			boolean useChannels) throws IOException {
+		compress(fileType, source, destination, compressionFunction, useChannels, BufferPool.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Compresses a file to a file destination, reading and buffering through buffers of <code>bufferSize</code> bytes
+	 * acquired from {@link BufferPool#shared()}. When <code>useChannels</code> is <code>true</code>, the source is read
+	 * through a {@link FileChannel}, memory-mapped in regions of {@link #MAPPED_REGION_SIZE} bytes if it is at least
+	 * {@link #MIN_MAPPED_SIZE} bytes, and the destination is written through a {@link FileChannel}.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null file which is to be compressed
+	 * @param destination
+	 *            non-null file
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>source</code>'s output stream to a compressed output stream
+	 * @param useChannels
+	 *            whether to read and write through file channels
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read and output buffers
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(String fileType, //
+			File source, //
+			File destination, //
+			Function<OutputStream, CompressedFileOutputStream> compressionFunction, //
+			boolean useChannels, //
+			int bufferSize) throws IOException {
+		if (useChannels) {
+			compressWithChannels(source, destination, compressionFunction, bufferSize);
+			return;
+		}
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
 		try (InputStream inputStream = new FileInputStream(source);
 				OutputStream outputStream = new FileOutputStream(destination);
-				BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+				BufferedOutputStream bufferedOutputStream = pool.bufferedOutputStream(outputStream, bufferSize);
 				CompressedFileOutputStream compressorOutputStream = compressionFunction.apply(bufferedOutputStream)) {
-			byte[] content = new byte[1024];
 			int length = 0;
 			while ((length = inputStream.read(content)) > 0) {
 				compressorOutputStream.write(content, 0, length);
@@ -121,5 +317,881 @@ public class CompressedFiles {
 			}
 			throw e;
 		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	/**
+	 * Decompresses a stream to a stream destination, reading and copying through buffers of <code>bufferSize</code>
+	 * bytes acquired from {@link BufferPool#shared()}. Neither stream is closed.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null stream which is to be decompressed
+	 * @param destination
+	 *            non-null stream
+	 * @param decompressionFunction
+	 *            non-null function which maps the <code>source</code> to a compressed input stream
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read and copy buffers
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void decompress(//
+			String fileType, //
+			InputStream source, //
+			OutputStream destination, //
+			Function<InputStream, CompressedFileInputStream> decompressionFunction, //
+			int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try (BufferedInputStream bufferedInputStream = pool.bufferedInputStream(new CloseShieldInputStream(source), bufferSize);
+				CompressedFileInputStream compressorInputStream = decompressionFunction.apply(bufferedInputStream)) {
+			int length = 0;
+			while ((length = compressorInputStream.read(content)) > 0) {
+				destination.write(content, 0, length);
+			}
+			destination.flush();
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	/**
+	 * Compresses a stream to a stream destination, reading and buffering through buffers of <code>bufferSize</code>
+	 * bytes acquired from {@link BufferPool#shared()}. The compressed output is finished and flushed, but neither
+	 * stream is closed.
+	 * 
+	 * @param fileType
+	 *            non-null file type
+	 * @param source
+	 *            non-null stream which is to be compressed
+	 * @param destination
+	 *            non-null stream
+	 * @param compressionFunction
+	 *            non-null function which maps the <code>destination</code> to a compressed output stream
+	 * @param bufferSize
+	 *            positive size, in bytes, of the read and output buffers
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static void compress(String fileType, //
+			InputStream source, //
+			OutputStream destination, //
+			Function<OutputStream, CompressedFileOutputStream> compressionFunction, //
+			int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try (BufferedOutputStream bufferedOutputStream = pool.bufferedOutputStream(new CloseShieldOutputStream(destination), bufferSize);
+				CompressedFileOutputStream compressorOutputStream = compressionFunction.apply(bufferedOutputStream)) {
+			int length = 0;
+			while ((length = source.read(content)) > 0) {
+				compressorOutputStream.write(content, 0, length);
+			}
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	/**
+	 * Identifies the file type of a compressed file by its leading bytes. {@link #SNAPPY} streams and {@link #DEFLATE}
+	 * streams without a zlib header carry no signature and are never identified. The {@link #BZIP2}, zlib and
+	 * {@link #LZMA} signatures are only a few bytes long, so callers which also recognize archives should check
+	 * {@link com.alanbuttars.commons.compress.archives.util.Archives#detect(byte[], int)} first.
+	 * 
+	 * @param signature
+	 *            non-null leading bytes of the file
+	 * @param length
+	 *            number of valid bytes in <code>signature</code>
+	 * @return The file type, or <code>null</code> if the bytes do not begin a known compressed file
+	 */
+	public static String detect(byte[] signature, int length) {
+		if (GzipCompressorInputStream.matches(signature, length)) {
+			return isBgzfSignature(signature, length) ? BGZF : GZIP;
+		}
+		else if (BZip2CompressorInputStream.matches(signature, length) && isBzip2BlockSize(signature, length)) {
+			return BZIP2;
+		}
+		else if (XZCompressorInputStream.matches(signature, length)) {
+			return XZ;
+		}
+		else if (ZCompressorInputStream.matches(signature, length)) {
+			return Z;
+		}
+		else if (FramedSnappyCompressorInputStream.matches(signature, length)) {
+			return FRAMEDSNAPPY;
+		}
+		else if (Pack200CompressorInputStream.matches(signature, length)) {
+			return PACK200;
+		}
+		else if (DeflateCompressorInputStream.matches(signature, length)) {
+			return DEFLATE;
+		}
+		else if (LZMACompressorInputStream.matches(signature, length)) {
+			return LZMA;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns whether a bzip2 signature's <code>BZh</code> magic is followed by a block size digit from 1 to 9.
+	 */
+	private static boolean isBzip2BlockSize(byte[] signature, int length) {
+		return length >= 4 && signature[3] >= '1' && signature[3] <= '9';
+	}
+
+	/**
+	 * Returns whether a gzip signature carries the <code>BC</code> extra subfield which begins every {@link #BGZF}
+	 * member.
+	 */
+	private static boolean isBgzfSignature(byte[] signature, int length) {
+		return length >= 16 && (signature[3] & 4) != 0 && signature[12] == 'B' && signature[13] == 'C';
+	}
+
+	/**
+	 * Returns whether streams of the given file type may be created by
+	 * {@link #createCompressorOutputStream(String, OutputStream)}: {@link #BGZF}, {@link #BZIP2}, {@link #DEFLATE},
+	 * {@link #GZIP}, {@link #LZMA} and {@link #XZ}.
+	 */
+	public static boolean isStreamCompressible(String fileType) {
+		return BGZF.equals(fileType) || BZIP2.equals(fileType) || DEFLATE.equals(fileType) || GZIP.equals(fileType) || LZMA.equals(fileType)
+				|| XZ.equals(fileType);
+	}
+
+	/**
+	 * Returns whether compressed files of the given file type may be appended to by writing another compressed stream
+	 * after their end, which decompressors read as the continuation of the file: {@link #BGZF}, {@link #BZIP2},
+	 * {@link #GZIP} and {@link #XZ}.
+	 */
+	public static boolean isAppendable(String fileType) {
+		return BGZF.equals(fileType) || BZIP2.equals(fileType) || GZIP.equals(fileType) || XZ.equals(fileType);
+	}
+
+	/**
+	 * Returns whether streams of the given file type may be created by
+	 * {@link #createCompressorInputStream(String, InputStream)}: {@link #BGZF}, {@link #BZIP2}, {@link #DEFLATE},
+	 * {@link #GZIP}, {@link #LZMA}, {@link #XZ} and {@link #Z}.
+	 */
+	public static boolean isStreamDecompressible(String fileType) {
+		return isStreamCompressible(fileType) || Z.equals(fileType);
+	}
+
+	/**
+	 * Wraps an output stream in a compressor of the given file type with its default parameters, so that another format,
+	 * such as an archive, may be compressed as it is written. {@link #BGZF} blocks are deflated on a single worker
+	 * thread while the caller writes the next block.
+	 * 
+	 * @param fileType
+	 *            file type for which {@link #isStreamCompressible(String)} holds
+	 * @param outputStream
+	 *            non-null stream to which compressed bytes are written
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static OutputStream createCompressorOutputStream(String fileType, OutputStream outputStream) throws IOException {
+		verify(isStreamCompressible(fileType), "File type " + fileType + " cannot be compressed as a stream");
+		if (BGZF.equals(fileType)) {
+			final CompressedFileOutputStream compressedFileOutputStream = new CompressedFileOutputStreamParallelBgzfImpl(outputStream,
+					Deflater.DEFAULT_COMPRESSION, 1);
+			return new OutputStream() {
+
+				@Override
+				public void write(int b) throws IOException {
+					write(new byte[] { (byte) b }, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] content, int offset, int length) throws IOException {
+					compressedFileOutputStream.write(content, offset, length);
+				}
+
+				@Override
+				public void close() throws IOException {
+					compressedFileOutputStream.close();
+				}
+
+			};
+		}
+		else if (BZIP2.equals(fileType)) {
+			return new BZip2CompressorOutputStream(outputStream);
+		}
+		else if (DEFLATE.equals(fileType)) {
+			return new DeflateCompressorOutputStream(outputStream);
+		}
+		else if (GZIP.equals(fileType)) {
+			return new GzipCompressorOutputStream(outputStream);
+		}
+		else if (LZMA.equals(fileType)) {
+			return new LZMACompressorOutputStream(outputStream);
+		}
+		return new XZCompressorOutputStream(outputStream);
+	}
+
+	/**
+	 * Wraps an input stream in a decompressor of the given file type, so that another format, such as an archive, may be
+	 * read as it is decompressed. Concatenated {@link #BGZF}, {@link #BZIP2}, {@link #GZIP} and {@link #XZ} streams are
+	 * read through to their end.
+	 * 
+	 * @param fileType
+	 *            file type for which {@link #isStreamDecompressible(String)} holds
+	 * @param inputStream
+	 *            non-null stream from which compressed bytes are read
+	 * @throws IOException
+	 *             on any IO exception
+	 */
+	public static InputStream createCompressorInputStream(String fileType, InputStream inputStream) throws IOException {
+		verify(isStreamDecompressible(fileType), "File type " + fileType + " cannot be decompressed as a stream");
+		if (BGZF.equals(fileType) || GZIP.equals(fileType)) {
+			return new GzipCompressorInputStream(inputStream, true);
+		}
+		else if (BZIP2.equals(fileType)) {
+			return new BZip2CompressorInputStream(inputStream, true);
+		}
+		else if (DEFLATE.equals(fileType)) {
+			return new DeflateCompressorInputStream(inputStream);
+		}
+		else if (LZMA.equals(fileType)) {
+			return new LZMACompressorInputStream(inputStream);
+		}
+		else if (XZ.equals(fileType)) {
+			return new XZCompressorInputStream(inputStream, true);
+		}
+		return new ZCompressorInputStream(inputStream);
+	}
+
+	private static void decompressWithChannels(File source, //
+			File destination, //
+			Function<InputStream, CompressedFileInputStream> decompressionFunction, //
+			int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+				BufferedInputStream bufferedInputStream = pool.bufferedInputStream(Channels.newInputStream(input), bufferSize);
+				FileChannel output = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+				CompressedFileInputStream compressorInputStream = decompressionFunction.apply(bufferedInputStream)) {
+			ByteBuffer buffer = ByteBuffer.wrap(content);
+			int length = 0;
+			while ((length = compressorInputStream.read(content)) > 0) {
+				buffer.clear();
+				buffer.limit(length);
+				while (buffer.hasRemaining()) {
+					output.write(buffer);
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	private static void compressWithChannels(File source, //
+			File destination, //
+			Function<OutputStream, CompressedFileOutputStream> compressionFunction, //
+			int bufferSize) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(bufferSize);
+		try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+				FileChannel output = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+				BufferedOutputStream bufferedOutputStream = pool.bufferedOutputStream(Channels.newOutputStream(output), bufferSize);
+				CompressedFileOutputStream compressorOutputStream = compressionFunction.apply(bufferedOutputStream)) {
+			long size = input.size();
+			if (size >= MIN_MAPPED_SIZE) {
+				for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+					ByteBuffer region = input.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position));
+					while (region.hasRemaining()) {
+						int length = Math.min(content.length, region.remaining());
+						region.get(content, 0, length);
+						compressorOutputStream.write(content, 0, length);
+					}
+				}
+			}
+			else {
+				ByteBuffer buffer = ByteBuffer.wrap(content);
+				int length = 0;
+				while ((length = input.read(buffer)) >= 0) {
+					compressorOutputStream.write(content, 0, length);
+					buffer.clear();
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	/**
+	 * Decompresses a {@link #BGZF} file to a file destination by inflating its members concurrently. Members are located
+	 * by the compressed size recorded in their <code>BC</code> extra field, grouped into batches of about
+	 * {@link #BGZF_BATCH_SIZE} bytes and inflated by worker threads, each of which writes its batch at the batch's offset
+	 * in the destination. If the source does not begin with a BGZF member, it is instead decompressed sequentially as a
+	 * multi-member {@link #GZIP} file.
+	 * 
+	 * @param source
+	 *            non-null file which is to be decompressed
+	 * @param destination
+	 *            non-null file
+	 * @param threads
+	 *            positive number of threads which inflate members
+	 * @throws IOException
+	 *             on any IO exception, including a corrupt or non-BGZF member following the first
+	 */
+	public static void decompressBgzf(File source, File destination, int threads) throws IOException {
+		try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			if (input.size() > 0 && readBgzfMemberSize(input, 0) > 0) {
+				try (FileChannel output = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					decompressBgzf(input, output, threads);
+				}
+				return;
+			}
+		}
+		try (InputStream inputStream = new FileInputStream(source);
+				BufferedInputStream bufferedInputStream = BufferPool.shared().bufferedInputStream(inputStream, BufferPool.DEFAULT_BUFFER_SIZE);
+				OutputStream outputStream = new FileOutputStream(destination);
+				GzipCompressorInputStream compressorInputStream = new GzipCompressorInputStream(bufferedInputStream, true)) {
+			copy(compressorInputStream, outputStream);
+		}
+	}
+
+	private static void decompressBgzf(FileChannel input, FileChannel output, int threads) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Deque<Future<Object>> pending = new ArrayDeque<>();
+		try {
+			long size = input.size();
+			long position = 0;
+			long outputPosition = 0;
+			while (position < size) {
+				long batchStart = position;
+				List<Integer> memberSizes = new ArrayList<>();
+				while (position < size && position - batchStart < BGZF_BATCH_SIZE) {
+					int memberSize = readBgzfMemberSize(input, position);
+					if (memberSize < 0) {
+						throw new IOException("Expected a BGZF member at offset " + position);
+					}
+					memberSizes.add(memberSize);
+					position += memberSize;
+				}
+
+				byte[] batch = new byte[(int) (position - batchStart)];
+				readFully(input, ByteBuffer.wrap(batch), batchStart);
+				ByteBuffer batchBuffer = ByteBuffer.wrap(batch).order(ByteOrder.LITTLE_ENDIAN);
+				long batchOutputSize = 0;
+				int memberEnd = 0;
+				for (int memberSize : memberSizes) {
+					memberEnd += memberSize;
+					batchOutputSize += batchBuffer.getInt(memberEnd - 4) & 0xFFFFFFFFL;
+				}
+
+				while (pending.size() >= threads * 2) {
+					waitFor(pending.poll());
+				}
+				pending.add(executor.submit(inflateBgzfMembers(batch, memberSizes, output, outputPosition, batchStart)));
+				outputPosition += batchOutputSize;
+			}
+			while (!pending.isEmpty()) {
+				waitFor(pending.poll());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the size of the BGZF member beginning at the given position, or <code>-1</code> if a gzip member without
+	 * a <code>BC</code> extra field begins there.
+	 */
+	private static int readBgzfMemberSize(FileChannel input, long position) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(input, header, position);
+		if ((header.getShort(0) & 0xFFFF) != GZIPInputStream.GZIP_MAGIC || header.get(2) != 8) {
+			throw new IOException("Expected a gzip member at offset " + position);
+		}
+		if (header.get(3) != 4) {
+			return -1;
+		}
+		ByteBuffer extra = ByteBuffer.allocate(header.getShort(10) & 0xFFFF).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(input, extra, position + header.capacity());
+		extra.flip();
+		while (extra.remaining() >= 4) {
+			byte subfield1 = extra.get();
+			byte subfield2 = extra.get();
+			int subfieldLength = extra.getShort() & 0xFFFF;
+			if (subfield1 == 'B' && subfield2 == 'C' && subfieldLength == 2 && extra.remaining() >= 2) {
+				return (extra.getShort() & 0xFFFF) + 1;
+			}
+			extra.position(Math.min(extra.limit(), extra.position() + subfieldLength));
+		}
+		return -1;
+	}
+
+	private static Callable<Object> inflateBgzfMembers(final byte[] batch, //
+			final List<Integer> memberSizes, //
+			final FileChannel output, //
+			final long outputPosition, //
+			final long inputPosition) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				ByteBuffer buffer = ByteBuffer.wrap(batch).order(ByteOrder.LITTLE_ENDIAN);
+				byte[] member = BufferPool.shared().acquire(CompressedFileOutputStreamParallelBgzfImpl.MAX_MEMBER_SIZE);
+				Inflater inflater = new Inflater(true);
+				CRC32 crc = new CRC32();
+				try {
+					int memberStart = 0;
+					long position = outputPosition;
+					for (int memberSize : memberSizes) {
+						int dataStart = memberStart + 12 + (buffer.getShort(memberStart + 10) & 0xFFFF);
+						int dataEnd = memberStart + memberSize - 8;
+						long expectedSize = buffer.getInt(dataEnd + 4) & 0xFFFFFFFFL;
+						if (expectedSize > member.length) {
+							throw new IOException("Corrupt BGZF member at offset " + (inputPosition + memberStart));
+						}
+
+						inflater.reset();
+						inflater.setInput(batch, dataStart, dataEnd - dataStart);
+						int inflatedSize = 0;
+						while (!inflater.finished() && inflatedSize < expectedSize) {
+							int inflated = inflater.inflate(member, inflatedSize, (int) expectedSize - inflatedSize);
+							if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+								break;
+							}
+							inflatedSize += inflated;
+						}
+						crc.reset();
+						crc.update(member, 0, inflatedSize);
+						if (inflatedSize != expectedSize || (int) crc.getValue() != buffer.getInt(dataEnd)) {
+							throw new IOException("Corrupt BGZF member at offset " + (inputPosition + memberStart));
+						}
+
+						ByteBuffer content = ByteBuffer.wrap(member, 0, inflatedSize);
+						while (content.hasRemaining()) {
+							position += output.write(content, position);
+						}
+						memberStart += memberSize;
+					}
+				}
+				catch (DataFormatException e) {
+					throw new IOException(e);
+				}
+				finally {
+					inflater.end();
+					BufferPool.shared().release(member);
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Decompresses a {@link #BZIP2} file to a file destination by decoding its blocks concurrently, in the manner of
+	 * <a href="https://github.com/kjn/lbzip2">lbzip2</a>. The source is scanned for the bit-aligned magic numbers which
+	 * begin every block and end every stream; each block found is wrapped in a standalone stream and decoded on a
+	 * worker thread, which verifies the block's CRC. Decoded blocks are written in their original order, and the
+	 * combined CRC of every stream is verified against the stream's trailer.
+	 * 
+	 * <p>
+	 * Since the magic numbers may also occur by chance within compressed data, a block which fails to decode is merged
+	 * with the blocks which follow it and decoded again before the failure is reported.
+	 * 
+	 * @param source
+	 *            non-null file which is to be decompressed
+	 * @param destination
+	 *            non-null file
+	 * @param decompressConcatenated
+	 *            whether to decompress every concatenated stream, rather than only the first
+	 * @param threads
+	 *            positive number of threads which decode blocks
+	 * @throws IOException
+	 *             on any IO exception, including a corrupt block or stream
+	 */
+	public static void decompressBzip2(File source, File destination, boolean decompressConcatenated, int threads) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Deque<Bzip2Block> pending = new ArrayDeque<>();
+		int maxPending = Math.max(threads * 2, BZIP2_MAX_MERGES + 1);
+		int[] combinedCrc = new int[1];
+		try (InputStream inputStream = new FileInputStream(source);
+				BufferedInputStream bufferedInputStream = BufferPool.shared().bufferedInputStream(inputStream, BufferPool.DEFAULT_BUFFER_SIZE);
+				OutputStream outputStream = new FileOutputStream(destination);
+				BufferedOutputStream bufferedOutputStream = BufferPool.shared().bufferedOutputStream(outputStream, BufferPool.DEFAULT_BUFFER_SIZE)) {
+			byte[] signature = new byte[3];
+			if (bufferedInputStream.read(signature) != 3 || signature[0] != 'B' || signature[1] != 'Z' || signature[2] != 'h') {
+				throw new IOException("Stream is not in the BZip2 format");
+			}
+
+			long bytesRead = signature.length;
+			long byteRegister = ((signature[0] & 0xFFL) << 16) | ((signature[1] & 0xFFL) << 8) | (signature[2] & 0xFFL);
+			long bitRegister = byteRegister;
+			Bzip2Block current = null;
+			int value;
+			scan: while ((value = bufferedInputStream.read()) != -1) {
+				bytesRead++;
+				byteRegister = (byteRegister << 8) | value;
+				if (current != null) {
+					current.bytes.write(value);
+				}
+				for (int bit = 7; bit >= 0; bit--) {
+					bitRegister = (bitRegister << 1) | ((value >>> bit) & 1);
+					long magic = bitRegister & 0xFFFFFFFFFFFFL;
+					if (magic == BZIP2_BLOCK_MAGIC || magic == BZIP2_END_OF_STREAM_MAGIC) {
+						long start = bytesRead * 8 - bit - BZIP2_MAGIC_BITS;
+						if (current != null) {
+							current.finish(start);
+							submitBzip2Block(current, executor, pending);
+							writeBzip2Blocks(pending, maxPending, bufferedOutputStream, combinedCrc, false);
+							if (current.endOfStream && !decompressConcatenated) {
+								current = null;
+								break scan;
+							}
+						}
+						current = new Bzip2Block(start, magic == BZIP2_END_OF_STREAM_MAGIC);
+						for (long i = bytesRead - start / 8 - 1; i >= 0; i--) {
+							current.bytes.write((int) (byteRegister >>> (8 * i)));
+						}
+					}
+				}
+			}
+			if (current != null) {
+				current.finish(bytesRead * 8);
+				submitBzip2Block(current, executor, pending);
+			}
+			writeBzip2Blocks(pending, maxPending, bufferedOutputStream, combinedCrc, true);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void submitBzip2Block(Bzip2Block block, ExecutorService executor, Deque<Bzip2Block> pending) {
+		if (!block.endOfStream) {
+			block.decoded = executor.submit(decodeBzip2BlockCallable(block));
+		}
+		pending.add(block);
+	}
+
+	/**
+	 * Writes decoded blocks in order while more than <code>maxPending</code> are outstanding, or until none are if
+	 * <code>finished</code>.
+	 */
+	private static void writeBzip2Blocks(Deque<Bzip2Block> pending, //
+			int maxPending, //
+			OutputStream outputStream, //
+			int[] combinedCrc, //
+			boolean finished) throws IOException {
+		while (pending.size() > maxPending || (finished && !pending.isEmpty())) {
+			Bzip2Block block = pending.poll();
+			if (block.endOfStream) {
+				if (block.readCrc() != combinedCrc[0]) {
+					throw new IOException("BZip2 stream CRC error");
+				}
+				combinedCrc[0] = 0;
+				continue;
+			}
+
+			byte[] content;
+			try {
+				content = waitFor(block.decoded);
+			}
+			catch (IOException e) {
+				content = null;
+				for (int i = 0; i < BZIP2_MAX_MERGES && content == null && !pending.isEmpty(); i++) {
+					block = block.merge(pending.poll());
+					try {
+						content = decodeBzip2Block(block);
+					}
+					catch (IOException ignored) {
+						// the block may have been split by more than one false magic number
+					}
+				}
+				if (content == null) {
+					throw e;
+				}
+			}
+			combinedCrc[0] = ((combinedCrc[0] << 1) | (combinedCrc[0] >>> 31)) ^ block.readCrc();
+			outputStream.write(content);
+		}
+	}
+
+	private static Callable<byte[]> decodeBzip2BlockCallable(final Bzip2Block block) {
+		return new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() throws Exception {
+				return decodeBzip2Block(block);
+			}
+
+		};
+	}
+
+	/**
+	 * Decodes a single block by wrapping it in a standalone stream, whose block size is the largest possible and whose
+	 * combined CRC is the block's own.
+	 */
+	private static byte[] decodeBzip2Block(Bzip2Block block) throws IOException {
+		Bzip2BitWriter stream = new Bzip2BitWriter();
+		stream.write('B', 8);
+		stream.write('Z', 8);
+		stream.write('h', 8);
+		stream.write('9', 8);
+		byte[] bytes = block.bytes.toByteArray();
+		for (long bit = block.startBit; bit < block.startBit + block.bitLength; bit++) {
+			stream.write((bytes[(int) (bit >>> 3)] >>> (7 - (bit & 7))) & 1, 1);
+		}
+		stream.write(BZIP2_END_OF_STREAM_MAGIC, BZIP2_MAGIC_BITS);
+		stream.write(block.readCrc(), 32);
+		stream.flush();
+
+		try (BZip2CompressorInputStream inputStream = new BZip2CompressorInputStream(new ByteArrayInputStream(stream.toByteArray()))) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream(block.bytes.size() * 4);
+			copy(inputStream, content);
+			return content.toByteArray();
+		}
+		catch (RuntimeException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Decompresses an {@link #XZ} file to a file destination by decoding its blocks concurrently, in the manner of
+	 * <code>xz -T</code>. The blocks are located through the index at the end of each stream; every thread decodes
+	 * blocks with its own {@link SeekableXZInputStream} and writes each block's output at the uncompressed offset which
+	 * the index records. Files of a single block, or of several streams when concatenated streams are not to be
+	 * decompressed, are decompressed sequentially instead.
+	 * 
+	 * @param source
+	 *            non-null file which is to be decompressed
+	 * @param destination
+	 *            non-null file
+	 * @param decompressConcatenated
+	 *            whether to decompress every concatenated stream, rather than only the first
+	 * @param threads
+	 *            positive number of threads which decode blocks
+	 * @throws IOException
+	 *             on any IO exception, including a corrupt block or index
+	 */
+	public static void decompressXz(File source, File destination, boolean decompressConcatenated, int threads) throws IOException {
+		int blockCount;
+		try (SeekableXZInputStream inputStream = new SeekableXZInputStream(new SeekableFileInputStream(source))) {
+			blockCount = inputStream.getBlockCount();
+			if (inputStream.getStreamCount() > 1 && !decompressConcatenated) {
+				blockCount = 0;
+			}
+		}
+
+		if (blockCount > 1) {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try (FileChannel output = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				AtomicInteger nextBlock = new AtomicInteger();
+				List<Future<Object>> futures = new ArrayList<>();
+				for (int i = 0; i < Math.min(threads, blockCount); i++) {
+					futures.add(executor.submit(decodeXzBlocks(source, output, nextBlock)));
+				}
+				for (Future<Object> future : futures) {
+					waitFor(future);
+				}
+			}
+			finally {
+				executor.shutdownNow();
+			}
+			return;
+		}
+
+		try (InputStream inputStream = new FileInputStream(source);
+				BufferedInputStream bufferedInputStream = BufferPool.shared().bufferedInputStream(inputStream, BufferPool.DEFAULT_BUFFER_SIZE);
+				OutputStream outputStream = new FileOutputStream(destination);
+				XZCompressorInputStream compressorInputStream = new XZCompressorInputStream(bufferedInputStream, decompressConcatenated)) {
+			copy(compressorInputStream, outputStream);
+		}
+	}
+
+	/**
+	 * Returns the task which opens its own decoder on the source and decodes blocks, claimed in turn from
+	 * <code>nextBlock</code>, into their place in the output.
+	 */
+	private static Callable<Object> decodeXzBlocks(final File source, final FileChannel output, final AtomicInteger nextBlock) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				try (SeekableXZInputStream inputStream = new SeekableXZInputStream(new SeekableFileInputStream(source))) {
+					ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+					int block;
+					while ((block = nextBlock.getAndIncrement()) < inputStream.getBlockCount()) {
+						inputStream.seekToBlock(block);
+						long position = inputStream.getBlockPos(block);
+						long remaining = inputStream.getBlockSize(block);
+						while (remaining > 0) {
+							int read = inputStream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), remaining));
+							if (read < 0) {
+								throw new IOException("Truncated xz block " + block);
+							}
+							buffer.limit(read);
+							buffer.position(0);
+							while (buffer.hasRemaining()) {
+								position += output.write(buffer, position);
+							}
+							remaining -= read;
+						}
+					}
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Copies the input stream to the output stream through a buffer of {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes
+	 * acquired from {@link BufferPool#shared()}.
+	 */
+	private static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+		BufferPool pool = BufferPool.shared();
+		byte[] content = pool.acquire(BufferPool.DEFAULT_BUFFER_SIZE);
+		try {
+			int length = 0;
+			while ((length = inputStream.read(content)) > 0) {
+				outputStream.write(content, 0, length);
+			}
+		}
+		finally {
+			pool.release(content);
+		}
+	}
+
+	private static void readFully(FileChannel input, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = input.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file at offset " + position);
+			}
+			position += read;
+		}
+	}
+
+	private static <T> T waitFor(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while decompressing", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * The bits between two magic numbers found while scanning a bzip2 file, which are either a block or the end of a
+	 * stream. The bits are held as the bytes which contain them, starting at bit <code>startBit</code> of the first.
+	 */
+	private static class Bzip2Block {
+
+		private final ByteArrayOutputStream bytes;
+		private final long firstByte;
+		private final int startBit;
+		private final boolean endOfStream;
+		private long bitLength;
+		private Future<byte[]> decoded;
+
+		Bzip2Block(long start, boolean endOfStream) {
+			this.bytes = new ByteArrayOutputStream();
+			this.firstByte = start / 8;
+			this.startBit = (int) (start % 8);
+			this.endOfStream = endOfStream;
+		}
+
+		void finish(long end) {
+			this.bitLength = end - (firstByte * 8 + startBit);
+		}
+
+		/**
+		 * Reads the CRC which follows the magic number.
+		 */
+		int readCrc() throws IOException {
+			if (bitLength < BZIP2_MAGIC_BITS + 32) {
+				throw new IOException("Truncated BZip2 stream");
+			}
+			byte[] array = bytes.toByteArray();
+			int crc = 0;
+			for (long bit = startBit + BZIP2_MAGIC_BITS; bit < startBit + BZIP2_MAGIC_BITS + 32; bit++) {
+				crc = (crc << 1) | ((array[(int) (bit >>> 3)] >>> (7 - (bit & 7))) & 1);
+			}
+			return crc;
+		}
+
+		/**
+		 * Returns the block spanning the bits of this block and the given following block.
+		 */
+		Bzip2Block merge(Bzip2Block next) {
+			Bzip2Block merged = new Bzip2Block(firstByte * 8 + startBit, false);
+			merged.bytes.write(bytes.toByteArray(), 0, (int) (next.firstByte - firstByte));
+			merged.bytes.write(next.bytes.toByteArray(), 0, next.bytes.size());
+			merged.bitLength = bitLength + next.bitLength;
+			return merged;
+		}
+	}
+
+	/**
+	 * Writes bits, most significant first, into a byte array.
+	 */
+	private static class Bzip2BitWriter extends ByteArrayOutputStream {
+
+		private long buffer;
+		private int count;
+
+		void write(long value, int bits) {
+			for (int bit = bits - 1; bit >= 0; bit--) {
+				buffer = (buffer << 1) | ((value >>> bit) & 1);
+				if (++count == 8) {
+					write((int) buffer);
+					buffer = 0;
+					count = 0;
+				}
+			}
+		}
+
+		@Override
+		public void flush() {
+			if (count > 0) {
+				write(0, 8 - count);
+			}
+		}
 	}
 }
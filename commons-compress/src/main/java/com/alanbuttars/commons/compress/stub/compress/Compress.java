@@ -18,7 +18,11 @@ package com.alanbuttars.commons.compress.stub.compress;
 import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
 
 /**
  * The stubbing class for all compression operations. Files may be compressed using pre-configured or custom compression
@@ -35,6 +39,7 @@ import java.io.File;
  * Compress.file(source).withLzma().to(new File("test.txt.lzma"));
  * Compress.file(source).withPack200().to(new File("test.txt.pack"));
  * Compress.file(source).withXz().to(new File("test.txt.xz"));
+ * Compress.file(source).withGzip().toStream(response.getOutputStream());
  * Compress.file(source).with("my-custom-algorithm", //
  * 		new Function&lt;OutputStream, CompressedFileOutputStream&gt;() {
  * 			&#64;Override
@@ -45,6 +50,18 @@ import java.io.File;
  * </pre>
  * 
  * <p>
+ * Streams may be compressed using {@link Compress#stream(InputStream)}, and byte arrays using
+ * {@link Compress#bytes(byte[])}. Files and directories may be compressed in memory with <code>toBytes()</code>:
+ * </p>
+ * 
+ * <pre>
+ * Compress.stream(request.getInputStream()).withGzip().to(new File("test.txt.gz"));
+ * Compress.stream(request.getInputStream()).withGzip().toStream(response.getOutputStream());
+ * byte[] compressed = Compress.bytes(content).withGzip().toBytes();
+ * byte[] archive = Compress.directory(new File("test")).withZip().toBytes();
+ * </pre>
+ * 
+ * <p>
  * Directories may be compressed using {@link Compress#directory(File)}:
  * </p>
  * 
@@ -55,7 +72,9 @@ import java.io.File;
  * Compress.directory(source).withCpio().to(new File("test.cpio"));
  * Compress.directory(source).withJar().to(new File("test.jar"));
  * Compress.directory(source).withTar().to(new File("test.tar"));
+ * Compress.directory(source).withTar().andCompression(CompressedFiles.GZIP).to(new File("test.tar.gz"));
  * Compress.directory(source).withZip().to(new File("test.zip"));
+ * Compress.directory(source).withZip().toStream(response.getOutputStream());
  * Compress.directory(source).with("my-custom-algorithm", //
  * 		new Function&lt;File, ArchiveOutputStream&gt;() {
  * 			&#64;Override
@@ -70,6 +89,17 @@ import java.io.File;
  * 		}).to(new File("test.out");
  * </pre>
  * 
+ * <p>
+ * Archives may be transcoded to another archive type using {@link Compress#archive(ArchiveInputStream)}, with no
+ * intermediate directory:
+ * </p>
+ * 
+ * <pre>
+ * try (ArchiveInputStream source = new ArchiveInputStreamImpl(new ZipArchiveInputStream(request.getInputStream()))) {
+ * 	Compress.archive(source).withTar().andCompression(CompressedFiles.XZ).to(new File("test.tar.xz"));
+ * }
+ * </pre>
+ * 
  * @author Alan Buttars
  *
  */
@@ -96,4 +126,22 @@ public class Compress {
 		return new CompressDirectoryStub(source);
 	}
 
+	public static CompressFileStub stream(InputStream source) {
+		verifyNonNull(source, "Source must be non-null");
+
+		return new CompressFileStub(source);
+	}
+
+	public static CompressFileStub bytes(byte[] source) {
+		verifyNonNull(source, "Source must be non-null");
+
+		return new CompressFileStub(new ByteArrayInputStream(source));
+	}
+
+	public static CompressDirectoryStub archive(ArchiveInputStream source) {
+		verifyNonNull(source, "Source must be non-null");
+
+		return new CompressDirectoryStub(source);
+	}
+
 }
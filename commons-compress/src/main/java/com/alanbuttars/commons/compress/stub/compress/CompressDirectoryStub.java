@@ -17,18 +17,21 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
 import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.BiFunction;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
- * Directory compression stub which simply contains the source directory as a context.
+ * Directory compression stub which simply contains the source directory or archive stream as a context.
  * 
  * @author Alan Buttars
  *
@@ -36,51 +39,88 @@ import com.alanbuttars.commons.util.functions.Function;
 public class CompressDirectoryStub {
 
 	protected final File source;
+	protected final ArchiveInputStream sourceArchive;
+	private boolean useChannels;
+	private int bufferSize;
 
 	CompressDirectoryStub(File source) {
+		this(source, null);
+	}
+
+	CompressDirectoryStub(ArchiveInputStream sourceArchive) {
+		this(null, sourceArchive);
+	}
+
+	private CompressDirectoryStub(File source, ArchiveInputStream sourceArchive) {
 		this.source = source;
+		this.sourceArchive = sourceArchive;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be compressed through {@link java.nio.channels.FileChannel}s rather than
+	 * streams. By default, streams are used.
+	 */
+	public CompressDirectoryStub usingChannels() {
+		this.useChannels = true;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be compressed through buffers of <code>bufferSize</code> bytes, which are
+	 * acquired from {@link BufferPool#shared()} and reused across calls. By default, buffers of
+	 * {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes are used.
+	 * 
+	 * @param bufferSize
+	 *            Positive buffer size, in bytes
+	 */
+	public CompressDirectoryStub usingBufferSize(int bufferSize) {
+		verifyPositive(bufferSize, "Buffer size must be positive");
+		this.bufferSize = bufferSize;
+		return this;
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#SEVENZ}.
 	 */
 	public CompressDirectoryWithStub7zImpl with7z() {
-		return new CompressDirectoryWithStub7zImpl(source);
+		return configure(new CompressDirectoryWithStub7zImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#AR}.
 	 */
 	public CompressDirectoryWithStubArImpl withAr() {
-		return new CompressDirectoryWithStubArImpl(source);
+		return configure(new CompressDirectoryWithStubArImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#CPIO}.
 	 */
 	public CompressDirectoryWithStubCpioImpl withCpio() {
-		return new CompressDirectoryWithStubCpioImpl(source);
+		return configure(new CompressDirectoryWithStubCpioImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#JAR}.
 	 */
 	public CompressDirectoryWithStubJarImpl withJar() {
-		return new CompressDirectoryWithStubJarImpl(source);
+		return configure(new CompressDirectoryWithStubJarImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#TAR}.
 	 */
 	public CompressDirectoryWithStubTarImpl withTar() {
-		return new CompressDirectoryWithStubTarImpl(source);
+		return configure(new CompressDirectoryWithStubTarImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#ZIP}.
 	 */
 	public CompressDirectoryWithStubZipImpl withZip() {
-		return new CompressDirectoryWithStubZipImpl(source);
+		return configure(new CompressDirectoryWithStubZipImpl(source));
 	}
 
 	/**
@@ -101,7 +141,7 @@ public class CompressDirectoryStub {
 		verifyNonNull(compressionFunction, "Compression function must be non-null");
 		verifyNonNull(entryFunction, "Entry function must be non-null");
 
-		return new CompressDirectoryWithStub(source, fileType) {
+		return configure(new CompressDirectoryWithStub(source, fileType) {
 
 			@Override
 			protected Function<File, ArchiveOutputStream> compressionFunction() {
@@ -112,7 +152,13 @@ public class CompressDirectoryStub {
 			protected BiFunction<String, Long, ArchiveEntry> entryFunction() {
 				return entryFunction;
 			}
-		};
+		});
 	}
 
+	private <T extends CompressDirectoryWithStub> T configure(T stub) {
+		stub.sourceArchive = sourceArchive;
+		stub.useChannels = useChannels;
+		stub.bufferSize = bufferSize;
+		return stub;
+	}
 }
@@ -20,11 +20,18 @@ import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
 import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.util.BufferPool;
+import com.alanbuttars.commons.compress.util.SizedByteArrayOutputStream;
 import com.alanbuttars.commons.util.functions.BiFunction;
 import com.alanbuttars.commons.util.functions.Function;
 
@@ -46,10 +53,24 @@ abstract class CompressDirectoryWithStub {
 
 	protected final File source;
 	protected final String fileType;
+	protected ArchiveInputStream sourceArchive;
+	protected int threads;
+	protected boolean useChannels;
+	protected int bufferSize;
+	protected File manifest;
+	protected boolean hashContents;
+	protected List<File> mergedArchives;
 
 	CompressDirectoryWithStub(File source, String fileType) {
 		this.source = source;
 		this.fileType = fileType;
+		this.sourceArchive = null;
+		this.threads = 1;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+		this.manifest = null;
+		this.hashContents = false;
+		this.mergedArchives = null;
 	}
 
 	/**
@@ -63,7 +84,84 @@ abstract class CompressDirectoryWithStub {
 		verify(!destination.isDirectory(), "Destination " + destination.getAbsolutePath() + " must not be a directory");
 		verify(destination.canWrite(), "Destination " + destination.getAbsolutePath() + " is not writeable");
 
-		Archives.compress(fileType, source, destination, compressionFunction(), entryFunction());
+		if (sourceArchive != null) {
+			verifySourceArchive();
+			Archives.transcode(sourceArchive, destination, compressionFunction(), entryFunction(), bufferSize);
+			return;
+		}
+		if (mergedArchives != null) {
+			for (File mergedArchive : mergedArchives) {
+				verify(!mergedArchive.getCanonicalFile().equals(destination.getCanonicalFile()),
+						"Destination " + destination.getAbsolutePath() + " must not be merged into itself");
+			}
+			Archives.mergeZip(source, mergedArchives, destination, compressionFunction(), entryFunction(), threads, useChannels, bufferSize);
+			return;
+		}
+		if (manifest != null) {
+			Archives.compressIncremental(fileType, source, destination, compressionFunction(), entryFunction(), manifest, hashContents, threads, useChannels,
+					bufferSize);
+			return;
+		}
+		Archives.compress(fileType, source, destination, compressionFunction(), entryFunction(), threads, useChannels, bufferSize);
+	}
+
+	/**
+	 * Concludes this stub by invoking the creation logic configured by the complete stub and writing the resulting
+	 * archive to a stream, which is flushed but not closed. Archives which can only be written to a file, incremental
+	 * archives and merged archives are first written to a temporary file.
+	 * 
+	 * @param destination
+	 *            Non-null compressed stream destination
+	 */
+	public void toStream(OutputStream destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+
+		Function<OutputStream, ArchiveOutputStream> streamCompressionFunction = streamCompressionFunction();
+		if (streamCompressionFunction != null && sourceArchive != null) {
+			verifySourceArchive();
+			Archives.transcode(sourceArchive, destination, streamCompressionFunction, entryFunction(), bufferSize);
+			return;
+		}
+		if (streamCompressionFunction != null && manifest == null && mergedArchives == null) {
+			Archives.compress(fileType, source, destination, streamCompressionFunction, entryFunction(), threads, useChannels, bufferSize);
+			return;
+		}
+		File tempFile = toTempFile();
+		try {
+			Files.copy(tempFile.toPath(), destination);
+			destination.flush();
+		}
+		finally {
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * Concludes this stub by invoking the creation logic configured by the complete stub and returning the resulting
+	 * archive in memory. The array starts at the buffer size and grows with the archive, so that the {@link #source} is
+	 * not walked twice. Archives which can only be written to a file are first written to a temporary file, as in
+	 * {@link #toStream(OutputStream)}.
+	 * 
+	 * @return The archive content
+	 */
+	public byte[] toBytes() throws IOException {
+		return toMemory().toByteArray();
+	}
+
+	/**
+	 * Concludes this stub as in {@link #toBytes()}, returning a buffer which wraps the archive content without copying
+	 * it.
+	 * 
+	 * @return The archive content
+	 */
+	public ByteBuffer toByteBuffer() throws IOException {
+		return toMemory().toByteBuffer();
+	}
+
+	private SizedByteArrayOutputStream toMemory() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(bufferSize);
+		toStream(outputStream);
+		return outputStream;
 	}
 
 	/**
@@ -73,16 +171,33 @@ abstract class CompressDirectoryWithStub {
 	 * @return The compressed file
 	 */
 	public File toTempFile() throws IOException {
-		File tempFile = File.createTempFile(source.getName(), "." + fileType);
+		File tempFile = File.createTempFile(source != null ? source.getName() : "archive", "." + fileType);
 		to(tempFile);
 		return tempFile;
 	}
 
+	/**
+	 * Verifies that an archive stream source, which is transcoded entry by entry, is not also configured to be
+	 * compressed incrementally or merged, as only directories may be.
+	 */
+	protected void verifySourceArchive() {
+		verify(manifest == null, "Archive streams cannot be compressed incrementally");
+		verify(mergedArchives == null, "Archive streams cannot be merged");
+	}
+
 	/**
 	 * Function used to transform the destination file to an archive output stream.
 	 */
 	protected abstract Function<File, ArchiveOutputStream> compressionFunction();
 
+	/**
+	 * Function used to transform the destination stream to an archive output stream, or <code>null</code> if the archive
+	 * can only be written to a file.
+	 */
+	protected Function<OutputStream, ArchiveOutputStream> streamCompressionFunction() {
+		return null;
+	}
+
 	/**
 	 * Functions used to transform the files within the {@link #source} into archive entries.
 	 */
@@ -16,6 +16,7 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.SEVENZ;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.IOException;
@@ -29,6 +30,7 @@ import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
 
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream7zImpl;
+import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream7zSolidImpl;
 import com.alanbuttars.commons.compress.archives.util.Archives;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.BiFunction;
@@ -44,10 +46,14 @@ import com.alanbuttars.commons.util.functions.Function;
 public class CompressDirectoryWithStub7zImpl extends CompressDirectoryWithStub {
 
 	private Iterable<? extends SevenZMethodConfiguration> contentMethods;
+	private long solidBlockSize;
+	private int solidBlockFiles;
 
 	CompressDirectoryWithStub7zImpl(File source) {
 		super(source, SEVENZ);
 		this.contentMethods = Collections.singletonList(new SevenZMethodConfiguration(SevenZMethod.LZMA2));
+		this.solidBlockSize = 0;
+		this.solidBlockFiles = 0;
 	}
 
 	/**
@@ -59,6 +65,39 @@ public class CompressDirectoryWithStub7zImpl extends CompressDirectoryWithStub {
 		return this;
 	}
 
+	/**
+	 * Sets the number of uncompressed bytes after which a solid block is closed. By default, every file is compressed
+	 * into its own block; once this, {@link #andSolidBlockFiles(int)} or {@link #andThreads(int)} is set, files are
+	 * grouped into solid blocks of {@link ArchiveOutputStream7zSolidImpl#DEFAULT_SOLID_BLOCK_SIZE} bytes unless
+	 * specified otherwise. See {@link ArchiveOutputStream7zSolidImpl}.
+	 */
+	public CompressDirectoryWithStub7zImpl andSolidBlockSize(long solidBlockSize) {
+		verifyPositive(solidBlockSize, "Solid block size must be positive");
+		this.solidBlockSize = solidBlockSize;
+		return this;
+	}
+
+	/**
+	 * Sets the number of files after which a solid block is closed. By default, solid blocks are limited only by
+	 * {@link #andSolidBlockSize(long)}. See {@link ArchiveOutputStream7zSolidImpl}.
+	 */
+	public CompressDirectoryWithStub7zImpl andSolidBlockFiles(int solidBlockFiles) {
+		verifyPositive(solidBlockFiles, "Solid block files must be positive");
+		this.solidBlockFiles = solidBlockFiles;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to read files and to compress solid blocks. By default, it is set to
+	 * <code>1</code>. When set higher, solid blocks are compressed concurrently and spliced into the archive in their
+	 * original order. See {@link ArchiveOutputStream7zSolidImpl}.
+	 */
+	public CompressDirectoryWithStub7zImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveOutputStream> compressionFunction() {
 		return new Function<File, ArchiveOutputStream>() {
@@ -66,6 +105,12 @@ public class CompressDirectoryWithStub7zImpl extends CompressDirectoryWithStub {
 			@Override
 			public ArchiveOutputStream apply(File file) {
 				try {
+					if (threads > 1 || solidBlockSize > 0 || solidBlockFiles > 0) {
+						return createSolidArchiveOutputStream(file, contentMethods, //
+								solidBlockSize > 0 ? solidBlockSize : ArchiveOutputStream7zSolidImpl.DEFAULT_SOLID_BLOCK_SIZE, //
+								solidBlockFiles > 0 ? solidBlockFiles : Integer.MAX_VALUE, //
+								threads);
+					}
 					return createArchiveOutputStream(file, contentMethods);
 				}
 				catch (IOException e) {
@@ -83,6 +128,15 @@ public class CompressDirectoryWithStub7zImpl extends CompressDirectoryWithStub {
 		return new ArchiveOutputStream7zImpl(sevenZFile);
 	}
 
+	@VisibleForTesting
+	protected ArchiveOutputStream createSolidArchiveOutputStream(File file, //
+			Iterable<? extends SevenZMethodConfiguration> contentMethods, //
+			long solidBlockSize, //
+			int solidBlockFiles, //
+			int threads) throws IOException {
+		return new ArchiveOutputStream7zSolidImpl(file, contentMethods, solidBlockSize, solidBlockFiles, threads);
+	}
+
 	@Override
 	protected BiFunction<String, Long, ArchiveEntry> entryFunction() {
 		return new BiFunction<String, Long, ArchiveEntry>() {
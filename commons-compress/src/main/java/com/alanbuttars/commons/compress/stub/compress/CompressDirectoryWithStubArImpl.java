@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.AR;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ar.ArArchiveEntry;
@@ -98,6 +100,18 @@ public class CompressDirectoryWithStubArImpl extends CompressDirectoryWithStub {
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to read the files being archived. By default, it is set to <code>1</code>. When
+	 * set higher, files are read concurrently and handed to a single writer in their original order, so the archive is
+	 * identical to one written with a single thread. See
+	 * {@link Archives#compress(String, File, File, Function, BiFunction, int)}.
+	 */
+	public CompressDirectoryWithStubArImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveOutputStream> compressionFunction() {
 		return new Function<File, ArchiveOutputStream>() {
@@ -115,10 +129,31 @@ public class CompressDirectoryWithStubArImpl extends CompressDirectoryWithStub {
 		};
 	}
 
+	@Override
+	protected Function<OutputStream, ArchiveOutputStream> streamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				try {
+					return createArchiveOutputStream(outputStream, longFileMode);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveOutputStream createArchiveOutputStream(File file, int longFileMode) throws IOException {
-		FileOutputStream fileOutputStream = new FileOutputStream(file);
-		ArArchiveOutputStream archiveOutputStream = new ArArchiveOutputStream(fileOutputStream);
+		return createArchiveOutputStream(new FileOutputStream(file), longFileMode);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createArchiveOutputStream(OutputStream outputStream, int longFileMode) throws IOException {
+		ArArchiveOutputStream archiveOutputStream = new ArArchiveOutputStream(outputStream);
 		archiveOutputStream.setLongFileMode(longFileMode);
 		return new ArchiveOutputStreamImpl(archiveOutputStream);
 	}
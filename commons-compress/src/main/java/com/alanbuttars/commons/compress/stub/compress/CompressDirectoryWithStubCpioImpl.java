@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.CPIO;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.cpio.CpioArchiveEntry;
@@ -79,6 +81,18 @@ public class CompressDirectoryWithStubCpioImpl extends CompressDirectoryWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to read the files being archived. By default, it is set to <code>1</code>. When
+	 * set higher, files are read concurrently and handed to a single writer in their original order, so the archive is
+	 * identical to one written with a single thread. See
+	 * {@link Archives#compress(String, File, File, Function, BiFunction, int)}.
+	 */
+	public CompressDirectoryWithStubCpioImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveOutputStream> compressionFunction() {
 		return new Function<File, ArchiveOutputStream>() {
@@ -96,10 +110,31 @@ public class CompressDirectoryWithStubCpioImpl extends CompressDirectoryWithStub
 		};
 	}
 
+	@Override
+	protected Function<OutputStream, ArchiveOutputStream> streamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				try {
+					return createArchiveOutputStream(outputStream, blockSize, encoding, format);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveOutputStream createArchiveOutputStream(File file, int blockSize, String encoding, short format) throws IOException {
-		FileOutputStream fileOutputStream = new FileOutputStream(file);
-		CpioArchiveOutputStream archiveOutputStream = new CpioArchiveOutputStream(fileOutputStream, format, blockSize, encoding);
+		return createArchiveOutputStream(new FileOutputStream(file), blockSize, encoding, format);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createArchiveOutputStream(OutputStream outputStream, int blockSize, String encoding, short format) throws IOException {
+		CpioArchiveOutputStream archiveOutputStream = new CpioArchiveOutputStream(outputStream, format, blockSize, encoding);
 		return new ArchiveOutputStreamImpl(archiveOutputStream);
 	}
 
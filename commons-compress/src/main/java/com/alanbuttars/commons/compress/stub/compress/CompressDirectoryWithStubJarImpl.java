@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.JAR;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.zip.ZipEntry;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
@@ -31,6 +33,7 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream.UnicodeE
 
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStreamImpl;
+import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStreamParallelZipImpl;
 import com.alanbuttars.commons.compress.archives.util.Archives;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.BiFunction;
@@ -53,6 +56,7 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 	private UnicodeExtraFieldPolicy unicodeExtraFieldPolicy;
 	private boolean useLanguageEncoding;
 	private Zip64Mode zip64Mode;
+	private int parallelism;
 
 	CompressDirectoryWithStubJarImpl(File source) {
 		super(source, JAR);
@@ -64,6 +68,7 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 		this.unicodeExtraFieldPolicy = UnicodeExtraFieldPolicy.NEVER;
 		this.useLanguageEncoding = true;
 		this.zip64Mode = Zip64Mode.AsNeeded;
+		this.parallelism = 1;
 	}
 
 	/**
@@ -141,6 +146,18 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to compress entries. By default, it is set to <code>1</code>. When set higher,
+	 * entries are deflated concurrently into scatter files which are merged into the archive once every entry has been
+	 * compressed, so entries are ordered by the thread which compressed them. See
+	 * {@link ArchiveOutputStreamParallelZipImpl}.
+	 */
+	public CompressDirectoryWithStubJarImpl andParallelism(int parallelism) {
+		verifyPositive(parallelism, "Parallelism must be positive");
+		this.parallelism = parallelism;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveOutputStream> compressionFunction() {
 		return new Function<File, ArchiveOutputStream>() {
@@ -148,6 +165,9 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 			@Override
 			public ArchiveOutputStream apply(File file) {
 				try {
+					if (parallelism > 1) {
+						return createParallelArchiveOutputStream(file, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode, parallelism);
+					}
 					return createArchiveOutputStream(file, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
 				}
 				catch (IOException e) {
@@ -158,6 +178,26 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 		};
 	}
 
+	@Override
+	protected Function<OutputStream, ArchiveOutputStream> streamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				try {
+					if (parallelism > 1) {
+						return createParallelArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode, parallelism);
+					}
+					return createArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveOutputStream createArchiveOutputStream(File file, //
 			String comment, //
@@ -168,8 +208,61 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
 			boolean useLanguageEncoding, //
 			Zip64Mode zip64Mode) throws IOException {
-		FileOutputStream fileOutputStream = new FileOutputStream(file);
-		JarArchiveOutputStream archiveOutputStream = new JarArchiveOutputStream(fileOutputStream, encoding);
+		return createArchiveOutputStream(new FileOutputStream(file), comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createArchiveOutputStream(OutputStream outputStream, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode) throws IOException {
+		return new ArchiveOutputStreamImpl(createJarArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode));
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createParallelArchiveOutputStream(File file, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode, //
+			int parallelism) throws IOException {
+		return createParallelArchiveOutputStream(new FileOutputStream(file), comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode, parallelism);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createParallelArchiveOutputStream(OutputStream outputStream, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode, //
+			int parallelism) throws IOException {
+		JarArchiveOutputStream archiveOutputStream = createJarArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
+		return new ArchiveOutputStreamParallelZipImpl(archiveOutputStream, method, level, parallelism);
+	}
+
+	private JarArchiveOutputStream createJarArchiveOutputStream(OutputStream outputStream, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode) throws IOException {
+		JarArchiveOutputStream archiveOutputStream = new JarArchiveOutputStream(outputStream, encoding);
 		archiveOutputStream.setComment(comment);
 		archiveOutputStream.setCreateUnicodeExtraFields(unicodeExtraFieldPolicy);
 		archiveOutputStream.setFallbackToUTF8(fallbackToUTF8);
@@ -177,7 +270,7 @@ public class CompressDirectoryWithStubJarImpl extends CompressDirectoryWithStub
 		archiveOutputStream.setMethod(method);
 		archiveOutputStream.setUseLanguageEncodingFlag(useLanguageEncoding);
 		archiveOutputStream.setUseZip64(zip64Mode);
-		return new ArchiveOutputStreamImpl(archiveOutputStream);
+		return archiveOutputStream;
 	}
 
 	@Override
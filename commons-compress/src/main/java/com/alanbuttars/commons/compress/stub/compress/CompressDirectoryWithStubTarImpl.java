@@ -16,11 +16,14 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.TAR;
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
@@ -29,7 +32,9 @@ import org.apache.commons.compress.archivers.tar.TarConstants;
 
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStreamImpl;
+import com.alanbuttars.commons.compress.archives.util.ArchiveManifest;
 import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.BiFunction;
 import com.alanbuttars.commons.util.functions.Function;
@@ -46,6 +51,7 @@ public class CompressDirectoryWithStubTarImpl extends CompressDirectoryWithStub
 	private boolean addPaxHeadersForNonAsciiNames;
 	private int bigNumberMode;
 	private int blockSize;
+	private String compression;
 	private String encoding;
 	private int longFileMode;
 	private boolean preserveLeadingSlashes;
@@ -56,6 +62,7 @@ public class CompressDirectoryWithStubTarImpl extends CompressDirectoryWithStub
 		this.addPaxHeadersForNonAsciiNames = false;
 		this.bigNumberMode = TarArchiveOutputStream.BIGNUMBER_ERROR;
 		this.blockSize = TarConstants.DEFAULT_BLKSIZE;
+		this.compression = null;
 		this.encoding = null;
 		this.longFileMode = TarArchiveOutputStream.LONGFILE_ERROR;
 		this.preserveLeadingSlashes = false;
@@ -88,6 +95,50 @@ public class CompressDirectoryWithStubTarImpl extends CompressDirectoryWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the compression of the archive, such that e.g. a <code>.tar.gz</code> is written in a single pass with no
+	 * intermediate <code>.tar</code> file. By default, it is set to <code>null</code> and the archive is not compressed.
+	 * See {@link CompressedFiles#createCompressorOutputStream(String, OutputStream)} for the supported file types. An
+	 * archive compressed as {@link CompressedFiles#BGZF} remains a valid <code>.tar.gz</code>, and its many gzip members
+	 * allow a {@link com.alanbuttars.commons.compress.archives.util.TarIndex} to reach any entry without inflating the
+	 * archive from its start.
+	 * 
+	 * @param compression
+	 *            Compressed file type, such as {@link CompressedFiles#GZIP}
+	 */
+	public CompressDirectoryWithStubTarImpl andCompression(String compression) {
+		verifyNonNull(compression, "Compression must be non-null");
+		verify(CompressedFiles.isStreamCompressible(compression), "Compression " + compression + " is not supported");
+		this.compression = compression;
+		return this;
+	}
+
+	/**
+	 * Makes the archive incremental: only the files which are new or changed since the archive recorded by the
+	 * {@link ArchiveManifest} in <code>manifest</code> are archived, along with a list of the files deleted since. The
+	 * manifest is then replaced by one of the directory as it was archived. If the manifest does not exist, every file
+	 * is archived. See
+	 * {@link Archives#compressIncremental(String, File, File, Function, BiFunction, File, boolean, int, boolean, int)}.
+	 * 
+	 * @param manifest
+	 *            Non-null manifest sidecar file, which need not exist
+	 */
+	public CompressDirectoryWithStubTarImpl andManifest(File manifest) {
+		verifyNonNull(manifest, "Manifest must be non-null");
+		this.manifest = manifest;
+		return this;
+	}
+
+	/**
+	 * Indicates that the manifest set by {@link #andManifest(File)} records a hash of the content of every file, so
+	 * that a file whose last modified time changed but whose content did not is not archived again. Only files whose
+	 * size or last modified time changed are read. By default, files are compared by size and last modified time only.
+	 */
+	public CompressDirectoryWithStubTarImpl andContentHashes() {
+		this.hashContents = true;
+		return this;
+	}
+
 	/**
 	 * Sets the file encoding for the archive. By default, it is set to <code>null</code>.
 	 */
@@ -122,6 +173,37 @@ public class CompressDirectoryWithStubTarImpl extends CompressDirectoryWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to read the files being archived. By default, it is set to <code>1</code>. When
+	 * set higher, files are read concurrently and handed to a single writer in their original order, so the archive is
+	 * identical to one written with a single thread. See
+	 * {@link Archives#compress(String, File, File, Function, BiFunction, int)}.
+	 */
+	public CompressDirectoryWithStubTarImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Concludes this stub by appending the files within the directory to an existing, uncompressed archive, without
+	 * rewriting its entries: the archive's end-of-archive records are overwritten by the new entries. Entries whose
+	 * names are already present are read back as their last occurrence. See
+	 * {@link Archives#appendTar(File, File, Function, BiFunction, int, boolean, int)}.
+	 * 
+	 * @param destination
+	 *            Non-null uncompressed archive, which need not exist
+	 */
+	public void appendTo(File destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+		verify(!destination.isDirectory(), "Destination " + destination.getAbsolutePath() + " must not be a directory");
+		verify(compression == null, "Compressed archives cannot be appended to");
+		verify(manifest == null, "Incremental archives cannot be appended to");
+		verify(sourceArchive == null, "Archive streams cannot be appended");
+
+		Archives.appendTar(source, destination, streamCompressionFunction(), entryFunction(), threads, useChannels, bufferSize);
+	}
+
 	@Override
 	protected Function<File, ArchiveOutputStream> compressionFunction() {
 		return new Function<File, ArchiveOutputStream>() {
@@ -139,6 +221,23 @@ public class CompressDirectoryWithStubTarImpl extends CompressDirectoryWithStub
 		};
 	}
 
+	@Override
+	protected Function<OutputStream, ArchiveOutputStream> streamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				try {
+					return createArchiveOutputStream(outputStream, addPaxHeadersForNonAsciiNames, bigNumberMode, blockSize, encoding, longFileMode, recordSize);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveOutputStream createArchiveOutputStream(File file, //
 			boolean addPaxHeadersForNonAsciiNames, //
@@ -146,9 +245,22 @@ public class CompressDirectoryWithStubTarImpl extends CompressDirectoryWithStub
 			int blockSize, //
 			String encoding, //
 			int longFileMode, //
-			int recordSize) throws FileNotFoundException {
-		FileOutputStream fileOutputStream = new FileOutputStream(file);
-		TarArchiveOutputStream archiveOutputStream = new TarArchiveOutputStream(fileOutputStream, blockSize, recordSize, encoding);
+			int recordSize) throws IOException {
+		return createArchiveOutputStream(new FileOutputStream(file), addPaxHeadersForNonAsciiNames, bigNumberMode, blockSize, encoding, longFileMode, recordSize);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createArchiveOutputStream(OutputStream outputStream, //
+			boolean addPaxHeadersForNonAsciiNames, //
+			int bigNumberMode, //
+			int blockSize, //
+			String encoding, //
+			int longFileMode, //
+			int recordSize) throws IOException {
+		if (compression != null) {
+			outputStream = CompressedFiles.createCompressorOutputStream(compression, outputStream);
+		}
+		TarArchiveOutputStream archiveOutputStream = new TarArchiveOutputStream(outputStream, blockSize, recordSize, encoding);
 		archiveOutputStream.setAddPaxHeadersForNonAsciiNames(addPaxHeadersForNonAsciiNames);
 		archiveOutputStream.setBigNumberMode(bigNumberMode);
 		archiveOutputStream.setLongFileMode(longFileMode);
@@ -16,10 +16,15 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.ZIP;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.zip.ZipEntry;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
@@ -30,6 +35,7 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream.UnicodeE
 
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStreamImpl;
+import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStreamParallelZipImpl;
 import com.alanbuttars.commons.compress.archives.util.Archives;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.BiFunction;
@@ -52,6 +58,7 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 	private UnicodeExtraFieldPolicy unicodeExtraFieldPolicy;
 	private boolean useLanguageEncoding;
 	private Zip64Mode zip64Mode;
+	private int parallelism;
 
 	CompressDirectoryWithStubZipImpl(File source) {
 		super(source, ZIP);
@@ -63,6 +70,7 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 		this.unicodeExtraFieldPolicy = UnicodeExtraFieldPolicy.NEVER;
 		this.useLanguageEncoding = true;
 		this.zip64Mode = Zip64Mode.AsNeeded;
+		this.parallelism = 1;
 	}
 
 	/**
@@ -140,6 +148,36 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 		return this;
 	}
 
+	/**
+	 * Merges the entries of existing archives into the archive, copying their compressed bytes without inflating or
+	 * deflating them again. Entries are replaced by the directory's files of the same name, and by the entries of later
+	 * archives, so that only new or replaced entries are compressed. See
+	 * {@link Archives#mergeZip(File, List, File, Function, BiFunction, int, boolean, int)}.
+	 * 
+	 * @param archives
+	 *            Non-null archives, none of which may be the destination
+	 */
+	public CompressDirectoryWithStubZipImpl andMerge(File... archives) {
+		verifyNonNull(archives, "Archives must be non-null");
+		for (File archive : archives) {
+			verifyNonNull(archive, "Archives must be non-null");
+		}
+		this.mergedArchives = Arrays.asList(archives);
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to compress entries. By default, it is set to <code>1</code>. When set higher,
+	 * entries are deflated concurrently into scatter files which are merged into the archive once every entry has been
+	 * compressed, so entries are ordered by the thread which compressed them. See
+	 * {@link ArchiveOutputStreamParallelZipImpl}.
+	 */
+	public CompressDirectoryWithStubZipImpl andParallelism(int parallelism) {
+		verifyPositive(parallelism, "Parallelism must be positive");
+		this.parallelism = parallelism;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveOutputStream> compressionFunction() {
 		return new Function<File, ArchiveOutputStream>() {
@@ -147,6 +185,9 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 			@Override
 			public ArchiveOutputStream apply(File file) {
 				try {
+					if (parallelism > 1) {
+						return createParallelArchiveOutputStream(file, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode, parallelism);
+					}
 					return createArchiveOutputStream(file, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
 				}
 				catch (IOException e) {
@@ -157,6 +198,26 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 		};
 	}
 
+	@Override
+	protected Function<OutputStream, ArchiveOutputStream> streamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				try {
+					if (parallelism > 1) {
+						return createParallelArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode, parallelism);
+					}
+					return createArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveOutputStream createArchiveOutputStream(File file, //
 			String comment, //
@@ -167,8 +228,61 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
 			boolean useLanguageEncoding, //
 			Zip64Mode zip64Mode) throws IOException {
-		FileOutputStream fileOutputStream = new FileOutputStream(file);
-		ZipArchiveOutputStream archiveOutputStream = new ZipArchiveOutputStream(fileOutputStream);
+		return createArchiveOutputStream(new FileOutputStream(file), comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createArchiveOutputStream(OutputStream outputStream, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode) throws IOException {
+		return new ArchiveOutputStreamImpl(createZipArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode));
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createParallelArchiveOutputStream(File file, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode, //
+			int parallelism) throws IOException {
+		return createParallelArchiveOutputStream(new FileOutputStream(file), comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode, parallelism);
+	}
+
+	@VisibleForTesting
+	protected ArchiveOutputStream createParallelArchiveOutputStream(OutputStream outputStream, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode, //
+			int parallelism) throws IOException {
+		ZipArchiveOutputStream archiveOutputStream = createZipArchiveOutputStream(outputStream, comment, encoding, fallbackToUTF8, level, method, unicodeExtraFieldPolicy, useLanguageEncoding, zip64Mode);
+		return new ArchiveOutputStreamParallelZipImpl(archiveOutputStream, method, level, parallelism);
+	}
+
+	private ZipArchiveOutputStream createZipArchiveOutputStream(OutputStream outputStream, //
+			String comment, //
+			String encoding, //
+			boolean fallbackToUTF8, //
+			int level, //
+			int method, //
+			UnicodeExtraFieldPolicy unicodeExtraFieldPolicy, //
+			boolean useLanguageEncoding, //
+			Zip64Mode zip64Mode) throws IOException {
+		ZipArchiveOutputStream archiveOutputStream = new ZipArchiveOutputStream(outputStream);
 		archiveOutputStream.setComment(comment);
 		archiveOutputStream.setCreateUnicodeExtraFields(unicodeExtraFieldPolicy);
 		archiveOutputStream.setEncoding(encoding);
@@ -177,7 +291,7 @@ public class CompressDirectoryWithStubZipImpl extends CompressDirectoryWithStub
 		archiveOutputStream.setMethod(method);
 		archiveOutputStream.setUseLanguageEncodingFlag(useLanguageEncoding);
 		archiveOutputStream.setUseZip64(zip64Mode);
-		return new ArchiveOutputStreamImpl(archiveOutputStream);
+		return archiveOutputStream;
 	}
 
 	@Override
@@ -17,16 +17,19 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
- * Directory compression stub which simply contains the source file as a context.
+ * Directory compression stub which simply contains the source file or stream as a context.
  * 
  * @author Alan Buttars
  *
@@ -34,51 +37,95 @@ import com.alanbuttars.commons.util.functions.Function;
 public class CompressFileStub {
 
 	protected final File source;
+	protected final InputStream sourceStream;
+	private boolean useChannels;
+	private int bufferSize;
 
 	CompressFileStub(File source) {
+		this(source, null);
+	}
+
+	CompressFileStub(InputStream sourceStream) {
+		this(null, sourceStream);
+	}
+
+	private CompressFileStub(File source, InputStream sourceStream) {
 		this.source = source;
+		this.sourceStream = sourceStream;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be compressed through {@link java.nio.channels.FileChannel}s rather than
+	 * streams. By default, streams are used. Has no effect on stream sources.
+	 */
+	public CompressFileStub usingChannels() {
+		this.useChannels = true;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be compressed through buffers of <code>bufferSize</code> bytes, which are
+	 * acquired from {@link BufferPool#shared()} and reused across calls. By default, buffers of
+	 * {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes are used.
+	 * 
+	 * @param bufferSize
+	 *            Positive buffer size, in bytes
+	 */
+	public CompressFileStub usingBufferSize(int bufferSize) {
+		verifyPositive(bufferSize, "Buffer size must be positive");
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#BGZF}.
+	 */
+	public CompressFileWithStubBgzfImpl withBgzf() {
+		return configure(new CompressFileWithStubBgzfImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#BZIP2}.
 	 */
 	public CompressFileWithStubBzip2Impl withBzip2() {
-		return new CompressFileWithStubBzip2Impl(source);
+		return configure(new CompressFileWithStubBzip2Impl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#DEFLATE}.
 	 */
 	public CompressFileWithStubDeflateImpl withDeflate() {
-		return new CompressFileWithStubDeflateImpl(source);
+		return configure(new CompressFileWithStubDeflateImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#GZIP}.
 	 */
 	public CompressFileWithStubGzipImpl withGzip() {
-		return new CompressFileWithStubGzipImpl(source);
+		return configure(new CompressFileWithStubGzipImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#LZMA}.
 	 */
 	public CompressFileWithStubLzmaImpl withLzma() {
-		return new CompressFileWithStubLzmaImpl(source);
+		return configure(new CompressFileWithStubLzmaImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#PACK200}.
 	 */
 	public CompressFileWithStubPack200Impl withPack200() {
-		return new CompressFileWithStubPack200Impl(source);
+		return configure(new CompressFileWithStubPack200Impl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link CompressedFiles#XZ}.
 	 */
 	public CompressFileWithStubXzImpl withXz() {
-		return new CompressFileWithStubXzImpl(source);
+		return configure(new CompressFileWithStubXzImpl(source));
 	}
 
 	/**
@@ -95,13 +142,20 @@ public class CompressFileStub {
 		verify(!fileType.trim().isEmpty(), "File type must be non-empty");
 		verifyNonNull(compressionFunction, "Compression function must be non-null");
 
-		return new CompressFileWithStub(source, fileType) {
+		return configure(new CompressFileWithStub(source, fileType) {
 
 			@Override
 			protected Function<OutputStream, CompressedFileOutputStream> compressionFunction() {
 				return compressionFunction;
 			}
 
-		};
+		});
+	}
+
+	private <T extends CompressFileWithStub> T configure(T stub) {
+		stub.sourceStream = sourceStream;
+		stub.useChannels = useChannels;
+		stub.bufferSize = bufferSize;
+		return stub;
 	}
 }
@@ -19,11 +19,17 @@ import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
+import com.alanbuttars.commons.compress.util.SizedByteArrayOutputStream;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -44,10 +50,16 @@ abstract class CompressFileWithStub {
 
 	protected final File source;
 	protected final String fileType;
+	protected InputStream sourceStream;
+	protected boolean useChannels;
+	protected int bufferSize;
 
 	CompressFileWithStub(File source, String fileType) {
 		this.source = source;
 		this.fileType = fileType;
+		this.sourceStream = null;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
 	}
 
 	/**
@@ -61,7 +73,86 @@ abstract class CompressFileWithStub {
 		verify(!destination.isDirectory(), "Destination " + destination.getAbsolutePath() + " must not be a directory");
 		verify(destination.canWrite(), "Destination " + destination.getAbsolutePath() + " is not writeable");
 
-		CompressedFiles.compress(fileType, source, destination, compressionFunction());
+		if (sourceStream != null) {
+			try (OutputStream outputStream = new FileOutputStream(destination)) {
+				CompressedFiles.compress(fileType, sourceStream, outputStream, compressionFunction(), bufferSize);
+			}
+			return;
+		}
+		CompressedFiles.compress(fileType, source, destination, compressionFunction(), useChannels, bufferSize);
+	}
+
+	/**
+	 * Concludes this stub by invoking the creation logic configured by the complete stub and appending the compressed
+	 * content to an existing compressed file as a new stream, leaving the file's existing content untouched. Only
+	 * file types whose concatenated streams are decompressed as one are supported; see
+	 * {@link CompressedFiles#isAppendable(String)}. The appended content is only read back when concatenated streams
+	 * are decompressed, e.g. with <code>andDecompressConcatenated(true)</code>.
+	 * 
+	 * @param destination
+	 *            Non-null compressed file destination, which need not exist
+	 */
+	public void appendTo(File destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+		verify(CompressedFiles.isAppendable(fileType), "File type " + fileType + " cannot be appended to");
+		verify(!destination.isDirectory(), "Destination " + destination.getAbsolutePath() + " must not be a directory");
+
+		try (OutputStream outputStream = new FileOutputStream(destination, true)) {
+			if (sourceStream != null) {
+				CompressedFiles.compress(fileType, sourceStream, outputStream, compressionFunction(), bufferSize);
+				return;
+			}
+			try (InputStream inputStream = new FileInputStream(source)) {
+				CompressedFiles.compress(fileType, inputStream, outputStream, compressionFunction(), bufferSize);
+			}
+		}
+	}
+
+	/**
+	 * Concludes this stub by invoking the creation logic configured by the complete stub and writing the compressed
+	 * content to a stream, which is flushed but not closed.
+	 * 
+	 * @param destination
+	 *            Non-null compressed stream destination
+	 */
+	public void toStream(OutputStream destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+
+		if (sourceStream != null) {
+			CompressedFiles.compress(fileType, sourceStream, destination, compressionFunction(), bufferSize);
+			return;
+		}
+		try (InputStream inputStream = new FileInputStream(source)) {
+			CompressedFiles.compress(fileType, inputStream, destination, compressionFunction(), bufferSize);
+		}
+	}
+
+	/**
+	 * Concludes this stub by invoking the creation logic configured by the complete stub and returning the compressed
+	 * content in memory. The array is sized from the source's length, or the bytes available from the source stream,
+	 * divided by {@link SizedByteArrayOutputStream#EXPECTED_COMPRESSION_RATIO}, and grows if the content is larger.
+	 * 
+	 * @return The compressed content
+	 */
+	public byte[] toBytes() throws IOException {
+		return toMemory().toByteArray();
+	}
+
+	/**
+	 * Concludes this stub as in {@link #toBytes()}, returning a buffer which wraps the compressed content without
+	 * copying it.
+	 * 
+	 * @return The compressed content
+	 */
+	public ByteBuffer toByteBuffer() throws IOException {
+		return toMemory().toByteBuffer();
+	}
+
+	private SizedByteArrayOutputStream toMemory() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(//
+				(sourceStream != null ? sourceStream.available() : source.length()) / SizedByteArrayOutputStream.EXPECTED_COMPRESSION_RATIO);
+		toStream(outputStream);
+		return outputStream;
 	}
 
 	/**
@@ -71,7 +162,7 @@ abstract class CompressFileWithStub {
 	 * @return The compressed file
 	 */
 	public File toTempFile() throws IOException {
-		File tempFile = File.createTempFile(source.getName(), "." + fileType);
+		File tempFile = File.createTempFile(source != null ? source.getName() : "stream", "." + fileType);
 		to(tempFile);
 		return tempFile;
 	}
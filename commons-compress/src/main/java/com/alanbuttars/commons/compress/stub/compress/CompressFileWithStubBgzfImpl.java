@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.compress;
+
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BGZF;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelBgzfImpl;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.util.annotations.VisibleForTesting;
+import com.alanbuttars.commons.util.functions.Function;
+
+/**
+ * Extension of {@link CompressFileWithStub} for {@link CompressedFiles#BGZF} files, which are gzip files made of many
+ * small members so that they can be decompressed in parallel. For details on the file format, see <a
+ * href="https://samtools.github.io/hts-specs/SAMv1.pdf">https://samtools.github.io/hts-specs/SAMv1.pdf</a>.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class CompressFileWithStubBgzfImpl extends CompressFileWithStub {
+
+	private int level;
+	private int threads;
+
+	CompressFileWithStubBgzfImpl(File source) {
+		super(source, BGZF);
+		this.level = Deflater.DEFAULT_COMPRESSION;
+		this.threads = 1;
+	}
+
+	/**
+	 * Sets the deflate compression level. By default, it is set to {@link Deflater#DEFAULT_COMPRESSION}.
+	 */
+	public CompressFileWithStubBgzfImpl andLevel(int level) {
+		this.level = level;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to compress the file. By default, it is set to <code>1</code>. When set higher,
+	 * members are deflated concurrently. See {@link CompressedFileOutputStreamParallelBgzfImpl}.
+	 */
+	public CompressFileWithStubBgzfImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	@Override
+	protected Function<OutputStream, CompressedFileOutputStream> compressionFunction() {
+		return new Function<OutputStream, CompressedFileOutputStream>() {
+
+			@Override
+			public CompressedFileOutputStream apply(OutputStream outputStream) {
+				try {
+					return createCompressedFileOutputStream(outputStream, level, threads);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
+	@VisibleForTesting
+	protected CompressedFileOutputStream createCompressedFileOutputStream(OutputStream outputStream, int level, int threads) throws IOException {
+		return new CompressedFileOutputStreamParallelBgzfImpl(outputStream, level, threads);
+	}
+
+}
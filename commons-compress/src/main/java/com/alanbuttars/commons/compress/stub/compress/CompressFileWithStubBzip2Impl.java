@@ -16,6 +16,7 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BZIP2;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.IOException;
@@ -25,6 +26,7 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream
 
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamImpl;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelBzip2Impl;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.Function;
@@ -39,10 +41,12 @@ import com.alanbuttars.commons.util.functions.Function;
 public class CompressFileWithStubBzip2Impl extends CompressFileWithStub {
 
 	private int blockSize;
+	private int threads;
 
 	CompressFileWithStubBzip2Impl(File source) {
 		super(source, BZIP2);
 		this.blockSize = BZip2CompressorOutputStream.MAX_BLOCKSIZE;
+		this.threads = 1;
 	}
 
 	/**
@@ -54,6 +58,17 @@ public class CompressFileWithStubBzip2Impl extends CompressFileWithStub {
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to compress the file. By default, it is set to <code>1</code>. When set higher,
+	 * bzip2 blocks are compressed concurrently and spliced into a single standard bzip2 stream. See
+	 * {@link CompressedFileOutputStreamParallelBzip2Impl}.
+	 */
+	public CompressFileWithStubBzip2Impl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<OutputStream, CompressedFileOutputStream> compressionFunction() {
 		return new Function<OutputStream, CompressedFileOutputStream>() {
@@ -61,6 +76,9 @@ public class CompressFileWithStubBzip2Impl extends CompressFileWithStub {
 			@Override
 			public CompressedFileOutputStream apply(OutputStream outputStream) {
 				try {
+					if (threads > 1) {
+						return createParallelCompressedFileOutputStream(outputStream, blockSize, threads);
+					}
 					return createCompressedFileOutputStream(outputStream, blockSize);
 				}
 				catch (IOException e) {
@@ -76,4 +94,9 @@ public class CompressFileWithStubBzip2Impl extends CompressFileWithStub {
 		return new CompressedFileOutputStreamImpl(new BZip2CompressorOutputStream(outputStream, blockSize));
 	}
 
+	@VisibleForTesting
+	protected CompressedFileOutputStream createParallelCompressedFileOutputStream(OutputStream outputStream, int blockSize, int threads) throws IOException {
+		return new CompressedFileOutputStreamParallelBzip2Impl(outputStream, blockSize, threads);
+	}
+
 }
@@ -16,6 +16,7 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.GZIP;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.IOException;
@@ -26,6 +27,7 @@ import org.apache.commons.compress.compressors.gzip.GzipParameters;
 
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamImpl;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelGzipImpl;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.Function;
@@ -40,10 +42,12 @@ import com.alanbuttars.commons.util.functions.Function;
 public class CompressFileWithStubGzipImpl extends CompressFileWithStub {
 
 	private GzipParameters parameters;
+	private int threads;
 
 	CompressFileWithStubGzipImpl(File source) {
 		super(source, GZIP);
 		this.parameters = new GzipParameters();
+		this.threads = 1;
 	}
 
 	/**
@@ -54,6 +58,18 @@ public class CompressFileWithStubGzipImpl extends CompressFileWithStub {
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to compress the file. By default, it is set to <code>1</code>. When set higher,
+	 * the file is split into blocks of {@link CompressedFileOutputStreamParallelGzipImpl#DEFAULT_BLOCK_SIZE} bytes
+	 * which are deflated concurrently and joined into a single standard gzip member. See
+	 * {@link CompressedFileOutputStreamParallelGzipImpl}.
+	 */
+	public CompressFileWithStubGzipImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<OutputStream, CompressedFileOutputStream> compressionFunction() {
 		return new Function<OutputStream, CompressedFileOutputStream>() {
@@ -61,6 +77,9 @@ public class CompressFileWithStubGzipImpl extends CompressFileWithStub {
 			@Override
 			public CompressedFileOutputStream apply(OutputStream outputStream) {
 				try {
+					if (threads > 1) {
+						return createParallelCompressedFileOutputStream(outputStream, parameters, threads);
+					}
 					return createCompressedFileOutputStream(outputStream, parameters);
 				}
 				catch (IOException e) {
@@ -76,4 +95,9 @@ public class CompressFileWithStubGzipImpl extends CompressFileWithStub {
 		return new CompressedFileOutputStreamImpl(new GzipCompressorOutputStream(outputStream, parameters));
 	}
 
+	@VisibleForTesting
+	protected CompressedFileOutputStream createParallelCompressedFileOutputStream(OutputStream outputStream, GzipParameters parameters, int threads) throws IOException {
+		return new CompressedFileOutputStreamParallelGzipImpl(outputStream, parameters, threads);
+	}
+
 }
@@ -16,6 +16,8 @@
 package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.XZ;
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.IOException;
@@ -26,6 +28,7 @@ import org.tukaani.xz.LZMA2Options;
 
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamImpl;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelXzImpl;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.Function;
@@ -40,10 +43,14 @@ import com.alanbuttars.commons.util.functions.Function;
 public class CompressFileWithStubXzImpl extends CompressFileWithStub {
 
 	private int preset;
+	private long blockSize;
+	private int threads;
 
 	CompressFileWithStubXzImpl(File source) {
 		super(source, XZ);
 		this.preset = LZMA2Options.PRESET_DEFAULT;
+		this.blockSize = 0;
+		this.threads = 1;
 	}
 
 	/**
@@ -55,6 +62,30 @@ public class CompressFileWithStubXzImpl extends CompressFileWithStub {
 		return this;
 	}
 
+	/**
+	 * Sets the number of uncompressed bytes in each independently compressed XZ block. By default the file is written
+	 * as a single block, or, when {@link #andThreads(int)} is set higher than <code>1</code>, as blocks of three times
+	 * the preset's dictionary size. Setting a block size makes the file seekable by block. See
+	 * {@link CompressedFileOutputStreamParallelXzImpl}.
+	 */
+	public CompressFileWithStubXzImpl andBlockSize(long blockSize) {
+		verifyPositive(blockSize, "Block size must be positive");
+		verify(blockSize <= Integer.MAX_VALUE - 8, "Block size must be less than 2GB");
+		this.blockSize = blockSize;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to compress the file. By default, it is set to <code>1</code>. When set higher,
+	 * the file is written as multiple XZ blocks which are compressed concurrently. See
+	 * {@link CompressedFileOutputStreamParallelXzImpl}.
+	 */
+	public CompressFileWithStubXzImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<OutputStream, CompressedFileOutputStream> compressionFunction() {
 		return new Function<OutputStream, CompressedFileOutputStream>() {
@@ -62,6 +93,10 @@ public class CompressFileWithStubXzImpl extends CompressFileWithStub {
 			@Override
 			public CompressedFileOutputStream apply(OutputStream outputStream) {
 				try {
+					if (threads > 1 || blockSize > 0) {
+						int effectiveBlockSize = blockSize > 0 ? (int) blockSize : CompressedFileOutputStreamParallelXzImpl.defaultBlockSize(preset);
+						return createParallelCompressedFileOutputStream(outputStream, preset, effectiveBlockSize, threads);
+					}
 					return createCompressedFileOutputStream(outputStream, preset);
 				}
 				catch (IOException e) {
@@ -77,4 +112,9 @@ public class CompressFileWithStubXzImpl extends CompressFileWithStub {
 		return new CompressedFileOutputStreamImpl(new XZCompressorOutputStream(outputStream, preset));
 	}
 
+	@VisibleForTesting
+	protected CompressedFileOutputStream createParallelCompressedFileOutputStream(OutputStream outputStream, int preset, int blockSize, int threads) throws IOException {
+		return new CompressedFileOutputStreamParallelXzImpl(outputStream, preset, threads, blockSize);
+	}
+
 }
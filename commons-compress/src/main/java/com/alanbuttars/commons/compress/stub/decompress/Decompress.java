@@ -18,7 +18,15 @@ package com.alanbuttars.commons.compress.stub.decompress;
 import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 
 /**
  * The stubbing class for all decompression operations. Files may be decompressed using pre-configured or custom
@@ -48,7 +56,20 @@ import java.io.File;
  * </pre>
  * 
  * <p>
- * Archives may be decompressed using {@link Decompress#archive(File)}:
+ * Compressed streams may be decompressed using {@link Decompress#stream(InputStream)}, and compressed byte arrays
+ * using {@link Decompress#bytes(byte[])}. Any compressed content may be decompressed to a stream:
+ * </p>
+ * 
+ * <pre>
+ * Decompress.stream(request.getInputStream()).withGzip().to(destination);
+ * Decompress.bytes(content).withGzip().toStream(response.getOutputStream());
+ * Decompress.compressedFile(new File("test.txt.gz")).withGzip().toStream(response.getOutputStream());
+ * </pre>
+ * 
+ * <p>
+ * Archives may be decompressed using {@link Decompress#archive(File)}, or {@link Decompress#archiveStream(InputStream)} for
+ * archive streams and {@link Decompress#archiveBytes(byte[])} for archive byte arrays. Their entries may be
+ * decompressed in memory with <code>toMap()</code>:
  * </p>
  * 
  * <pre>
@@ -60,7 +81,10 @@ import java.io.File;
  * Decompress.archive(new File("test.dump")).withDump().to(destination);
  * Decompress.archive(new File("test.jar")).withJar().to(destination);
  * Decompress.archive(new File("test.tar")).withTar().to(destination);
+ * Decompress.archive(new File("test.tar.gz")).withTar().andCompression(CompressedFiles.GZIP).to(destination);
  * Decompress.archive(new File("test.zip")).withZip().to(destination);
+ * Decompress.archiveStream(request.getInputStream()).withTar().to(destination);
+ * Map&lt;String, byte[]&gt; entries = Decompress.archiveBytes(content).withZip().toMap();
  * Decompress.archive(new File("test.out")).with("my-custom-algorithm", //
  * 		new Function&lt;File, ArchiveInputStream&gt;() {
  * 			&#64;Override
@@ -70,6 +94,38 @@ import java.io.File;
  * 		}).to(destination);
  * </pre>
  * 
+ * <p>
+ * Archive entries may be read in memory, without being written to disk, by streaming them:
+ * </p>
+ * 
+ * <pre>
+ * try (ArchiveEntryIterator entries = Decompress.archive(new File("test.zip")).withZip().stream()) {
+ * 	for (ArchiveEntryIterator.Entry entry : entries) {
+ * 		// Read entry.getInputStream()
+ * 	}
+ * }
+ * </pre>
+ * 
+ * <p>
+ * Files of unknown format may be decompressed using {@link Decompress#auto(File)}, which identifies the compressed file
+ * or archive type by its leading bytes:
+ * </p>
+ * 
+ * <pre>
+ * Decompress.auto(new File("upload")).to(destination);
+ * </pre>
+ * 
+ * <p>
+ * Single entries may be decompressed without reading the rest of the archive. Tar archives are first indexed, and the
+ * sidecar index is then used to reach entries directly:
+ * </p>
+ * 
+ * <pre>
+ * Decompress.archive(new File("test.zip")).withZip().entry("a/1.txt").to(destination);
+ * Decompress.archive(new File("test.tar.gz")).withTar().andCompression(CompressedFiles.GZIP).toIndex(new File("test.tar.gz.idx"));
+ * Decompress.archive(new File("test.tar.gz")).withTar().andIndex(new File("test.tar.gz.idx")).entry("a/1.txt").to(destination);
+ * </pre>
+ * 
  * @author Alan Buttars
  *
  */
@@ -88,6 +144,78 @@ public class Decompress {
 		return new DecompressArchiveStub(source);
 	}
 
+	public static DecompressCompressedFileStub stream(InputStream source) {
+		verifyNonNull(source, "Source must be non-null");
+		return new DecompressCompressedFileStub(source);
+	}
+
+	public static DecompressArchiveStub archiveStream(InputStream source) {
+		verifyNonNull(source, "Source must be non-null");
+		return new DecompressArchiveStub(source);
+	}
+
+	public static DecompressCompressedFileStub bytes(byte[] source) {
+		verifyNonNull(source, "Source must be non-null");
+		return new DecompressCompressedFileStub(new ByteArrayInputStream(source));
+	}
+
+	public static DecompressArchiveStub archiveBytes(byte[] source) {
+		verifyNonNull(source, "Source must be non-null");
+		return new DecompressArchiveStub(new ByteArrayInputStream(source));
+	}
+
+	/**
+	 * Identifies the format of the source by its leading bytes, which are read once, and returns a stub which
+	 * decompresses it accordingly. Archive signatures are checked first, since a tar archive whose first entry name
+	 * begins with e.g. <code>BZh</code> would otherwise match a short compressed file signature. A compressed file
+	 * whose decompressed leading bytes begin a {@link Archives#TAR} archive is decompressed as a compressed archive in
+	 * a single pass.
+	 * 
+	 * @param source
+	 *            Non-null compressed file or archive
+	 * @throws IOException
+	 *             on any IO exception reading the leading bytes
+	 */
+	public static DecompressAutoStub auto(File source) throws IOException {
+		verifySource(source);
+
+		String fileType = null;
+		String archiveType = null;
+		byte[] signature = new byte[Archives.SIGNATURE_SIZE];
+		try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(source))) {
+			inputStream.mark(signature.length);
+			int length = readSignature(inputStream, signature);
+			inputStream.reset();
+
+			archiveType = Archives.detect(signature, length);
+			if (archiveType == null) {
+				fileType = CompressedFiles.detect(signature, length);
+			}
+			if (fileType != null && CompressedFiles.isStreamDecompressible(fileType)) {
+				try (InputStream decompressedStream = CompressedFiles.createCompressorInputStream(fileType, inputStream)) {
+					length = readSignature(decompressedStream, signature);
+				}
+				if (Archives.TAR.equals(Archives.detect(signature, length))) {
+					archiveType = Archives.TAR;
+				}
+			}
+		}
+		verify(fileType != null || archiveType != null, "Source " + source.getAbsolutePath() + " is not a recognized compressed file or archive");
+		return new DecompressAutoStub(source, fileType, archiveType);
+	}
+
+	/**
+	 * Reads leading bytes until the signature is full or the stream ends, returning the number of bytes read.
+	 */
+	private static int readSignature(InputStream inputStream, byte[] signature) throws IOException {
+		int length = 0;
+		int read = 0;
+		while (length < signature.length && (read = inputStream.read(signature, length, signature.length - length)) > 0) {
+			length += read;
+		}
+		return length;
+	}
+
 	private static void verifySource(File source) {
 		verifyNonNull(source, "Source must be non-null");
 		verify(source.exists(), "Source " + source.getAbsolutePath() + " does not exist");
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.decompress;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+
+/**
+ * Abstraction of the stub which decompresses a set of entries of an archive, located without reading the rest of the
+ * archive, into a directory. For example:
+ * 
+ * <pre>
+ * Decompress.archive(source).with7z().entries(Arrays.asList("config/app.properties", "config/db.properties")).to(destination);
+ * </pre>
+ * 
+ * @author Alan Buttars
+ *
+ */
+public abstract class DecompressArchiveEntriesStub {
+
+	protected final File source;
+	protected final Collection<String> entryNames;
+
+	DecompressArchiveEntriesStub(File source, Collection<String> entryNames) {
+		this.source = source;
+		this.entryNames = entryNames;
+	}
+
+	/**
+	 * Concludes this stub by decompressing the entries into a directory, keeping their paths within the archive.
+	 * 
+	 * @param destination
+	 *            Non-null decompressed directory destination
+	 */
+	public void to(File destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+		verify(!destination.isFile(), "Destination " + destination.getAbsolutePath() + " must not be an existing file");
+		verify(destination.canWrite(), "Destination " + destination.getAbsolutePath() + " is not writeable");
+
+		decompress(destination);
+	}
+
+	/**
+	 * Concludes this stub by decompressing the entries into a temporary directory.
+	 * 
+	 * @return The decompressed directory
+	 */
+	public File toTempDirectory() throws IOException {
+		File tempFile = Files.createTempDirectory(source.getName()).toFile();
+		to(tempFile);
+		return tempFile;
+	}
+
+	/**
+	 * Decompresses the entries of the {@link #source} into a validated destination directory.
+	 */
+	protected abstract void decompress(File destination) throws IOException;
+
+}
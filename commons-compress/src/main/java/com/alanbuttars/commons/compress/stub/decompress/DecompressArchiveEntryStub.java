@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.decompress;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Abstraction of the stub which decompresses a single entry of an archive, located without reading the rest of the
+ * archive. For example:
+ * 
+ * <pre>
+ * Decompress.archive(source).withZip().entry("config/app.properties").to(destination);
+ * </pre>
+ * 
+ * @author Alan Buttars
+ *
+ */
+public abstract class DecompressArchiveEntryStub {
+
+	protected final File source;
+	protected final String entryName;
+
+	DecompressArchiveEntryStub(File source, String entryName) {
+		this.source = source;
+		this.entryName = entryName;
+	}
+
+	/**
+	 * Concludes this stub by decompressing the entry to a file.
+	 * 
+	 * @param destination
+	 *            Non-null decompressed file destination
+	 */
+	public void to(File destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+		verify(!destination.isDirectory(), "Destination " + destination.getAbsolutePath() + " must not be a directory");
+		verify(destination.canWrite(), "Destination " + destination.getAbsolutePath() + " is not writeable");
+
+		try (OutputStream outputStream = new FileOutputStream(destination)) {
+			decompress(outputStream);
+		}
+	}
+
+	/**
+	 * Concludes this stub by decompressing the entry to a stream, which is flushed but not closed.
+	 * 
+	 * @param destination
+	 *            Non-null decompressed stream destination
+	 */
+	public void toStream(OutputStream destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+
+		decompress(destination);
+		destination.flush();
+	}
+
+	/**
+	 * Concludes this stub by decompressing the entry to a temporary file.
+	 * 
+	 * @return The decompressed file
+	 */
+	public File toTempFile() throws IOException {
+		File tempFile = File.createTempFile(source.getName(), ".tmp");
+		to(tempFile);
+		return tempFile;
+	}
+
+	/**
+	 * Decompresses the entry of the {@link #source} to a validated destination stream.
+	 */
+	protected abstract void decompress(OutputStream destination) throws IOException;
+
+}
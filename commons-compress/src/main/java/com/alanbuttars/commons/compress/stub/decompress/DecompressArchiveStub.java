@@ -17,15 +17,18 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
+import java.io.InputStream;
 
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
 import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
- * Directory decompression stub which simply contains the source archive as a context.
+ * Directory decompression stub which simply contains the source archive file or stream as a context.
  * 
  * @author Alan Buttars
  *
@@ -33,65 +36,102 @@ import com.alanbuttars.commons.util.functions.Function;
 public class DecompressArchiveStub {
 
 	protected final File source;
+	protected final InputStream sourceStream;
+	private boolean useChannels;
+	private int bufferSize;
 
 	DecompressArchiveStub(File source) {
+		this(source, null);
+	}
+
+	DecompressArchiveStub(InputStream sourceStream) {
+		this(null, sourceStream);
+	}
+
+	private DecompressArchiveStub(File source, InputStream sourceStream) {
 		this.source = source;
+		this.sourceStream = sourceStream;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed through {@link java.nio.channels.FileChannel}s rather than
+	 * streams. By default, streams are used. Has no effect on stream sources.
+	 */
+	public DecompressArchiveStub usingChannels() {
+		this.useChannels = true;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed through buffers of <code>bufferSize</code> bytes, which are
+	 * acquired from {@link BufferPool#shared()} and reused across calls. By default, buffers of
+	 * {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes are used.
+	 * 
+	 * @param bufferSize
+	 *            Positive buffer size, in bytes
+	 */
+	public DecompressArchiveStub usingBufferSize(int bufferSize) {
+		verifyPositive(bufferSize, "Buffer size must be positive");
+		this.bufferSize = bufferSize;
+		return this;
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#SEVENZ}.
 	 */
 	public DecompressArchiveWithStub7zImpl with7z() {
-		return new DecompressArchiveWithStub7zImpl(source);
+		return configure(new DecompressArchiveWithStub7zImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#AR}.
 	 */
 	public DecompressArchiveWithStubArImpl withAr() {
-		return new DecompressArchiveWithStubArImpl(source);
+		return configure(new DecompressArchiveWithStubArImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#ARJ}.
 	 */
 	public DecompressArchiveWithStubArjImpl withArj() {
-		return new DecompressArchiveWithStubArjImpl(source);
+		return configure(new DecompressArchiveWithStubArjImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#CPIO}.
 	 */
 	public DecompressArchiveWithStubCpioImpl withCpio() {
-		return new DecompressArchiveWithStubCpioImpl(source);
+		return configure(new DecompressArchiveWithStubCpioImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#DUMP}.
 	 */
 	public DecompressArchiveWithStubDumpImpl withDump() {
-		return new DecompressArchiveWithStubDumpImpl(source);
+		return configure(new DecompressArchiveWithStubDumpImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#JAR}.
 	 */
 	public DecompressArchiveWithStubJarImpl withJar() {
-		return new DecompressArchiveWithStubJarImpl(source);
+		return configure(new DecompressArchiveWithStubJarImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#TAR}.
 	 */
 	public DecompressArchiveWithStubTarImpl withTar() {
-		return new DecompressArchiveWithStubTarImpl(source);
+		return configure(new DecompressArchiveWithStubTarImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be compressed with {@link Archives#ZIP}.
 	 */
 	public DecompressArchiveWithStubZipImpl withZip() {
-		return new DecompressArchiveWithStubZipImpl(source);
+		return configure(new DecompressArchiveWithStubZipImpl(source));
 	}
 
 	/**
@@ -108,14 +148,20 @@ public class DecompressArchiveStub {
 		verify(!fileType.trim().isEmpty(), "File type must be non-empty");
 		verifyNonNull(decompressionFunction, "Decompression function must be non-null");
 
-		return new DecompressArchiveWithStub(source, fileType) {
+		return configure(new DecompressArchiveWithStub(source, fileType) {
 
 			@Override
 			protected Function<File, ArchiveInputStream> decompressionFunction() {
 				return decompressionFunction;
 			}
 
-		};
+		});
 	}
 
+	private <T extends DecompressArchiveWithStub> T configure(T stub) {
+		stub.sourceStream = sourceStream;
+		stub.useChannels = useChannels;
+		stub.bufferSize = bufferSize;
+		return stub;
+	}
 }
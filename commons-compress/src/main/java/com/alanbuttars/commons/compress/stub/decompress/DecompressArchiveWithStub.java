@@ -20,10 +20,20 @@ import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import com.alanbuttars.commons.compress.archives.input.ArchiveEntryIterator;
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
 import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.util.BufferPool;
+import com.alanbuttars.commons.compress.util.CloseShieldInputStream;
+import com.alanbuttars.commons.compress.util.SizedByteArrayOutputStream;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -44,10 +54,20 @@ abstract class DecompressArchiveWithStub {
 
 	protected final File source;
 	protected final String fileType;
+	protected InputStream sourceStream;
+	protected int threads;
+	protected boolean useChannels;
+	protected int bufferSize;
+	protected List<File> increments;
 
 	DecompressArchiveWithStub(File source, String fileType) {
 		this.source = source;
 		this.fileType = fileType;
+		this.sourceStream = null;
+		this.threads = 1;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+		this.increments = null;
 	}
 
 	/**
@@ -61,7 +81,20 @@ abstract class DecompressArchiveWithStub {
 		verify(!destination.isFile(), "Destination " + destination.getAbsolutePath() + " must not be an existing file");
 		verify(destination.canWrite(), "Destination " + destination.getAbsolutePath() + " is not writeable");
 
-		Archives.decompress(fileType, source, destination, decompressionFunction());
+		if (sourceStream != null) {
+			decompressStream(destination);
+		}
+		else {
+			decompress(destination);
+		}
+
+		if (increments != null) {
+			Archives.applyDeletions(destination);
+			for (File increment : increments) {
+				Archives.decompress(fileType, increment, destination, decompressionFunction(), threads, bufferSize);
+				Archives.applyDeletions(destination);
+			}
+		}
 	}
 
 	/**
@@ -71,14 +104,147 @@ abstract class DecompressArchiveWithStub {
 	 * @return The compressed directory
 	 */
 	public File toTempDirectory() throws IOException {
-		File tempFile = Files.createTempDirectory(source.getName()).toFile();
+		File tempFile = Files.createTempDirectory(source != null ? source.getName() : "stream").toFile();
 		to(tempFile);
 		return tempFile;
 	}
 
+	/**
+	 * Concludes this stub by opening the archive configured by the complete stub and iterating over its entries in
+	 * order, without writing them to disk. The iterator must be closed by the caller; an archive stream source is not
+	 * closed with it.
+	 * 
+	 * @return The iterator over the archive's entries
+	 */
+	public ArchiveEntryIterator stream() throws IOException {
+		verify(increments == null, "Incremental archives cannot be streamed");
+
+		try {
+			if (sourceStream != null) {
+				Function<InputStream, ArchiveInputStream> streamDecompressionFunction = streamDecompressionFunction();
+				verify(streamDecompressionFunction != null, "File type " + fileType + " can only be streamed from a file");
+				return new ArchiveEntryIterator(streamDecompressionFunction.apply(new CloseShieldInputStream(sourceStream)));
+			}
+			return new ArchiveEntryIterator(decompressionFunction().apply(source));
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Concludes this stub by reading the entries of the archive configured by the complete stub into memory, as in
+	 * {@link #stream()}. Each entry's content is read into an array sized from the entry's size, when the archive
+	 * records it, up to {@link SizedByteArrayOutputStream#MAX_INITIAL_SIZE}. Directory entries are omitted.
+	 * 
+	 * @return The content of each file entry, keyed by entry name in the order in which the entries were read
+	 */
+	public Map<String, byte[]> toMap() throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		try (ArchiveEntryIterator iterator = stream()) {
+			for (ArchiveEntryIterator.Entry entry : iterator) {
+				if (!entry.getArchiveEntry().isDirectory()) {
+					entries.put(entry.getArchiveEntry().getName(), readEntry(entry));
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		return entries;
+	}
+
+	/**
+	 * Reads the content of an entry, whose size may be unknown. Entries which record a size larger than an array can
+	 * hold are rejected before any content is read.
+	 */
+	private byte[] readEntry(ArchiveEntryIterator.Entry entry) throws IOException {
+		long size = entry.getArchiveEntry().getSize();
+		if (size > SizedByteArrayOutputStream.MAX_ARRAY_SIZE) {
+			throw new IOException("Entry " + entry.getArchiveEntry().getName() + " of " + size + " bytes is too large to be read in memory");
+		}
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(size >= 0 ? size : bufferSize);
+		byte[] buffer = BufferPool.shared().acquire(bufferSize);
+		try {
+			InputStream inputStream = entry.getInputStream();
+			int length = 0;
+			while ((length = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, length);
+			}
+		}
+		finally {
+			BufferPool.shared().release(buffer);
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Decompresses the {@link #source} into a validated destination. By default, the archive is streamed through
+	 * {@link #decompressionFunction()}, with entries written by {@link #threads} threads; extensions may override this
+	 * to read the archive another way.
+	 * 
+	 * @param destination
+	 *            Non-null decompressed directory destination
+	 */
+	protected void decompress(File destination) throws IOException {
+		Archives.decompress(fileType, source, destination, decompressionFunction(), threads, bufferSize);
+	}
+
+	/**
+	 * Decompresses the {@link #sourceStream} into a validated destination through
+	 * {@link #streamDecompressionFunction()}. Archives which can only be read from a file are first copied to a
+	 * temporary file.
+	 */
+	private void decompressStream(File destination) throws IOException {
+		Function<InputStream, ArchiveInputStream> streamDecompressionFunction = streamDecompressionFunction();
+		if (streamDecompressionFunction != null) {
+			Archives.decompress(fileType, sourceStream, destination, streamDecompressionFunction, threads, bufferSize);
+			return;
+		}
+		File tempFile = File.createTempFile("stream", "." + fileType);
+		try {
+			Files.copy(sourceStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Archives.decompress(fileType, tempFile, destination, decompressionFunction(), threads, bufferSize);
+		}
+		finally {
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * Verifies that a single entry may be located within the {@link #source}.
+	 */
+	protected void verifyEntryName(String entryName) {
+		verifyNonNull(entryName, "Entry name must be non-null");
+		verify(source != null, "Entries may only be decompressed from archive files");
+	}
+
+	/**
+	 * Verifies that a set of entries may be located within the {@link #source}.
+	 */
+	protected void verifyEntryNames(Collection<String> entryNames) {
+		verifyNonNull(entryNames, "Entry names must be non-null");
+		verify(!entryNames.isEmpty(), "Entry names must be non-empty");
+		verify(source != null, "Entries may only be decompressed from archive files");
+	}
+
 	/**
 	 * Function used to transform the {@link #source} to an archive input stream.
 	 */
 	protected abstract Function<File, ArchiveInputStream> decompressionFunction();
 
+	/**
+	 * Function used to transform the {@link #sourceStream} to an archive input stream, or <code>null</code> if the
+	 * archive can only be read from a file.
+	 */
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return null;
+	}
+
 }
@@ -16,9 +16,12 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.SEVENZ;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
 
@@ -38,10 +41,12 @@ import com.alanbuttars.commons.util.functions.Function;
 public class DecompressArchiveWithStub7zImpl extends DecompressArchiveWithStub {
 
 	private byte[] password;
+	private long memoryLimit;
 
 	DecompressArchiveWithStub7zImpl(File source) {
 		super(source, SEVENZ);
 		this.password = null;
+		this.memoryLimit = Runtime.getRuntime().maxMemory() / 2;
 	}
 
 	/**
@@ -53,6 +58,77 @@ public class DecompressArchiveWithStub7zImpl extends DecompressArchiveWithStub {
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to extract the archive. By default, it is set to <code>1</code>. When set higher,
+	 * independent folders of the archive are decoded concurrently, each by its own {@link SevenZFile}. See
+	 * {@link Archives#decompress7z(File, File, byte[], int, long)}.
+	 */
+	public DecompressArchiveWithStub7zImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Sets the number of bytes which the decoders' dictionaries may occupy in total when extracting with multiple
+	 * threads. Fewer threads are used if the archive's dictionaries would otherwise exceed it. By default, it is set to
+	 * half of the maximum heap size.
+	 */
+	public DecompressArchiveWithStub7zImpl andMemoryLimit(long memoryLimit) {
+		verifyPositive(memoryLimit, "Memory limit must be positive");
+		this.memoryLimit = memoryLimit;
+		return this;
+	}
+
+	/**
+	 * Selects a single entry of the archive to decompress. The entry is located through the archive's header, and only
+	 * the folder holding it is decoded. See {@link Archives#decompress7zEntry(File, String, OutputStream, byte[])}.
+	 * 
+	 * @param entryName
+	 *            Non-null name of the entry within the archive
+	 */
+	public DecompressArchiveEntryStub entry(final String entryName) {
+		verifyEntryName(entryName);
+		return new DecompressArchiveEntryStub(source, entryName) {
+
+			@Override
+			protected void decompress(OutputStream destination) throws IOException {
+				Archives.decompress7zEntry(source, entryName, destination, password);
+			}
+
+		};
+	}
+
+	/**
+	 * Selects a set of entries of the archive to decompress. The entries are located through the archive's header, and
+	 * the archive is read no further than the last of them. See
+	 * {@link Archives#decompress7zEntries(File, Collection, File, byte[])}.
+	 * 
+	 * @param entryNames
+	 *            Non-empty names of the entries within the archive
+	 */
+	public DecompressArchiveEntriesStub entries(final Collection<String> entryNames) {
+		verifyEntryNames(entryNames);
+		return new DecompressArchiveEntriesStub(source, entryNames) {
+
+			@Override
+			protected void decompress(File destination) throws IOException {
+				Archives.decompress7zEntries(source, entryNames, destination, password);
+			}
+
+		};
+	}
+
+	@Override
+	protected void decompress(File destination) throws IOException {
+		if (threads > 1) {
+			Archives.decompress7z(source, destination, password, threads, memoryLimit);
+		}
+		else {
+			super.decompress(destination);
+		}
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.AR;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.commons.compress.archivers.ar.ArArchiveInputStream;
 
@@ -42,6 +44,17 @@ public class DecompressArchiveWithStubArImpl extends DecompressArchiveWithStub {
 		super(source, AR);
 	}
 
+	/**
+	 * Sets the number of threads used to write the extracted files. By default, it is set to <code>1</code>. When set
+	 * higher, entries are decompressed on the calling thread while directories are created and files are written
+	 * concurrently. See {@link Archives#decompress(String, File, File, Function, int)}.
+	 */
+	public DecompressArchiveWithStubArImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -59,10 +72,31 @@ public class DecompressArchiveWithStubArImpl extends DecompressArchiveWithStub {
 		};
 	}
 
+	@Override
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return new Function<InputStream, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(InputStream inputStream) {
+				try {
+					return createArchiveInputStream(inputStream);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveInputStream createArchiveInputStream(File file) throws IOException {
-		FileInputStream fileInputStream = new FileInputStream(file);
-		ArArchiveInputStream archiveInputStream = new ArArchiveInputStream(fileInputStream);
+		return createArchiveInputStream(new FileInputStream(file));
+	}
+
+	@VisibleForTesting
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream) throws IOException {
+		ArArchiveInputStream archiveInputStream = new ArArchiveInputStream(inputStream);
 		return new ArchiveInputStreamImpl(archiveInputStream);
 	}
 
@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.CPIO;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.commons.compress.archivers.cpio.CpioArchiveInputStream;
 import org.apache.commons.compress.archivers.cpio.CpioConstants;
@@ -66,6 +68,17 @@ public class DecompressArchiveWithStubCpioImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to write the extracted files. By default, it is set to <code>1</code>. When set
+	 * higher, entries are decompressed on the calling thread while directories are created and files are written
+	 * concurrently. See {@link Archives#decompress(String, File, File, Function, int)}.
+	 */
+	public DecompressArchiveWithStubCpioImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -83,10 +96,31 @@ public class DecompressArchiveWithStubCpioImpl extends DecompressArchiveWithStub
 		};
 	}
 
+	@Override
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return new Function<InputStream, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(InputStream inputStream) {
+				try {
+					return createArchiveInputStream(inputStream, blockSize, encoding);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveInputStream createArchiveInputStream(File file, int blockSize, String encoding) throws IOException {
-		FileInputStream fileInputStream = new FileInputStream(file);
-		CpioArchiveInputStream archiveInputStream = new CpioArchiveInputStream(fileInputStream, blockSize, encoding);
+		return createArchiveInputStream(new FileInputStream(file), blockSize, encoding);
+	}
+
+	@VisibleForTesting
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream, int blockSize, String encoding) throws IOException {
+		CpioArchiveInputStream archiveInputStream = new CpioArchiveInputStream(inputStream, blockSize, encoding);
 		return new ArchiveInputStreamImpl(archiveInputStream);
 	}
 
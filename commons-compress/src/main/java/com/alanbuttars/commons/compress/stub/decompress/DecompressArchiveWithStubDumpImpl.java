@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.DUMP;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.commons.compress.archivers.dump.DumpArchiveInputStream;
@@ -55,6 +57,17 @@ public class DecompressArchiveWithStubDumpImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to write the extracted files. By default, it is set to <code>1</code>. When set
+	 * higher, entries are decompressed on the calling thread while directories are created and files are written
+	 * concurrently. See {@link Archives#decompress(String, File, File, Function, int)}.
+	 */
+	public DecompressArchiveWithStubDumpImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -72,10 +85,31 @@ public class DecompressArchiveWithStubDumpImpl extends DecompressArchiveWithStub
 		};
 	}
 
+	@Override
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return new Function<InputStream, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(InputStream inputStream) {
+				try {
+					return createArchiveInputStream(inputStream, encoding);
+				}
+				catch (ArchiveException | IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveInputStream createArchiveInputStream(File file, String encoding) throws ArchiveException, IOException {
-		FileInputStream fileInputStream = new FileInputStream(file);
-		DumpArchiveInputStream archiveInputStream = new DumpArchiveInputStream(fileInputStream, encoding);
+		return createArchiveInputStream(new FileInputStream(file), encoding);
+	}
+
+	@VisibleForTesting
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream, String encoding) throws ArchiveException, IOException {
+		DumpArchiveInputStream archiveInputStream = new DumpArchiveInputStream(inputStream, encoding);
 		return new ArchiveInputStreamImpl(archiveInputStream);
 	}
 
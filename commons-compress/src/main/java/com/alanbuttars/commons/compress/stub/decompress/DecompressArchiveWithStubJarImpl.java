@@ -16,10 +16,12 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.JAR;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.apache.commons.compress.archivers.jar.JarArchiveInputStream;
 
@@ -54,6 +56,17 @@ public class DecompressArchiveWithStubJarImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to write the extracted files. By default, it is set to <code>1</code>. When set
+	 * higher, entries are decompressed on the calling thread while directories are created and files are written
+	 * concurrently. See {@link Archives#decompress(String, File, File, Function, int)}.
+	 */
+	public DecompressArchiveWithStubJarImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -71,10 +84,31 @@ public class DecompressArchiveWithStubJarImpl extends DecompressArchiveWithStub
 		};
 	}
 
+	@Override
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return new Function<InputStream, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(InputStream inputStream) {
+				try {
+					return createArchiveInputStream(inputStream, encoding);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveInputStream createArchiveInputStream(File file, String encoding) throws IOException {
-		FileInputStream fileInputStream = new FileInputStream(file);
-		JarArchiveInputStream archiveInputStream = new JarArchiveInputStream(fileInputStream, encoding);
+		return createArchiveInputStream(new FileInputStream(file), encoding);
+	}
+
+	@VisibleForTesting
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream, String encoding) throws IOException {
+		JarArchiveInputStream archiveInputStream = new JarArchiveInputStream(inputStream, encoding);
 		return new ArchiveInputStreamImpl(archiveInputStream);
 	}
 
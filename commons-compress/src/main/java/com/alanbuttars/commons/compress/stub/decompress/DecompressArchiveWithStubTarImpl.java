@@ -16,10 +16,17 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.TAR;
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarConstants;
@@ -27,6 +34,8 @@ import org.apache.commons.compress.archivers.tar.TarConstants;
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStreamImpl;
 import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.archives.util.TarIndex;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
 import com.alanbuttars.commons.util.annotations.VisibleForTesting;
 import com.alanbuttars.commons.util.functions.Function;
 
@@ -40,13 +49,17 @@ import com.alanbuttars.commons.util.functions.Function;
 public class DecompressArchiveWithStubTarImpl extends DecompressArchiveWithStub {
 
 	private int blockSize;
+	private String compression;
 	private String encoding;
+	private File index;
 	private int recordSize;
 
 	DecompressArchiveWithStubTarImpl(File source) {
 		super(source, TAR);
 		this.blockSize = TarConstants.DEFAULT_BLKSIZE;
+		this.compression = null;
 		this.encoding = null;
+		this.index = null;
 		this.recordSize = TarConstants.DEFAULT_RCDSIZE;
 	}
 
@@ -58,6 +71,21 @@ public class DecompressArchiveWithStubTarImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the compression of the archive, such that e.g. a <code>.tar.gz</code> is extracted in a single pass with no
+	 * intermediate <code>.tar</code> file. By default, it is set to <code>null</code> and the archive is read as is.
+	 * See {@link CompressedFiles#createCompressorInputStream(String, InputStream)} for the supported file types.
+	 * 
+	 * @param compression
+	 *            Compressed file type, such as {@link CompressedFiles#GZIP}
+	 */
+	public DecompressArchiveWithStubTarImpl andCompression(String compression) {
+		verifyNonNull(compression, "Compression must be non-null");
+		verify(CompressedFiles.isStreamDecompressible(compression), "Compression " + compression + " is not supported");
+		this.compression = compression;
+		return this;
+	}
+
 	/**
 	 * Sets the file encoding for the archive. By default, it is set to <code>null</code>.
 	 */
@@ -66,6 +94,39 @@ public class DecompressArchiveWithStubTarImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the chain of incremental archives, each written with
+	 * {@link com.alanbuttars.commons.compress.stub.compress.CompressDirectoryWithStubTarImpl#andManifest(File)}, which
+	 * are applied in order on top of the archive: each is decompressed over the destination, after which the files it
+	 * records as deleted are removed. See {@link Archives#applyDeletions(File)}. Increments are read with the same
+	 * configuration as the archive.
+	 * 
+	 * @param increments
+	 *            Non-null incremental archives, oldest first
+	 */
+	public DecompressArchiveWithStubTarImpl andIncrements(File... increments) {
+		verifyNonNull(increments, "Increments must be non-null");
+		for (File increment : increments) {
+			verifyNonNull(increment, "Increments must be non-null");
+		}
+		this.increments = Arrays.asList(increments);
+		return this;
+	}
+
+	/**
+	 * Sets the sidecar file holding the {@link TarIndex} of the archive, as written by {@link #toIndex(File)}, through
+	 * which {@link #entry(String)} and {@link #entries(Collection)} locate their entries. By default, it is set to
+	 * <code>null</code> and the archive is indexed anew whenever entries are decompressed.
+	 * 
+	 * @param index
+	 *            Non-null sidecar file
+	 */
+	public DecompressArchiveWithStubTarImpl andIndex(File index) {
+		verifyNonNull(index, "Index must be non-null");
+		this.index = index;
+		return this;
+	}
+
 	/**
 	 * Sets the record size for the archive. By default, it is set to {@link TarConstants#DEFAULT_RCDSIZE}.
 	 */
@@ -74,6 +135,92 @@ public class DecompressArchiveWithStubTarImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to write the extracted files. By default, it is set to <code>1</code>. When set
+	 * higher, entries are decompressed on the calling thread while directories are created and files are written
+	 * concurrently. See {@link Archives#decompress(String, File, File, Function, int)}. Has no effect on uncompressed
+	 * archives decompressed through channels, whose entries are copied by
+	 * {@link Archives#decompressTar(File, File, int, String, int)}.
+	 */
+	public DecompressArchiveWithStubTarImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Selects a single entry of the archive to decompress. The entry is located through the archive's index, so that
+	 * the entries before it are neither read nor, if the archive is compressed, inflated from the archive's start. See
+	 * {@link Archives#decompressTarEntry(File, TarIndex, String, OutputStream)}.
+	 * 
+	 * @param entryName
+	 *            Non-null name of the entry within the archive
+	 */
+	public DecompressArchiveEntryStub entry(final String entryName) {
+		verifyEntryName(entryName);
+		verifyIndexable();
+		return new DecompressArchiveEntryStub(source, entryName) {
+
+			@Override
+			protected void decompress(OutputStream destination) throws IOException {
+				Archives.decompressTarEntry(source, readIndex(), entryName, destination);
+			}
+
+		};
+	}
+
+	/**
+	 * Selects a set of entries of the archive to decompress, each of which is located through the archive's index. See
+	 * {@link Archives#decompressTarEntries(File, TarIndex, Collection, File)}.
+	 * 
+	 * @param entryNames
+	 *            Non-empty names of the entries within the archive
+	 */
+	public DecompressArchiveEntriesStub entries(final Collection<String> entryNames) {
+		verifyEntryNames(entryNames);
+		verifyIndexable();
+		return new DecompressArchiveEntriesStub(source, entryNames) {
+
+			@Override
+			protected void decompress(File destination) throws IOException {
+				Archives.decompressTarEntries(source, readIndex(), entryNames, destination);
+			}
+
+		};
+	}
+
+	/**
+	 * Concludes this stub by indexing the archive rather than decompressing it, and writing the {@link TarIndex} to a
+	 * sidecar file. The archive is read once from start to end. See {@link TarIndex#create(File, String)}.
+	 * 
+	 * @param destination
+	 *            Non-null sidecar file destination
+	 */
+	public void toIndex(File destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+		verify(source != null, "Only archive files may be indexed");
+		verifyIndexable();
+		TarIndex.create(source, compression).write(destination);
+	}
+
+	private void verifyIndexable() {
+		verify(TarIndex.isIndexable(compression), "Compression " + compression + " cannot be indexed");
+	}
+
+	private TarIndex readIndex() throws IOException {
+		return index != null ? TarIndex.read(index) : TarIndex.create(source, compression);
+	}
+
+	@Override
+	protected void decompress(File destination) throws IOException {
+		if (useChannels && compression == null) {
+			Archives.decompressTar(source, destination, blockSize, encoding, recordSize);
+		}
+		else {
+			super.decompress(destination);
+		}
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -91,10 +238,34 @@ public class DecompressArchiveWithStubTarImpl extends DecompressArchiveWithStub
 		};
 	}
 
+	@Override
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return new Function<InputStream, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(InputStream inputStream) {
+				try {
+					return createArchiveInputStream(inputStream, blockSize, encoding, recordSize);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveInputStream createArchiveInputStream(File file, int blockSize, String encoding, int recordSize) throws IOException {
-		FileInputStream fileInputStream = new FileInputStream(file);
-		TarArchiveInputStream archiveInputStream = new TarArchiveInputStream(fileInputStream, blockSize, recordSize, encoding);
+		return createArchiveInputStream(new FileInputStream(file), blockSize, encoding, recordSize);
+	}
+
+	@VisibleForTesting
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream, int blockSize, String encoding, int recordSize) throws IOException {
+		if (compression != null) {
+			inputStream = CompressedFiles.createCompressorInputStream(compression, inputStream);
+		}
+		TarArchiveInputStream archiveInputStream = new TarArchiveInputStream(inputStream, blockSize, recordSize, encoding);
 		return new ArchiveInputStreamImpl(archiveInputStream);
 	}
 
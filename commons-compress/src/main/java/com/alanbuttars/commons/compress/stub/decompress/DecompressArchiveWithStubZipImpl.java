@@ -16,10 +16,14 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.ZIP;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 
@@ -76,6 +80,69 @@ public class DecompressArchiveWithStubZipImpl extends DecompressArchiveWithStub
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to extract the archive. By default, it is set to <code>1</code>. When set higher,
+	 * the archive is read through its central directory and entries are inflated and written concurrently, in which
+	 * case {@link #andAllowStoredEntriesWithDataDescriptor(boolean)} has no effect. See
+	 * {@link Archives#decompressZip(File, File, String, boolean, int)}. Archives decompressed through channels are
+	 * always read through their central directory, even with a single thread.
+	 */
+	public DecompressArchiveWithStubZipImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Selects a single entry of the archive to decompress. The entry is located through the archive's central
+	 * directory, so no other entry is read. See
+	 * {@link Archives#decompressZipEntry(File, String, OutputStream, String, boolean)}.
+	 * 
+	 * @param entryName
+	 *            Non-null name of the entry within the archive
+	 */
+	public DecompressArchiveEntryStub entry(final String entryName) {
+		verifyEntryName(entryName);
+		return new DecompressArchiveEntryStub(source, entryName) {
+
+			@Override
+			protected void decompress(OutputStream destination) throws IOException {
+				Archives.decompressZipEntry(source, entryName, destination, encoding, useUnicodeExtraFields);
+			}
+
+		};
+	}
+
+	/**
+	 * Selects a set of entries of the archive to decompress. The entries are located through the archive's central
+	 * directory, so no other entry is read. See
+	 * {@link Archives#decompressZipEntries(File, Collection, File, String, boolean)}.
+	 * 
+	 * @param entryNames
+	 *            Non-empty names of the entries within the archive
+	 */
+	public DecompressArchiveEntriesStub entries(final Collection<String> entryNames) {
+		verifyEntryNames(entryNames);
+		return new DecompressArchiveEntriesStub(source, entryNames) {
+
+			@Override
+			protected void decompress(File destination) throws IOException {
+				Archives.decompressZipEntries(source, entryNames, destination, encoding, useUnicodeExtraFields);
+			}
+
+		};
+	}
+
+	@Override
+	protected void decompress(File destination) throws IOException {
+		if (threads > 1 || useChannels) {
+			Archives.decompressZip(source, destination, encoding, useUnicodeExtraFields, threads, useChannels);
+		}
+		else {
+			super.decompress(destination);
+		}
+	}
+
 	@Override
 	protected Function<File, ArchiveInputStream> decompressionFunction() {
 		return new Function<File, ArchiveInputStream>() {
@@ -93,10 +160,31 @@ public class DecompressArchiveWithStubZipImpl extends DecompressArchiveWithStub
 		};
 	}
 
+	@Override
+	protected Function<InputStream, ArchiveInputStream> streamDecompressionFunction() {
+		return new Function<InputStream, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(InputStream inputStream) {
+				try {
+					return createArchiveInputStream(inputStream, allowStoredEntriesWithDataDescriptor, encoding, useUnicodeExtraFields);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
 	@VisibleForTesting
 	protected ArchiveInputStream createArchiveInputStream(File file, boolean allowStoredEntriesWithDataDescriptor, String encoding, boolean useUnicodeExtraFields) throws IOException {
-		FileInputStream fileInputStream = new FileInputStream(file);
-		ZipArchiveInputStream archiveInputStream = new ZipArchiveInputStream(fileInputStream, encoding, useUnicodeExtraFields, allowStoredEntriesWithDataDescriptor);
+		return createArchiveInputStream(new FileInputStream(file), allowStoredEntriesWithDataDescriptor, encoding, useUnicodeExtraFields);
+	}
+
+	@VisibleForTesting
+	protected ArchiveInputStream createArchiveInputStream(InputStream inputStream, boolean allowStoredEntriesWithDataDescriptor, String encoding, boolean useUnicodeExtraFields) throws IOException {
+		ZipArchiveInputStream archiveInputStream = new ZipArchiveInputStream(inputStream, encoding, useUnicodeExtraFields, allowStoredEntriesWithDataDescriptor);
 		return new ArchiveInputStreamImpl(archiveInputStream);
 	}
 
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.decompress;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verify;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
+
+/**
+ * Decompression stub for a source whose format was identified by its leading bytes. Compressed files are decompressed
+ * to a file and archives, including {@link Archives#TAR} archives within a compressed file, are decompressed to a
+ * directory.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class DecompressAutoStub {
+
+	protected final File source;
+	protected final String fileType;
+	protected final String archiveType;
+	private boolean useChannels;
+	private int bufferSize;
+
+	DecompressAutoStub(File source, String fileType, String archiveType) {
+		this.source = source;
+		this.fileType = fileType;
+		this.archiveType = archiveType;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+	}
+
+	/**
+	 * Returns the detected {@link CompressedFiles} file type, or <code>null</code> if the {@link #source} is an
+	 * uncompressed archive.
+	 */
+	public String getFileType() {
+		return fileType;
+	}
+
+	/**
+	 * Returns the detected {@link Archives} archive type, or <code>null</code> if the {@link #source} is not an archive.
+	 */
+	public String getArchiveType() {
+		return archiveType;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed through {@link java.nio.channels.FileChannel}s rather than
+	 * streams. By default, streams are used.
+	 */
+	public DecompressAutoStub usingChannels() {
+		this.useChannels = true;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed through buffers of <code>bufferSize</code> bytes, which are
+	 * acquired from {@link BufferPool#shared()} and reused across calls. By default, buffers of
+	 * {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes are used.
+	 * 
+	 * @param bufferSize
+	 *            Positive buffer size, in bytes
+	 */
+	public DecompressAutoStub usingBufferSize(int bufferSize) {
+		verifyPositive(bufferSize, "Buffer size must be positive");
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * Decompresses the {@link #source} with its detected format.
+	 * 
+	 * @param destination
+	 *            Non-null destination, which is a directory if the {@link #source} is an archive and a file otherwise
+	 */
+	public void to(File destination) throws IOException {
+		if (archiveType != null) {
+			archiveStub().to(destination);
+		}
+		else {
+			compressedFileStub().to(destination);
+		}
+	}
+
+	/**
+	 * Decompresses a compressed file to a temporary file.
+	 * 
+	 * @return The decompressed file
+	 */
+	public File toTempFile() throws IOException {
+		verify(archiveType == null, "Source " + source.getAbsolutePath() + " is an archive; to decompress it use toTempDirectory()");
+		return compressedFileStub().toTempFile();
+	}
+
+	/**
+	 * Decompresses an archive to a temporary directory.
+	 * 
+	 * @return The decompressed directory
+	 */
+	public File toTempDirectory() throws IOException {
+		verify(archiveType != null, "Source " + source.getAbsolutePath() + " is not an archive; to decompress it use toTempFile()");
+		return archiveStub().toTempDirectory();
+	}
+
+	private DecompressCompressedFileWithStub compressedFileStub() {
+		DecompressCompressedFileStub stub = new DecompressCompressedFileStub(source).usingBufferSize(bufferSize);
+		if (useChannels) {
+			stub.usingChannels();
+		}
+
+		if (CompressedFiles.BGZF.equals(fileType)) {
+			return stub.withBgzf();
+		}
+		else if (CompressedFiles.BZIP2.equals(fileType)) {
+			return stub.withBzip2();
+		}
+		else if (CompressedFiles.DEFLATE.equals(fileType)) {
+			return stub.withDeflate();
+		}
+		else if (CompressedFiles.FRAMEDSNAPPY.equals(fileType)) {
+			return stub.withFramedSnappy();
+		}
+		else if (CompressedFiles.GZIP.equals(fileType)) {
+			return stub.withGzip();
+		}
+		else if (CompressedFiles.LZMA.equals(fileType)) {
+			return stub.withLzma();
+		}
+		else if (CompressedFiles.PACK200.equals(fileType)) {
+			return stub.withPack200();
+		}
+		else if (CompressedFiles.SNAPPY.equals(fileType)) {
+			return stub.withSnappy();
+		}
+		else if (CompressedFiles.XZ.equals(fileType)) {
+			return stub.withXz();
+		}
+		return stub.withZ();
+	}
+
+	private DecompressArchiveWithStub archiveStub() {
+		DecompressArchiveStub stub = new DecompressArchiveStub(source).usingBufferSize(bufferSize);
+		if (useChannels) {
+			stub.usingChannels();
+		}
+
+		if (Archives.SEVENZ.equals(archiveType)) {
+			return stub.with7z();
+		}
+		else if (Archives.AR.equals(archiveType)) {
+			return stub.withAr();
+		}
+		else if (Archives.ARJ.equals(archiveType)) {
+			return stub.withArj();
+		}
+		else if (Archives.CPIO.equals(archiveType)) {
+			return stub.withCpio();
+		}
+		else if (Archives.DUMP.equals(archiveType)) {
+			return stub.withDump();
+		}
+		else if (Archives.JAR.equals(archiveType)) {
+			return stub.withJar();
+		}
+		else if (Archives.TAR.equals(archiveType)) {
+			DecompressArchiveWithStubTarImpl tarStub = stub.withTar();
+			if (fileType != null) {
+				tarStub.andCompression(fileType);
+			}
+			return tarStub;
+		}
+		return stub.withZip();
+	}
+
+}
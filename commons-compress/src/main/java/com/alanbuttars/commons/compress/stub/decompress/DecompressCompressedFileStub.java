@@ -17,16 +17,18 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.InputStream;
 
 import com.alanbuttars.commons.compress.files.input.CompressedFileInputStream;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
- * Directory decompression stub which simply contains the source compressed file as a context.
+ * Directory decompression stub which simply contains the source compressed file or stream as a context.
  * 
  * @author Alan Buttars
  *
@@ -34,72 +36,116 @@ import com.alanbuttars.commons.util.functions.Function;
 public class DecompressCompressedFileStub {
 
 	protected final File source;
+	protected final InputStream sourceStream;
+	private boolean useChannels;
+	private int bufferSize;
 
 	DecompressCompressedFileStub(File source) {
+		this(source, null);
+	}
+
+	DecompressCompressedFileStub(InputStream sourceStream) {
+		this(null, sourceStream);
+	}
+
+	private DecompressCompressedFileStub(File source, InputStream sourceStream) {
 		this.source = source;
+		this.sourceStream = sourceStream;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed through {@link java.nio.channels.FileChannel}s rather than
+	 * streams. By default, streams are used. Has no effect on stream sources.
+	 */
+	public DecompressCompressedFileStub usingChannels() {
+		this.useChannels = true;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed through buffers of <code>bufferSize</code> bytes, which are
+	 * acquired from {@link BufferPool#shared()} and reused across calls. By default, buffers of
+	 * {@link BufferPool#DEFAULT_BUFFER_SIZE} bytes are used.
+	 * 
+	 * @param bufferSize
+	 *            Positive buffer size, in bytes
+	 */
+	public DecompressCompressedFileStub usingBufferSize(int bufferSize) {
+		verifyPositive(bufferSize, "Buffer size must be positive");
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#BGZF}.
+	 */
+	public DecompressCompressedFileWithStubBgzfImpl withBgzf() {
+		return configure(new DecompressCompressedFileWithStubBgzfImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#BZIP2}.
 	 */
 	public DecompressCompressedFileWithStubBzip2Impl withBzip2() {
-		return new DecompressCompressedFileWithStubBzip2Impl(source);
+		return configure(new DecompressCompressedFileWithStubBzip2Impl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#DEFLATE}.
 	 */
 	public DecompressCompressedFileWithStubDeflateImpl withDeflate() {
-		return new DecompressCompressedFileWithStubDeflateImpl(source);
+		return configure(new DecompressCompressedFileWithStubDeflateImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with framed {@link CompressedFiles#FRAMEDSNAPPY}.
 	 */
 	public DecompressCompressedFileWithStubFramedSnappyImpl withFramedSnappy() {
-		return new DecompressCompressedFileWithStubFramedSnappyImpl(source);
+		return configure(new DecompressCompressedFileWithStubFramedSnappyImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#GZIP}.
 	 */
 	public DecompressCompressedFileWithStubGzipImpl withGzip() {
-		return new DecompressCompressedFileWithStubGzipImpl(source);
+		return configure(new DecompressCompressedFileWithStubGzipImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#LZMA}.
 	 */
 	public DecompressCompressedFileWithStubLzmaImpl withLzma() {
-		return new DecompressCompressedFileWithStubLzmaImpl(source);
+		return configure(new DecompressCompressedFileWithStubLzmaImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#PACK200}.
 	 */
 	public DecompressCompressedFileWithStubPack200Impl withPack200() {
-		return new DecompressCompressedFileWithStubPack200Impl(source);
+		return configure(new DecompressCompressedFileWithStubPack200Impl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#SNAPPY}.
 	 */
 	public DecompressCompressedFileWithStubSnappyImpl withSnappy() {
-		return new DecompressCompressedFileWithStubSnappyImpl(source);
+		return configure(new DecompressCompressedFileWithStubSnappyImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#XZ}.
 	 */
 	public DecompressCompressedFileWithStubXzImpl withXz() {
-		return new DecompressCompressedFileWithStubXzImpl(source);
+		return configure(new DecompressCompressedFileWithStubXzImpl(source));
 	}
 
 	/**
 	 * Indicates that the {@link #source} will be decompressed with {@link CompressedFiles#Z}.
 	 */
 	public DecompressCompressedFileWithStubZImpl withZ() {
-		return new DecompressCompressedFileWithStubZImpl(source);
+		return configure(new DecompressCompressedFileWithStubZImpl(source));
 	}
 
 	/**
@@ -116,14 +162,20 @@ public class DecompressCompressedFileStub {
 		verify(!fileType.trim().isEmpty(), "File type must be non-empty");
 		verifyNonNull(decompressionFunction, "Decompression function must be non-null");
 
-		return new DecompressCompressedFileWithStub(source, fileType) {
+		return configure(new DecompressCompressedFileWithStub(source, fileType) {
 
 			@Override
 			protected Function<InputStream, CompressedFileInputStream> decompressionFunction() {
 				return decompressionFunction;
 			}
 
-		};
+		});
 	}
 
+	private <T extends DecompressCompressedFileWithStub> T configure(T stub) {
+		stub.sourceStream = sourceStream;
+		stub.useChannels = useChannels;
+		stub.bufferSize = bufferSize;
+		return stub;
+	}
 }
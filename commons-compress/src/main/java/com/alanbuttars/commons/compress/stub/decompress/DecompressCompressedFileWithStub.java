@@ -19,11 +19,15 @@ import static com.alanbuttars.commons.util.validators.Arguments.verify;
 import static com.alanbuttars.commons.util.validators.Arguments.verifyNonNull;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import com.alanbuttars.commons.compress.files.input.CompressedFileInputStream;
 import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -45,10 +49,16 @@ abstract class DecompressCompressedFileWithStub {
 
 	protected final File source;
 	protected final String fileType;
+	protected InputStream sourceStream;
+	protected boolean useChannels;
+	protected int bufferSize;
 
 	DecompressCompressedFileWithStub(File source, String fileType) {
 		this.source = source;
 		this.fileType = fileType;
+		this.sourceStream = null;
+		this.useChannels = false;
+		this.bufferSize = BufferPool.DEFAULT_BUFFER_SIZE;
 	}
 
 	/**
@@ -62,7 +72,43 @@ abstract class DecompressCompressedFileWithStub {
 		verify(!destination.isDirectory(), "Destination " + destination.getAbsolutePath() + " must not be a directory");
 		verify(destination.canWrite(), "Destination " + destination.getAbsolutePath() + " is not writeable");
 
-		CompressedFiles.decompress(fileType, source, destination, decompressionFunction());
+		if (sourceStream != null) {
+			try (OutputStream outputStream = new FileOutputStream(destination)) {
+				CompressedFiles.decompress(fileType, sourceStream, outputStream, decompressionFunction(), bufferSize);
+			}
+			return;
+		}
+		decompress(destination);
+	}
+
+	/**
+	 * Concludes this stub by invoking the creation logic configured by the complete stub and writing the decompressed
+	 * content to a stream, which is flushed but not closed.
+	 * 
+	 * @param destination
+	 *            Non-null decompressed stream destination
+	 */
+	public void toStream(OutputStream destination) throws IOException {
+		verifyNonNull(destination, "Destination must be non-null");
+
+		if (sourceStream != null) {
+			CompressedFiles.decompress(fileType, sourceStream, destination, decompressionFunction(), bufferSize);
+			return;
+		}
+		try (InputStream inputStream = new FileInputStream(source)) {
+			CompressedFiles.decompress(fileType, inputStream, destination, decompressionFunction(), bufferSize);
+		}
+	}
+
+	/**
+	 * Decompresses the {@link #source} into a validated destination. By default, the file is streamed through
+	 * {@link #decompressionFunction()}; extensions may override this to read the file another way.
+	 * 
+	 * @param destination
+	 *            Non-null decompressed file destination
+	 */
+	protected void decompress(File destination) throws IOException {
+		CompressedFiles.decompress(fileType, source, destination, decompressionFunction(), useChannels, bufferSize);
 	}
 
 	/**
@@ -72,7 +118,7 @@ abstract class DecompressCompressedFileWithStub {
 	 * @return The decompressed file
 	 */
 	public File toTempFile() throws IOException {
-		File tempFile = File.createTempFile(source.getName(), "." + fileType);
+		File tempFile = File.createTempFile(source != null ? source.getName() : "stream", "." + fileType);
 		to(tempFile);
 		return tempFile;
 	}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.decompress;
+
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BGZF;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import com.alanbuttars.commons.compress.files.input.CompressedFileInputStream;
+import com.alanbuttars.commons.compress.files.input.CompressedFileInputStreamImpl;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.util.annotations.VisibleForTesting;
+import com.alanbuttars.commons.util.functions.Function;
+
+/**
+ * Extension of {@link DecompressCompressedFileWithStub} for {@link CompressedFiles#BGZF} files. For details on the file
+ * format, see <a href="https://samtools.github.io/hts-specs/SAMv1.pdf">https://samtools.github.io/hts-specs/SAMv1.pdf</a>.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class DecompressCompressedFileWithStubBgzfImpl extends DecompressCompressedFileWithStub {
+
+	private int threads;
+
+	DecompressCompressedFileWithStubBgzfImpl(File source) {
+		super(source, BGZF);
+		this.threads = 1;
+	}
+
+	/**
+	 * Sets the number of threads used to decompress the file. By default, it is set to <code>1</code>, in which case the
+	 * file is read as a multi-member gzip stream. When set higher, members are located by their block sizes and
+	 * inflated concurrently. See {@link CompressedFiles#decompressBgzf(File, File, int)}.
+	 */
+	public DecompressCompressedFileWithStubBgzfImpl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	@Override
+	protected void decompress(File destination) throws IOException {
+		if (threads > 1) {
+			CompressedFiles.decompressBgzf(source, destination, threads);
+		}
+		else {
+			super.decompress(destination);
+		}
+	}
+
+	@Override
+	protected Function<InputStream, CompressedFileInputStream> decompressionFunction() {
+		return new Function<InputStream, CompressedFileInputStream>() {
+
+			@Override
+			public CompressedFileInputStream apply(InputStream inputStream) {
+				try {
+					return createCompressedFileInputStream(inputStream);
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+		};
+	}
+
+	@VisibleForTesting
+	protected CompressedFileInputStream createCompressedFileInputStream(InputStream inputStream) throws IOException {
+		return new CompressedFileInputStreamImpl(new GzipCompressorInputStream(inputStream, true));
+	}
+
+}
@@ -16,6 +16,7 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BZIP2;
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,10 +40,12 @@ import com.alanbuttars.commons.util.functions.Function;
 public class DecompressCompressedFileWithStubBzip2Impl extends DecompressCompressedFileWithStub {
 
 	private boolean decompressConcatenated;
+	private int threads;
 
 	DecompressCompressedFileWithStubBzip2Impl(File source) {
 		super(source, BZIP2);
 		this.decompressConcatenated = false;
+		this.threads = 1;
 	}
 
 	/**
@@ -54,6 +57,27 @@ public class DecompressCompressedFileWithStubBzip2Impl extends DecompressCompres
 		return this;
 	}
 
+	/**
+	 * Sets the number of threads used to decompress the file. By default, it is set to <code>1</code>, in which case the
+	 * file is read as a single stream. When set higher, blocks are located by their magic numbers and decoded
+	 * concurrently. See {@link CompressedFiles#decompressBzip2(File, File, boolean, int)}.
+	 */
+	public DecompressCompressedFileWithStubBzip2Impl andThreads(int threads) {
+		verifyPositive(threads, "Threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	@Override
+	protected void decompress(File destination) throws IOException {
+		if (threads > 1) {
+			CompressedFiles.decompressBzip2(source, destination, decompressConcatenated, threads);
+		}
+		else {
+			super.decompress(destination);
+		}
+	}
+
 	@Override
 	protected Function<InputStream, CompressedFileInputStream> decompressionFunction() {
 		return new Function<InputStream, CompressedFileInputStream>() {
@@ -74,7 +74,7 @@ public class DecompressCompressedFileWithStubFramedSnappyImpl extends Decompress
 
 	@VisibleForTesting
 	protected CompressedFileInputStream createCompressedFileInputStream(InputStream inputStream, FramedSnappyDialect dialect) throws IOException {
-		return new CompressedFileInputStreamImpl(new FramedSnappyCompressorInputStream(inputStream, dialect));
+		return new CompressedFileInputStreamImpl(new FramedSnappyCompressorInputStream(inputStream, dialect), CompressedFiles.SNAPPY_MAX_READ_SIZE);
 	}
 
 }
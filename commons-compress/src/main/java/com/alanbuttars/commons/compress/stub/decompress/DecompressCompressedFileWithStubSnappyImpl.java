@@ -74,7 +74,8 @@ public class DecompressCompressedFileWithStubSnappyImpl extends DecompressCompre
 
 	@VisibleForTesting
 	protected CompressedFileInputStream createCompressedFileInputStream(InputStream inputStream, int blockSize) throws IOException {
-		return new CompressedFileInputStreamImpl(new SnappyCompressorInputStream(inputStream, blockSize));
+		return new CompressedFileInputStreamImpl(new SnappyCompressorInputStream(inputStream, blockSize), //
+				Math.min(CompressedFiles.SNAPPY_MAX_READ_SIZE, Math.max(1, blockSize / 2)));
 	}
 
 }
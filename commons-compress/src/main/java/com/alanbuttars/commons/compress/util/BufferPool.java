@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.util;
+
+import static com.alanbuttars.commons.util.validators.Arguments.verifyPositive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe pool of reusable byte arrays, grouped by size. Copy loops acquire their buffers from a pool and release
+ * them once done, so that compressing or decompressing many small files does not allocate a new buffer per file. At
+ * most {@link #getMaxBuffersPerSize()} arrays of each size are retained, and arrays larger than
+ * {@link #MAX_POOLED_SIZE} bytes are never retained.
+ *
+ * <p>
+ * The pool shared by every stub is {@link #shared()}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class BufferPool {
+
+	/**
+	 * Size, in bytes, of the buffers used when none is configured.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Largest buffer, in bytes, which is retained for reuse.
+	 */
+	public static final int MAX_POOLED_SIZE = 16 * 1024 * 1024;
+
+	private static final BufferPool SHARED = new BufferPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+
+	private final int maxBuffersPerSize;
+	private final ConcurrentMap<Integer, Bucket> buckets;
+
+	/**
+	 * @param maxBuffersPerSize
+	 *            Positive number of arrays of each size which are retained
+	 */
+	public BufferPool(int maxBuffersPerSize) {
+		verifyPositive(maxBuffersPerSize, "Max buffers per size must be positive");
+		this.maxBuffersPerSize = maxBuffersPerSize;
+		this.buckets = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the pool shared by every stub.
+	 */
+	public static BufferPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the number of arrays of each size which are retained.
+	 */
+	public int getMaxBuffersPerSize() {
+		return maxBuffersPerSize;
+	}
+
+	/**
+	 * Returns an array of exactly <code>size</code> bytes, reusing a released one if available. Its content is
+	 * unspecified.
+	 *
+	 * @param size
+	 *            Positive size of the array
+	 */
+	public byte[] acquire(int size) {
+		verifyPositive(size, "Buffer size must be positive");
+		Bucket bucket = buckets.get(size);
+		if (bucket != null) {
+			byte[] buffer = bucket.buffers.poll();
+			if (buffer != null) {
+				bucket.count.decrementAndGet();
+				return buffer;
+			}
+		}
+		return new byte[size];
+	}
+
+	/**
+	 * Returns an array to the pool. The caller must not use the array afterwards.
+	 *
+	 * @param buffer
+	 *            Array previously returned by {@link #acquire(int)}, or <code>null</code>, which is ignored
+	 */
+	public void release(byte[] buffer) {
+		if (buffer == null || buffer.length == 0 || buffer.length > MAX_POOLED_SIZE) {
+			return;
+		}
+		Bucket bucket = buckets.get(buffer.length);
+		if (bucket == null) {
+			Bucket newBucket = new Bucket();
+			bucket = buckets.putIfAbsent(buffer.length, newBucket);
+			if (bucket == null) {
+				bucket = newBucket;
+			}
+		}
+		if (bucket.count.incrementAndGet() <= maxBuffersPerSize) {
+			bucket.buffers.offer(buffer);
+		}
+		else {
+			bucket.count.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the number of arrays of the given size which are currently retained.
+	 */
+	public int available(int size) {
+		Bucket bucket = buckets.get(size);
+		return bucket == null ? 0 : bucket.buffers.size();
+	}
+
+	/**
+	 * Wraps the stream in a {@link BufferedInputStream} whose buffer of <code>size</code> bytes is acquired from this
+	 * pool and released when the stream is closed.
+	 */
+	public BufferedInputStream bufferedInputStream(InputStream inputStream, int size) {
+		return new PooledBufferedInputStream(inputStream, acquire(size));
+	}
+
+	/**
+	 * Wraps the stream in a {@link BufferedOutputStream} whose buffer of <code>size</code> bytes is acquired from this
+	 * pool and released when the stream is closed.
+	 */
+	public BufferedOutputStream bufferedOutputStream(OutputStream outputStream, int size) {
+		return new PooledBufferedOutputStream(outputStream, acquire(size));
+	}
+
+	private static class Bucket {
+
+		private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger count = new AtomicInteger();
+	}
+
+	private class PooledBufferedInputStream extends BufferedInputStream {
+
+		private byte[] pooled;
+
+		PooledBufferedInputStream(InputStream inputStream, byte[] pooled) {
+			super(inputStream, 1);
+			this.buf = pooled;
+			this.pooled = pooled;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				release(pooled);
+				pooled = null;
+			}
+		}
+	}
+
+	private class PooledBufferedOutputStream extends BufferedOutputStream {
+
+		private byte[] pooled;
+
+		PooledBufferedOutputStream(OutputStream outputStream, byte[] pooled) {
+			super(outputStream, 1);
+			this.buf = pooled;
+			this.pooled = pooled;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				release(pooled);
+				pooled = null;
+				buf = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.util;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * Input stream which reads from a caller's stream but leaves it open when closed, so that streams layered on top of it
+ * may be closed without closing the caller's stream.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class CloseShieldInputStream extends FilterInputStream {
+
+	/**
+	 * @param inputStream
+	 *            Non-null stream which is left open
+	 */
+	public CloseShieldInputStream(InputStream inputStream) {
+		super(inputStream);
+	}
+
+	/**
+	 * Does not close the underlying stream.
+	 */
+	@Override
+	public void close() {
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which writes to a caller's stream but only flushes it when closed, so that streams layered on top of it
+ * may be closed, and thereby finished, without closing the caller's stream.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class CloseShieldOutputStream extends FilterOutputStream {
+
+	/**
+	 * @param outputStream
+	 *            Non-null stream which is left open
+	 */
+	public CloseShieldOutputStream(OutputStream outputStream) {
+		super(outputStream);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] content, int offset, int length) throws IOException {
+		out.write(content, offset, length);
+	}
+
+	/**
+	 * Flushes, but does not close, the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+}
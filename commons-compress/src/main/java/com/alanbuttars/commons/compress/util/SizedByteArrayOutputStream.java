@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Byte array output stream whose array is allocated up front from the expected size of its content, so that content
+ * written in memory is not copied each time the array grows. The content may be read as a byte buffer without being
+ * copied at all; {@link #toByteArray()} always returns a copy.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class SizedByteArrayOutputStream extends ByteArrayOutputStream {
+
+	/**
+	 * Largest array, in bytes, which may be allocated.
+	 */
+	public static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	/**
+	 * Largest array, in bytes, which is allocated up front. Larger content grows the array as it is written, so that an
+	 * overestimated size cannot exhaust the heap before any content arrives.
+	 */
+	public static final int MAX_INITIAL_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Typical ratio of uncompressed to compressed size, by which the expected size of compressed content may be
+	 * estimated from the size of its input.
+	 */
+	public static final int EXPECTED_COMPRESSION_RATIO = 4;
+
+	private static final int MIN_ARRAY_SIZE = 32;
+
+	/**
+	 * @param expectedSize
+	 *            Expected size, in bytes, of the content, which may be under or over estimated. At most
+	 *            {@link #MAX_INITIAL_SIZE} bytes are allocated up front
+	 */
+	public SizedByteArrayOutputStream(long expectedSize) {
+		super((int) Math.max(MIN_ARRAY_SIZE, Math.min(expectedSize, MAX_INITIAL_SIZE)));
+	}
+
+	/**
+	 * Returns a byte buffer which wraps the content without copying it.
+	 */
+	public synchronized ByteBuffer toByteBuffer() {
+		return ByteBuffer.wrap(buf, 0, count);
+	}
+
+}
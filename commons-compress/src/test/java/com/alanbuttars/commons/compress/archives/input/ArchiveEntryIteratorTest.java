@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.input;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ArchiveEntryIterator}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveEntryIteratorTest {
+
+	private byte[] archive;
+
+	@Before
+	public void setup() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(outputStream)) {
+			for (String name : Arrays.asList("a.json", "b.txt", "c.json")) {
+				zipOutputStream.putArchiveEntry(new ZipArchiveEntry(name));
+				zipOutputStream.write(("content of " + name).getBytes());
+				zipOutputStream.closeArchiveEntry();
+			}
+		}
+		archive = outputStream.toByteArray();
+	}
+
+	@Test
+	public void testConstructorIsNull() {
+		try {
+			new ArchiveEntryIterator(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Archive input stream must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testIterate() throws IOException {
+		List<String> names = new ArrayList<>();
+		try (ArchiveEntryIterator entries = iterator()) {
+			for (ArchiveEntryIterator.Entry entry : entries) {
+				String name = entry.getArchiveEntry().getName();
+				names.add(name);
+				assertArrayEquals(("content of " + name).getBytes(), IOUtils.toByteArray(entry.getInputStream()));
+			}
+		}
+		assertEquals(Arrays.asList("a.json", "b.txt", "c.json"), names);
+	}
+
+	@Test
+	public void testIterateSkippingEntries() throws IOException {
+		List<String> contents = new ArrayList<>();
+		try (ArchiveEntryIterator entries = iterator()) {
+			for (ArchiveEntryIterator.Entry entry : entries) {
+				if (entry.getArchiveEntry().getName().endsWith(".json")) {
+					contents.add(new String(IOUtils.toByteArray(entry.getInputStream())));
+				}
+			}
+		}
+		assertEquals(Arrays.asList("content of a.json", "content of c.json"), contents);
+	}
+
+	@Test
+	public void testReadWithOffset() throws IOException {
+		try (ArchiveEntryIterator entries = iterator()) {
+			InputStream inputStream = entries.next().getInputStream();
+			byte[] content = new byte[8];
+			assertEquals(4, inputStream.read(content, 2, 4));
+			assertArrayEquals(new byte[] { 0, 0, 'c', 'o', 'n', 't', 0, 0 }, content);
+			assertEquals('e', inputStream.read());
+		}
+	}
+
+	@Test
+	public void testReadWithShrinkingOffsets() throws IOException {
+		try (ArchiveEntryIterator entries = iterator()) {
+			InputStream inputStream = entries.next().getInputStream();
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			byte[] content = new byte[16];
+			int length = 0;
+			for (int i = 0; (length = inputStream.read(content, 1, i % 2 == 0 ? 9 : 3)) >= 0; i++) {
+				outputStream.write(content, 1, length);
+			}
+			assertArrayEquals("content of a.json".getBytes(), outputStream.toByteArray());
+		}
+	}
+
+	@Test
+	public void testReadWithNoProgress() throws IOException {
+		ArchiveInputStream archiveInputStream = new ArchiveInputStream() {
+
+			@Override
+			public int read(byte[] content) {
+				return 0;
+			}
+
+			@Override
+			public ArchiveEntry getNextEntry() {
+				return new ZipArchiveEntry("empty");
+			}
+
+			@Override
+			public Closeable getStream() {
+				return this;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		try (ArchiveEntryIterator entries = new ArchiveEntryIterator(archiveInputStream)) {
+			entries.next().getInputStream().read();
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Archive stream returned no content after 1024 reads", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReadAfterAdvancing() throws IOException {
+		try (ArchiveEntryIterator entries = iterator()) {
+			InputStream inputStream = entries.next().getInputStream();
+			entries.next();
+			assertEquals(-1, inputStream.read());
+			assertEquals(-1, inputStream.read(new byte[4]));
+		}
+	}
+
+	@Test
+	public void testNextIsExhausted() throws IOException {
+		try (ArchiveEntryIterator entries = iterator()) {
+			entries.next();
+			entries.next();
+			entries.next();
+			assertFalse(entries.hasNext());
+			try {
+				entries.next();
+				fail();
+			}
+			catch (NoSuchElementException e) {
+				assertTrue(true);
+			}
+		}
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		try (ArchiveEntryIterator entries = iterator()) {
+			entries.next();
+			entries.remove();
+			fail();
+		}
+		catch (UnsupportedOperationException e) {
+			assertEquals("Archive entries cannot be removed", e.getMessage());
+		}
+	}
+
+	private ArchiveEntryIterator iterator() {
+		return new ArchiveEntryIterator(new ArchiveInputStreamImpl(new ZipArchiveInputStream(new ByteArrayInputStream(archive))));
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethod;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethodConfiguration;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ArchiveOutputStream7zSolidImpl}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveOutputStream7zSolidImplTest {
+
+	private static final List<SevenZMethodConfiguration> LZMA2 = Collections.singletonList(new SevenZMethodConfiguration(SevenZMethod.LZMA2));
+
+	private File destination;
+
+	@Before
+	public void setup() throws IOException {
+		destination = File.createTempFile(getClass().getName(), ".7z");
+	}
+
+	@After
+	public void teardown() {
+		destination.deleteOnExit();
+	}
+
+	@Test
+	public void testWriteEntries() throws IOException {
+		Date lastModifiedDate = new Date(1000000000000L);
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 5000, Integer.MAX_VALUE, 3)) {
+			for (int i = 0; i < 20; i++) {
+				SevenZArchiveEntry entry = entry("file" + i);
+				entry.setLastModifiedDate(lastModifiedDate);
+				stream.putArchiveEntry(entry);
+				byte[] content = content(i);
+				stream.write(content, 0, content.length / 2);
+				stream.write(content, content.length / 2, content.length - content.length / 2);
+				stream.closeArchiveEntry();
+			}
+		}
+
+		try (SevenZFile sevenZFile = new SevenZFile(destination)) {
+			for (int i = 0; i < 20; i++) {
+				SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+				assertEquals("file" + i, entry.getName());
+				assertEquals(lastModifiedDate, entry.getLastModifiedDate());
+				assertArrayEquals(content(i), read(sevenZFile, entry));
+			}
+			assertNull(sevenZFile.getNextEntry());
+		}
+	}
+
+	@Test
+	public void testWriteSolidBlockFiles() throws IOException {
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(destination, LZMA2, Long.MAX_VALUE, 3, 2)) {
+			for (int i = 0; i < 10; i++) {
+				stream.putArchiveEntry(entry("file" + i));
+				byte[] content = content(i);
+				stream.write(content, 0, content.length);
+				stream.closeArchiveEntry();
+			}
+		}
+
+		try (SevenZFile sevenZFile = new SevenZFile(destination)) {
+			SevenZMethodConfiguration previousContentMethod = null;
+			int folders = 0;
+			for (int i = 0; i < 10; i++) {
+				SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+				assertArrayEquals(content(i), read(sevenZFile, entry));
+				SevenZMethodConfiguration contentMethod = entry.getContentMethods().iterator().next();
+				if (contentMethod != previousContentMethod) {
+					folders++;
+					previousContentMethod = contentMethod;
+				}
+			}
+			assertEquals(4, folders);
+		}
+	}
+
+	@Test
+	public void testWriteEmptyEntries() throws IOException {
+		byte[] content = new byte[ArchiveOutputStream7zSolidImpl.MAX_BUFFERED_FOLDER_SIZE + 1];
+		Arrays.fill(content, (byte) 'a');
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 1024, Integer.MAX_VALUE, 2)) {
+			SevenZArchiveEntry directory = entry("directory");
+			directory.setDirectory(true);
+			stream.putArchiveEntry(directory);
+			stream.closeArchiveEntry();
+			stream.putArchiveEntry(entry("directory/empty"));
+			stream.closeArchiveEntry();
+			stream.putArchiveEntry(entry("directory/large"));
+			stream.write(content, 0, content.length);
+			stream.closeArchiveEntry();
+		}
+
+		try (SevenZFile sevenZFile = new SevenZFile(destination)) {
+			SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+			assertEquals("directory", entry.getName());
+			assertTrue(entry.isDirectory());
+			entry = sevenZFile.getNextEntry();
+			assertEquals("directory/empty", entry.getName());
+			assertFalse(entry.isDirectory());
+			assertFalse(entry.hasStream());
+			entry = sevenZFile.getNextEntry();
+			assertEquals("directory/large", entry.getName());
+			assertArrayEquals(content, read(sevenZFile, entry));
+			assertNull(sevenZFile.getNextEntry());
+		}
+	}
+
+	@Test
+	public void testWriteWithoutStreams() throws IOException {
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 1024, Integer.MAX_VALUE, 2)) {
+			stream.putArchiveEntry(entry("empty"));
+			stream.closeArchiveEntry();
+		}
+
+		try (SevenZFile sevenZFile = new SevenZFile(destination)) {
+			SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+			assertEquals("empty", entry.getName());
+			assertFalse(entry.hasStream());
+			assertNull(sevenZFile.getNextEntry());
+		}
+	}
+
+	@Test
+	public void testPutArchiveEntryIsNot7z() throws IOException {
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 1024, Integer.MAX_VALUE, 2)) {
+			stream.putArchiveEntry(new TarArchiveEntry("file"));
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Entry must be a 7z archive entry", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testWriteWithoutEntry() throws IOException {
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 1024, Integer.MAX_VALUE, 2)) {
+			stream.write(new byte[] { 1 }, 0, 1);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("No current entry", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSolidBlockSizeIsNotPositive() throws IOException {
+		try {
+			new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 0, Integer.MAX_VALUE, 2);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Solid block size must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() throws IOException {
+		try {
+			new ArchiveOutputStream7zSolidImpl(destination, LZMA2, 1024, Integer.MAX_VALUE, 0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+
+	private SevenZArchiveEntry entry(String name) {
+		SevenZArchiveEntry entry = new SevenZArchiveEntry();
+		entry.setName(name);
+		return entry;
+	}
+
+	private byte[] content(int seed) {
+		byte[] content = new byte[seed * 1000 + 1];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ('a' + (i * seed) % 7);
+		}
+		return content;
+	}
+
+	private byte[] read(SevenZFile sevenZFile, SevenZArchiveEntry entry) throws IOException {
+		byte[] content = new byte[(int) entry.getSize()];
+		int offset = 0;
+		while (offset < content.length) {
+			int length = sevenZFile.read(content, offset, content.length - offset);
+			if (length < 0) {
+				fail();
+			}
+			offset += length;
+		}
+		return content;
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ArchiveOutputStreamParallelZipImpl}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveOutputStreamParallelZipImplTest {
+
+	private File destination;
+
+	@Before
+	public void setup() throws IOException {
+		destination = File.createTempFile(getClass().getName(), ".zip");
+	}
+
+	@After
+	public void teardown() {
+		destination.deleteOnExit();
+	}
+
+	@Test
+	public void testWriteEntries() throws IOException {
+		try (ArchiveOutputStreamParallelZipImpl stream = new ArchiveOutputStreamParallelZipImpl(new ZipArchiveOutputStream(destination), ZipEntry.DEFLATED, 6, 3)) {
+			for (int i = 0; i < 20; i++) {
+				stream.putArchiveEntry(new ZipArchiveEntry("file" + i));
+				byte[] content = content(i);
+				stream.write(content, 0, content.length / 2);
+				stream.write(content, content.length / 2, content.length - content.length / 2);
+				stream.closeArchiveEntry();
+			}
+		}
+
+		try (ZipFile zipFile = new ZipFile(destination)) {
+			assertEquals(20, Collections.list(zipFile.getEntries()).size());
+			for (int i = 0; i < 20; i++) {
+				ZipArchiveEntry entry = zipFile.getEntry("file" + i);
+				assertNotNull(entry);
+				assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+				assertArrayEquals(content(i), read(zipFile.getInputStream(entry)));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteLargeEntry() throws IOException {
+		byte[] content = new byte[ArchiveOutputStreamParallelZipImpl.MAX_BUFFERED_ENTRY_SIZE + 1];
+		Arrays.fill(content, (byte) 'a');
+		try (ArchiveOutputStreamParallelZipImpl stream = new ArchiveOutputStreamParallelZipImpl(new ZipArchiveOutputStream(destination), ZipEntry.STORED, 6, 2)) {
+			stream.putArchiveEntry(new ZipArchiveEntry("large"));
+			stream.write(content, 0, 1);
+			stream.write(content, 1, content.length - 1);
+			stream.closeArchiveEntry();
+		}
+
+		try (ZipFile zipFile = new ZipFile(destination)) {
+			ZipArchiveEntry entry = zipFile.getEntry("large");
+			assertEquals(ZipEntry.STORED, entry.getMethod());
+			assertArrayEquals(content, read(zipFile.getInputStream(entry)));
+		}
+	}
+
+	@Test
+	public void testPutArchiveEntryIsNotZip() throws IOException {
+		try (ArchiveOutputStreamParallelZipImpl stream = new ArchiveOutputStreamParallelZipImpl(new ZipArchiveOutputStream(destination), ZipEntry.DEFLATED, 6, 2)) {
+			stream.putArchiveEntry(new TarArchiveEntry("file"));
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Entry must be a zip archive entry", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testWriteWithoutEntry() throws IOException {
+		try (ArchiveOutputStreamParallelZipImpl stream = new ArchiveOutputStreamParallelZipImpl(new ZipArchiveOutputStream(destination), ZipEntry.DEFLATED, 6, 2)) {
+			stream.write(new byte[] { 1 }, 0, 1);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("No current entry", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParallelismIsNotPositive() throws IOException {
+		try {
+			new ArchiveOutputStreamParallelZipImpl(new ZipArchiveOutputStream(destination), ZipEntry.DEFLATED, 6, 0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Parallelism must be positive", e.getMessage());
+		}
+	}
+
+	private byte[] content(int seed) {
+		byte[] content = new byte[seed * 1000 + 1];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ('a' + (i * seed) % 7);
+		}
+		return content;
+	}
+
+	private byte[] read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length = 0;
+		while ((length = inputStream.read(buffer)) > 0) {
+			result.write(buffer, 0, length);
+		}
+		inputStream.close();
+		return result.toByteArray();
+	}
+}
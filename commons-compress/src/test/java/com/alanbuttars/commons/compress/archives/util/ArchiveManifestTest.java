@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ArchiveManifest}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class ArchiveManifestTest {
+
+	private File directory;
+
+	@Before
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		writeFile("a.txt", "a", 1000);
+		writeFile("b/b.txt", "b", 1000);
+		writeFile("b/c.txt", "c", 1000);
+	}
+
+	@Test
+	public void testCreate() throws IOException {
+		ArchiveManifest manifest = ArchiveManifest.create(directory, ArchiveManifest.empty(), false);
+		assertEquals(3, manifest.getEntries().size());
+
+		ArchiveManifest.Entry entry = manifest.getEntry("b" + File.separator + "c.txt");
+		assertNotNull(entry);
+		assertEquals(1, entry.getSize());
+		assertEquals(1000, entry.getLastModified());
+		assertNull(entry.getHash());
+
+		assertEquals(manifest.getEntries().size(), manifest.getChangedEntryNames(ArchiveManifest.empty()).size());
+		assertTrue(manifest.getDeletedEntryNames(ArchiveManifest.empty()).isEmpty());
+	}
+
+	@Test
+	public void testChangedAndDeletedEntryNames() throws IOException {
+		ArchiveManifest previous = ArchiveManifest.create(directory, ArchiveManifest.empty(), false);
+		writeFile("a.txt", "A", 2000);
+		writeFile("d.txt", "d", 1000);
+		new File(directory, "b/b.txt").delete();
+
+		ArchiveManifest current = ArchiveManifest.create(directory, previous, false);
+		assertEquals(Arrays.asList("a.txt", "d.txt"), sorted(current.getChangedEntryNames(previous)));
+		assertEquals(Collections.singletonList("b" + File.separator + "b.txt"), current.getDeletedEntryNames(previous));
+	}
+
+	@Test
+	public void testContentHashesIgnoreTouchedFiles() throws IOException {
+		ArchiveManifest previous = ArchiveManifest.create(directory, ArchiveManifest.empty(), true);
+		assertNotNull(previous.getEntry("a.txt").getHash());
+		writeFile("a.txt", "a", 2000);
+		writeFile("b/c.txt", "C", 2000);
+
+		ArchiveManifest current = ArchiveManifest.create(directory, previous, true);
+		assertEquals(Collections.singletonList("b" + File.separator + "c.txt"), sorted(current.getChangedEntryNames(previous)));
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		ArchiveManifest manifest = ArchiveManifest.create(directory, ArchiveManifest.empty(), true);
+		File sidecar = File.createTempFile(getClass().getName(), ".manifest");
+		sidecar.deleteOnExit();
+		manifest.write(sidecar);
+
+		ArchiveManifest readManifest = ArchiveManifest.read(sidecar);
+		assertEquals(manifest.getEntries().size(), readManifest.getEntries().size());
+		for (ArchiveManifest.Entry entry : manifest.getEntries()) {
+			ArchiveManifest.Entry readEntry = readManifest.getEntry(entry.getName());
+			assertEquals(entry.getSize(), readEntry.getSize());
+			assertEquals(entry.getLastModified(), readEntry.getLastModified());
+			assertArrayEquals(entry.getHash(), readEntry.getHash());
+		}
+		assertTrue(readManifest.getChangedEntryNames(manifest).isEmpty());
+	}
+
+	@Test
+	public void testReadIsNotManifest() throws IOException {
+		File sidecar = File.createTempFile(getClass().getName(), ".manifest");
+		sidecar.deleteOnExit();
+		Files.write(sidecar.toPath(), "not a manifest".getBytes());
+		try {
+			ArchiveManifest.read(sidecar);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("File " + sidecar.getAbsolutePath() + " is not an archive manifest", e.getMessage());
+		}
+	}
+
+	private void writeFile(String name, String content, long lastModified) throws IOException {
+		File file = new File(directory, name);
+		file.getParentFile().mkdirs();
+		file.getParentFile().deleteOnExit();
+		file.deleteOnExit();
+		Files.write(file.toPath(), content.getBytes());
+		file.setLastModified(lastModified);
+	}
+
+	private List<String> sorted(Collection<String> entryNames) {
+		List<String> sorted = new ArrayList<>(entryNames);
+		Collections.sort(sorted);
+		return sorted;
+	}
+
+}
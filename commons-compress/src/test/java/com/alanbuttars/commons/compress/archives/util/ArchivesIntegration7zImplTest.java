@@ -18,7 +18,11 @@ package com.alanbuttars.commons.compress.archives.util;
 import static com.alanbuttars.commons.compress.archives.util.Archives.SEVENZ;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.junit.Test;
 
@@ -39,11 +43,37 @@ public class ArchivesIntegration7zImplTest extends ArchivesIntegrationAbstractTe
 		testExtract(SEVENZ, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(SEVENZ, parallelDecompressFunction());
+	}
+
 	@Test
 	public void testArchive() throws IOException {
 		testArchive(SEVENZ, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testArchiveParallel() throws IOException {
+		testArchive(SEVENZ, parallelCompressFunction(), decompressFunction());
+		testArchive(SEVENZ, parallelCompressFunction(), parallelDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveStream() throws IOException {
+		testArchive(SEVENZ, streamCompressFunction(), streamDecompressFunction());
+	}
+
+	@Test
+	public void testExtractStreamed() throws IOException {
+		testExtract(SEVENZ, streamedDecompressFunction());
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(SEVENZ, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +93,61 @@ public class ArchivesIntegration7zImplTest extends ArchivesIntegrationAbstractTe
 			}
 		};
 	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).with7z().andSolidBlockSize(1024).andThreads(4).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).with7z().andThreads(4).toTempDirectory();
+			}
+		};
+	}
+
+	private FilesFunction streamDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				try (InputStream inputStream = new FileInputStream(original)) {
+					return Decompress.archiveStream(inputStream).with7z().toTempDirectory();
+				}
+			}
+		};
+	}
+
+	private FilesFunction streamCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File compressed = File.createTempFile(original.getName(), ".tmp");
+				compressed.deleteOnExit();
+				try (OutputStream outputStream = new FileOutputStream(compressed)) {
+					Compress.directory(original).with7z().toStream(outputStream);
+				}
+				return compressed;
+			}
+		};
+	}
+
+	private FilesFunction streamedDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return extractStreamed(Decompress.archive(original).with7z().stream());
+			}
+		};
+	}
 }
@@ -24,9 +24,14 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import com.alanbuttars.commons.compress.archives.input.ArchiveEntryIterator;
+import com.alanbuttars.commons.compress.stub.compress.Compress;
+import com.alanbuttars.commons.compress.stub.decompress.Decompress;
 import com.alanbuttars.commons.compress.util.FilesFunction;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -59,6 +64,13 @@ public class ArchivesIntegrationAbstractTest {
 	protected void testArchive(String archiveType, //
 			FilesFunction compressFunction, //
 			FilesFunction decompressFunction) throws IOException {
+		testArchive(archiveType, decompressFunction, compressFunction, decompressFunction);
+	}
+
+	protected void testArchive(String archiveType, //
+			FilesFunction extractFunction, //
+			FilesFunction compressFunction, //
+			FilesFunction decompressFunction) throws IOException {
 		try (Reader reader = new FileReader(getConfig(archiveType))) {
 			List<Archive> archives = new Gson().fromJson(reader, new TypeToken<List<Archive>>() {
 			}.getType());
@@ -66,7 +78,7 @@ public class ArchivesIntegrationAbstractTest {
 				File decompressSource = getArchive(archiveType, archive.getFileName());
 				decompressSource.deleteOnExit();
 				
-				File decompressDestination = decompressFunction.act(decompressSource);
+				File decompressDestination = extractFunction.act(decompressSource);
 				decompressDestination.deleteOnExit();
 
 				File compressDestination = compressFunction.act(decompressDestination);
@@ -83,6 +95,107 @@ public class ArchivesIntegrationAbstractTest {
 		}
 	}
 
+	/**
+	 * Writes the entries of an iterator to a temporary directory, so that streamed archives may be compared to the
+	 * expected files. The iterator is closed.
+	 */
+	protected File extractStreamed(ArchiveEntryIterator entries) throws IOException {
+		File destination = Files.createTempDirectory("stream").toFile();
+		destination.deleteOnExit();
+		try {
+			for (ArchiveEntryIterator.Entry entry : entries) {
+				File file = new File(destination, entry.getArchiveEntry().getName());
+				file.deleteOnExit();
+				if (entry.getArchiveEntry().isDirectory()) {
+					file.mkdirs();
+				}
+				else {
+					file.getParentFile().mkdirs();
+					Files.copy(entry.getInputStream(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+		finally {
+			entries.close();
+		}
+		return destination;
+	}
+
+	/**
+	 * Writes the entries decompressed in memory to a temporary directory, so that they may be compared to the expected
+	 * files.
+	 */
+	protected File writeEntries(Map<String, byte[]> entries) throws IOException {
+		File destination = Files.createTempDirectory("memory").toFile();
+		destination.deleteOnExit();
+		for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+			File file = new File(destination, entry.getKey());
+			file.getParentFile().mkdirs();
+			file.deleteOnExit();
+			Files.write(file.toPath(), entry.getValue());
+		}
+		return destination;
+	}
+
+	/**
+	 * Returns a function which archives a directory in memory with the given archive type, {@link Archives#TAR} or
+	 * {@link Archives#ZIP}, and writes the archive to a temporary file.
+	 */
+	protected FilesFunction inMemoryCompressFunction(final String archiveType) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File compressed = File.createTempFile("memory", ".tmp");
+				compressed.deleteOnExit();
+				if (Archives.TAR.equals(archiveType)) {
+					Files.write(compressed.toPath(), Compress.directory(original).withTar().toBytes());
+				}
+				else if (Archives.ZIP.equals(archiveType)) {
+					Files.write(compressed.toPath(), Compress.directory(original).withZip().toBytes());
+				}
+				else {
+					throw new IllegalArgumentException("Archive type " + archiveType + " is not archived in memory by tests");
+				}
+				return compressed;
+			}
+		};
+	}
+
+	/**
+	 * Returns a function which reads the entries of an archive of the given type, {@link Archives#TAR} or
+	 * {@link Archives#ZIP}, in memory and writes them to a temporary directory.
+	 */
+	protected FilesFunction inMemoryDecompressFunction(final String archiveType) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				byte[] content = Files.readAllBytes(original.toPath());
+				if (Archives.TAR.equals(archiveType)) {
+					return writeEntries(Decompress.archiveBytes(content).withTar().toMap());
+				}
+				else if (Archives.ZIP.equals(archiveType)) {
+					return writeEntries(Decompress.archiveBytes(content).withZip().toMap());
+				}
+				throw new IllegalArgumentException("Archive type " + archiveType + " is not read in memory by tests");
+			}
+		};
+	}
+
+	/**
+	 * Returns a function which extracts an archive of any recognized type to a temporary directory.
+	 */
+	protected FilesFunction autoDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.auto(original).toTempDirectory();
+			}
+		};
+	}
+
 	private File getArchiveDirectory(String archiveType) {
 		return new File(getClass().getResource(archiveType).getFile());
 	}
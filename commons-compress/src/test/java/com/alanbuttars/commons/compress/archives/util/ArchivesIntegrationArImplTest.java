@@ -39,11 +39,26 @@ public class ArchivesIntegrationArImplTest extends ArchivesIntegrationAbstractTe
 		testExtract(AR, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(AR, parallelDecompressFunction());
+	}
+
 	@Test
 	public void testArchive() throws IOException {
 		testArchive(AR, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testArchiveParallel() throws IOException {
+		testArchive(AR, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(AR, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +69,16 @@ public class ArchivesIntegrationArImplTest extends ArchivesIntegrationAbstractTe
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withAr().andThreads(4).toTempDirectory();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +88,14 @@ public class ArchivesIntegrationArImplTest extends ArchivesIntegrationAbstractTe
 			}
 		};
 	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).withAr().andThreads(4).toTempFile();
+			}
+		};
+	}
 }
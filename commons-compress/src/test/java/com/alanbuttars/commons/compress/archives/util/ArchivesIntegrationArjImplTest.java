@@ -38,6 +38,16 @@ public class ArchivesIntegrationArjImplTest extends ArchivesIntegrationAbstractT
 		testExtract(ARJ, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(ARJ, parallelDecompressFunction());
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(ARJ, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -48,4 +58,13 @@ public class ArchivesIntegrationArjImplTest extends ArchivesIntegrationAbstractT
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withArj().andThreads(4).toTempDirectory();
+			}
+		};
+	}
 }
@@ -39,11 +39,26 @@ public class ArchivesIntegrationCpioImplTest extends ArchivesIntegrationAbstract
 		testExtract(CPIO, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(CPIO, parallelDecompressFunction());
+	}
+
 	@Test
 	public void testArchive() throws IOException {
 		testArchive(CPIO, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testArchiveParallel() throws IOException {
+		testArchive(CPIO, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(CPIO, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +69,16 @@ public class ArchivesIntegrationCpioImplTest extends ArchivesIntegrationAbstract
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withCpio().andThreads(4).toTempDirectory();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +88,14 @@ public class ArchivesIntegrationCpioImplTest extends ArchivesIntegrationAbstract
 			}
 		};
 	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).withCpio().andThreads(4).toTempFile();
+			}
+		};
+	}
 }
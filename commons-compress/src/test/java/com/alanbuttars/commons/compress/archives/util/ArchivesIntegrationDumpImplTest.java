@@ -38,6 +38,16 @@ public class ArchivesIntegrationDumpImplTest extends ArchivesIntegrationAbstract
 		testExtract(DUMP, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(DUMP, parallelDecompressFunction());
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(DUMP, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -48,4 +58,13 @@ public class ArchivesIntegrationDumpImplTest extends ArchivesIntegrationAbstract
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withDump().andThreads(4).toTempDirectory();
+			}
+		};
+	}
 }
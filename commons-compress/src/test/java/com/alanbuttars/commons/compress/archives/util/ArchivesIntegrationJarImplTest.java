@@ -39,11 +39,26 @@ public class ArchivesIntegrationJarImplTest extends ArchivesIntegrationAbstractT
 		testExtract(JAR, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(JAR, parallelDecompressFunction());
+	}
+
 	@Test
 	public void testArchive() throws IOException {
 		testArchive(JAR, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testArchiveParallel() throws IOException {
+		testArchive(JAR, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(JAR, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +69,16 @@ public class ArchivesIntegrationJarImplTest extends ArchivesIntegrationAbstractT
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withJar().andThreads(4).toTempDirectory();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +88,14 @@ public class ArchivesIntegrationJarImplTest extends ArchivesIntegrationAbstractT
 			}
 		};
 	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).withJar().andParallelism(4).toTempFile();
+			}
+		};
+	}
 }
@@ -16,14 +16,32 @@
 package com.alanbuttars.commons.compress.archives.util;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.TAR;
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BGZF;
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BZIP2;
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.GZIP;
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.XZ;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.junit.Test;
 
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStreamImpl;
 import com.alanbuttars.commons.compress.stub.compress.Compress;
 import com.alanbuttars.commons.compress.stub.decompress.Decompress;
+import com.alanbuttars.commons.compress.stub.decompress.DecompressArchiveWithStubTarImpl;
 import com.alanbuttars.commons.compress.util.FilesFunction;
 
 /**
@@ -39,11 +57,146 @@ public class ArchivesIntegrationTarImplTest extends ArchivesIntegrationAbstractT
 		testExtract(TAR, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(TAR, parallelDecompressFunction());
+	}
+
 	@Test
 	public void testArchive() throws IOException {
 		testArchive(TAR, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testArchiveParallel() throws IOException {
+		testArchive(TAR, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testExtractWithChannels() throws IOException {
+		testExtract(TAR, channelDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveWithChannels() throws IOException {
+		testArchive(TAR, channelCompressFunction(), channelDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveWithBufferSize() throws IOException {
+		testArchive(TAR, bufferSizeCompressFunction(), bufferSizeDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveStream() throws IOException {
+		testArchive(TAR, streamCompressFunction(), streamDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveWithGzip() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(GZIP), compressedDecompressFunction(GZIP));
+	}
+
+	@Test
+	public void testArchiveWithBzip2() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(BZIP2), compressedDecompressFunction(BZIP2));
+	}
+
+	@Test
+	public void testArchiveWithXz() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(XZ), compressedDecompressFunction(XZ));
+	}
+
+	@Test
+	public void testArchiveWithGzipAndChannels() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(GZIP), channelCompressedDecompressFunction(GZIP));
+	}
+
+	@Test
+	public void testArchiveWithGzipIsGzip() throws IOException {
+		testArchive(TAR, decompressFunction(), gzipCompressFunction(), compressedDecompressFunction(GZIP));
+	}
+
+	@Test
+	public void testArchiveWithBgzf() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(BGZF), compressedDecompressFunction(BGZF));
+	}
+
+	@Test
+	public void testExtractWithIndex() throws IOException {
+		testExtract(TAR, indexedDecompressFunction(null));
+	}
+
+	@Test
+	public void testArchiveWithGzipAndIndex() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(GZIP), indexedDecompressFunction(GZIP));
+	}
+
+	@Test
+	public void testArchiveWithBgzfAndIndex() throws IOException {
+		testArchive(TAR, decompressFunction(), compressedCompressFunction(BGZF), indexedDecompressFunction(BGZF));
+	}
+
+	@Test
+	public void testExtractStreamed() throws IOException {
+		testExtract(TAR, streamedDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveInMemory() throws IOException {
+		testArchive(TAR, inMemoryCompressFunction(TAR), inMemoryDecompressFunction(TAR));
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(TAR, autoDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveTranscoded() throws IOException {
+		testArchive(TAR, decompressFunction(), transcodeCompressFunction(), compressedDecompressFunction(XZ));
+	}
+
+	@Test
+	public void testArchiveIncremental() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		writeFile(directory, "dir0/file0", "base");
+		writeFile(directory, "dir0/file1", "base");
+		writeFile(directory, "dir1/file2", "base");
+		File manifest = File.createTempFile(getClass().getName(), ".manifest");
+		manifest.delete();
+		manifest.deleteOnExit();
+		File base = Compress.directory(directory).withTar().andManifest(manifest).toTempFile();
+
+		writeFile(directory, "dir0/file0", "increment");
+		writeFile(directory, "dir2/file3", "increment");
+		new File(directory, "dir1/file2").delete();
+		new File(directory, "dir1").delete();
+		File increment = Compress.directory(directory).withTar().andManifest(manifest).toTempFile();
+
+		File restored = Decompress.archive(base).withTar().andIncrements(increment).toTempDirectory();
+		assertEquals("increment", readFile(restored, "dir0/file0"));
+		assertEquals("base", readFile(restored, "dir0/file1"));
+		assertEquals("increment", readFile(restored, "dir2/file3"));
+		assertFalse(new File(restored, "dir1").exists());
+		assertFalse(new File(restored, ".incremental").exists());
+	}
+
+	private FilesFunction transcodeCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File zip = Compress.directory(original).withZip().toTempFile();
+				zip.deleteOnExit();
+				try (ArchiveInputStream archiveInputStream = new ArchiveInputStreamImpl(new ZipArchiveInputStream(new FileInputStream(zip)))) {
+					return Compress.archive(archiveInputStream).withTar().andCompression(XZ).toTempFile();
+				}
+			}
+		};
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +207,26 @@ public class ArchivesIntegrationTarImplTest extends ArchivesIntegrationAbstractT
 		};
 	}
 
+	private FilesFunction channelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).usingChannels().withTar().toTempDirectory();
+			}
+		};
+	}
+
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withTar().andThreads(4).toTempDirectory();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +236,160 @@ public class ArchivesIntegrationTarImplTest extends ArchivesIntegrationAbstractT
 			}
 		};
 	}
+
+	private FilesFunction channelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).usingChannels().withTar().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).withTar().andThreads(4).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction bufferSizeDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).usingBufferSize(100).withTar().toTempDirectory();
+			}
+		};
+	}
+
+	private FilesFunction bufferSizeCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).usingBufferSize(100).withTar().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction streamDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				try (InputStream inputStream = new FileInputStream(original)) {
+					return Decompress.archiveStream(inputStream).withTar().toTempDirectory();
+				}
+			}
+		};
+	}
+
+	private FilesFunction streamCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File compressed = File.createTempFile(original.getName(), ".tmp");
+				compressed.deleteOnExit();
+				try (OutputStream outputStream = new FileOutputStream(compressed)) {
+					Compress.directory(original).withTar().toStream(outputStream);
+				}
+				return compressed;
+			}
+		};
+	}
+
+	private FilesFunction compressedDecompressFunction(final String compression) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withTar().andCompression(compression).toTempDirectory();
+			}
+		};
+	}
+
+	private FilesFunction channelCompressedDecompressFunction(final String compression) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).usingChannels().withTar().andCompression(compression).toTempDirectory();
+			}
+		};
+	}
+
+	private FilesFunction compressedCompressFunction(final String compression) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).withTar().andCompression(compression).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction indexedDecompressFunction(final String compression) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File index = File.createTempFile(original.getName(), ".idx");
+				index.deleteOnExit();
+				tarStub(original).toIndex(index);
+
+				List<String> entryNames = new ArrayList<>();
+				for (TarIndex.Entry entry : TarIndex.read(index).getEntries()) {
+					entryNames.add(entry.getName());
+				}
+				return tarStub(original).andIndex(index).entries(entryNames).toTempDirectory();
+			}
+
+			private DecompressArchiveWithStubTarImpl tarStub(File original) {
+				DecompressArchiveWithStubTarImpl stub = Decompress.archive(original).withTar();
+				return compression != null ? stub.andCompression(compression) : stub;
+			}
+		};
+	}
+
+	private FilesFunction gzipCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File archive = Compress.directory(original).withTar().toTempFile();
+				archive.deleteOnExit();
+				return Compress.file(archive).withGzip().toTempFile();
+			}
+		};
+	}
+
+	private void writeFile(File directory, String name, String content) throws IOException {
+		File file = new File(directory, name);
+		file.getParentFile().mkdirs();
+		file.getParentFile().deleteOnExit();
+		file.deleteOnExit();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String readFile(File directory, String name) throws IOException {
+		File file = new File(directory, name);
+		file.deleteOnExit();
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private FilesFunction streamedDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return extractStreamed(Decompress.archive(original).withTar().stream());
+			}
+		};
+	}
 }
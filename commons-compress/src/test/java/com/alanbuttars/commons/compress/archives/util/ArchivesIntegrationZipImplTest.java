@@ -18,7 +18,12 @@ package com.alanbuttars.commons.compress.archives.util;
 import static com.alanbuttars.commons.compress.archives.util.Archives.ZIP;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 
 import org.junit.Test;
 
@@ -39,11 +44,56 @@ public class ArchivesIntegrationZipImplTest extends ArchivesIntegrationAbstractT
 		testExtract(ZIP, decompressFunction());
 	}
 
+	@Test
+	public void testExtractParallel() throws IOException {
+		testExtract(ZIP, parallelDecompressFunction());
+	}
+
 	@Test
 	public void testArchive() throws IOException {
 		testArchive(ZIP, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testArchiveParallel() throws IOException {
+		testArchive(ZIP, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testArchiveMerged() throws IOException {
+		testArchive(ZIP, mergeCompressFunction(1), decompressFunction());
+	}
+
+	@Test
+	public void testArchiveMergedParallel() throws IOException {
+		testArchive(ZIP, mergeCompressFunction(4), decompressFunction());
+	}
+
+	@Test
+	public void testExtractWithChannels() throws IOException {
+		testExtract(ZIP, channelDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveStream() throws IOException {
+		testArchive(ZIP, streamCompressFunction(), streamDecompressFunction());
+	}
+
+	@Test
+	public void testExtractStreamed() throws IOException {
+		testExtract(ZIP, streamedDecompressFunction());
+	}
+
+	@Test
+	public void testArchiveInMemory() throws IOException {
+		testArchive(ZIP, inMemoryCompressFunction(ZIP), inMemoryDecompressFunction(ZIP));
+	}
+
+	@Test
+	public void testExtractAuto() throws IOException {
+		testExtract(ZIP, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +104,16 @@ public class ArchivesIntegrationZipImplTest extends ArchivesIntegrationAbstractT
 		};
 	}
 
+	private FilesFunction channelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).usingChannels().withZip().toTempDirectory();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +123,75 @@ public class ArchivesIntegrationZipImplTest extends ArchivesIntegrationAbstractT
 			}
 		};
 	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.directory(original).withZip().andParallelism(4).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.archive(original).withZip().andThreads(4).toTempDirectory();
+			}
+		};
+	}
+
+	private FilesFunction streamDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				try (InputStream inputStream = new FileInputStream(original)) {
+					return Decompress.archiveStream(inputStream).withZip().toTempDirectory();
+				}
+			}
+		};
+	}
+
+	private FilesFunction streamCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File compressed = File.createTempFile(original.getName(), ".tmp");
+				compressed.deleteOnExit();
+				try (OutputStream outputStream = new FileOutputStream(compressed)) {
+					Compress.directory(original).withZip().toStream(outputStream);
+				}
+				return compressed;
+			}
+		};
+	}
+
+	private FilesFunction mergeCompressFunction(final int parallelism) {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File archive = Compress.directory(original).withZip().toTempFile();
+				archive.deleteOnExit();
+				File directory = Files.createTempDirectory("merge").toFile();
+				directory.deleteOnExit();
+				return Compress.directory(directory).withZip().andParallelism(parallelism).andMerge(archive).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction streamedDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return extractStreamed(Decompress.archive(original).withZip().stream());
+			}
+		};
+	}
 }
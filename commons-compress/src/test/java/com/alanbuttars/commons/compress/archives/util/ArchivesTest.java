@@ -15,19 +15,58 @@
  */
 package com.alanbuttars.commons.compress.archives.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
 import static org.powermock.api.mockito.PowerMockito.mock;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethod;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethodConfiguration;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream7zImpl;
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStreamImpl;
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
+import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream7zSolidImpl;
+import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStreamImpl;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.util.BufferPool;
+import com.alanbuttars.commons.util.functions.BiFunction;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -116,4 +155,739 @@ public class ArchivesTest {
 			fail();
 		}
 	}
+
+	@Test
+	public void testCompressParallelIsIdentical() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		for (int i = 0; i < 20; i++) {
+			File subdirectory = new File(directory, "dir" + (i % 3));
+			subdirectory.mkdirs();
+			subdirectory.deleteOnExit();
+			writeFile(new File(subdirectory, "file" + i), i * 1000);
+		}
+		writeFile(new File(directory, "large"), Archives.MAX_BUFFERED_FILE_SIZE + 1);
+
+		File parallelDestination = File.createTempFile(getClass().getName(), ".tmp");
+		parallelDestination.deleteOnExit();
+		Archives.compress(Archives.TAR, directory, destination, tarCompressionFunction(), tarEntryFunction());
+		Archives.compress(Archives.TAR, directory, parallelDestination, tarCompressionFunction(), tarEntryFunction(), 4);
+
+		assertArrayEquals(Files.readAllBytes(destination.toPath()), Files.readAllBytes(parallelDestination.toPath()));
+	}
+
+	@Test
+	public void testDecompressParallelIsIdentical() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		for (int i = 0; i < 20; i++) {
+			File subdirectory = new File(directory, "dir" + (i % 3));
+			subdirectory.mkdirs();
+			subdirectory.deleteOnExit();
+			writeFile(new File(subdirectory, "file" + i), i * 1000);
+		}
+		writeFile(new File(directory, "large"), 2 * Archives.MAX_BUFFERED_FILE_SIZE + 1);
+		Archives.compress(Archives.TAR, directory, destination, tarCompressionFunction(), tarEntryFunction());
+
+		File parallelDirectory = Files.createTempDirectory(getClass().getName()).toFile();
+		parallelDirectory.deleteOnExit();
+		Archives.decompress(Archives.TAR, destination, parallelDirectory, tarDecompressionFunction(), 4);
+
+		for (int i = 0; i < 20; i++) {
+			String name = "dir" + (i % 3) + "/file" + i;
+			File file = new File(parallelDirectory, name);
+			file.deleteOnExit();
+			assertArrayEquals(Files.readAllBytes(new File(directory, name).toPath()), Files.readAllBytes(file.toPath()));
+		}
+		File large = new File(parallelDirectory, "large");
+		large.deleteOnExit();
+		assertArrayEquals(Files.readAllBytes(new File(directory, "large").toPath()), Files.readAllBytes(large.toPath()));
+	}
+
+	@Test
+	public void testDecompressParallelDuplicateNames() throws IOException {
+		byte[] first = new byte[2 * Archives.MAX_BUFFERED_FILE_SIZE + 1];
+		Arrays.fill(first, (byte) 'a');
+		byte[] last = "last".getBytes(StandardCharsets.UTF_8);
+		try (TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(new FileOutputStream(destination))) {
+			String[] names = { "dir/duplicate", "dir/other", "dir/duplicate" };
+			byte[][] contents = { first, content(3), last };
+			for (int i = 0; i < names.length; i++) {
+				TarArchiveEntry entry = new TarArchiveEntry(names[i]);
+				entry.setSize(contents[i].length);
+				tarOutputStream.putArchiveEntry(entry);
+				tarOutputStream.write(contents[i]);
+				tarOutputStream.closeArchiveEntry();
+			}
+		}
+
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		Archives.decompress(Archives.TAR, destination, directory, tarDecompressionFunction(), 4);
+
+		File duplicate = new File(directory, "dir/duplicate");
+		duplicate.deleteOnExit();
+		new File(directory, "dir/other").deleteOnExit();
+		assertArrayEquals(last, Files.readAllBytes(duplicate.toPath()));
+	}
+
+	@Test
+	public void testChannelsAreIdentical() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		for (int i = 0; i < 5; i++) {
+			writeFile(new File(directory, "file" + i), i * 1000);
+		}
+		writeFile(new File(directory, "large"), (int) CompressedFiles.MIN_MAPPED_SIZE * 3 + 1);
+
+		File channelDestination = File.createTempFile(getClass().getName(), ".tmp");
+		channelDestination.deleteOnExit();
+		Archives.compress(Archives.TAR, directory, destination, tarCompressionFunction(), tarEntryFunction());
+		Archives.compress(Archives.TAR, directory, channelDestination, tarCompressionFunction(), tarEntryFunction(), 1, true);
+		assertArrayEquals(Files.readAllBytes(destination.toPath()), Files.readAllBytes(channelDestination.toPath()));
+
+		File channelDirectory = Files.createTempDirectory(getClass().getName()).toFile();
+		channelDirectory.deleteOnExit();
+		Archives.decompressTar(channelDestination, channelDirectory, TarConstants.DEFAULT_BLKSIZE, null, TarConstants.DEFAULT_RCDSIZE);
+		for (File file : directory.listFiles()) {
+			File extracted = new File(channelDirectory, file.getName());
+			extracted.deleteOnExit();
+			assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(extracted.toPath()));
+		}
+	}
+
+	@Test
+	public void testDecompressZipWithChannels() throws IOException {
+		File archive = File.createTempFile(getClass().getName(), ".zip");
+		archive.deleteOnExit();
+		try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(archive)) {
+			for (int i = 0; i < 6; i++) {
+				ZipArchiveEntry entry = new ZipArchiveEntry("dir" + (i % 2) + "/file" + i);
+				if (i % 3 != 0) {
+					CRC32 crc = new CRC32();
+					crc.update(content(i));
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(content(i).length);
+					entry.setCrc(crc.getValue());
+				}
+				zipOutputStream.putArchiveEntry(entry);
+				zipOutputStream.write(content(i));
+				zipOutputStream.closeArchiveEntry();
+			}
+		}
+
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		Archives.decompressZip(archive, directory, null, true, 1, true);
+		for (int i = 0; i < 6; i++) {
+			File file = new File(directory, "dir" + (i % 2) + "/file" + i);
+			file.deleteOnExit();
+			assertArrayEquals(content(i), Files.readAllBytes(file.toPath()));
+		}
+	}
+
+	@Test
+	public void testDecompress7zParallel() throws IOException {
+		File archive = File.createTempFile(getClass().getName(), ".7z");
+		archive.deleteOnExit();
+		try (SevenZOutputFile sevenZOutputFile = new SevenZOutputFile(archive)) {
+			SevenZArchiveEntry directoryEntry = new SevenZArchiveEntry();
+			directoryEntry.setName("empty");
+			directoryEntry.setDirectory(true);
+			sevenZOutputFile.putArchiveEntry(directoryEntry);
+			sevenZOutputFile.closeArchiveEntry();
+			for (int i = 0; i < 10; i++) {
+				SevenZArchiveEntry entry = new SevenZArchiveEntry();
+				entry.setName("dir" + (i % 3) + "/file" + i);
+				sevenZOutputFile.putArchiveEntry(entry);
+				sevenZOutputFile.write(content(i));
+				sevenZOutputFile.closeArchiveEntry();
+			}
+		}
+
+		for (long memoryLimit : new long[] { 1, Long.MAX_VALUE }) {
+			File directory = Files.createTempDirectory(getClass().getName()).toFile();
+			directory.deleteOnExit();
+			Archives.decompress7z(archive, directory, null, 3, memoryLimit);
+
+			assertEquals(true, new File(directory, "empty").isDirectory());
+			for (int i = 0; i < 10; i++) {
+				File file = new File(directory, "dir" + (i % 3) + "/file" + i);
+				file.deleteOnExit();
+				assertArrayEquals(content(i), Files.readAllBytes(file.toPath()));
+			}
+		}
+	}
+
+	@Test
+	public void testDecompress7zSolidFolders() throws IOException {
+		File archive = File.createTempFile(getClass().getName(), ".7z");
+		archive.deleteOnExit();
+		List<SevenZMethodConfiguration> contentMethods = Collections.singletonList(new SevenZMethodConfiguration(SevenZMethod.LZMA2));
+		try (ArchiveOutputStream7zSolidImpl stream = new ArchiveOutputStream7zSolidImpl(archive, contentMethods, Long.MAX_VALUE, 4, 1)) {
+			for (int i : new int[] { 1, 2, 0, 3, 4, 5, 6, 7, 8 }) {
+				SevenZArchiveEntry entry = new SevenZArchiveEntry();
+				entry.setName("dir" + (i % 3) + "/file" + i);
+				stream.putArchiveEntry(entry);
+				byte[] content = content(i);
+				stream.write(content, 0, content.length);
+				stream.closeArchiveEntry();
+			}
+		}
+
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		List<Archives.SevenZFolder> folders = Archives.plan7zFolders(archive, directory, null);
+		assertEquals(2, folders.size());
+		assertEquals(0, folders.get(0).firstEntry);
+		assertEquals(4, folders.get(0).lastEntry);
+		assertEquals(5, folders.get(1).firstEntry);
+		assertEquals(8, folders.get(1).lastEntry);
+
+		Archives.decompress7z(archive, directory, null, 2, Long.MAX_VALUE);
+		for (int i = 0; i <= 8; i++) {
+			File file = new File(directory, "dir" + (i % 3) + "/file" + i);
+			file.deleteOnExit();
+			assertArrayEquals(content(i), Files.readAllBytes(file.toPath()));
+		}
+	}
+
+	@Test
+	public void testDecompressZipEntry() throws IOException {
+		File archive = zipArchive();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		Archives.decompressZipEntry(archive, "dir1/file3", outputStream, null, true);
+		assertArrayEquals(content(3), outputStream.toByteArray());
+	}
+
+	@Test
+	public void testDecompressZipEntries() throws IOException {
+		File archive = zipArchive();
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		List<String> entryNames = Arrays.asList("dir0/file2", "dir1/file5");
+		Archives.decompressZipEntries(archive, entryNames, directory, null, true);
+		assertEntries(directory, entryNames);
+	}
+
+	@Test
+	public void testDecompressZipEntryDoesNotExist() throws IOException {
+		File archive = zipArchive();
+		try {
+			Archives.decompressZipEntry(archive, "dir0", new ByteArrayOutputStream(), null, true);
+			fail();
+		}
+		catch (FileNotFoundException e) {
+			assertEquals("Entry dir0 does not exist in " + archive.getAbsolutePath(), e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDecompress7zEntry() throws IOException {
+		File archive = sevenZArchive();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		Archives.decompress7zEntry(archive, "dir1/file4", outputStream, null);
+		assertArrayEquals(content(4), outputStream.toByteArray());
+	}
+
+	@Test
+	public void testDecompress7zEntries() throws IOException {
+		File archive = sevenZArchive();
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		List<String> entryNames = Arrays.asList("dir2/file5", "dir0/file0");
+		Archives.decompress7zEntries(archive, entryNames, directory, null);
+		assertEntries(directory, entryNames);
+	}
+
+	@Test
+	public void testDecompress7zEntryDoesNotExist() throws IOException {
+		File archive = sevenZArchive();
+		try {
+			Archives.decompress7zEntries(archive, Arrays.asList("dir0/file0", "missing"), Files.createTempDirectory(getClass().getName()).toFile(), null);
+			fail();
+		}
+		catch (FileNotFoundException e) {
+			assertEquals("Entry missing does not exist in " + archive.getAbsolutePath(), e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDecompressTarEntry() throws IOException {
+		File archive = tarArchive(CompressedFiles.GZIP);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		Archives.decompressTarEntry(archive, TarIndex.create(archive, CompressedFiles.GZIP), "dir1/file5", outputStream);
+		assertArrayEquals(content(5), outputStream.toByteArray());
+	}
+
+	@Test
+	public void testDecompressTarEntries() throws IOException {
+		File archive = tarArchive(CompressedFiles.BGZF);
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		List<String> entryNames = Arrays.asList("dir1/file3", "dir0/file2");
+		Archives.decompressTarEntries(archive, TarIndex.create(archive, CompressedFiles.BGZF, 1), entryNames, directory);
+		assertEntries(directory, entryNames);
+	}
+
+	@Test
+	public void testDecompressTarEntryDoesNotExist() throws IOException {
+		File archive = tarArchive(null);
+		try {
+			Archives.decompressTarEntry(archive, TarIndex.create(archive, null), "dir0", new ByteArrayOutputStream());
+			fail();
+		}
+		catch (FileNotFoundException e) {
+			assertEquals("Entry dir0 does not exist in " + archive.getAbsolutePath(), e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDecompressTarEntryIndexDoesNotMatch() throws IOException {
+		File archive = tarArchive(null);
+		TarIndex index = TarIndex.create(archive, null);
+		try (FileOutputStream outputStream = new FileOutputStream(archive, true)) {
+			outputStream.write(new byte[TarConstants.DEFAULT_RCDSIZE]);
+		}
+		try {
+			Archives.decompressTarEntry(archive, index, "dir1/file1", new ByteArrayOutputStream());
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Index does not match " + archive.getAbsolutePath() + ", which has changed since it was indexed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressIncremental() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		File subdirectory = new File(directory, "dir0");
+		subdirectory.mkdirs();
+		subdirectory.deleteOnExit();
+		writeFile(new File(subdirectory, "file1"), 1000);
+		writeFile(new File(subdirectory, "file2"), 2000);
+		writeFile(new File(directory, "file3"), 3000);
+
+		File manifest = File.createTempFile(getClass().getName(), ".manifest");
+		manifest.delete();
+		manifest.deleteOnExit();
+		Archives.compressIncremental(Archives.TAR, directory, destination, tarCompressionFunction(), tarEntryFunction(), manifest, false, 1, false,
+				BufferPool.DEFAULT_BUFFER_SIZE);
+		List<String> entryNames = entryNames(destination);
+		Collections.sort(entryNames);
+		assertEquals(Arrays.asList("dir0/file1", "dir0/file2", "file3"), entryNames);
+
+		writeFile(new File(subdirectory, "file2"), 2500);
+		new File(directory, "file3").delete();
+		Archives.compressIncremental(Archives.TAR, directory, destination, tarCompressionFunction(), tarEntryFunction(), manifest, false, 1, false,
+				BufferPool.DEFAULT_BUFFER_SIZE);
+		assertEquals(Arrays.asList("dir0/file2", ArchiveManifest.DELETIONS_ENTRY_NAME), entryNames(destination));
+
+		Archives.compressIncremental(Archives.TAR, directory, destination, tarCompressionFunction(), tarEntryFunction(), manifest, false, 1, false,
+				BufferPool.DEFAULT_BUFFER_SIZE);
+		assertEquals(Arrays.<String> asList(), entryNames(destination));
+	}
+
+	@Test
+	public void testApplyDeletions() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		File subdirectory = new File(directory, "dir0");
+		subdirectory.mkdirs();
+		writeFile(new File(subdirectory, "file1"), 1000);
+		writeFile(new File(directory, "file2"), 2000);
+		writeDeletions(directory, "dir0/file1\nfile3\n");
+
+		Archives.applyDeletions(directory);
+		assertEquals(Arrays.asList("file2"), Arrays.asList(directory.list()));
+	}
+
+	@Test
+	public void testApplyDeletionsOutsideOfDestination() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		writeDeletions(directory, "../file1\n");
+		try {
+			Archives.applyDeletions(directory);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Entry ../file1 is outside of " + directory.getAbsolutePath(), e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAppendTar() throws IOException {
+		File archive = tarArchive(null);
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		writeFile(new File(directory, "file6"), 6000);
+		Archives.appendTar(directory, archive, tarStreamCompressionFunction(), tarEntryFunction(), 1, false, BufferPool.DEFAULT_BUFFER_SIZE);
+
+		assertEquals(Arrays.asList("dir0/file0", "dir1/file1", "dir0/file2", "dir1/file3", "dir0/file4", "dir1/file5", "file6"), entryNames(archive));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		Archives.decompressTarEntry(archive, TarIndex.create(archive, null), "dir1/file5", outputStream);
+		assertArrayEquals(content(5), outputStream.toByteArray());
+	}
+
+	@Test
+	public void testAppendTarIsEmpty() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		writeFile(new File(directory, "file1"), 1000);
+		Archives.appendTar(directory, destination, tarStreamCompressionFunction(), tarEntryFunction(), 1, false, BufferPool.DEFAULT_BUFFER_SIZE);
+		Archives.appendTar(directory, destination, tarStreamCompressionFunction(), tarEntryFunction(), 1, false, BufferPool.DEFAULT_BUFFER_SIZE);
+
+		assertEquals(Arrays.asList("file1", "file1"), entryNames(destination));
+	}
+
+	@Test
+	public void testAppendTarIsNotTar() throws IOException {
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		writeFile(new File(directory, "file1"), 1000);
+		byte[] content = "not a tar archive".getBytes(StandardCharsets.UTF_8);
+		Files.write(destination.toPath(), content);
+		try {
+			Archives.appendTar(directory, destination, tarStreamCompressionFunction(), tarEntryFunction(), 1, false, BufferPool.DEFAULT_BUFFER_SIZE);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Destination " + destination.getAbsolutePath() + " is not a tar archive", e.getMessage());
+		}
+		assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testMergeZip() throws IOException {
+		File archive = zipArchive();
+		File laterArchive = File.createTempFile(getClass().getName(), ".zip");
+		laterArchive.deleteOnExit();
+		try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(laterArchive)) {
+			zipOutputStream.putArchiveEntry(new ZipArchiveEntry("dir0/file4"));
+			zipOutputStream.write(content(7));
+			zipOutputStream.closeArchiveEntry();
+		}
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		File subdirectory = new File(directory, "dir1");
+		subdirectory.mkdirs();
+		subdirectory.deleteOnExit();
+		writeFile(new File(subdirectory, "file1"), 1000);
+
+		Archives.mergeZip(directory, Arrays.asList(archive, laterArchive), destination, zipCompressionFunction(), zipEntryFunction(), 1, false,
+				BufferPool.DEFAULT_BUFFER_SIZE);
+
+		try (ZipFile original = new ZipFile(archive); ZipFile merged = new ZipFile(destination)) {
+			List<String> entryNames = new ArrayList<>();
+			for (ZipArchiveEntry entry : Collections.list(merged.getEntriesInPhysicalOrder())) {
+				entryNames.add(entry.getName());
+			}
+			assertEquals(Arrays.asList("dir0/file0", "dir0/file2", "dir1/file3", "dir1/file5", "dir0/file4", "dir1/file1"), entryNames);
+
+			ZipArchiveEntry copiedEntry = merged.getEntry("dir1/file5");
+			assertEquals(original.getEntry("dir1/file5").getCompressedSize(), copiedEntry.getCompressedSize());
+			try (InputStream inputStream = merged.getInputStream(copiedEntry)) {
+				assertArrayEquals(content(5), IOUtils.toByteArray(inputStream));
+			}
+			try (InputStream inputStream = merged.getInputStream(merged.getEntry("dir0/file4"))) {
+				assertArrayEquals(content(7), IOUtils.toByteArray(inputStream));
+			}
+			try (InputStream inputStream = merged.getInputStream(merged.getEntry("dir1/file1"))) {
+				assertEquals(1000, IOUtils.toByteArray(inputStream).length);
+			}
+		}
+	}
+
+	@Test
+	public void testTranscodeZipStream() throws IOException {
+		ByteArrayOutputStream zip = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(zip)) {
+			for (int i = 1; i < 4; i++) {
+				ZipArchiveEntry entry = new ZipArchiveEntry("dir" + (i % 2) + "/file" + i);
+				entry.setTime(1500000000000L + i * 2000);
+				zipOutputStream.putArchiveEntry(entry);
+				zipOutputStream.write(content(i));
+				zipOutputStream.closeArchiveEntry();
+			}
+			zipOutputStream.putArchiveEntry(new ZipArchiveEntry("dir2/"));
+			zipOutputStream.closeArchiveEntry();
+		}
+
+		try (ArchiveInputStream archiveInputStream = new ArchiveInputStreamImpl(new ZipArchiveInputStream(new ByteArrayInputStream(zip.toByteArray())))) {
+			Archives.transcode(archiveInputStream, destination, tarCompressionFunction(), tarEntryFunction(), BufferPool.DEFAULT_BUFFER_SIZE);
+		}
+
+		try (TarArchiveInputStream inputStream = new TarArchiveInputStream(new FileInputStream(destination))) {
+			for (int i = 1; i < 4; i++) {
+				TarArchiveEntry entry = inputStream.getNextTarEntry();
+				assertEquals("dir" + (i % 2) + "/file" + i, entry.getName());
+				assertEquals(content(i).length, entry.getSize());
+				assertEquals(1500000000000L + i * 2000, entry.getModTime().getTime());
+				assertArrayEquals(content(i), IOUtils.toByteArray(inputStream));
+			}
+			assertNull(inputStream.getNextTarEntry());
+		}
+	}
+
+	@Test
+	public void testTranscodeTarLinks() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(tar)) {
+			TarArchiveEntry entry = new TarArchiveEntry("file1");
+			entry.setSize(content(1).length);
+			tarOutputStream.putArchiveEntry(entry);
+			tarOutputStream.write(content(1));
+			tarOutputStream.closeArchiveEntry();
+			for (byte linkFlag : new byte[] { TarConstants.LF_SYMLINK, TarConstants.LF_LINK }) {
+				TarArchiveEntry linkEntry = new TarArchiveEntry("link" + (char) linkFlag, linkFlag);
+				linkEntry.setLinkName("file1");
+				tarOutputStream.putArchiveEntry(linkEntry);
+				tarOutputStream.closeArchiveEntry();
+			}
+		}
+
+		ByteArrayOutputStream zip = new ByteArrayOutputStream();
+		try (ArchiveInputStream archiveInputStream = new ArchiveInputStreamImpl(new TarArchiveInputStream(new ByteArrayInputStream(tar.toByteArray())))) {
+			Archives.transcode(archiveInputStream, zip, zipStreamCompressionFunction(), zipEntryFunction(), BufferPool.DEFAULT_BUFFER_SIZE);
+		}
+
+		try (ZipArchiveInputStream inputStream = new ZipArchiveInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+			assertEquals("file1", inputStream.getNextZipEntry().getName());
+			assertArrayEquals(content(1), IOUtils.toByteArray(inputStream));
+			assertNull(inputStream.getNextZipEntry());
+		}
+	}
+
+	@Test
+	public void testTranscode7z() throws IOException {
+		File archive = sevenZArchive();
+		ByteArrayOutputStream zip = new ByteArrayOutputStream();
+		try (ArchiveInputStream archiveInputStream = new ArchiveInputStream7zImpl(new SevenZFile(archive))) {
+			Archives.transcode(archiveInputStream, zip, zipStreamCompressionFunction(), zipEntryFunction(), BufferPool.DEFAULT_BUFFER_SIZE);
+		}
+
+		File directory = Files.createTempDirectory(getClass().getName()).toFile();
+		directory.deleteOnExit();
+		Files.write(destination.toPath(), zip.toByteArray());
+		Archives.decompressZipEntries(destination, Arrays.asList("dir0/file0", "dir1/file1", "dir2/file5"), directory, null, true);
+		assertEntries(directory, Arrays.asList("dir0/file0", "dir1/file1", "dir2/file5"));
+	}
+
+	private File tarArchive(String compression) throws IOException {
+		File archive = File.createTempFile(getClass().getName(), ".tar");
+		archive.deleteOnExit();
+		OutputStream outputStream = new FileOutputStream(archive);
+		if (compression != null) {
+			outputStream = CompressedFiles.createCompressorOutputStream(compression, outputStream);
+		}
+		try (TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(outputStream)) {
+			for (int i = 0; i < 6; i++) {
+				TarArchiveEntry entry = new TarArchiveEntry("dir" + (i % 2) + "/file" + i);
+				entry.setSize(content(i).length);
+				tarOutputStream.putArchiveEntry(entry);
+				tarOutputStream.write(content(i));
+				tarOutputStream.closeArchiveEntry();
+			}
+		}
+		return archive;
+	}
+
+	private File zipArchive() throws IOException {
+		File archive = File.createTempFile(getClass().getName(), ".zip");
+		archive.deleteOnExit();
+		try (ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(archive)) {
+			for (int i = 0; i < 6; i++) {
+				zipOutputStream.putArchiveEntry(new ZipArchiveEntry("dir" + (i % 2) + "/file" + i));
+				zipOutputStream.write(content(i));
+				zipOutputStream.closeArchiveEntry();
+			}
+		}
+		return archive;
+	}
+
+	private File sevenZArchive() throws IOException {
+		File archive = File.createTempFile(getClass().getName(), ".7z");
+		archive.deleteOnExit();
+		try (SevenZOutputFile sevenZOutputFile = new SevenZOutputFile(archive)) {
+			for (int i = 0; i < 6; i++) {
+				SevenZArchiveEntry entry = new SevenZArchiveEntry();
+				entry.setName("dir" + (i % 3) + "/file" + i);
+				sevenZOutputFile.putArchiveEntry(entry);
+				sevenZOutputFile.write(content(i));
+				sevenZOutputFile.closeArchiveEntry();
+			}
+		}
+		return archive;
+	}
+
+	private void assertEntries(File directory, List<String> entryNames) throws IOException {
+		int files = 0;
+		for (File subdirectory : directory.listFiles()) {
+			subdirectory.deleteOnExit();
+			for (File file : subdirectory.listFiles()) {
+				file.deleteOnExit();
+				files++;
+			}
+		}
+		assertEquals(entryNames.size(), files);
+		for (String entryName : entryNames) {
+			int seed = Integer.parseInt(entryName.substring(entryName.lastIndexOf("file") + 4));
+			assertArrayEquals(content(seed), Files.readAllBytes(new File(directory, entryName).toPath()));
+		}
+	}
+
+	private List<String> entryNames(File archive) throws IOException {
+		List<String> entryNames = new ArrayList<>();
+		try (TarArchiveInputStream inputStream = new TarArchiveInputStream(new FileInputStream(archive))) {
+			TarArchiveEntry entry = null;
+			while ((entry = inputStream.getNextTarEntry()) != null) {
+				entryNames.add(entry.getName());
+			}
+		}
+		return entryNames;
+	}
+
+	private void writeDeletions(File directory, String deletions) throws IOException {
+		File file = new File(directory, ArchiveManifest.DELETIONS_ENTRY_NAME);
+		file.getParentFile().mkdirs();
+		file.getParentFile().deleteOnExit();
+		file.deleteOnExit();
+		Files.write(file.toPath(), deletions.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private byte[] content(int seed) {
+		byte[] content = new byte[seed * 1000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ('a' + (i * seed) % 7);
+		}
+		return content;
+	}
+
+	private void writeFile(File file, int length) throws IOException {
+		file.deleteOnExit();
+		byte[] content = new byte[length];
+		Arrays.fill(content, (byte) file.getName().charAt(file.getName().length() - 1));
+		try (FileOutputStream outputStream = new FileOutputStream(file)) {
+			outputStream.write(content);
+		}
+	}
+
+	private Function<File, ArchiveOutputStream> tarCompressionFunction() {
+		return new Function<File, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(File file) {
+				try {
+					return new ArchiveOutputStreamImpl(new TarArchiveOutputStream(new FileOutputStream(file)));
+				}
+				catch (FileNotFoundException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	private Function<OutputStream, ArchiveOutputStream> tarStreamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				return new ArchiveOutputStreamImpl(new TarArchiveOutputStream(outputStream));
+			}
+		};
+	}
+
+	private Function<File, ArchiveOutputStream> zipCompressionFunction() {
+		return new Function<File, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(File file) {
+				try {
+					return new ArchiveOutputStreamImpl(new ZipArchiveOutputStream(file));
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	private Function<OutputStream, ArchiveOutputStream> zipStreamCompressionFunction() {
+		return new Function<OutputStream, ArchiveOutputStream>() {
+
+			@Override
+			public ArchiveOutputStream apply(OutputStream outputStream) {
+				return new ArchiveOutputStreamImpl(new ZipArchiveOutputStream(outputStream));
+			}
+		};
+	}
+
+	private BiFunction<String, Long, ArchiveEntry> zipEntryFunction() {
+		return new BiFunction<String, Long, ArchiveEntry>() {
+
+			@Override
+			public ArchiveEntry apply(String entryName, Long fileSize) {
+				return new ZipArchiveEntry(entryName);
+			}
+		};
+	}
+
+	private Function<File, ArchiveInputStream> tarDecompressionFunction() {
+		return new Function<File, ArchiveInputStream>() {
+
+			@Override
+			public ArchiveInputStream apply(File file) {
+				try {
+					return new ArchiveInputStreamImpl(new TarArchiveInputStream(new FileInputStream(file)));
+				}
+				catch (FileNotFoundException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	private BiFunction<String, Long, ArchiveEntry> tarEntryFunction() {
+		return new BiFunction<String, Long, ArchiveEntry>() {
+
+			@Override
+			public ArchiveEntry apply(String entryName, Long fileSize) {
+				TarArchiveEntry entry = new TarArchiveEntry(entryName);
+				entry.setSize(fileSize);
+				entry.setModTime(0);
+				return entry;
+			}
+		};
+	}
+
+	@Test
+	public void testDetect() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream outputStream = new TarArchiveOutputStream(tar)) {
+			TarArchiveEntry entry = new TarArchiveEntry("a.txt");
+			entry.setSize(1);
+			outputStream.putArchiveEntry(entry);
+			outputStream.write('a');
+			outputStream.closeArchiveEntry();
+		}
+		assertEquals(Archives.TAR, Archives.detect(tar.toByteArray(), Archives.SIGNATURE_SIZE));
+
+		ByteArrayOutputStream zip = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(zip)) {
+			outputStream.putArchiveEntry(new ZipArchiveEntry("a.txt"));
+			outputStream.write('a');
+			outputStream.closeArchiveEntry();
+		}
+		assertEquals(Archives.ZIP, Archives.detect(zip.toByteArray(), zip.size()));
+	}
+
+	@Test
+	public void testDetectIsUnknown() {
+		byte[] signature = new byte[Archives.SIGNATURE_SIZE];
+		assertNull(Archives.detect(signature, signature.length));
+		assertNull(Archives.detect("not an archive".getBytes(), 14));
+	}
+
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.archives.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelBgzfImpl;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+
+/**
+ * Test class for {@link TarIndex}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class TarIndexTest {
+
+	private File archive;
+
+	@Before
+	public void setup() throws IOException {
+		archive = File.createTempFile(getClass().getName(), ".tar");
+		archive.deleteOnExit();
+	}
+
+	@Test
+	public void testCreate() throws IOException {
+		writeArchive(null, 3, 1000);
+
+		TarIndex index = TarIndex.create(archive, null);
+		assertNull(index.getCompression());
+		assertEquals(archive.length(), index.getSourceSize());
+		assertTrue(index.getCheckpoints().isEmpty());
+		assertEquals(3, index.getEntries().size());
+		assertNull(index.getEntry("dir/"));
+
+		TarIndex.Entry first = index.getEntry("dir/file0");
+		assertEquals(TarConstants.DEFAULT_RCDSIZE, first.getHeaderOffset());
+		assertEquals(2 * TarConstants.DEFAULT_RCDSIZE, first.getDataOffset());
+		assertEquals(1000, first.getSize());
+
+		TarIndex.Entry second = index.getEntry("dir/file1");
+		assertEquals(first.getDataOffset() + 1024, second.getHeaderOffset());
+		assertEquals(second.getHeaderOffset() + TarConstants.DEFAULT_RCDSIZE, second.getDataOffset());
+	}
+
+	@Test
+	public void testCreateWithGzip() throws IOException {
+		writeArchive(CompressedFiles.GZIP, 3, 1000);
+
+		TarIndex index = TarIndex.create(archive, CompressedFiles.GZIP);
+		assertEquals(CompressedFiles.GZIP, index.getCompression());
+		assertEquals(1, index.getCheckpoints().size());
+		assertEquals(0, index.getCheckpoints().get(0).getCompressedOffset());
+		assertEquals(0, index.getCheckpoints().get(0).getUncompressedOffset());
+		assertEntries(index, 3, 1000);
+	}
+
+	@Test
+	public void testCreateWithBgzf() throws IOException {
+		writeArchive(CompressedFiles.BGZF, 20, 50000);
+
+		TarIndex index = TarIndex.create(archive, CompressedFiles.BGZF, 4 * CompressedFileOutputStreamParallelBgzfImpl.BLOCK_SIZE);
+		List<TarIndex.Checkpoint> checkpoints = index.getCheckpoints();
+		assertTrue(checkpoints.size() > 1);
+		try (RandomAccessFile file = new RandomAccessFile(archive, "r")) {
+			for (int i = 1; i < checkpoints.size(); i++) {
+				long span = checkpoints.get(i).getUncompressedOffset() - checkpoints.get(i - 1).getUncompressedOffset();
+				assertTrue(span >= 4 * CompressedFileOutputStreamParallelBgzfImpl.BLOCK_SIZE);
+
+				file.seek(checkpoints.get(i).getCompressedOffset());
+				assertEquals(0x1F, file.read());
+				assertEquals(0x8B, file.read());
+			}
+		}
+		assertEntries(index, 20, 50000);
+	}
+
+	@Test
+	public void testCreateKeepsLastEntry() throws IOException {
+		try (TarArchiveOutputStream outputStream = new TarArchiveOutputStream(new FileOutputStream(archive))) {
+			for (int i = 1; i <= 2; i++) {
+				TarArchiveEntry entry = new TarArchiveEntry("file");
+				entry.setSize(i);
+				outputStream.putArchiveEntry(entry);
+				outputStream.write(new byte[i]);
+				outputStream.closeArchiveEntry();
+			}
+		}
+
+		TarIndex index = TarIndex.create(archive, null);
+		assertEquals(1, index.getEntries().size());
+		assertEquals(2, index.getEntry("file").getSize());
+	}
+
+	@Test
+	public void testCreateCompressionCannotBeIndexed() throws IOException {
+		try {
+			TarIndex.create(archive, CompressedFiles.XZ);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compression " + CompressedFiles.XZ + " cannot be indexed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCreateSpanIsNotPositive() throws IOException {
+		try {
+			TarIndex.create(archive, null, 0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Span must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		writeArchive(CompressedFiles.BGZF, 10, 50000);
+		TarIndex index = TarIndex.create(archive, CompressedFiles.BGZF, 1);
+
+		File sidecar = File.createTempFile(getClass().getName(), ".idx");
+		sidecar.deleteOnExit();
+		index.write(sidecar);
+		TarIndex readIndex = TarIndex.read(sidecar);
+
+		assertEquals(index.getCompression(), readIndex.getCompression());
+		assertEquals(index.getSourceSize(), readIndex.getSourceSize());
+		assertEquals(index.getCheckpoints().size(), readIndex.getCheckpoints().size());
+		for (int i = 0; i < index.getCheckpoints().size(); i++) {
+			assertEquals(index.getCheckpoints().get(i).getCompressedOffset(), readIndex.getCheckpoints().get(i).getCompressedOffset());
+			assertEquals(index.getCheckpoints().get(i).getUncompressedOffset(), readIndex.getCheckpoints().get(i).getUncompressedOffset());
+		}
+		List<TarIndex.Entry> entries = new ArrayList<>(index.getEntries());
+		List<TarIndex.Entry> readEntries = new ArrayList<>(readIndex.getEntries());
+		assertEquals(entries.size(), readEntries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			assertEquals(entries.get(i).getName(), readEntries.get(i).getName());
+			assertEquals(entries.get(i).getHeaderOffset(), readEntries.get(i).getHeaderOffset());
+			assertEquals(entries.get(i).getDataOffset(), readEntries.get(i).getDataOffset());
+			assertEquals(entries.get(i).getSize(), readEntries.get(i).getSize());
+		}
+		assertEntries(readIndex, 10, 50000);
+	}
+
+	@Test
+	public void testReadIsNotIndex() throws IOException {
+		Files.write(archive.toPath(), "not an index".getBytes());
+		try {
+			TarIndex.read(archive);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("File " + archive.getAbsolutePath() + " is not a tar index", e.getMessage());
+		}
+	}
+
+	private void writeArchive(String compression, int entries, int entrySize) throws IOException {
+		OutputStream outputStream = new FileOutputStream(archive);
+		if (compression != null) {
+			outputStream = CompressedFiles.createCompressorOutputStream(compression, outputStream);
+		}
+		try (TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(outputStream)) {
+			tarOutputStream.putArchiveEntry(new TarArchiveEntry("dir/"));
+			tarOutputStream.closeArchiveEntry();
+			for (int i = 0; i < entries; i++) {
+				TarArchiveEntry entry = new TarArchiveEntry("dir/file" + i);
+				entry.setSize(entrySize);
+				tarOutputStream.putArchiveEntry(entry);
+				tarOutputStream.write(content(i, entrySize));
+				tarOutputStream.closeArchiveEntry();
+			}
+		}
+	}
+
+	private void assertEntries(TarIndex index, int entries, int entrySize) throws IOException {
+		for (int i = entries - 1; i >= 0; i--) {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			Archives.decompressTarEntry(archive, index, "dir/file" + i, outputStream);
+			assertArrayEquals(content(i, entrySize), outputStream.toByteArray());
+		}
+	}
+
+	private byte[] content(int seed, int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ((i * 31 + seed * 17) ^ (i >> 7));
+		}
+		return content;
+	}
+
+}
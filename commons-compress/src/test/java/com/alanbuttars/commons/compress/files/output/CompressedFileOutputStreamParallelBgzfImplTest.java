@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CompressedFileOutputStreamParallelBgzfImpl}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelBgzfImplTest {
+
+	private ByteArrayOutputStream output;
+
+	@Before
+	public void setup() {
+		output = new ByteArrayOutputStream();
+	}
+
+	@Test
+	public void testWriteMultipleBlocks() throws IOException {
+		byte[] content = content(5 * CompressedFileOutputStreamParallelBgzfImpl.BLOCK_SIZE + 1000, false);
+		try (CompressedFileOutputStreamParallelBgzfImpl stream = new CompressedFileOutputStreamParallelBgzfImpl(output, Deflater.DEFAULT_COMPRESSION, 4)) {
+			stream.write(content, 0, 1000);
+			stream.write(content, 1000, content.length - 1000);
+		}
+
+		assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))));
+		assertArrayEquals(content, read(new GzipCompressorInputStream(new ByteArrayInputStream(output.toByteArray()), true)));
+		assertEquals(7, assertMembers(output.toByteArray()));
+	}
+
+	@Test
+	public void testWriteIncompressible() throws IOException {
+		byte[] content = content(3 * CompressedFileOutputStreamParallelBgzfImpl.BLOCK_SIZE, true);
+		try (CompressedFileOutputStreamParallelBgzfImpl stream = new CompressedFileOutputStreamParallelBgzfImpl(output, Deflater.BEST_COMPRESSION, 2)) {
+			stream.write(content, 0, content.length);
+		}
+
+		assertArrayEquals(content, read(new GzipCompressorInputStream(new ByteArrayInputStream(output.toByteArray()), true)));
+		assertEquals(4, assertMembers(output.toByteArray()));
+	}
+
+	@Test
+	public void testWriteEmpty() throws IOException {
+		try (CompressedFileOutputStreamParallelBgzfImpl stream = new CompressedFileOutputStreamParallelBgzfImpl(output, Deflater.DEFAULT_COMPRESSION, 2)) {
+		}
+
+		assertArrayEquals(CompressedFileOutputStreamParallelBgzfImpl.END_OF_FILE, output.toByteArray());
+		assertEquals(0, read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))).length);
+	}
+
+	/**
+	 * Walks the members by their block sizes, asserting that they exactly cover the output and that the last is the
+	 * end-of-file marker, and returns the number of members.
+	 */
+	private int assertMembers(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int members = 0;
+		int position = 0;
+		while (position < bytes.length) {
+			assertEquals(0x8B1F, buffer.getShort(position) & 0xFFFF);
+			assertEquals('B', buffer.get(position + 12));
+			assertEquals('C', buffer.get(position + 13));
+			int memberSize = (buffer.getShort(position + 16) & 0xFFFF) + 1;
+			assertTrue(memberSize <= CompressedFileOutputStreamParallelBgzfImpl.MAX_MEMBER_SIZE);
+			position += memberSize;
+			members++;
+		}
+		assertEquals(bytes.length, position);
+		byte[] last = Arrays.copyOfRange(bytes, bytes.length - CompressedFileOutputStreamParallelBgzfImpl.END_OF_FILE.length, bytes.length);
+		assertArrayEquals(CompressedFileOutputStreamParallelBgzfImpl.END_OF_FILE, last);
+		return members;
+	}
+
+	private byte[] content(int length, boolean random) {
+		Random generator = new Random(length);
+		byte[] content = new byte[length];
+		if (random) {
+			generator.nextBytes(content);
+		}
+		else {
+			for (int i = 0; i < length; i++) {
+				content[i] = (byte) ('a' + generator.nextInt(4));
+			}
+		}
+		return content;
+	}
+
+	private byte[] read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length = 0;
+		while ((length = inputStream.read(buffer)) > 0) {
+			result.write(buffer, 0, length);
+		}
+		inputStream.close();
+		return result.toByteArray();
+	}
+}
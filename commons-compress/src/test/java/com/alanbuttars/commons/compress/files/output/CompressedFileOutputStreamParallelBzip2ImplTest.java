@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CompressedFileOutputStreamParallelBzip2Impl}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelBzip2ImplTest {
+
+	private ByteArrayOutputStream output;
+
+	@Before
+	public void setup() {
+		output = new ByteArrayOutputStream();
+	}
+
+	@Test
+	public void testWriteMultipleBlocks() throws IOException {
+		byte[] content = content(500 * 1024);
+		try (CompressedFileOutputStreamParallelBzip2Impl stream = new CompressedFileOutputStreamParallelBzip2Impl(output, 1, 4)) {
+			stream.write(content, 0, 1000);
+			stream.write(content, 1000, content.length - 1000);
+		}
+
+		assertArrayEquals(content, read(new BZip2CompressorInputStream(new ByteArrayInputStream(output.toByteArray()), false)));
+	}
+
+	@Test
+	public void testWriteSingleBlock() throws IOException {
+		byte[] content = content(1024);
+		try (CompressedFileOutputStreamParallelBzip2Impl stream = new CompressedFileOutputStreamParallelBzip2Impl(output, 9, 2)) {
+			stream.write(content, 0, content.length);
+		}
+
+		assertArrayEquals(content, read(new BZip2CompressorInputStream(new ByteArrayInputStream(output.toByteArray()), false)));
+	}
+
+	@Test
+	public void testWriteRuns() throws IOException {
+		byte[] content = new byte[300 * 1024];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ((i / 4) % 2);
+		}
+		try (CompressedFileOutputStreamParallelBzip2Impl stream = new CompressedFileOutputStreamParallelBzip2Impl(output, 1, 3)) {
+			stream.write(content, 0, content.length);
+		}
+
+		assertArrayEquals(content, read(new BZip2CompressorInputStream(new ByteArrayInputStream(output.toByteArray()), false)));
+	}
+
+	@Test
+	public void testWriteEmpty() throws IOException {
+		try (CompressedFileOutputStreamParallelBzip2Impl stream = new CompressedFileOutputStreamParallelBzip2Impl(output, 9, 2)) {
+		}
+
+		assertEquals(0, read(new BZip2CompressorInputStream(new ByteArrayInputStream(output.toByteArray()), false)).length);
+	}
+
+	@Test
+	public void testBlockSizeIsInvalid() {
+		try {
+			new CompressedFileOutputStreamParallelBzip2Impl(output, 10, 2);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Block size must be between 1 and 9", e.getMessage());
+		}
+	}
+
+	private byte[] content(int length) {
+		Random random = new Random(length);
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return content;
+	}
+
+	private byte[] read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length = 0;
+		while ((length = inputStream.read(buffer)) > 0) {
+			result.write(buffer, 0, length);
+		}
+		inputStream.close();
+		return result.toByteArray();
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CompressedFileOutputStreamParallelGzipImpl}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelGzipImplTest {
+
+	private ByteArrayOutputStream output;
+	private GzipParameters parameters;
+
+	@Before
+	public void setup() {
+		output = new ByteArrayOutputStream();
+		parameters = new GzipParameters();
+	}
+
+	@Test
+	public void testWriteMultipleBlocks() throws IOException {
+		byte[] content = content(100 * 1024);
+		try (CompressedFileOutputStreamParallelGzipImpl stream = new CompressedFileOutputStreamParallelGzipImpl(output, parameters, 4, 4096)) {
+			stream.write(content, 0, 1000);
+			stream.write(content, 1000, content.length - 1000);
+		}
+
+		assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))));
+		assertArrayEquals(content, read(new GzipCompressorInputStream(new ByteArrayInputStream(output.toByteArray()))));
+	}
+
+	@Test
+	public void testWriteExactBlockMultiple() throws IOException {
+		byte[] content = content(8192);
+		try (CompressedFileOutputStreamParallelGzipImpl stream = new CompressedFileOutputStreamParallelGzipImpl(output, parameters, 2, 4096)) {
+			stream.write(content, 0, content.length);
+		}
+
+		assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))));
+	}
+
+	@Test
+	public void testWriteEmpty() throws IOException {
+		try (CompressedFileOutputStreamParallelGzipImpl stream = new CompressedFileOutputStreamParallelGzipImpl(output, parameters, 2)) {
+		}
+
+		assertEquals(0, read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))).length);
+	}
+
+	@Test
+	public void testHeader() throws IOException {
+		parameters.setFilename("test.txt");
+		parameters.setComment("comment");
+		parameters.setModificationTime(123000);
+		try (CompressedFileOutputStreamParallelGzipImpl stream = new CompressedFileOutputStreamParallelGzipImpl(output, parameters, 2)) {
+			stream.write(new byte[] { 1, 2, 3 }, 0, 3);
+		}
+
+		try (GzipCompressorInputStream input = new GzipCompressorInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+			assertArrayEquals(new byte[] { 1, 2, 3 }, read(input));
+			assertEquals("test.txt", input.getMetaData().getFilename());
+			assertEquals("comment", input.getMetaData().getComment());
+			assertEquals(123000, input.getMetaData().getModificationTime());
+		}
+	}
+
+	@Test
+	public void testWriteAfterClose() throws IOException {
+		CompressedFileOutputStreamParallelGzipImpl stream = new CompressedFileOutputStreamParallelGzipImpl(output, parameters, 2);
+		stream.close();
+		try {
+			stream.write(new byte[] { 1 }, 0, 1);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Stream is closed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testGetStream() throws IOException {
+		try (CompressedFileOutputStreamParallelGzipImpl stream = new CompressedFileOutputStreamParallelGzipImpl(output, parameters, 1)) {
+			assertEquals(output, stream.getStream());
+		}
+	}
+
+	private byte[] content(int length) {
+		Random random = new Random(length);
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + random.nextInt(4));
+		}
+		return content;
+	}
+
+	private byte[] read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length = 0;
+		while ((length = inputStream.read(buffer)) > 0) {
+			result.write(buffer, 0, length);
+		}
+		inputStream.close();
+		return result.toByteArray();
+	}
+}
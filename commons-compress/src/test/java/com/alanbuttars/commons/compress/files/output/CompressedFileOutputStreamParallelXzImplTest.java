@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+import org.tukaani.xz.UnsupportedOptionsException;
+
+/**
+ * Test class for {@link CompressedFileOutputStreamParallelXzImpl}.
+ *
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFileOutputStreamParallelXzImplTest {
+
+	private ByteArrayOutputStream output;
+
+	@Before
+	public void setup() {
+		output = new ByteArrayOutputStream();
+	}
+
+	@Test
+	public void testWriteMultipleBlocks() throws IOException {
+		byte[] content = content(100 * 1024);
+		try (CompressedFileOutputStreamParallelXzImpl stream = new CompressedFileOutputStreamParallelXzImpl(output, 6, 4, 4096)) {
+			stream.write(content, 0, 1000);
+			stream.write(content, 1000, content.length - 1000);
+		}
+
+		assertArrayEquals(content, read(new XZCompressorInputStream(new ByteArrayInputStream(output.toByteArray()))));
+	}
+
+	@Test
+	public void testBlockIndex() throws IOException {
+		byte[] content = content(10000);
+		try (CompressedFileOutputStreamParallelXzImpl stream = new CompressedFileOutputStreamParallelXzImpl(output, 1, 2, 4096)) {
+			stream.write(content, 0, content.length);
+		}
+
+		File file = File.createTempFile(getClass().getName(), ".xz");
+		file.deleteOnExit();
+		try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+			fileOutputStream.write(output.toByteArray());
+		}
+		try (SeekableXZInputStream input = new SeekableXZInputStream(new SeekableFileInputStream(file))) {
+			assertEquals(3, input.getBlockCount());
+			assertEquals(8192, input.getBlockPos(2));
+			assertEquals(1808, input.getBlockSize(2));
+
+			input.seekToBlock(1);
+			byte[] block = new byte[4096];
+			assertEquals(block.length, input.read(block));
+			for (int i = 0; i < block.length; i++) {
+				assertEquals(content[4096 + i], block[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testWriteEmpty() throws IOException {
+		try (CompressedFileOutputStreamParallelXzImpl stream = new CompressedFileOutputStreamParallelXzImpl(output, 6, 2, 4096)) {
+		}
+
+		assertEquals(0, read(new XZCompressorInputStream(new ByteArrayInputStream(output.toByteArray()))).length);
+	}
+
+	@Test
+	public void testDefaultBlockSize() throws IOException {
+		assertEquals(3 * 8 * 1024 * 1024, CompressedFileOutputStreamParallelXzImpl.defaultBlockSize(6));
+	}
+
+	@Test
+	public void testPresetIsInvalid() throws IOException {
+		try {
+			CompressedFileOutputStreamParallelXzImpl.defaultBlockSize(10);
+			fail();
+		}
+		catch (UnsupportedOptionsException e) {
+		}
+	}
+
+	private byte[] content(int length) {
+		Random random = new Random(length);
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return content;
+	}
+
+	private byte[] read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length = 0;
+		while ((length = inputStream.read(buffer)) > 0) {
+			result.write(buffer, 0, length);
+		}
+		inputStream.close();
+		return result.toByteArray();
+	}
+}
@@ -25,6 +25,8 @@ import java.io.Reader;
 import java.util.List;
 
 import com.alanbuttars.commons.compress.archives.util.ArchiveFile;
+import com.alanbuttars.commons.compress.stub.decompress.Decompress;
+import com.alanbuttars.commons.compress.stub.decompress.DecompressAutoStub;
 import com.alanbuttars.commons.compress.util.FilesFunction;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -81,6 +83,21 @@ public class CompressedFilesIntegrationAbstractTest {
 		}
 	}
 
+	/**
+	 * Returns a function which decompresses a file of any recognized type to a temporary file, or to a temporary
+	 * directory if it is detected as a compressed archive.
+	 */
+	protected FilesFunction autoDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				DecompressAutoStub stub = Decompress.auto(original);
+				return stub.getArchiveType() != null ? stub.toTempDirectory() : stub.toTempFile();
+			}
+		};
+	}
+
 	private File getFileDirectory(String fileType) {
 		return new File(getClass().getResource(fileType).getFile());
 	}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.files.util;
+
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BGZF;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.alanbuttars.commons.compress.stub.compress.Compress;
+import com.alanbuttars.commons.compress.stub.decompress.Decompress;
+import com.alanbuttars.commons.compress.util.FilesFunction;
+
+/**
+ * Integration test class for {@link CompressedFiles} for {@link CompressedFiles#BGZF} files.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class CompressedFilesIntegrationBgzfImplTest extends CompressedFilesIntegrationAbstractTest {
+
+	@Test
+	public void testDecompress() throws IOException {
+		testDecompress(BGZF, decompressFunction());
+	}
+
+	@Test
+	public void testDecompressParallel() throws IOException {
+		testDecompress(BGZF, parallelDecompressFunction());
+	}
+
+	@Test
+	public void testCompress() throws IOException {
+		testCompress(BGZF, compressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testCompressParallel() throws IOException {
+		testCompress(BGZF, parallelCompressFunction(), decompressFunction());
+		testCompress(BGZF, parallelCompressFunction(), parallelDecompressFunction());
+	}
+
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(BGZF, autoDecompressFunction());
+	}
+
+	private FilesFunction decompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.compressedFile(original).withBgzf().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.compressedFile(original).withBgzf().andThreads(4).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction compressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).withBgzf().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).withBgzf().andThreads(4).toTempFile();
+			}
+		};
+	}
+}
@@ -44,6 +44,26 @@ public class CompressedFilesIntegrationBzip2ImplTest extends CompressedFilesInte
 		testCompress(BZIP2, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testCompressParallel() throws IOException {
+		testCompress(BZIP2, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testDecompressParallel() throws IOException {
+		testDecompress(BZIP2, parallelDecompressFunction());
+	}
+
+	@Test
+	public void testCompressParallelDecompressParallel() throws IOException {
+		testCompress(BZIP2, parallelCompressFunction(), parallelDecompressFunction());
+	}
+
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(BZIP2, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +74,16 @@ public class CompressedFilesIntegrationBzip2ImplTest extends CompressedFilesInte
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.compressedFile(original).withBzip2().andThreads(4).toTempFile();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +93,14 @@ public class CompressedFilesIntegrationBzip2ImplTest extends CompressedFilesInte
 			}
 		};
 	}
-}
\ No newline at end of file
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).withBzip2().andThreads(4).toTempFile();
+			}
+		};
+	}
+}
@@ -38,6 +38,11 @@ public class CompressedFilesIntegrationFramedSnappyImplTest extends CompressedFi
 		testDecompress(FRAMEDSNAPPY, decompressFunction());
 	}
 
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(FRAMEDSNAPPY, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -47,5 +52,4 @@ public class CompressedFilesIntegrationFramedSnappyImplTest extends CompressedFi
 			}
 		};
 	}
-
 }
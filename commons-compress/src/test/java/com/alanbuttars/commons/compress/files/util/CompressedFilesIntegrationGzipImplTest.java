@@ -16,9 +16,20 @@
 package com.alanbuttars.commons.compress.files.util;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.GZIP;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import org.junit.Test;
 
@@ -44,6 +55,65 @@ public class CompressedFilesIntegrationGzipImplTest extends CompressedFilesInteg
 		testCompress(GZIP, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testCompressParallel() throws IOException {
+		testCompress(GZIP, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testCompressWithChannels() throws IOException {
+		testCompress(GZIP, channelCompressFunction(), channelDecompressFunction());
+	}
+
+	@Test
+	public void testDecompressWithChannels() throws IOException {
+		testDecompress(GZIP, channelDecompressFunction());
+	}
+
+	@Test
+	public void testCompressWithBufferSize() throws IOException {
+		testCompress(GZIP, bufferSizeCompressFunction(), bufferSizeDecompressFunction());
+	}
+
+	@Test
+	public void testCompressStream() throws IOException {
+		testCompress(GZIP, streamCompressFunction(), streamDecompressFunction());
+	}
+
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(GZIP, autoDecompressFunction());
+	}
+
+	@Test
+	public void testCompressAppend() throws IOException {
+		File original = File.createTempFile(getClass().getName(), ".tmp");
+		original.deleteOnExit();
+		Files.write(original.toPath(), "first\n".getBytes(StandardCharsets.UTF_8));
+		File compressed = Compress.file(original).withGzip().toTempFile();
+		compressed.deleteOnExit();
+		try (InputStream inputStream = new ByteArrayInputStream("second\n".getBytes(StandardCharsets.UTF_8))) {
+			Compress.stream(inputStream).withGzip().appendTo(compressed);
+		}
+
+		File decompressed = Decompress.compressedFile(compressed).withGzip().andDecompressConcatenated(true).toTempFile();
+		decompressed.deleteOnExit();
+		assertEquals("first\nsecond\n", new String(Files.readAllBytes(decompressed.toPath()), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testCompressInMemory() throws IOException {
+		byte[] original = "in memory\n".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer compressed = Compress.bytes(original).withGzip().toByteBuffer();
+		byte[] compressedContent = new byte[compressed.remaining()];
+		compressed.get(compressedContent);
+		assertArrayEquals(Compress.bytes(original).withGzip().toBytes(), compressedContent);
+
+		ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		Decompress.bytes(compressedContent).withGzip().toStream(decompressed);
+		assertArrayEquals(original, decompressed.toByteArray());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +124,16 @@ public class CompressedFilesIntegrationGzipImplTest extends CompressedFilesInteg
 		};
 	}
 
+	private FilesFunction channelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.compressedFile(original).usingChannels().withGzip().toTempFile();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +143,71 @@ public class CompressedFilesIntegrationGzipImplTest extends CompressedFilesInteg
 			}
 		};
 	}
+
+	private FilesFunction channelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).usingChannels().withGzip().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).withGzip().andThreads(4).toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction bufferSizeDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.compressedFile(original).usingBufferSize(100).withGzip().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction bufferSizeCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).usingBufferSize(100).withGzip().toTempFile();
+			}
+		};
+	}
+
+	private FilesFunction streamDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				try (InputStream inputStream = new FileInputStream(original)) {
+					return Decompress.stream(inputStream).withGzip().toTempFile();
+				}
+			}
+		};
+	}
+
+	private FilesFunction streamCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				File compressed = File.createTempFile(original.getName(), ".tmp");
+				compressed.deleteOnExit();
+				try (InputStream inputStream = new FileInputStream(original); OutputStream outputStream = new FileOutputStream(compressed)) {
+					Compress.stream(inputStream).withGzip().toStream(outputStream);
+				}
+				return compressed;
+			}
+		};
+	}
 }
@@ -44,6 +44,11 @@ public class CompressedFilesIntegrationLzmaImplTest extends CompressedFilesInteg
 		testCompress(LZMA, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(LZMA, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -44,6 +44,11 @@ public class CompressedFilesIntegrationPack200ImplTest extends CompressedFilesIn
 		testCompress(PACK200, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(PACK200, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -44,6 +44,26 @@ public class CompressedFilesIntegrationXzImplTest extends CompressedFilesIntegra
 		testCompress(XZ, compressFunction(), decompressFunction());
 	}
 
+	@Test
+	public void testCompressParallel() throws IOException {
+		testCompress(XZ, parallelCompressFunction(), decompressFunction());
+	}
+
+	@Test
+	public void testDecompressParallel() throws IOException {
+		testDecompress(XZ, parallelDecompressFunction());
+	}
+
+	@Test
+	public void testCompressParallelDecompressParallel() throws IOException {
+		testCompress(XZ, parallelCompressFunction(), parallelDecompressFunction());
+	}
+
+	@Test
+	public void testDecompressAuto() throws IOException {
+		testDecompress(XZ, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -54,6 +74,16 @@ public class CompressedFilesIntegrationXzImplTest extends CompressedFilesIntegra
 		};
 	}
 
+	private FilesFunction parallelDecompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Decompress.compressedFile(original).withXz().andThreads(4).toTempFile();
+			}
+		};
+	}
+
 	private FilesFunction compressFunction() {
 		return new FilesFunction() {
 
@@ -63,4 +93,14 @@ public class CompressedFilesIntegrationXzImplTest extends CompressedFilesIntegra
 			}
 		};
 	}
+
+	private FilesFunction parallelCompressFunction() {
+		return new FilesFunction() {
+
+			@Override
+			public File act(File original) throws IOException {
+				return Compress.file(original).withXz().andBlockSize(1024).andThreads(4).toTempFile();
+			}
+		};
+	}
 }
@@ -38,6 +38,11 @@ public class CompressedFilesIntegrationZImplTest extends CompressedFilesIntegrat
 		testDecompress(Z, decompressFunction());
 	}
 
+	@Test
+	public void testDecompressAutoIsTar() throws IOException {
+		testDecompress(Z, autoDecompressFunction());
+	}
+
 	private FilesFunction decompressFunction() {
 		return new FilesFunction() {
 
@@ -47,5 +52,4 @@ public class CompressedFilesIntegrationZImplTest extends CompressedFilesIntegrat
 			}
 		};
 	}
-
 }
@@ -15,23 +15,44 @@
  */
 package com.alanbuttars.commons.compress.files.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
 import static org.powermock.api.mockito.PowerMockito.mock;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.tukaani.xz.CorruptedInputException;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.alanbuttars.commons.compress.files.input.CompressedFileInputStream;
+import com.alanbuttars.commons.compress.files.input.CompressedFileInputStreamImpl;
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamImpl;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelBgzfImpl;
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelXzImpl;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -121,4 +142,333 @@ public class CompressedFilesTest {
 		}
 	}
 
+	@Test
+	public void testDecompressBgzf() throws IOException {
+		byte[] content = new byte[3 * CompressedFiles.BGZF_BATCH_SIZE + 12345];
+		new Random(1).nextBytes(content);
+		for (int i = 0; i < content.length / 2; i++) {
+			content[i] = (byte) ('a' + i % 3);
+		}
+		try (CompressedFileOutputStreamParallelBgzfImpl outputStream = new CompressedFileOutputStreamParallelBgzfImpl(new FileOutputStream(source),
+				Deflater.DEFAULT_COMPRESSION, 2)) {
+			outputStream.write(content, 0, content.length);
+		}
+
+		CompressedFiles.decompressBgzf(source, destination, 4);
+		assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressBgzfIsGzip() throws IOException {
+		byte[] content = "not blocked".getBytes();
+		try (GZIPOutputStream outputStream = new GZIPOutputStream(new FileOutputStream(source))) {
+			outputStream.write(content);
+		}
+
+		CompressedFiles.decompressBgzf(source, destination, 4);
+		assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressBgzfIsCorrupt() throws IOException {
+		byte[] content = new byte[3 * CompressedFileOutputStreamParallelBgzfImpl.BLOCK_SIZE];
+		try (CompressedFileOutputStreamParallelBgzfImpl outputStream = new CompressedFileOutputStreamParallelBgzfImpl(new FileOutputStream(source),
+				Deflater.DEFAULT_COMPRESSION, 2)) {
+			outputStream.write(content, 0, content.length);
+		}
+		byte[] compressed = Files.readAllBytes(source.toPath());
+		compressed[compressed.length - CompressedFileOutputStreamParallelBgzfImpl.END_OF_FILE.length - 8] ^= 1;
+		Files.write(source.toPath(), compressed);
+
+		try {
+			CompressedFiles.decompressBgzf(source, destination, 4);
+			fail();
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Corrupt BGZF member at offset"));
+		}
+	}
+
+	@Test
+	public void testDecompressBzip2() throws IOException {
+		byte[] content = bzip2Content(1);
+		Files.write(source.toPath(), bzip2(content, 1));
+
+		CompressedFiles.decompressBzip2(source, destination, false, 4);
+		assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressBzip2Concatenated() throws IOException {
+		byte[] first = bzip2Content(1);
+		byte[] second = bzip2Content(2);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		compressed.write(bzip2(first, 1));
+		compressed.write(bzip2(second, 2));
+		Files.write(source.toPath(), compressed.toByteArray());
+
+		CompressedFiles.decompressBzip2(source, destination, true, 4);
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.write(first);
+		content.write(second);
+		assertArrayEquals(content.toByteArray(), Files.readAllBytes(destination.toPath()));
+
+		CompressedFiles.decompressBzip2(source, destination, false, 4);
+		assertArrayEquals(first, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressBzip2IsCorrupt() throws IOException {
+		byte[] compressed = bzip2(bzip2Content(1), 1);
+		compressed[compressed.length - 2] ^= 1;
+		Files.write(source.toPath(), compressed);
+
+		try {
+			CompressedFiles.decompressBzip2(source, destination, false, 4);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("BZip2 stream CRC error", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDecompressBzip2IsNotBzip2() throws IOException {
+		Files.write(source.toPath(), "not bzip2".getBytes());
+
+		try {
+			CompressedFiles.decompressBzip2(source, destination, false, 4);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Stream is not in the BZip2 format", e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns content which spans several 100k blocks, half of it compressible.
+	 */
+	private static byte[] bzip2Content(long seed) {
+		byte[] content = new byte[350 * 1000];
+		new Random(seed).nextBytes(content);
+		for (int i = 0; i < content.length / 2; i++) {
+			content[i] = (byte) ('a' + i % 7);
+		}
+		return content;
+	}
+
+	private static byte[] bzip2(byte[] content, int blockSize) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (BZip2CompressorOutputStream outputStream = new BZip2CompressorOutputStream(compressed, blockSize)) {
+			outputStream.write(content);
+		}
+		return compressed.toByteArray();
+	}
+
+	@Test
+	public void testDecompressXz() throws IOException {
+		byte[] content = bzip2Content(1);
+		Files.write(source.toPath(), xz(content, 64 * 1024));
+
+		CompressedFiles.decompressXz(source, destination, false, 4);
+		assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressXzIsSingleBlock() throws IOException {
+		byte[] content = bzip2Content(1);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (XZOutputStream outputStream = new XZOutputStream(compressed, new LZMA2Options(1))) {
+			outputStream.write(content);
+		}
+		Files.write(source.toPath(), compressed.toByteArray());
+
+		CompressedFiles.decompressXz(source, destination, false, 4);
+		assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressXzConcatenated() throws IOException {
+		byte[] first = bzip2Content(1);
+		byte[] second = bzip2Content(2);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		compressed.write(xz(first, 64 * 1024));
+		compressed.write(xz(second, 100 * 1000));
+		Files.write(source.toPath(), compressed.toByteArray());
+
+		CompressedFiles.decompressXz(source, destination, true, 4);
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		content.write(first);
+		content.write(second);
+		assertArrayEquals(content.toByteArray(), Files.readAllBytes(destination.toPath()));
+
+		CompressedFiles.decompressXz(source, destination, false, 4);
+		assertArrayEquals(first, Files.readAllBytes(destination.toPath()));
+	}
+
+	@Test
+	public void testDecompressXzIsCorrupt() throws IOException {
+		byte[] compressed = xz(bzip2Content(1), 64 * 1024);
+		compressed[compressed.length / 2] ^= 1;
+		Files.write(source.toPath(), compressed);
+
+		try {
+			CompressedFiles.decompressXz(source, destination, false, 4);
+			fail();
+		}
+		catch (CorruptedInputException e) {
+			// the corruption is detected by the block's decoder or its check
+		}
+	}
+
+	private static byte[] xz(byte[] content, int blockSize) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (CompressedFileOutputStreamParallelXzImpl outputStream = new CompressedFileOutputStreamParallelXzImpl(compressed, 1, 2, blockSize)) {
+			outputStream.write(content, 0, content.length);
+		}
+		return compressed.toByteArray();
+	}
+
+	@Test
+	public void testCompressWithChannels() throws IOException {
+		byte[] content = bzip2Content(1);
+		ByteArrayOutputStream large = new ByteArrayOutputStream();
+		while (large.size() < CompressedFiles.MIN_MAPPED_SIZE * 3) {
+			large.write(content);
+		}
+		for (byte[] expected : new byte[][] { content, large.toByteArray() }) {
+			Files.write(source.toPath(), expected);
+			File decompressed = File.createTempFile(getClass().getName(), ".tmp");
+			decompressed.deleteOnExit();
+
+			CompressedFiles.compress(CompressedFiles.GZIP, source, destination, gzipCompressionFunction(), true);
+			CompressedFiles.decompress(CompressedFiles.GZIP, destination, decompressed, gzipDecompressionFunction(), true);
+			assertArrayEquals(expected, Files.readAllBytes(decompressed.toPath()));
+		}
+	}
+
+	@Test
+	public void testCompressStream() throws IOException {
+		byte[] content = bzip2Content(1);
+		final boolean[] closed = new boolean[1];
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream() {
+
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		};
+		CompressedFiles.compress(CompressedFiles.GZIP, new ByteArrayInputStream(content), compressed, gzipCompressionFunction(), 1024);
+		assertFalse(closed[0]);
+
+		ByteArrayInputStream compressedInputStream = new ByteArrayInputStream(compressed.toByteArray()) {
+
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		};
+		ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		CompressedFiles.decompress(CompressedFiles.GZIP, compressedInputStream, decompressed, gzipDecompressionFunction(), 1024);
+		assertFalse(closed[0]);
+		assertArrayEquals(content, decompressed.toByteArray());
+	}
+
+	@Test
+	public void testCreateCompressorStreams() throws IOException {
+		byte[] content = bzip2Content(1);
+		for (String fileType : new String[] { CompressedFiles.BZIP2, CompressedFiles.DEFLATE, CompressedFiles.GZIP, CompressedFiles.LZMA, CompressedFiles.XZ }) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (OutputStream outputStream = CompressedFiles.createCompressorOutputStream(fileType, compressed)) {
+				outputStream.write(content);
+			}
+			ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+			try (InputStream inputStream = CompressedFiles.createCompressorInputStream(fileType, new ByteArrayInputStream(compressed.toByteArray()))) {
+				byte[] buffer = new byte[1024];
+				int length = 0;
+				while ((length = inputStream.read(buffer)) > 0) {
+					decompressed.write(buffer, 0, length);
+				}
+			}
+			assertArrayEquals(fileType, content, decompressed.toByteArray());
+		}
+	}
+
+	@Test
+	public void testCreateCompressorOutputStreamIsNotSupported() throws IOException {
+		try {
+			CompressedFiles.createCompressorOutputStream(CompressedFiles.Z, new ByteArrayOutputStream());
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("File type " + CompressedFiles.Z + " cannot be compressed as a stream", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCreateCompressorInputStreamIsNotSupported() throws IOException {
+		try {
+			CompressedFiles.createCompressorInputStream(CompressedFiles.PACK200, new ByteArrayInputStream(new byte[0]));
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("File type " + CompressedFiles.PACK200 + " cannot be decompressed as a stream", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDetect() throws IOException {
+		byte[] content = bzip2Content(1);
+		for (String fileType : new String[] { CompressedFiles.BZIP2, CompressedFiles.DEFLATE, CompressedFiles.GZIP, CompressedFiles.LZMA, CompressedFiles.XZ }) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (OutputStream outputStream = CompressedFiles.createCompressorOutputStream(fileType, compressed)) {
+				outputStream.write(content);
+			}
+			assertEquals(fileType, CompressedFiles.detect(compressed.toByteArray(), compressed.size()));
+		}
+
+		ByteArrayOutputStream bgzf = new ByteArrayOutputStream();
+		try (CompressedFileOutputStreamParallelBgzfImpl outputStream = new CompressedFileOutputStreamParallelBgzfImpl(bgzf, Deflater.DEFAULT_COMPRESSION, 2)) {
+			outputStream.write(content, 0, content.length);
+		}
+		assertEquals(CompressedFiles.BGZF, CompressedFiles.detect(bgzf.toByteArray(), bgzf.size()));
+	}
+
+	@Test
+	public void testDetectIsUnknown() {
+		assertNull(CompressedFiles.detect("not compressed".getBytes(), 14));
+		assertNull(CompressedFiles.detect("BZh.txt".getBytes(), 7));
+		assertNull(CompressedFiles.detect(new byte[0], 0));
+	}
+
+	private static Function<OutputStream, CompressedFileOutputStream> gzipCompressionFunction() {
+		return new Function<OutputStream, CompressedFileOutputStream>() {
+
+			@Override
+			public CompressedFileOutputStream apply(OutputStream outputStream) {
+				try {
+					return new CompressedFileOutputStreamImpl(new GzipCompressorOutputStream(outputStream));
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	private static Function<InputStream, CompressedFileInputStream> gzipDecompressionFunction() {
+		return new Function<InputStream, CompressedFileInputStream>() {
+
+			@Override
+			public CompressedFileInputStream apply(InputStream inputStream) {
+				try {
+					return new CompressedFileInputStreamImpl(new GzipCompressorInputStream(inputStream));
+				}
+				catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.compress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
+import com.alanbuttars.commons.compress.archives.input.ArchiveInputStreamImpl;
+import com.alanbuttars.commons.compress.archives.util.Archives;
+
+/**
+ * Test class for {@link Compress#archive(ArchiveInputStream)}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ Archives.class })
+public class CompressArchiveTest {
+
+	private ArchiveInputStream source;
+	private File destination;
+
+	@Before
+	public void setup() throws IOException {
+		this.source = new ArchiveInputStreamImpl(new ZipArchiveInputStream(new ByteArrayInputStream(new byte[0])));
+		this.destination = File.createTempFile(getClass().getName(), ".tmp");
+	}
+
+	@After
+	public void teardown() {
+		destination.deleteOnExit();
+	}
+
+	@Test
+	public void testArchiveIsNull() {
+		try {
+			Compress.archive(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testArchive() {
+		CompressDirectoryWithStubTarImpl stub = Compress.archive(source).withTar();
+		assertNull(stub.source);
+		assertEquals(source, stub.sourceArchive);
+	}
+
+	@Test
+	public void testTar() throws IOException {
+		PowerMockito.mockStatic(Archives.class);
+		Compress.archive(source).withTar().to(destination);
+		PowerMockito.verifyStatic();
+	}
+
+	@Test
+	public void testZipToStream() throws IOException {
+		PowerMockito.mockStatic(Archives.class);
+		Compress.archive(source).withZip().toStream(new ByteArrayOutputStream());
+		PowerMockito.verifyStatic();
+	}
+
+	@Test
+	public void testArchiveCannotBeIncremental() throws IOException {
+		try {
+			Compress.archive(source).withTar().andManifest(destination).to(destination);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Archive streams cannot be compressed incrementally", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testArchiveCannotBeMerged() throws IOException {
+		try {
+			Compress.archive(source).withZip().andMerge(destination).to(destination);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Archive streams cannot be merged", e.getMessage());
+		}
+	}
+
+}
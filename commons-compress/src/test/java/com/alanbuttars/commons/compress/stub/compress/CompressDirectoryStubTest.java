@@ -28,6 +28,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.BiFunction;
 import com.alanbuttars.commons.util.functions.Function;
 
@@ -129,4 +130,30 @@ public class CompressDirectoryStubTest {
 			assertEquals("Entry function must be non-null", e.getMessage());
 		}
 	}
+
+	@Test
+	public void testUsingChannels() {
+		assertEquals(false, new CompressDirectoryStub(source).withTar().useChannels);
+		assertEquals(true, new CompressDirectoryStub(source).usingChannels().withTar().useChannels);
+		assertEquals(true, new CompressDirectoryStub(source).usingChannels().with("blah", compressionFunction, entryFunction).useChannels);
+	}
+
+	@Test
+	public void testUsingBufferSize() {
+		assertEquals(BufferPool.DEFAULT_BUFFER_SIZE, new CompressDirectoryStub(source).withTar().bufferSize);
+		assertEquals(1024, new CompressDirectoryStub(source).usingBufferSize(1024).withTar().bufferSize);
+		assertEquals(1024, new CompressDirectoryStub(source).usingBufferSize(1024).with("blah", compressionFunction, entryFunction).bufferSize);
+	}
+
+	@Test
+	public void testUsingBufferSizeIsNotPositive() {
+		try {
+			new CompressDirectoryStub(source).usingBufferSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Buffer size must be positive", e.getMessage());
+		}
+	}
+
 }
@@ -17,8 +17,11 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.SEVENZ;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNotNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -36,6 +39,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.alanbuttars.commons.compress.archives.output.ArchiveOutputStream7zSolidImpl;
+
 /**
  * Test class for {@link CompressDirectoryWithStub7zImpl}.
  * 
@@ -80,6 +85,53 @@ public class CompressDirectoryWithStub7zImplTest {
 		verify(stub, times(1)).createArchiveOutputStream(eq(destination), eq(contentMethods));
 	}
 
+	@Test
+	public void testSolidCompressionFunction() throws IOException {
+		stub.andSolidBlockSize(1024).andSolidBlockFiles(10).andThreads(4).to(destination);
+		verify(stub, times(1)).createSolidArchiveOutputStream(eq(destination), isNotNull(Iterable.class), eq(1024L), eq(10), eq(4));
+		verify(stub, never()).createArchiveOutputStream(any(File.class), any(Iterable.class));
+	}
+
+	@Test
+	public void testThreadsCompressionFunction() throws IOException {
+		stub.andThreads(2).to(destination);
+		verify(stub, times(1)).createSolidArchiveOutputStream(eq(destination), isNotNull(Iterable.class), eq(ArchiveOutputStream7zSolidImpl.DEFAULT_SOLID_BLOCK_SIZE),
+				eq(Integer.MAX_VALUE), eq(2));
+	}
+
+	@Test
+	public void testSolidBlockSizeIsNotPositive() {
+		try {
+			stub.andSolidBlockSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Solid block size must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSolidBlockFilesIsNotPositive() {
+		try {
+			stub.andSolidBlockFiles(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Solid block files must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+
 	@Test
 	public void testEntryFunction() {
 		ArchiveEntry entry = stub.entryFunction().apply("name", 1L);
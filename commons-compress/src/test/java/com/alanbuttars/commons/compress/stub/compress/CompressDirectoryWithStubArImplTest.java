@@ -17,6 +17,7 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.AR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.spy;
@@ -109,4 +110,22 @@ public class CompressDirectoryWithStubArImplTest {
 		assertEquals(4, arEntry.getMode());
 		assertEquals(5, arEntry.getUserId());
 	}
+
+	@Test
+	public void testThreads() {
+		assertEquals(1, stub.threads);
+		stub.andThreads(4);
+		assertEquals(4, stub.threads);
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
@@ -17,6 +17,7 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.CPIO;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -96,4 +97,22 @@ public class CompressDirectoryWithStubCpioImplTest {
 		assertEquals(1, cpioEntry.getSize());
 		assertEquals(2, cpioEntry.getFormat());
 	}
+
+	@Test
+	public void testThreads() {
+		assertEquals(1, stub.threads);
+		stub.andThreads(4);
+		assertEquals(4, stub.threads);
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
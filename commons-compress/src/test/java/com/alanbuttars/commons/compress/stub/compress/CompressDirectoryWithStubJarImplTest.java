@@ -17,7 +17,14 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.JAR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -29,9 +36,12 @@ import java.util.zip.ZipEntry;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.jar.JarArchiveEntry;
+import org.apache.commons.compress.archivers.zip.JarMarker;
 import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream.UnicodeExtraFieldPolicy;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -113,4 +123,47 @@ public class CompressDirectoryWithStubJarImplTest {
 		assertEquals("name", jarEntry.getName());
 		assertEquals(-1, jarEntry.getSize());
 	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		stub.andParallelism(4).to(destination);
+		verify(stub, times(1)).createParallelArchiveOutputStream(//
+				eq(destination), //
+				eq(""), //
+				eq("UTF8"), //
+				eq(false), //
+				eq(ZipArchiveOutputStream.DEFAULT_COMPRESSION), //
+				eq(ZipEntry.DEFLATED), //
+				eq(UnicodeExtraFieldPolicy.NEVER), //
+				eq(true), //
+				eq(Zip64Mode.AsNeeded), //
+				eq(4));
+		verify(stub, never()).createArchiveOutputStream(any(File.class), anyString(), anyString(), anyBoolean(), anyInt(), anyInt(), any(UnicodeExtraFieldPolicy.class),
+				anyBoolean(), any(Zip64Mode.class));
+	}
+
+	@Test
+	public void testParallelJarMarker() throws IOException {
+		for (int i = 0; i < 8; i++) {
+			File file = new File(source, "file" + i);
+			file.deleteOnExit();
+			Files.write(file.toPath(), ("content of file" + i).getBytes());
+		}
+		stub.andParallelism(4).to(destination);
+		try (ZipFile zipFile = new ZipFile(destination)) {
+			ZipArchiveEntry firstEntry = zipFile.getEntriesInPhysicalOrder().nextElement();
+			assertTrue(firstEntry.getExtraFields()[0] instanceof JarMarker);
+		}
+	}
+
+	@Test
+	public void testParallelismIsNotPositive() {
+		try {
+			stub.andParallelism(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Parallelism must be positive", e.getMessage());
+		}
+	}
 }
@@ -17,6 +17,7 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.TAR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.spy;
@@ -35,6 +36,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+
 /**
  * Test class for {@link CompressDirectoryWithStubTarImpl}.
  * 
@@ -113,4 +116,77 @@ public class CompressDirectoryWithStubTarImplTest {
 		assertEquals("/name", tarEntry.getName());
 		assertEquals(1, tarEntry.getSize());
 	}
+
+	@Test
+	public void testThreads() {
+		assertEquals(1, stub.threads);
+		stub.andThreads(4);
+		assertEquals(4, stub.threads);
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressionIsNull() {
+		try {
+			stub.andCompression(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compression must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressionIsNotSupported() {
+		try {
+			stub.andCompression(CompressedFiles.Z);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compression " + CompressedFiles.Z + " is not supported", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testManifestIsNull() {
+		try {
+			stub.andManifest(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Manifest must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAppendToCompressedArchive() throws IOException {
+		try {
+			stub.andCompression(CompressedFiles.GZIP).appendTo(destination);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compressed archives cannot be appended to", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAppendToIncrementalArchive() throws IOException {
+		try {
+			stub.andManifest(destination).appendTo(destination);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Incremental archives cannot be appended to", e.getMessage());
+		}
+	}
 }
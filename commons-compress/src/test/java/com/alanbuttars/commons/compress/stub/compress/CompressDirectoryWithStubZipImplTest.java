@@ -17,7 +17,13 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.ZIP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -113,4 +119,55 @@ public class CompressDirectoryWithStubZipImplTest {
 		assertEquals("name", zipEntry.getName());
 		assertEquals(-1, zipEntry.getSize());
 	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		stub.andParallelism(4).to(destination);
+		verify(stub, times(1)).createParallelArchiveOutputStream(//
+				eq(destination), //
+				eq(""), //
+				eq("UTF8"), //
+				eq(false), //
+				eq(ZipArchiveOutputStream.DEFAULT_COMPRESSION), //
+				eq(ZipEntry.DEFLATED), //
+				eq(UnicodeExtraFieldPolicy.NEVER), //
+				eq(true), //
+				eq(Zip64Mode.AsNeeded), //
+				eq(4));
+		verify(stub, never()).createArchiveOutputStream(any(File.class), anyString(), anyString(), anyBoolean(), anyInt(), anyInt(), any(UnicodeExtraFieldPolicy.class),
+				anyBoolean(), any(Zip64Mode.class));
+	}
+
+	@Test
+	public void testParallelismIsNotPositive() {
+		try {
+			stub.andParallelism(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Parallelism must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMergeIsNull() {
+		try {
+			stub.andMerge((File[]) null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Archives must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMergeIntoItself() throws IOException {
+		try {
+			stub.andMerge(destination).to(destination);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination " + destination.getAbsolutePath() + " must not be merged into itself", e.getMessage());
+		}
+	}
 }
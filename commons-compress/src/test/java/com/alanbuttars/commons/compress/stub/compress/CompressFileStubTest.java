@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStream;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -108,4 +109,29 @@ public class CompressFileStubTest {
 		}
 	}
 
+	@Test
+	public void testUsingChannels() {
+		assertEquals(false, new CompressFileStub(source).withGzip().useChannels);
+		assertEquals(true, new CompressFileStub(source).usingChannels().withGzip().useChannels);
+		assertEquals(true, new CompressFileStub(source).usingChannels().with("blah", compressionFunction).useChannels);
+	}
+
+	@Test
+	public void testUsingBufferSize() {
+		assertEquals(BufferPool.DEFAULT_BUFFER_SIZE, new CompressFileStub(source).withGzip().bufferSize);
+		assertEquals(1024, new CompressFileStub(source).usingBufferSize(1024).withGzip().bufferSize);
+		assertEquals(1024, new CompressFileStub(source).usingBufferSize(1024).with("blah", compressionFunction).bufferSize);
+	}
+
+	@Test
+	public void testUsingBufferSizeIsNotPositive() {
+		try {
+			new CompressFileStub(source).usingBufferSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Buffer size must be positive", e.getMessage());
+		}
+	}
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.compress;
+
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BGZF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CompressFileWithStubBgzfImpl}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class CompressFileWithStubBgzfImplTest {
+
+	private File source;
+	private File destination;
+	private CompressFileWithStubBgzfImpl stub;
+
+	@Before
+	public void setup() throws IOException {
+		source = File.createTempFile(getClass().getName(), ".tmp");
+		destination = File.createTempFile(getClass().getName(), ".tmp");
+		stub = spy(new CompressFileWithStubBgzfImpl(source));
+	}
+
+	@After
+	public void teardown() {
+		source.deleteOnExit();
+		destination.deleteOnExit();
+	}
+
+	@Test
+	public void testConstructor() {
+		assertEquals(source, stub.source);
+		assertEquals(BGZF, stub.fileType);
+	}
+
+	@Test
+	public void testCompressionFunction() throws IOException {
+		stub.to(destination);
+		verify(stub, times(1)).createCompressedFileOutputStream(any(OutputStream.class), eq(Deflater.DEFAULT_COMPRESSION), eq(1));
+	}
+
+	@Test
+	public void testCustomCompressionFunction() throws IOException {
+		stub.andLevel(Deflater.BEST_SPEED).andThreads(4).to(destination);
+		verify(stub, times(1)).createCompressedFileOutputStream(any(OutputStream.class), eq(Deflater.BEST_SPEED), eq(4));
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+}
@@ -17,9 +17,11 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BZIP2;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -74,4 +76,22 @@ public class CompressFileWithStubBzip2ImplTest {
 		stub.andBlockSize(2).to(destination);
 		verify(stub, times(1)).createCompressedFileOutputStream(any(OutputStream.class), eq(2));
 	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		stub.andBlockSize(2).andThreads(4).to(destination);
+		verify(stub, times(1)).createParallelCompressedFileOutputStream(any(OutputStream.class), eq(2), eq(4));
+		verify(stub, never()).createCompressedFileOutputStream(any(OutputStream.class), any(Integer.class));
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
@@ -17,10 +17,12 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.GZIP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNotNull;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -76,4 +78,23 @@ public class CompressFileWithStubGzipImplTest {
 		stub.andParameters(parameters).to(destination);
 		verify(stub, times(1)).createCompressedFileOutputStream(any(OutputStream.class), eq(parameters));
 	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		GzipParameters parameters = new GzipParameters();
+		stub.andParameters(parameters).andThreads(4).to(destination);
+		verify(stub, times(1)).createParallelCompressedFileOutputStream(any(OutputStream.class), eq(parameters), eq(4));
+		verify(stub, never()).createCompressedFileOutputStream(any(OutputStream.class), any(GzipParameters.class));
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
@@ -78,6 +78,17 @@ public class CompressFileWithStubTest {
 		}
 	}
 
+	@Test
+	public void testToStreamDestinationIsNull() throws IOException {
+		try {
+			stub.toStream(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination must be non-null", e.getMessage());
+		}
+	}
+
 	@Test
 	public void testToDestinationIsDirectory() throws IOException {
 		File directory = Files.createTempDirectory(getClass().getName()).toFile();
@@ -102,4 +113,26 @@ public class CompressFileWithStubTest {
 		}
 	}
 
+	@Test
+	public void testAppendToDestinationIsNull() throws IOException {
+		try {
+			stub.appendTo(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAppendToFileTypeCannotBeAppendedTo() throws IOException {
+		try {
+			stub.appendTo(destination);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("File type blah cannot be appended to", e.getMessage());
+		}
+	}
+
 }
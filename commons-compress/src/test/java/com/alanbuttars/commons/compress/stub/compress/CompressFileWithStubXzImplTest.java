@@ -17,8 +17,10 @@ package com.alanbuttars.commons.compress.stub.compress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.XZ;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -32,6 +34,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.tukaani.xz.LZMA2Options;
 
+import com.alanbuttars.commons.compress.files.output.CompressedFileOutputStreamParallelXzImpl;
+
 /**
  * Test class for {@link CompressFileWithStubXzImpl}.
  * 
@@ -74,4 +78,51 @@ public class CompressFileWithStubXzImplTest {
 		stub.andPreset(2).to(destination);
 		verify(stub, times(1)).createCompressedFileOutputStream(any(OutputStream.class), eq(2));
 	}
+
+	@Test
+	public void testBlockSizeCompressionFunction() throws IOException {
+		stub.andBlockSize(1024).to(destination);
+		verify(stub, times(1)).createParallelCompressedFileOutputStream(any(OutputStream.class), eq(LZMA2Options.PRESET_DEFAULT), eq(1024), eq(1));
+		verify(stub, never()).createCompressedFileOutputStream(any(OutputStream.class), any(Integer.class));
+	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		stub.andPreset(1).andThreads(4).to(destination);
+		verify(stub, times(1)).createParallelCompressedFileOutputStream(any(OutputStream.class), eq(1), eq(CompressedFileOutputStreamParallelXzImpl.defaultBlockSize(1)), eq(4));
+		verify(stub, never()).createCompressedFileOutputStream(any(OutputStream.class), any(Integer.class));
+	}
+
+	@Test
+	public void testBlockSizeIsNotPositive() {
+		try {
+			stub.andBlockSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Block size must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testBlockSizeIsTooLarge() {
+		try {
+			stub.andBlockSize(Integer.MAX_VALUE);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Block size must be less than 2GB", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
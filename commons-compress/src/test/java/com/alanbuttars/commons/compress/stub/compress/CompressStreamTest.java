@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.compress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+
+/**
+ * Test class for {@link Compress#stream(InputStream)}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ CompressedFiles.class })
+public class CompressStreamTest {
+
+	private InputStream source;
+	private File destination;
+
+	@Before
+	public void setup() throws IOException {
+		this.source = new ByteArrayInputStream(new byte[0]);
+		this.destination = File.createTempFile(getClass().getName(), ".tmp");
+	}
+
+	@After
+	public void teardown() {
+		destination.deleteOnExit();
+	}
+
+	@Test
+	public void testStreamIsNull() {
+		try {
+			Compress.stream(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStream() {
+		CompressFileStub stub = Compress.stream(source);
+		assertNull(stub.source);
+		assertEquals(source, stub.sourceStream);
+	}
+
+	@Test
+	public void testGzip() throws IOException {
+		PowerMockito.mockStatic(CompressedFiles.class);
+		Compress.stream(source).withGzip().andParameters(new GzipParameters()).to(destination);
+		PowerMockito.verifyStatic();
+	}
+
+	@Test
+	public void testGzipToStream() throws IOException {
+		PowerMockito.mockStatic(CompressedFiles.class);
+		Compress.stream(source).withGzip().andParameters(new GzipParameters()).toStream(new ByteArrayOutputStream());
+		PowerMockito.verifyStatic();
+	}
+
+	@Test
+	public void testBytesIsNull() {
+		try {
+			Compress.bytes(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testBytes() {
+		CompressFileStub stub = Compress.bytes(new byte[0]);
+		assertNull(stub.source);
+		assertNotNull(stub.sourceStream);
+	}
+
+}
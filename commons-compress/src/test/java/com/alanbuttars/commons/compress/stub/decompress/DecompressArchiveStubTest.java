@@ -26,6 +26,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.alanbuttars.commons.compress.archives.input.ArchiveInputStream;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -107,4 +108,29 @@ public class DecompressArchiveStubTest {
 		}
 	}
 
+	@Test
+	public void testUsingChannels() {
+		assertEquals(false, new DecompressArchiveStub(source).withTar().useChannels);
+		assertEquals(true, new DecompressArchiveStub(source).usingChannels().withTar().useChannels);
+		assertEquals(true, new DecompressArchiveStub(source).usingChannels().with("blah", decompressionFunction).useChannels);
+	}
+
+	@Test
+	public void testUsingBufferSize() {
+		assertEquals(BufferPool.DEFAULT_BUFFER_SIZE, new DecompressArchiveStub(source).withTar().bufferSize);
+		assertEquals(1024, new DecompressArchiveStub(source).usingBufferSize(1024).withTar().bufferSize);
+		assertEquals(1024, new DecompressArchiveStub(source).usingBufferSize(1024).with("blah", decompressionFunction).bufferSize);
+	}
+
+	@Test
+	public void testUsingBufferSizeIsNotPositive() {
+		try {
+			new DecompressArchiveStub(source).usingBufferSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Buffer size must be positive", e.getMessage());
+		}
+	}
+
 }
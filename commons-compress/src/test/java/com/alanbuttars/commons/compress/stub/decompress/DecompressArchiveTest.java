@@ -16,10 +16,14 @@
 package com.alanbuttars.commons.compress.stub.decompress;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 
 import org.junit.After;
@@ -110,6 +114,50 @@ public class DecompressArchiveTest {
 		assertEquals(source, stub.source);
 	}
 
+	@Test
+	public void testArchiveStreamIsNull() {
+		try {
+			Decompress.archiveStream(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testArchiveStream() {
+		InputStream sourceStream = new ByteArrayInputStream(new byte[0]);
+		DecompressArchiveStub stub = Decompress.archiveStream(sourceStream);
+		assertNull(stub.source);
+		assertEquals(sourceStream, stub.sourceStream);
+	}
+
+	@Test
+	public void testArchiveBytesIsNull() {
+		try {
+			Decompress.archiveBytes(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testArchiveBytes() {
+		DecompressArchiveStub stub = Decompress.archiveBytes(new byte[0]);
+		assertNull(stub.source);
+		assertNotNull(stub.sourceStream);
+	}
+
+	@Test
+	public void testTarStream() throws IOException {
+		PowerMockito.mockStatic(Archives.class);
+		Decompress.archiveStream(new ByteArrayInputStream(new byte[0])).withTar().to(destination);
+		PowerMockito.verifyStatic();
+	}
+
 	@Test
 	public void test7z() throws IOException {
 		PowerMockito.mockStatic(Archives.class);
@@ -165,4 +213,15 @@ public class DecompressArchiveTest {
 		Decompress.archive(source).withZip().andAllowStoredEntriesWithDataDescriptor(false).andEncoding("UTF16").andUseUnicodeExtraFields(false).to(destination);
 		PowerMockito.verifyStatic();
 	}
+
+	@Test
+	public void test7zStream() throws IOException {
+		try {
+			Decompress.archiveStream(new ByteArrayInputStream(new byte[0])).with7z().stream();
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("File type " + Archives.SEVENZ + " can only be streamed from a file", e.getMessage());
+		}
+	}
 }
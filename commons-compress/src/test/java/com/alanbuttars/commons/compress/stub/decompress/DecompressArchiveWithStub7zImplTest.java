@@ -17,6 +17,7 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.SEVENZ;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.spy;
@@ -27,6 +28,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Collections;
 
 import org.junit.After;
 import org.junit.Before;
@@ -81,4 +83,64 @@ public class DecompressArchiveWithStub7zImplTest {
 		stub.andDecryptWithPassword("password".getBytes()).to(destination);
 		verify(stub, times(1)).createArchiveInputStream(eq(source), eq("password".getBytes()));
 	}
+
+	@Test(expected = EOFException.class)
+	public void testParallelDecompression() throws IOException {
+		stub.andThreads(4).andMemoryLimit(1024).to(destination);
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMemoryLimitIsNotPositive() {
+		try {
+			stub.andMemoryLimit(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Memory limit must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryNameIsNull() {
+		try {
+			stub.entry(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Entry name must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryNamesIsEmpty() {
+		try {
+			stub.entries(Collections.<String> emptyList());
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Entry names must be non-empty", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryToStreamDestinationIsNull() throws IOException {
+		try {
+			stub.entry("file").toStream(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination must be non-null", e.getMessage());
+		}
+	}
 }
@@ -17,6 +17,7 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.DUMP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -80,4 +81,15 @@ public class DecompressArchiveWithStubDumpImplTest {
 		stub.andEncoding("UTF16").to(destination);
 		verify(stub, times(1)).createArchiveInputStream(eq(source), eq("UTF16"));
 	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
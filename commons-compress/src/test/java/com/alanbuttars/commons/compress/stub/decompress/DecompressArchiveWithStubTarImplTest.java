@@ -17,6 +17,7 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.TAR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.spy;
@@ -27,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarConstants;
 import org.junit.After;
 import org.junit.Before;
@@ -81,4 +83,108 @@ public class DecompressArchiveWithStubTarImplTest {
 		stub.andBlockSize(1).andEncoding("UTF16").andRecordSize(2).to(destination);
 		verify(stub, times(1)).createArchiveInputStream(eq(source), eq(1), eq("UTF16"), eq(2));
 	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressionIsNull() {
+		try {
+			stub.andCompression(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compression must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressionIsNotSupported() {
+		try {
+			stub.andCompression(CompressedFiles.PACK200);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compression " + CompressedFiles.PACK200 + " is not supported", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testIndexIsNull() {
+		try {
+			stub.andIndex(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Index must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryCompressionCannotBeIndexed() {
+		try {
+			stub.andCompression(CompressedFiles.BZIP2).entry("file");
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Compression " + CompressedFiles.BZIP2 + " cannot be indexed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testToIndexDestinationIsNull() throws IOException {
+		try {
+			stub.toIndex(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testIncrementsIsNull() {
+		try {
+			stub.andIncrements(new File[] { null });
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Increments must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStreamIncrements() throws IOException {
+		try {
+			stub.andIncrements(source).stream();
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Incremental archives cannot be streamed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testToMapEntryTooLarge() throws IOException {
+		TarArchiveEntry entry = new TarArchiveEntry("large");
+		entry.setSize(3L * Integer.MAX_VALUE);
+		byte[] header = new byte[TarConstants.DEFAULT_RCDSIZE];
+		entry.writeEntryHeader(header);
+		Files.write(source.toPath(), header);
+		try {
+			stub.toMap();
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Entry large of " + 3L * Integer.MAX_VALUE + " bytes is too large to be read in memory", e.getMessage());
+		}
+	}
 }
@@ -17,7 +17,12 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.archives.util.Archives.ZIP;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -25,6 +30,7 @@ import static org.mockito.Mockito.verify;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Collections;
 
 import org.junit.After;
 import org.junit.Before;
@@ -79,4 +85,60 @@ public class DecompressArchiveWithStubZipImplTest {
 		stub.andAllowStoredEntriesWithDataDescriptor(true).andEncoding("UTF16").andUseUnicodeExtraFields(false).to(destination);
 		verify(stub, times(1)).createArchiveInputStream(eq(source), eq(true), eq("UTF16"), eq(false));
 	}
+
+	@Test
+	public void testParallelDecompression() throws IOException {
+		try {
+			stub.andThreads(4).to(destination);
+			fail();
+		}
+		catch (IOException e) {
+			// an empty file has no central directory
+		}
+		verify(stub, never()).createArchiveInputStream(any(File.class), anyBoolean(), anyString(), anyBoolean());
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryNameIsNull() {
+		try {
+			stub.entry(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Entry name must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryNamesIsEmpty() {
+		try {
+			stub.entries(Collections.<String> emptyList());
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Entry names must be non-empty", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEntryToStreamDestinationIsNull() throws IOException {
+		try {
+			stub.entry("file").toStream(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination must be non-null", e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.decompress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alanbuttars.commons.compress.archives.util.Archives;
+import com.alanbuttars.commons.compress.files.util.CompressedFiles;
+import com.alanbuttars.commons.compress.stub.compress.Compress;
+
+/**
+ * Test class for {@link Decompress#auto(File)}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class DecompressAutoTest {
+
+	private File directory;
+	private File source;
+
+	@Before
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory(getClass().getName()).toFile();
+		source = new File(directory, "test.txt");
+		Files.write(source.toPath(), "a\nb\nc".getBytes());
+	}
+
+	@After
+	public void teardown() {
+		source.deleteOnExit();
+		directory.deleteOnExit();
+	}
+
+	@Test
+	public void testFileIsNull() throws IOException {
+		try {
+			Decompress.auto(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source must be non-null", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFileIsNotRecognized() throws IOException {
+		try {
+			Decompress.auto(source);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source " + source.getAbsolutePath() + " is not a recognized compressed file or archive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressedFile() throws IOException {
+		File compressed = Compress.file(source).withBzip2().toTempFile();
+		compressed.deleteOnExit();
+
+		DecompressAutoStub stub = Decompress.auto(compressed);
+		assertEquals(CompressedFiles.BZIP2, stub.getFileType());
+		assertNull(stub.getArchiveType());
+
+		File decompressed = stub.toTempFile();
+		decompressed.deleteOnExit();
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(decompressed.toPath()));
+	}
+
+	@Test
+	public void testCompressedFileToTempDirectory() throws IOException {
+		File compressed = Compress.file(source).withGzip().toTempFile();
+		compressed.deleteOnExit();
+		try {
+			Decompress.auto(compressed).toTempDirectory();
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source " + compressed.getAbsolutePath() + " is not an archive; to decompress it use toTempFile()", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testArchive() throws IOException {
+		File archive = Compress.directory(directory).withZip().toTempFile();
+		archive.deleteOnExit();
+
+		DecompressAutoStub stub = Decompress.auto(archive);
+		assertNull(stub.getFileType());
+		assertEquals(Archives.ZIP, stub.getArchiveType());
+
+		File decompressed = stub.toTempDirectory();
+		decompressed.deleteOnExit();
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(new File(decompressed, "test.txt").toPath()));
+	}
+
+	@Test
+	public void testArchiveWithCompressedSignature() throws IOException {
+		byte[] content = "content".getBytes();
+		for (String name : new String[] { "BZh91AY&SY", "x^name", "]\u0000\u0000name" }) {
+			File archive = File.createTempFile(getClass().getName(), ".tar");
+			archive.deleteOnExit();
+			try (TarArchiveOutputStream outputStream = new TarArchiveOutputStream(new FileOutputStream(archive))) {
+				TarArchiveEntry entry = new TarArchiveEntry(name);
+				entry.setSize(content.length);
+				outputStream.putArchiveEntry(entry);
+				outputStream.write(content);
+				outputStream.closeArchiveEntry();
+			}
+
+			DecompressAutoStub stub = Decompress.auto(archive);
+			assertNull(stub.getFileType());
+			assertEquals(Archives.TAR, stub.getArchiveType());
+		}
+	}
+
+	@Test
+	public void testArchiveToTempFile() throws IOException {
+		File archive = Compress.directory(directory).withTar().toTempFile();
+		archive.deleteOnExit();
+		try {
+			Decompress.auto(archive).toTempFile();
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Source " + archive.getAbsolutePath() + " is an archive; to decompress it use toTempDirectory()", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressedArchive() throws IOException {
+		File archive = Compress.directory(directory).withTar().andCompression(CompressedFiles.XZ).toTempFile();
+		archive.deleteOnExit();
+
+		DecompressAutoStub stub = Decompress.auto(archive);
+		assertEquals(CompressedFiles.XZ, stub.getFileType());
+		assertEquals(Archives.TAR, stub.getArchiveType());
+
+		File decompressed = stub.toTempDirectory();
+		decompressed.deleteOnExit();
+		assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(new File(decompressed, "test.txt").toPath()));
+	}
+
+	@Test
+	public void testUsingBufferSizeIsNotPositive() throws IOException {
+		File compressed = Compress.file(source).withGzip().toTempFile();
+		compressed.deleteOnExit();
+		try {
+			Decompress.auto(compressed).usingBufferSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Buffer size must be positive", e.getMessage());
+		}
+	}
+
+}
@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.alanbuttars.commons.compress.files.input.CompressedFileInputStream;
+import com.alanbuttars.commons.compress.util.BufferPool;
 import com.alanbuttars.commons.util.functions.Function;
 
 /**
@@ -107,4 +108,30 @@ public class DecompressCompressedFileStubTest {
 			assertEquals("Decompression function must be non-null", e.getMessage());
 		}
 	}
+
+	@Test
+	public void testUsingChannels() {
+		assertEquals(false, new DecompressCompressedFileStub(source).withGzip().useChannels);
+		assertEquals(true, new DecompressCompressedFileStub(source).usingChannels().withGzip().useChannels);
+		assertEquals(true, new DecompressCompressedFileStub(source).usingChannels().with("blah", compressionFunction).useChannels);
+	}
+
+	@Test
+	public void testUsingBufferSize() {
+		assertEquals(BufferPool.DEFAULT_BUFFER_SIZE, new DecompressCompressedFileStub(source).withGzip().bufferSize);
+		assertEquals(1024, new DecompressCompressedFileStub(source).usingBufferSize(1024).withGzip().bufferSize);
+		assertEquals(1024, new DecompressCompressedFileStub(source).usingBufferSize(1024).with("blah", compressionFunction).bufferSize);
+	}
+
+	@Test
+	public void testUsingBufferSizeIsNotPositive() {
+		try {
+			new DecompressCompressedFileStub(source).usingBufferSize(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Buffer size must be positive", e.getMessage());
+		}
+	}
+
 }
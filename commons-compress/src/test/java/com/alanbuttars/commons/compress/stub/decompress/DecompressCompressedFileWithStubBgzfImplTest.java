@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.stub.decompress;
+
+import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BGZF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+/**
+ * Test class for {@link DecompressCompressedFileWithStubBgzfImpl}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+@RunWith(PowerMockRunner.class)
+public class DecompressCompressedFileWithStubBgzfImplTest {
+
+	private File source;
+	private File destination;
+	private DecompressCompressedFileWithStubBgzfImpl stub;
+
+	@Before
+	public void setup() throws IOException {
+		source = File.createTempFile(getClass().getName(), ".tmp");
+		destination = File.createTempFile(getClass().getName(), ".tmp");
+		stub = spy(new DecompressCompressedFileWithStubBgzfImpl(source));
+	}
+
+	@After
+	public void teardown() {
+		source.deleteOnExit();
+		destination.deleteOnExit();
+	}
+
+	@Test
+	public void testConstructor() {
+		assertEquals(source, stub.source);
+		assertEquals(BGZF, stub.fileType);
+	}
+
+	@Test(expected = IOException.class)
+	public void testCompressionFunction() throws IOException {
+		stub.to(destination);
+		verify(stub, times(1)).createCompressedFileInputStream(any(InputStream.class));
+	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		try {
+			stub.andThreads(4).to(destination);
+			fail();
+		}
+		catch (IOException e) {
+			// an empty file is not a gzip file
+		}
+		verify(stub, never()).createCompressedFileInputStream(any(InputStream.class));
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
+}
@@ -17,8 +17,11 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.BZIP2;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -80,4 +83,27 @@ public class DecompressCompressedFileWithStubBzip2ImplTest {
 		stub.andDecompressConcatenated(true).to(destination);
 		verify(stub, times(1)).createCompressedFileInputStream(any(InputStream.class), eq(true));
 	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		try {
+			stub.andThreads(4).to(destination);
+			fail();
+		}
+		catch (IOException e) {
+			assertEquals("Stream is not in the BZip2 format", e.getMessage());
+		}
+		verify(stub, never()).createCompressedFileInputStream(any(InputStream.class), anyBoolean());
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
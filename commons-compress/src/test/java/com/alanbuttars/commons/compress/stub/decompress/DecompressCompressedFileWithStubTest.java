@@ -78,6 +78,17 @@ public class DecompressCompressedFileWithStubTest {
 		}
 	}
 
+	@Test
+	public void testToStreamDestinationIsNull() throws IOException {
+		try {
+			stub.toStream(null);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Destination must be non-null", e.getMessage());
+		}
+	}
+
 	@Test
 	public void testToDestinationIsDirectory() throws IOException {
 		File directory = Files.createTempDirectory(getClass().getName()).toFile();
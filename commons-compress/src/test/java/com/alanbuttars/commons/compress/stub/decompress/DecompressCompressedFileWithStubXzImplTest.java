@@ -17,8 +17,11 @@ package com.alanbuttars.commons.compress.stub.decompress;
 
 import static com.alanbuttars.commons.compress.files.util.CompressedFiles.XZ;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -77,4 +80,27 @@ public class DecompressCompressedFileWithStubXzImplTest {
 		stub.andDecompressConcatenated(true).to(destination);
 		verify(stub, times(1)).createCompressedFileInputStream(any(InputStream.class), eq(true));
 	}
+
+	@Test
+	public void testParallelCompressionFunction() throws IOException {
+		try {
+			stub.andThreads(4).to(destination);
+			fail();
+		}
+		catch (IOException e) {
+			// an empty file is not an xz file
+		}
+		verify(stub, never()).createCompressedFileInputStream(any(InputStream.class), anyBoolean());
+	}
+
+	@Test
+	public void testThreadsIsNotPositive() {
+		try {
+			stub.andThreads(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Threads must be positive", e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link BufferPool}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class BufferPoolTest {
+
+	private BufferPool pool;
+
+	@Before
+	public void setup() {
+		pool = new BufferPool(2);
+	}
+
+	@Test
+	public void testConstructorIsNotPositive() {
+		try {
+			new BufferPool(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Max buffers per size must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAcquireIsNotPositive() {
+		try {
+			pool.acquire(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Buffer size must be positive", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAcquire() {
+		assertEquals(1024, pool.acquire(1024).length);
+		assertEquals(0, pool.available(1024));
+	}
+
+	@Test
+	public void testRelease() {
+		byte[] buffer = pool.acquire(1024);
+		pool.release(buffer);
+		assertEquals(1, pool.available(1024));
+		assertSame(buffer, pool.acquire(1024));
+		assertEquals(0, pool.available(1024));
+		assertNotSame(buffer, pool.acquire(2048));
+	}
+
+	@Test
+	public void testReleaseIsCapped() {
+		pool.release(new byte[1024]);
+		pool.release(new byte[1024]);
+		pool.release(new byte[1024]);
+		assertEquals(2, pool.available(1024));
+	}
+
+	@Test
+	public void testReleaseIsTooLarge() {
+		pool.release(new byte[BufferPool.MAX_POOLED_SIZE + 1]);
+		assertEquals(0, pool.available(BufferPool.MAX_POOLED_SIZE + 1));
+	}
+
+	@Test
+	public void testReleaseIsNull() {
+		pool.release(null);
+	}
+
+	@Test
+	public void testBufferedInputStream() throws IOException {
+		byte[] content = content(1000);
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		try (BufferedInputStream inputStream = pool.bufferedInputStream(new ByteArrayInputStream(content), 64)) {
+			int value;
+			while ((value = inputStream.read()) != -1) {
+				copy.write(value);
+			}
+		}
+		assertArrayEquals(content, copy.toByteArray());
+		assertEquals(1, pool.available(64));
+	}
+
+	@Test
+	public void testBufferedOutputStream() throws IOException {
+		byte[] content = content(1000);
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		try (BufferedOutputStream outputStream = pool.bufferedOutputStream(copy, 64)) {
+			for (byte value : content) {
+				outputStream.write(value);
+			}
+		}
+		assertArrayEquals(content, copy.toByteArray());
+		assertEquals(1, pool.available(64));
+	}
+
+	@Test
+	public void testCloseReleasesOnce() throws IOException {
+		BufferedOutputStream outputStream = pool.bufferedOutputStream(new ByteArrayOutputStream(), 64);
+		outputStream.close();
+		outputStream.close();
+		assertEquals(1, pool.available(64));
+	}
+
+	private static byte[] content(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) i;
+		}
+		return content;
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) Alan Buttars
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alanbuttars.commons.compress.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link SizedByteArrayOutputStream}.
+ * 
+ * @author Alan Buttars
+ *
+ */
+public class SizedByteArrayOutputStreamTest {
+
+	private static final byte[] CONTENT = "content of exactly 32 bytes long".getBytes();
+
+	@Test
+	public void testToByteArrayIsExact() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(CONTENT.length);
+		outputStream.write(CONTENT);
+		byte[] content = outputStream.toByteArray();
+		assertArrayEquals(CONTENT, content);
+		assertNotSame(content, outputStream.toByteArray());
+	}
+
+	@Test
+	public void testToByteArrayAfterReset() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(CONTENT.length);
+		outputStream.write(CONTENT);
+		byte[] content = outputStream.toByteArray();
+		outputStream.reset();
+		outputStream.write(new byte[CONTENT.length]);
+		assertArrayEquals(CONTENT, content);
+	}
+
+	@Test
+	public void testToByteArrayIsOverestimated() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(1024);
+		outputStream.write(CONTENT);
+		byte[] content = outputStream.toByteArray();
+		assertArrayEquals(CONTENT, content);
+		assertNotSame(content, outputStream.toByteArray());
+	}
+
+	@Test
+	public void testToByteArrayIsUnderestimated() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(-1);
+		outputStream.write(CONTENT);
+		outputStream.write(CONTENT);
+		assertEquals(2 * CONTENT.length, outputStream.toByteArray().length);
+	}
+
+	@Test
+	public void testExpectedSizeIsCapped() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(Long.MAX_VALUE);
+		outputStream.write(CONTENT);
+		assertEquals(SizedByteArrayOutputStream.MAX_INITIAL_SIZE, outputStream.toByteBuffer().capacity());
+		assertArrayEquals(CONTENT, outputStream.toByteArray());
+	}
+
+	@Test
+	public void testToByteBuffer() throws IOException {
+		SizedByteArrayOutputStream outputStream = new SizedByteArrayOutputStream(1024);
+		outputStream.write(CONTENT);
+		ByteBuffer buffer = outputStream.toByteBuffer();
+		assertEquals(CONTENT.length, buffer.remaining());
+		byte[] content = new byte[buffer.remaining()];
+		buffer.get(content);
+		assertArrayEquals(CONTENT, content);
+	}
+
+}